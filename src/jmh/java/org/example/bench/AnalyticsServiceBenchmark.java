@@ -0,0 +1,58 @@
+package org.example.bench;
+
+import org.example.model.*;
+import org.example.service.AnalyticsService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class AnalyticsServiceBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    private final AnalyticsService service = new AnalyticsService();
+    private List<Transaction> transactions;
+    private List<Booking> bookings;
+    private List<Lesson> lessons;
+    private List<Equipment> equipment;
+    private List<UserRental> rentals;
+
+    @Setup
+    public void setUp() {
+        BenchData data = new BenchData(42, Math.max(100, rows / 20));
+        transactions = data.transactions(rows);
+        bookings = data.bookings(rows);
+        lessons = data.lessons(rows, data.instructorNames(60));
+        equipment = data.equipment(Math.max(14, rows / 100));
+        rentals = data.rentals(rows, equipment);
+    }
+
+    @Benchmark
+    public Map<String, Integer> dailyAttendance() {
+        return service.calculateDailyAttendance(transactions);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> hourlyActivity() {
+        return service.calculateHourlyActivity(bookings);
+    }
+
+    @Benchmark
+    public List<AnalyticsService.InstructorStats> instructorStats() {
+        return service.calculateInstructorStats(lessons);
+    }
+
+    @Benchmark
+    public AnalyticsService.EquipmentPopularity equipmentPopularity() {
+        return service.calculateEquipmentPopularity(rentals, equipment);
+    }
+}
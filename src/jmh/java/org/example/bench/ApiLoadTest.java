@@ -0,0 +1,298 @@
+package org.example.bench;
+
+import org.example.Services;
+import org.example.metrics.LatencyHistogram;
+import org.example.security.PasswordHasher;
+import org.example.server.ApiServer;
+import org.example.server.Json;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Навантажувальний тест HTTP API (org.example.server.ApiServer): тисячі одночасних клієнтів,
+ * кожен у власному віртуальному потоці, з суміші читань і записів як у касира/кіоску.
+ *
+ * Без --url сервер піднімається в цьому ж процесі на тимчасовій БД з тестовими даними;
+ * з --url навантаження йде на вже запущений сервер (дані мають містити користувачів user0.. з паролем
+ * "pass", інструкторів Instructor0.. і спорядження з id >= 4, як після PersistenceHarness/seed).
+ * Кожен клієнт спершу входить і далі працює у власному сеансі.
+ *
+ * Запуск:
+ * mvn -Pbench compile exec:java -Dexec.mainClass=org.example.bench.ApiLoadTest \
+ *     -Dexec.args="--clients=5000 --requests=20 --writes=20"
+ *
+ * Параметри:
+ * --url=<base>       адреса сервера, напр. http://localhost:8080 (за замовчуванням - вбудований)
+ * --clients=<N>      кількість одночасних клієнтів (за замовчуванням 2000)
+ * --requests=<N>     запитів на клієнта (за замовчуванням 20)
+ * --writes=<0..100>  відсоток запитів на запис (за замовчуванням 20)
+ * --users=<N>        кількість користувачів у вбудованій БД (за замовчуванням 1000)
+ *
+ * Кожне з'єднання - окремий сокет; для 5000+ клієнтів може знадобитися ulimit -n.
+ */
+public class ApiLoadTest {
+
+    private static final DateTimeFormatter F = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    // initDB() сам додає 3 одиниці спорядження, наші починаються після них
+    private static final int FIRST_EQUIPMENT_ID = 4;
+    private static final int EQUIPMENT = 100;
+    private static final int INSTRUCTORS = 20;
+
+    private String url;
+    private int clients = 2000;
+    private int requestsPerClient = 20;
+    private int writePercent = 20;
+    private int users = 1000;
+
+    private final Map<String, LatencyHistogram> latency = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> errors = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicLong lessonSequence = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        ApiLoadTest test = new ApiLoadTest();
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--url=")) {
+                test.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+            } else if (arg.startsWith("--clients=")) {
+                test.clients = Integer.parseInt(value);
+            } else if (arg.startsWith("--requests=")) {
+                test.requestsPerClient = Integer.parseInt(value);
+            } else if (arg.startsWith("--writes=")) {
+                test.writePercent = Integer.parseInt(value);
+            } else if (arg.startsWith("--users=")) {
+                test.users = Integer.parseInt(value);
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        test.run();
+    }
+
+    private void run() throws Exception {
+        Path dir = null;
+        ApiServer server = null;
+        if (url == null) {
+            dir = Files.createTempDirectory("ski-api-load-");
+            System.setProperty("skiservice.log", dir.resolve("bench.log").toString());
+            System.setProperty("skiservice.slowlog", dir.resolve("slow.log").toString());
+            Services.initDB(dir.resolve(Services.DEFAULT_DB_FILE).toString());
+            seed(Services.getConnection());
+            server = new ApiServer(0, clients);
+            server.start();
+            url = "http://localhost:" + server.getAddress().getPort();
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .executor(executor)
+                    .build();
+
+            System.out.printf("== %s: %d clients x %d requests, %d%% writes%n", url, clients, requestsPerClient,
+                    writePercent);
+            CountDownLatch ready = new CountDownLatch(clients);
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                int clientId = c;
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    go.await();
+                    runClient(client, clientId);
+                    return null;
+                }));
+            }
+
+            ready.await();
+            long start = System.nanoTime();
+            go.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            report(elapsed);
+        } finally {
+            if (server != null) {
+                server.stop(0);
+                Services.closeDB();
+            }
+            if (dir != null) {
+                try (var paths = Files.walk(dir)) {
+                    paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+                }
+            }
+        }
+    }
+
+    private void runClient(HttpClient client, int clientId) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String user = "user" + (clientId % users); // BenchData.username
+        String login = String.format("{\"username\":\"%s\",\"password\":\"pass\"}", user);
+        Deque<Integer> rented = new ArrayDeque<>();
+
+        // кожен клієнт - окремий сеанс, як окремий кіоск
+        String token = token(send(client, "POST /api/login", "/api/login", null, login));
+        if (token == null) {
+            return;
+        }
+
+        for (int i = 0; i < requestsPerClient; i++) {
+            if (random.nextInt(100) < writePercent) {
+                switch (random.nextInt(4)) {
+                    case 0 -> send(client, "POST /api/bookings", "/api/bookings", token, String.format(
+                            "{\"slot\":\"%s\",\"time\":\"%s\"}",
+                            BenchData.SLOTS[random.nextInt(BenchData.SLOTS.length)],
+                            LocalDateTime.now().plusDays(1 + random.nextInt(90)).withNano(0).format(F)));
+                    case 1 -> {
+                        int eqId = FIRST_EQUIPMENT_ID + random.nextInt(EQUIPMENT);
+                        if (send(client, "POST /api/rentals", "/api/rentals", token,
+                                String.format("{\"equipmentId\":%d}", eqId)) != null) {
+                            rented.push(eqId);
+                        }
+                    }
+                    case 2 -> {
+                        if (!rented.isEmpty()) {
+                            send(client, "POST /api/rentals/return", "/api/rentals/return", token,
+                                    String.format("{\"equipmentId\":%d}", rented.pop()));
+                        }
+                    }
+                    default -> send(client, "POST /api/lessons", "/api/lessons", token, String.format(
+                            "{\"instructor\":\"Instructor%d\",\"time\":\"%s\"}",
+                            random.nextInt(INSTRUCTORS),
+                            LocalDateTime.of(2030, 1, 1, 9, 0).plusMinutes(lessonSequence.incrementAndGet())
+                                    .format(F)));
+                }
+            } else {
+                switch (random.nextInt(5)) {
+                    case 0 -> {
+                        String renewed = token(send(client, "POST /api/login", "/api/login", null, login));
+                        if (renewed != null) {
+                            token = renewed;
+                        }
+                    }
+                    case 1 -> send(client, "GET /api/equipment", "/api/equipment", token, null);
+                    case 2 -> send(client, "GET /api/rentals", "/api/rentals", token, null);
+                    case 3 -> send(client, "GET /api/instructors", "/api/instructors", token, null);
+                    default -> send(client, "GET /api/dashboard", "/api/dashboard", token, null);
+                }
+            }
+        }
+    }
+
+    private static String token(String loginResponse) {
+        return loginResponse == null ? null : (String) Json.parseObject(loginResponse).get("token");
+    }
+
+    /**
+     * @return тіло відповіді, якщо сервер відповів 2xx, інакше null
+     */
+    private String send(HttpClient client, String name, String path, String token, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url + path)).timeout(Duration.ofSeconds(60));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            builder.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        long start = System.nanoTime();
+        String result = null;
+        try {
+            HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 == 2) {
+                result = response.body();
+            }
+        } catch (IOException e) {
+            // рахується як помилка нижче
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        latency.computeIfAbsent(name, k -> new LatencyHistogram()).recordSince(start);
+        if (result == null) {
+            errors.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+        }
+        return result;
+    }
+
+    private void report(long elapsedNanos) {
+        long total = 0;
+        System.out.printf("%-26s %8s %7s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(latency).entrySet()) {
+            LatencyHistogram.Snapshot h = e.getValue().snapshot();
+            total += h.getCount();
+            System.out.printf(Locale.ROOT, "%-26s %8d %7d %10.2f %10.2f %10.2f %10.2f%n",
+                    e.getKey(), h.getCount(), errors.getOrDefault(e.getKey(), new AtomicInteger()).get(),
+                    h.getPercentileNanos(50) / 1e6, h.getPercentileNanos(99) / 1e6,
+                    h.getPercentileNanos(99.9) / 1e6, h.getMaxNanos() / 1e6);
+        }
+        System.out.printf(Locale.ROOT, "total: %d requests in %.2f s = %.0f req/s, peak in-flight %d%n",
+                total, elapsedNanos / 1e9, total / (elapsedNanos / 1e9), peakInFlight.get());
+    }
+
+    private void seed(Connection connection) throws SQLException {
+        BenchData data = new BenchData(42, users);
+        // один хеш на всіх: інакше наповнення тривало б хвилини, а вартість перевірки та сама
+        String passwordHash = PasswordHasher.fromSystemProperties().hash("pass");
+        connection.setAutoCommit(false);
+        try {
+            try (PreparedStatement p = connection.prepareStatement(
+                    "INSERT INTO users(username,password,role) VALUES (?,?,?)")) {
+                for (int i = 0; i < users; i++) {
+                    p.setString(1, data.username(i));
+                    p.setString(2, passwordHash);
+                    p.setString(3, "USER");
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+
+            try (PreparedStatement p = connection.prepareStatement(
+                    "INSERT INTO equipment(type,size,total,available) VALUES (?,?,?,?)")) {
+                for (int i = 0; i < EQUIPMENT; i++) {
+                    String type = BenchData.EQUIPMENT_TYPES[i % BenchData.EQUIPMENT_TYPES.length];
+                    p.setString(1, type);
+                    p.setString(2, data.randomSize(type));
+                    p.setInt(3, 1_000_000);
+                    p.setInt(4, 1_000_000);
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+
+            try (PreparedStatement p = connection.prepareStatement("INSERT INTO instructors(name) VALUES (?)")) {
+                for (int i = 0; i < INSTRUCTORS; i++) {
+                    p.setString(1, "Instructor" + i);
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.bench;
+
+import org.example.service.AuthService;
+import org.example.service.CredentialRules;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class AuthServiceBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    // 0 - списки з resources/security, інакше словник слабких паролів такого розміру
+    @Param({ "0", "100000" })
+    public int dictionary;
+
+    private AuthService service;
+    private List<String[]> credentials;
+
+    @Setup
+    public void setUp() {
+        credentials = new BenchData(42, 100).credentials(rows);
+        if (dictionary == 0) {
+            service = new AuthService();
+        } else {
+            List<String> weak = new ArrayList<>(List.of("password", "123456", "qwerty", "abc123"));
+            for (int i = weak.size(); i < dictionary; i++) {
+                weak.add("leaked" + Integer.toHexString(i * 0x9E3779B1));
+            }
+            service = new AuthService(CredentialRules.of(List.of("admin", "root", "guest", "test"), weak));
+        }
+    }
+
+    @Benchmark
+    public void validateRegistration(Blackhole bh) {
+        for (String[] credential : credentials) {
+            bh.consume(service.validateRegistrationCredentials(credential[0], credential[1]));
+        }
+    }
+
+    @Benchmark
+    public void assessSecurity(Blackhole bh) {
+        for (String[] credential : credentials) {
+            bh.consume(service.assessCredentialSecurity(credential[0], credential[1]));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.bench;
+
+import org.example.model.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Детерміновані генератори даних для бенчмарків сервісного шару.
+ * Розподіли повторюють реальні дані: слоти 9-13/13-17/17-20, типи транзакцій
+ * booking/rent_eq/return_eq/lesson/cancel_booking, спорядження ski/snowboard.
+ */
+public final class BenchData {
+
+    public static final String[] SLOTS = { "9-13", "13-17", "17-20" };
+    public static final String[] TRANSACTION_TYPES = { "booking", "rent_eq", "return_eq", "lesson", "cancel_booking" };
+    public static final double[] TRANSACTION_AMOUNTS = { 50.0, 20.0, -20.0, 30.0, -50.0 };
+    public static final String[] EQUIPMENT_TYPES = { "Ski", "Snowboard" };
+    public static final String[] SKI_SIZES = { "36", "37", "38", "39", "40", "41", "42", "43", "44", "45" };
+    public static final String[] SNOWBOARD_SIZES = { "S", "M", "L", "XL" };
+
+    // Сезон: останні 120 днів, щоб частина даних потрапляла у "сьогодні/тиждень/місяць"
+    private static final int SEASON_DAYS = 120;
+
+    private final Random random;
+    private final LocalDateTime seasonStart;
+    private final int users;
+
+    public BenchData(long seed, int users) {
+        this.random = new Random(seed);
+        this.users = users;
+        this.seasonStart = LocalDate.now().minusDays(SEASON_DAYS - 7).atStartOfDay();
+    }
+
+    public String username(int index) {
+        return "user" + index;
+    }
+
+    public String randomUser() {
+        return username(random.nextInt(users));
+    }
+
+    public List<String> instructorNames(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add("Instructor" + i);
+        }
+        return names;
+    }
+
+    public List<Booking> bookings(int rows) {
+        List<Booking> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String slot = SLOTS[random.nextInt(SLOTS.length)];
+            int hour = Integer.parseInt(slot.substring(0, slot.indexOf('-')));
+            list.add(new Booking(i + 1, randomUser(), slot, randomDay().withHour(hour)));
+        }
+        return list;
+    }
+
+    public List<Lesson> lessons(int rows, List<String> instructorNames) {
+        List<Lesson> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String instructor = instructorNames.get(random.nextInt(instructorNames.size()));
+            list.add(new Lesson(i + 1, randomUser(), instructor, randomDay().withHour(8 + random.nextInt(11))));
+        }
+        return list;
+    }
+
+    public List<Transaction> transactions(int rows) {
+        List<Transaction> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int type = random.nextInt(TRANSACTION_TYPES.length);
+            list.add(new Transaction(i + 1, randomUser(), TRANSACTION_TYPES[type], TRANSACTION_AMOUNTS[type],
+                    randomDay().withHour(8 + random.nextInt(12)).withMinute(random.nextInt(60))));
+        }
+        return list;
+    }
+
+    public List<Equipment> equipment(int rows) {
+        List<Equipment> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String type = EQUIPMENT_TYPES[i % EQUIPMENT_TYPES.length];
+            list.add(new Equipment(i + 1, type, randomSize(type), random.nextInt(6)));
+        }
+        return list;
+    }
+
+    public List<UserRental> rentals(int rows, List<Equipment> equipment) {
+        List<UserRental> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Equipment eq = equipment.get(random.nextInt(equipment.size()));
+            list.add(new UserRental(eq.getId(), eq.getType(), eq.getSize(), randomUser(), "Active"));
+        }
+        return list;
+    }
+
+    /**
+     * Пари [username, password] у пропорції, близькій до реальних реєстрацій:
+     * більшість валідні, частина — зарезервовані імена, слабкі або короткі паролі.
+     */
+    public List<String[]> credentials(int rows) {
+        String[] weak = { "password", "123456", "qwerty", "abc123" };
+        String[] reserved = { "admin", "root", "guest", "Test" };
+
+        List<String[]> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int kind = random.nextInt(10);
+            String username = kind == 0 ? reserved[random.nextInt(reserved.length)] : "skier_" + i;
+            String password;
+            if (kind == 1) {
+                password = weak[random.nextInt(weak.length)];
+            } else if (kind == 2) {
+                password = "ab";
+            } else {
+                password = "Sn0w-" + Integer.toHexString(random.nextInt()) + "!";
+            }
+            list.add(new String[] { username, password });
+        }
+        return list;
+    }
+
+    public String randomSize(String type) {
+        String[] sizes = "Ski".equals(type) ? SKI_SIZES : SNOWBOARD_SIZES;
+        return sizes[random.nextInt(sizes.length)];
+    }
+
+    private LocalDateTime randomDay() {
+        return seasonStart.plusDays(random.nextInt(SEASON_DAYS));
+    }
+}
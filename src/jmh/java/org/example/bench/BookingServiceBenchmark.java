@@ -0,0 +1,51 @@
+package org.example.bench;
+
+import org.example.model.Booking;
+import org.example.service.BookingService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class BookingServiceBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    private final BookingService service = new BookingService();
+    private List<Booking> bookings;
+    private LocalDate tomorrow;
+
+    @Setup
+    public void setUp() {
+        bookings = new BenchData(42, Math.max(100, rows / 20)).bookings(rows);
+        tomorrow = LocalDate.now().plusDays(1);
+    }
+
+    @Benchmark
+    public List<Booking> filterForUser() {
+        return service.filterBookingsForUser(bookings, "user7", "USER");
+    }
+
+    @Benchmark
+    public void validateEveryBooking(Blackhole bh) {
+        for (Booking booking : bookings) {
+            bh.consume(service.validateBookingRequest(booking.getSlot(), tomorrow, booking.getUsername()));
+        }
+    }
+
+    @Benchmark
+    public void parseEverySlot(Blackhole bh) {
+        for (Booking booking : bookings) {
+            bh.consume(service.parseTimeSlot(booking.getSlot()));
+        }
+    }
+}
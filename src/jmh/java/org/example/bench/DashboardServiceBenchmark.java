@@ -0,0 +1,68 @@
+package org.example.bench;
+
+import org.example.model.*;
+import org.example.service.DashboardService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class DashboardServiceBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    private final DashboardService service = new DashboardService();
+    private List<Booking> bookings;
+    private List<UserRental> rentals;
+    private List<Lesson> lessons;
+    private List<Transaction> transactions;
+    private String username;
+
+    @Setup
+    public void setUp() {
+        // Мало користувачів, щоб у "свого" користувача було багато записів для сортування
+        BenchData data = new BenchData(42, 50);
+        bookings = data.bookings(rows);
+        lessons = data.lessons(rows, data.instructorNames(60));
+        transactions = data.transactions(rows);
+        rentals = data.rentals(rows, data.equipment(100));
+        username = data.username(7);
+    }
+
+    @Benchmark
+    public DashboardService.DashboardStats userStats() {
+        return service.calculateUserStats(username, bookings, rentals, lessons);
+    }
+
+    @Benchmark
+    public List<DashboardService.BookingDisplayInfo> bookingsForDisplay() {
+        return service.prepareBookingsForDisplay(username, bookings);
+    }
+
+    @Benchmark
+    public List<DashboardService.LessonDisplayInfo> lessonsForDisplay() {
+        return service.prepareLessonsForDisplay(username, lessons);
+    }
+
+    @Benchmark
+    public List<DashboardService.ActivityDisplayInfo> recentActivity() {
+        return service.prepareRecentActivityForDisplay(username, transactions, 10);
+    }
+
+    @Benchmark
+    public DashboardService.ActivitySummary activitySummary() {
+        return service.calculateActivitySummary(username, transactions, 30);
+    }
+
+    @Benchmark
+    public DashboardService.NextActivity nextActivity() {
+        return service.getNextUpcomingActivity(username, bookings, lessons);
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.bench;
+
+import org.example.model.*;
+import org.example.service.EquipmentAllocator;
+import org.example.service.EquipmentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class EquipmentServiceBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    private final EquipmentService service = new EquipmentService();
+    private List<Equipment> equipment;
+    private List<UserRental> rentals;
+    private EquipmentAllocator allocator;
+    private List<EquipmentAllocator.Request> family;
+
+    @Setup
+    public void setUp() {
+        BenchData data = new BenchData(42, Math.max(100, rows / 20));
+        equipment = data.equipment(rows);
+        rentals = data.rentals(rows, equipment);
+        allocator = EquipmentAllocator.of(equipment);
+        family = List.of(new EquipmentAllocator.Request("ski", "44"), new EquipmentAllocator.Request("ski", "38"),
+                new EquipmentAllocator.Request("snowboard", "M"), new EquipmentAllocator.Request("ski", "36"),
+                new EquipmentAllocator.Request("snowboard", "S"));
+    }
+
+    @Benchmark
+    public Equipment findAvailableMissingSize() {
+        // Найгірший випадок: повний лінійний прохід без збігу
+        return service.findAvailableEquipment(equipment, "ski", "99");
+    }
+
+    @Benchmark
+    public EquipmentAllocator.Allocation allocatorFindMissingSize() {
+        // Той самий запит через довгоживучий індекс, як Services.EquipmentService.allocator()
+        return allocator.find("ski", "99");
+    }
+
+    @Benchmark
+    public EquipmentAllocator.Allocation allocatorRentCycle() {
+        // Шлях каси: підбір, потім події StockChanged від утримання і повернення оновлюють той самий індекс
+        EquipmentAllocator.Allocation allocation = allocator.find("ski", "44");
+        if (allocation != null) {
+            allocator.apply(allocation.getEquipment().getId(), -1);
+            allocator.apply(allocation.getEquipment().getId(), 1);
+        }
+        return allocation;
+    }
+
+    @Benchmark
+    public EquipmentAllocator.Allocation rebuiltIndexFind() {
+        // Індекс, перебудований на кожен запит: так рахувалось до спільного індексу
+        return EquipmentAllocator.of(equipment).find("ski", "99");
+    }
+
+    @Benchmark
+    public EquipmentAllocator.PartyAllocation allocateFamily() {
+        return allocator.allocateParty(family);
+    }
+
+    @Benchmark
+    public EquipmentAllocator buildAllocator() {
+        return EquipmentAllocator.of(equipment);
+    }
+
+    @Benchmark
+    public List<Equipment> filterAvailable() {
+        return service.filterAvailableEquipment(equipment);
+    }
+
+    @Benchmark
+    public EquipmentService.EquipmentTypeStats typeStats() {
+        return service.calculateEquipmentStats(equipment, "ski");
+    }
+
+    @Benchmark
+    public EquipmentService.RentalSummary rentalSummary() {
+        return service.getUserRentalSummary(rentals);
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.bench;
+
+import org.example.model.Transaction;
+import org.example.service.FinanceService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class FinanceServiceBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    private final FinanceService service = new FinanceService();
+    private List<Transaction> transactions;
+    private LocalDate monthStart;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        transactions = new BenchData(42, Math.max(100, rows / 20)).transactions(rows);
+        today = LocalDate.now();
+        monthStart = today.withDayOfMonth(1);
+    }
+
+    @Benchmark
+    public Map<String, FinanceService.WeeklyFinancialData> weeklyFinancialData() {
+        return service.calculateWeeklyFinancialData(transactions);
+    }
+
+    @Benchmark
+    public List<FinanceService.MonthlyFinancialReport> monthlyReports() {
+        return service.calculateMonthlyReports(transactions);
+    }
+
+    @Benchmark
+    public FinanceService.FinancialSummary periodSummary() {
+        return service.calculatePeriodSummary(transactions, monthStart, today);
+    }
+
+    @Benchmark
+    public List<FinanceService.RevenueByActivity> revenueByActivity() {
+        return service.calculateRevenueByActivity(transactions, monthStart, today);
+    }
+
+    @Benchmark
+    public List<Transaction> filterForUser() {
+        return service.filterTransactionsForUser(transactions, "user7", "USER");
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.bench;
+
+import org.example.model.Lesson;
+import org.example.service.InstructorService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.temporal.WeekFields;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Порівняння однопрохідного InstructorService.calculateInstructorWorkloads
+ * з попередньою реалізацією (окремий stream по всіх уроках для кожного інструктора).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class InstructorWorkloadBenchmark {
+
+    @Param({ "60" })
+    public int instructors;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int lessons;
+
+    private final InstructorService service = new InstructorService();
+    private List<String> instructorNames;
+    private List<Lesson> allLessons;
+
+    @Setup
+    public void setUp() {
+        BenchData data = new BenchData(42, 500);
+        instructorNames = data.instructorNames(instructors);
+        allLessons = data.lessons(lessons, instructorNames);
+    }
+
+    @Benchmark
+    public List<InstructorService.InstructorWorkloadStats> singlePass() {
+        return service.calculateInstructorWorkloads(instructorNames, allLessons);
+    }
+
+    @Benchmark
+    public List<InstructorService.InstructorWorkloadStats> streamPerInstructor() {
+        return legacyCalculateInstructorWorkloads(instructorNames, allLessons);
+    }
+
+    @Benchmark
+    public InstructorService.LessonStats lessonStats() {
+        LocalDate today = LocalDate.now();
+        return service.calculateLessonStats(allLessons, today.minusDays(30), today);
+    }
+
+    @Benchmark
+    public List<Lesson> filterForUser() {
+        return service.filterLessonsForUser(allLessons, "user7", "USER");
+    }
+
+    // Попередня реалізація, залишена лише як базова лінія для порівняння
+    private List<InstructorService.InstructorWorkloadStats> legacyCalculateInstructorWorkloads(
+            List<String> instructorNames, List<Lesson> allLessons) {
+        LocalDate today = LocalDate.now();
+        int currentWeek = today.get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear());
+
+        List<InstructorService.InstructorWorkloadStats> workloads = new ArrayList<>();
+
+        for (String instructorName : instructorNames) {
+            List<Lesson> instructorLessons = allLessons.stream()
+                    .filter(lesson -> lesson.getInstructor().equals(instructorName))
+                    .collect(Collectors.toList());
+
+            int totalLessons = instructorLessons.size();
+
+            int todayLessons = (int) instructorLessons.stream()
+                    .filter(lesson -> lesson.getTime().toLocalDate().equals(today))
+                    .count();
+
+            int weekLessons = (int) instructorLessons.stream()
+                    .filter(lesson -> {
+                        LocalDate lessonDate = lesson.getTime().toLocalDate();
+                        int lessonWeek = lessonDate.get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear());
+                        return lessonWeek == currentWeek;
+                    })
+                    .count();
+
+            String status = service.determineInstructorStatus(todayLessons, weekLessons);
+
+            workloads.add(new InstructorService.InstructorWorkloadStats(
+                    instructorName, totalLessons, todayLessons, weekLessons, status));
+        }
+
+        return workloads;
+    }
+}
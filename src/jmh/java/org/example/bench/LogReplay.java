@@ -0,0 +1,407 @@
+package org.example.bench;
+
+import org.example.Services;
+import org.example.db.QueryStats;
+import org.example.security.PasswordHasher;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Відтворення реального навантаження з ski-service-logs.txt через API Services.
+ *
+ * Операції з логу (див. WorkloadLog) виконуються з оригінальними інтервалами,
+ * прискореними у --speed разів, або без пауз (--speed=max). Операції одного користувача
+ * завжди потрапляють в один і той самий робочий потік, тому їх порядок зберігається
+ * (скасування не обганяє бронювання), а різні користувачі виконуються паралельно.
+ *
+ * Запуск:
+ * mvn -Pbench compile exec:java -Dexec.mainClass=org.example.bench.LogReplay \
+ *     -Dexec.args="--log=ski-service-logs.txt --speed=10 --concurrency=4 --repeat=5"
+ *
+ * Параметри:
+ * --log=<file>        лог для відтворення (за замовчуванням ski-service-logs.txt)
+ * --db=<file>         копія цієї БД використовується як стартовий стан; інакше створюється
+ *                     порожня БД з користувачами, інструкторами, спорядженням і бронюваннями з логу
+ * --speed=<N|max>     прискорення відносно оригінального часу (1 = реальний час)
+ * --concurrency=<N>   кількість робочих потоків
+ * --max-gap=<sec>     паузи довші за це (перезапуски застосунку, ночі) скорочуються до цього значення
+ * --repeat=<N>        скільки разів прогнати потік підряд
+ * --out=<file>        додатково записати результати у CSV
+ */
+public class LogReplay {
+
+    private static final String REPLAY_PASSWORD = "replay";
+    private static final DateTimeFormatter F = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    static final class Stats {
+        private final String action;
+        private long[] serviceNanos = new long[64];
+        private long[] responseNanos = new long[64];
+        private int count;
+        private int errors;
+
+        Stats(String action) {
+            this.action = action;
+        }
+
+        synchronized void record(long service, long response, boolean failed) {
+            if (count == serviceNanos.length) {
+                serviceNanos = Arrays.copyOf(serviceNanos, count * 2);
+                responseNanos = Arrays.copyOf(responseNanos, count * 2);
+            }
+            serviceNanos[count] = service;
+            responseNanos[count] = response;
+            count++;
+            if (failed) {
+                errors++;
+            }
+        }
+
+        synchronized long[] sortedService() {
+            long[] copy = Arrays.copyOf(serviceNanos, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized long[] sortedResponse() {
+            long[] copy = Arrays.copyOf(responseNanos, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    private Path log = Paths.get("ski-service-logs.txt");
+    private Path sourceDb;
+    private double speed = 1.0;
+    private boolean maxSpeed;
+    private int concurrency = 4;
+    private Duration maxGap = Duration.ofSeconds(5);
+    private int repeat = 1;
+    private Path out;
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final Stats total = new Stats("TOTAL");
+
+    public static void main(String[] args) throws Exception {
+        // без цього відтворення дописувало б у той самий лог, який читає
+        if (System.getProperty("skiservice.log") == null) {
+            System.setProperty("skiservice.log", Files.createTempFile("ski-replay-", ".log").toString());
+        }
+        if (System.getProperty("skiservice.slowlog") == null) {
+            System.setProperty("skiservice.slowlog", Files.createTempFile("ski-replay-slow-", ".log").toString());
+        }
+
+        LogReplay replay = new LogReplay();
+        replay.parseArgs(args);
+        replay.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "log" -> log = Paths.get(value);
+                case "db" -> sourceDb = Paths.get(value);
+                case "speed" -> {
+                    maxSpeed = "max".equalsIgnoreCase(value);
+                    speed = maxSpeed ? Double.POSITIVE_INFINITY : Double.parseDouble(value);
+                }
+                case "concurrency" -> concurrency = Integer.parseInt(value);
+                case "max-gap" -> maxGap = Duration.ofMillis((long) (Double.parseDouble(value) * 1000));
+                case "repeat" -> repeat = Integer.parseInt(value);
+                case "out" -> out = Paths.get(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (concurrency < 1 || repeat < 1 || (!maxSpeed && speed <= 0)) {
+            throw new IllegalArgumentException("concurrency, repeat and speed must be positive");
+        }
+    }
+
+    private void run() throws Exception {
+        List<WorkloadLog.Entry> entries = WorkloadLog.parse(log);
+        if (entries.isEmpty()) {
+            System.out.println("No replayable ACTION lines in " + log);
+            return;
+        }
+        long[] offsets = schedule(entries);
+
+        Path dir = Files.createTempDirectory("ski-replay-");
+        Path db = dir.resolve(Services.DEFAULT_DB_FILE);
+        try {
+            if (sourceDb != null) {
+                Files.copy(sourceDb, db, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Services.initDB(db.toString());
+            if (sourceDb == null) {
+                prepareFixtures(Services.getConnection(), entries);
+            }
+
+            System.out.printf("Replaying %d operations x%d from %s at %s with %d workers%n",
+                    entries.size(), repeat, log, maxSpeed ? "max speed" : speed + "x", concurrency);
+            long wall = replay(entries, offsets);
+            printReport(wall);
+            System.out.printf("%nPer-statement SQL stats:%n%s", QueryStats.report());
+            if (out != null) {
+                writeCsv(out);
+            }
+        } finally {
+            Services.closeDB();
+            try (var paths = Files.walk(dir)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    // Зміщення кожної операції від початку відтворення, нс (довгі паузи скорочені до maxGap)
+    private long[] schedule(List<WorkloadLog.Entry> entries) {
+        long[] offsets = new long[entries.size()];
+        long elapsed = 0;
+        for (int i = 1; i < entries.size(); i++) {
+            Duration gap = Duration.between(entries.get(i - 1).getTimestamp(), entries.get(i).getTimestamp());
+            if (gap.compareTo(maxGap) > 0) {
+                gap = maxGap;
+            }
+            elapsed += gap.toNanos();
+            offsets[i] = maxSpeed ? 0 : (long) (elapsed / speed);
+        }
+        return offsets;
+    }
+
+    /**
+     * Порожня БД не містить користувачів, інструкторів, спорядження й бронювань, на які
+     * посилається лог, тому створюємо їх заздалегідь, інакше більшість операцій завершиться помилкою.
+     */
+    private void prepareFixtures(Connection connection, List<WorkloadLog.Entry> entries) throws SQLException {
+        Set<String> registered = new HashSet<>();
+        Set<String> users = new TreeSet<>();
+        Set<String> instructors = new TreeSet<>();
+        int maxEquipmentId = 0;
+        int maxBookingId = 0;
+
+        for (WorkloadLog.Entry e : entries) {
+            switch (e.getAction()) {
+                case "REGISTER_SUCCESS" -> registered.add(e.param("username"));
+                case "LOGIN_SUCCESS" -> users.add(e.param("username"));
+                case "BOOKING_CANCEL", "BOOKING_TRANSFER" -> maxBookingId = Math.max(maxBookingId,
+                        e.intParam("booking_id"));
+                case "EQUIPMENT_RENT", "EQUIPMENT_RETURN" -> maxEquipmentId = Math.max(maxEquipmentId,
+                        e.intParam("equipment_id"));
+                case "LESSON_BOOK" -> instructors.add(e.param("instructor"));
+                default -> {
+                }
+            }
+        }
+        users.removeAll(registered);
+
+        // один хеш на всіх: інакше наповнення тривало б хвилини, а вартість перевірки та сама
+        String passwordHash = PasswordHasher.fromSystemProperties().hash(REPLAY_PASSWORD);
+        connection.setAutoCommit(false);
+        try {
+            try (PreparedStatement p = connection.prepareStatement(
+                    "INSERT OR IGNORE INTO users(username,password,role) VALUES (?,?,?)")) {
+                for (String user : users) {
+                    p.setString(1, user);
+                    p.setString(2, passwordHash);
+                    p.setString(3, "admin".equals(user) ? "ADMIN" : "USER");
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+            // логін admin/user із початкових даних теж має проходити з паролем відтворення
+            try (PreparedStatement p = connection.prepareStatement("UPDATE users SET password=?")) {
+                p.setString(1, passwordHash);
+                p.executeUpdate();
+            }
+
+            Set<String> existingInstructors = new HashSet<>(Services.InstructorService.listNames());
+            try (PreparedStatement p = connection.prepareStatement("INSERT INTO instructors(name) VALUES (?)")) {
+                for (String name : instructors) {
+                    if (existingInstructors.add(name)) {
+                        p.setString(1, name);
+                        p.addBatch();
+                    }
+                }
+                p.executeBatch();
+            }
+
+            int equipmentRows = count(connection, "SELECT COUNT(*) FROM equipment");
+            try (PreparedStatement p = connection.prepareStatement(
+                    "INSERT INTO equipment(type,size,total,available) VALUES (?,?,?,?)")) {
+                for (int id = equipmentRows + 1; id <= maxEquipmentId; id++) {
+                    p.setString(1, BenchData.EQUIPMENT_TYPES[id % 2]);
+                    p.setString(2, id % 2 == 0 ? "42" : "M");
+                    p.setInt(3, 1000);
+                    p.setInt(4, 1000);
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+
+            int bookingRows = count(connection, "SELECT COUNT(*) FROM bookings");
+            String placeholderTime = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0)
+                    .withNano(0).format(F);
+            try (PreparedStatement p = connection.prepareStatement(
+                    "INSERT INTO bookings(username,slot,time) VALUES (?,?,?)")) {
+                for (int id = bookingRows + 1; id <= maxBookingId; id++) {
+                    p.setString(1, "replay");
+                    p.setString(2, "9-13");
+                    p.setString(3, placeholderTime);
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static int count(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement p = connection.prepareStatement(sql); ResultSet rs = p.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private long replay(List<WorkloadLog.Entry> entries, long[] offsets) throws InterruptedException {
+        ExecutorService[] workers = new ExecutorService[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = Executors.newSingleThreadExecutor();
+        }
+
+        long period = offsets[offsets.length - 1] + (maxSpeed ? 0 : (long) (maxGap.toNanos() / speed));
+        long start = System.nanoTime();
+
+        for (int round = 0; round < repeat; round++) {
+            for (int i = 0; i < entries.size(); i++) {
+                WorkloadLog.Entry entry = entries.get(i);
+                long scheduled = start + round * period + offsets[i];
+                if (!maxSpeed) {
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+
+                String user = entry.getUser() == null ? "" : entry.getUser();
+                workers[Math.floorMod(user.hashCode(), concurrency)].execute(() -> execute(entry, scheduled));
+            }
+        }
+
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        for (ExecutorService worker : workers) {
+            worker.awaitTermination(1, TimeUnit.HOURS);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void execute(WorkloadLog.Entry entry, long scheduled) {
+        long began = System.nanoTime();
+        boolean failed = false;
+        try {
+            call(entry);
+        } catch (Exception e) {
+            failed = true;
+        }
+        long finished = System.nanoTime();
+
+        long service = finished - began;
+        // Без пауз немає запланованого часу, тож відгук дорівнює часу виконання
+        long response = maxSpeed ? service : finished - scheduled;
+        stats.computeIfAbsent(entry.getAction(), Stats::new).record(service, response, failed);
+        total.record(service, response, failed);
+    }
+
+    private static void call(WorkloadLog.Entry e) throws SQLException {
+        switch (e.getAction()) {
+            case "LOGIN_SUCCESS" -> Services.AuthService.login(e.param("username"), REPLAY_PASSWORD);
+            case "LOGIN_FAILED" -> Services.AuthService.login(e.param("username"), REPLAY_PASSWORD + "-wrong");
+            case "REGISTER_SUCCESS" -> Services.AuthService.register(e.param("username"), REPLAY_PASSWORD);
+            case "BOOKING_CREATE" -> Services.BookingService.book(e.getUser(), e.param("slot"), e.timeParam("time"));
+            case "BOOKING_CANCEL" -> Services.BookingService.cancel(e.intParam("booking_id"));
+            case "BOOKING_TRANSFER" -> Services.BookingService.transfer(e.intParam("booking_id"),
+                    e.param("new_slot"), e.timeParam("new_time"));
+            case "EQUIPMENT_RENT" -> Services.EquipmentService.rent(e.intParam("equipment_id"), e.param("user"));
+            case "EQUIPMENT_RETURN" -> Services.EquipmentService.ret(e.intParam("equipment_id"), e.param("user"));
+            case "LESSON_BOOK" -> Services.InstructorService.book(e.param("instructor"), e.param("user"),
+                    e.timeParam("time"));
+            // *_REFRESH повторюють читання, які роблять відповідні контролери
+            case "BOOKING_REFRESH" -> Services.BookingService.listAll();
+            case "EQUIPMENT_REFRESH" -> {
+                Services.EquipmentService.listAll();
+                Services.EquipmentService.getCurrentRentals(e.getUser());
+            }
+            case "INSTRUCTOR_REFRESH" -> {
+                Services.InstructorService.listAll();
+                Services.InstructorService.listNames();
+            }
+            case "DASHBOARD_REFRESH" -> {
+                Services.BookingService.listAll();
+                Services.EquipmentService.getCurrentRentals(e.getUser());
+                Services.InstructorService.listAll();
+                Services.TransactionService.listAll();
+            }
+            default -> throw new IllegalStateException("Unsupported action " + e.getAction());
+        }
+    }
+
+    private List<Stats> rows() {
+        List<Stats> rows = new ArrayList<>(stats.values());
+        rows.sort(Comparator.comparing(s -> s.action));
+        rows.add(total);
+        return rows;
+    }
+
+    private void printReport(long wallNanos) {
+        System.out.printf("%nCompleted %d operations in %.2f s: %.1f ops/s, %d errors%n%n",
+                total.count, wallNanos / 1e9, total.count / (wallNanos / 1e9), total.errors);
+        System.out.printf("%-20s %8s %7s %12s %12s %12s %12s %12s%n",
+                "action", "ops", "errors", "svc p50 us", "svc p99 us", "resp p50 us", "resp p99 us", "max us");
+        for (Stats s : rows()) {
+            long[] svc = s.sortedService();
+            long[] resp = s.sortedResponse();
+            System.out.printf("%-20s %8d %7d %12.1f %12.1f %12.1f %12.1f %12.1f%n",
+                    s.action, s.count, s.errors,
+                    PersistenceHarness.percentile(svc, 0.50) / 1e3, PersistenceHarness.percentile(svc, 0.99) / 1e3,
+                    PersistenceHarness.percentile(resp, 0.50) / 1e3, PersistenceHarness.percentile(resp, 0.99) / 1e3,
+                    resp[resp.length - 1] / 1e3);
+        }
+    }
+
+    private void writeCsv(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file))) {
+            w.println("action,ops,errors,svc_p50_us,svc_p99_us,resp_p50_us,resp_p99_us,max_us");
+            for (Stats s : rows()) {
+                long[] svc = s.sortedService();
+                long[] resp = s.sortedResponse();
+                w.printf(Locale.ROOT, "%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f%n", s.action, s.count, s.errors,
+                        PersistenceHarness.percentile(svc, 0.50) / 1e3, PersistenceHarness.percentile(svc, 0.99) / 1e3,
+                        PersistenceHarness.percentile(resp, 0.50) / 1e3, PersistenceHarness.percentile(resp, 0.99) / 1e3,
+                        resp[resp.length - 1] / 1e3);
+            }
+        }
+        System.out.println("Results written to " + file);
+    }
+}
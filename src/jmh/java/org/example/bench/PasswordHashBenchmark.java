@@ -0,0 +1,46 @@
+package org.example.bench;
+
+import org.example.security.PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скільки входів за секунду витримує одне ядро при кожній вартості PBKDF2
+ * (-Dskiservice.passwordIterations). Бенчмарк однопотоковий, тому ops/s = входи/с на ядро;
+ * пропускна здатність сервера ~ цей результат x skiservice.passwordThreads.
+ *
+ * verify - успішний вхід з актуальним хешем, verifyLegacyAndRehash - перший вхід користувача
+ * з паролем відкритим текстом (перевірка + новий хеш).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    @Param({ "10000", "100000", "310000", "600000" })
+    public int iterations;
+
+    private PasswordHasher hasher;
+    private String stored;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hasher = new PasswordHasher(iterations);
+        stored = hasher.hash("Sn0w-pass!");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify("Sn0w-pass!", stored);
+    }
+
+    @Benchmark
+    public String verifyLegacyAndRehash() {
+        return hasher.verify("Sn0w-pass!", "Sn0w-pass!") ? hasher.hash("Sn0w-pass!") : null;
+    }
+}
@@ -0,0 +1,474 @@
+package org.example.bench;
+
+import org.example.Services;
+import org.example.security.PasswordHasher;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Навантажувальний стенд для шару Services на реальному файлі SQLite.
+ *
+ * Для кожної конфігурації (набір PRAGMA x кількість потоків x розмір пакета транзакції)
+ * створюється тимчасовий skiservice.db через Services.initDB(), наповнюється заданими
+ * обсягами даних, після чого кожен публічний метод Services виконується з 1..N потоків.
+ * Результат - таблиця з пропускною здатністю та затримками p50/p99.
+ *
+ * Запуск:
+ * mvn -Pbench compile exec:java -Dexec.mainClass=org.example.bench.PersistenceHarness \
+ *     -Dexec.args="--users=1000 --bookings=20000 --threads=1,4,8 --batch=1,50 --out=target/persistence.csv"
+ *
+ * Services працює з одним спільним з'єднанням, тому "пул" у цьому стенді - це кількість
+ * потоків, що конкурують за нього.
+ */
+public class PersistenceHarness {
+
+    private static final DateTimeFormatter F = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    // initDB() сам додає 3 одиниці спорядження, наші починаються після них
+    private static final int FIRST_EQUIPMENT_ID = 4;
+
+    enum PragmaProfile {
+        DEFAULT("journal_mode=DELETE", "synchronous=FULL"),
+        WAL("journal_mode=WAL", "synchronous=NORMAL"),
+        WAL_NOSYNC("journal_mode=WAL", "synchronous=OFF", "temp_store=MEMORY");
+
+        private final String[] pragmas;
+
+        PragmaProfile(String... pragmas) {
+            this.pragmas = pragmas;
+        }
+
+        void apply(Connection connection) throws SQLException {
+            try (Statement s = connection.createStatement()) {
+                for (String pragma : pragmas) {
+                    s.execute("PRAGMA " + pragma);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Call {
+        void run(int thread, int iteration) throws Exception;
+    }
+
+    static final class Operation {
+        final String name;
+        final boolean write;
+        final boolean fullScan;
+        final Call call;
+
+        Operation(String name, boolean write, boolean fullScan, Call call) {
+            this.name = name;
+            this.write = write;
+            this.fullScan = fullScan;
+            this.call = call;
+        }
+    }
+
+    static final class Result {
+        final String config;
+        final String operation;
+        final int ops;
+        final int errors;
+        final double throughput;
+        final double p50Micros;
+        final double p99Micros;
+        final double maxMicros;
+
+        Result(String config, String operation, int ops, int errors, double throughput,
+                double p50Micros, double p99Micros, double maxMicros) {
+            this.config = config;
+            this.operation = operation;
+            this.ops = ops;
+            this.errors = errors;
+            this.throughput = throughput;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+    }
+
+    // Параметри запуску
+    private int users = 1000;
+    private int equipment = 200;
+    private int bookings = 10000;
+    private int lessons = 5000;
+    private int transactions = 20000;
+    private int opsPerThread = 500;
+    private int scanOpsPerThread = 20;
+    private List<Integer> threadCounts = List.of(1, 2, 4, 8);
+    private List<Integer> batchSizes = List.of(1, 50);
+    private List<PragmaProfile> profiles = List.of(PragmaProfile.values());
+    private Pattern operationFilter = Pattern.compile(".*");
+    private Path out;
+
+    // Стан поточної конфігурації
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger nextCancelId = new AtomicInteger(1);
+    private final Map<Integer, Deque<Integer>> rentedByThread = new ConcurrentHashMap<>();
+    private final List<Result> results = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("skiservice.log") == null) {
+            System.setProperty("skiservice.log",
+                    Files.createTempFile("ski-bench-", ".log").toString());
+        }
+        if (System.getProperty("skiservice.slowlog") == null) {
+            System.setProperty("skiservice.slowlog", Files.createTempFile("ski-bench-slow-", ".log").toString());
+        }
+
+        PersistenceHarness harness = new PersistenceHarness();
+        harness.parseArgs(args);
+        harness.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "users" -> users = Integer.parseInt(value);
+                case "equipment" -> equipment = Integer.parseInt(value);
+                case "bookings" -> bookings = Integer.parseInt(value);
+                case "lessons" -> lessons = Integer.parseInt(value);
+                case "transactions" -> transactions = Integer.parseInt(value);
+                case "ops" -> opsPerThread = Integer.parseInt(value);
+                case "scan-ops" -> scanOpsPerThread = Integer.parseInt(value);
+                case "threads" -> threadCounts = parseInts(value);
+                case "batch" -> batchSizes = parseInts(value);
+                case "pragmas" -> profiles = Arrays.stream(value.split(","))
+                        .map(p -> PragmaProfile.valueOf(p.trim().toUpperCase()))
+                        .toList();
+                case "filter" -> operationFilter = Pattern.compile(value);
+                case "out" -> out = Paths.get(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+    }
+
+    private static List<Integer> parseInts(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).map(Integer::parseInt).toList();
+    }
+
+    private void run() throws Exception {
+        for (PragmaProfile profile : profiles) {
+            for (int batch : batchSizes) {
+                for (int threads : threadCounts) {
+                    runConfiguration(profile, threads, batch);
+                }
+            }
+        }
+
+        printTable();
+        if (out != null) {
+            writeCsv(out);
+        }
+    }
+
+    private void runConfiguration(PragmaProfile profile, int threads, int batch) throws Exception {
+        String config = String.format("%s/threads=%d/batch=%d", profile.name().toLowerCase(), threads, batch);
+        Path dir = Files.createTempDirectory("ski-bench-");
+        Path db = dir.resolve(Services.DEFAULT_DB_FILE);
+
+        try {
+            Services.initDB(db.toString());
+            profile.apply(Services.getConnection());
+            seed(Services.getConnection());
+
+            sequence.set(0);
+            nextCancelId.set(1);
+            rentedByThread.clear();
+
+            System.out.printf("== %s (db=%s)%n", config, db);
+            for (Operation operation : operations()) {
+                if (!operationFilter.matcher(operation.name).matches()) {
+                    continue;
+                }
+                results.add(measure(config, operation, threads, batch));
+            }
+        } finally {
+            Services.closeDB();
+            deleteRecursively(dir);
+        }
+    }
+
+    private void seed(Connection connection) throws SQLException {
+        BenchData data = new BenchData(42, users);
+        // один хеш на всіх: інакше наповнення тривало б хвилини, а вартість перевірки та сама
+        String passwordHash = PasswordHasher.fromSystemProperties().hash("pass");
+        connection.setAutoCommit(false);
+        try {
+            try (PreparedStatement p = connection.prepareStatement(
+                    "INSERT INTO users(username,password,role) VALUES (?,?,?)")) {
+                for (int i = 0; i < users; i++) {
+                    p.setString(1, data.username(i));
+                    p.setString(2, passwordHash);
+                    p.setString(3, "USER");
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+
+            try (PreparedStatement p = connection.prepareStatement(
+                    "INSERT INTO equipment(type,size,total,available) VALUES (?,?,?,?)")) {
+                for (int i = 0; i < equipment; i++) {
+                    String type = BenchData.EQUIPMENT_TYPES[i % BenchData.EQUIPMENT_TYPES.length];
+                    p.setString(1, type);
+                    p.setString(2, data.randomSize(type));
+                    p.setInt(3, 1_000_000);
+                    p.setInt(4, 1_000_000);
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+
+            List<String> instructors = data.instructorNames(20);
+            try (PreparedStatement p = connection.prepareStatement("INSERT INTO instructors(name) VALUES (?)")) {
+                for (String name : instructors) {
+                    p.setString(1, name);
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+
+            try (PreparedStatement p = connection.prepareStatement(
+                    "INSERT INTO bookings(username,slot,time) VALUES (?,?,?)")) {
+                for (var booking : data.bookings(bookings)) {
+                    p.setString(1, booking.getUsername());
+                    p.setString(2, booking.getSlot());
+                    p.setString(3, booking.getTime().format(F));
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+
+            try (PreparedStatement p = connection.prepareStatement(
+                    "INSERT INTO lessons(username,instructor,time) VALUES (?,?,?)")) {
+                for (var lesson : data.lessons(lessons, instructors)) {
+                    p.setString(1, lesson.getUsername());
+                    p.setString(2, lesson.getInstructor());
+                    p.setString(3, lesson.getTime().format(F));
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+
+            try (PreparedStatement p = connection.prepareStatement(
+                    "INSERT INTO trans(username,type,amount,time) VALUES (?,?,?,?)")) {
+                for (var t : data.transactions(transactions)) {
+                    p.setString(1, t.getUsername());
+                    p.setString(2, t.getType());
+                    p.setDouble(3, t.getAmount());
+                    p.setString(4, t.getTime().format(F));
+                    p.addBatch();
+                }
+                p.executeBatch();
+            }
+
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private List<Operation> operations() {
+        LocalDateTime base = LocalDateTime.now().plusYears(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        List<Operation> ops = new ArrayList<>();
+
+        // Запис
+        ops.add(new Operation("AuthService.register", true, false, (t, i) -> Services.AuthService
+                .register("bench_" + sequence.incrementAndGet(), "Passw0rd!")));
+        ops.add(new Operation("BookingService.book", true, false, (t, i) -> Services.BookingService
+                .book(user(i), BenchData.SLOTS[i % 3], base.plusDays(i % 90))));
+        ops.add(new Operation("BookingService.transfer", true, false, (t, i) -> Services.BookingService
+                .transfer(1 + ThreadLocalRandom.current().nextInt(bookings), "13-17", base.plusDays(i % 90))));
+        ops.add(new Operation("BookingService.cancel", true, false,
+                (t, i) -> Services.BookingService.cancel(nextCancelId.getAndIncrement())));
+        ops.add(new Operation("EquipmentService.rent", true, false, (t, i) -> {
+            int eqId = FIRST_EQUIPMENT_ID + ThreadLocalRandom.current().nextInt(equipment);
+            Services.EquipmentService.rent(eqId, "bench_t" + t);
+            rentedByThread.computeIfAbsent(t, k -> new ArrayDeque<>()).push(eqId);
+        }));
+        ops.add(new Operation("EquipmentService.ret", true, false, (t, i) -> {
+            Deque<Integer> rented = rentedByThread.getOrDefault(t, new ArrayDeque<>());
+            int eqId = rented.isEmpty() ? FIRST_EQUIPMENT_ID : rented.pop();
+            Services.EquipmentService.ret(eqId, "bench_t" + t);
+        }));
+        ops.add(new Operation("InstructorService.book", true, false, (t, i) -> Services.InstructorService
+                .book("Instructor" + (i % 20), user(i), base.plusHours(sequence.incrementAndGet()))));
+        ops.add(new Operation("TransactionService.log", true, false,
+                (t, i) -> Services.TransactionService.log(user(i), "booking", 50.0, LocalDateTime.now())));
+
+        // Читання
+        ops.add(new Operation("AuthService.login", false, false,
+                (t, i) -> Services.AuthService.login(user(i), "pass")));
+        ops.add(new Operation("BookingService.countAll", false, false, (t, i) -> Services.BookingService.countAll()));
+        ops.add(new Operation("BookingService.countByUser", false, false,
+                (t, i) -> Services.BookingService.countByUser(user(i))));
+        ops.add(new Operation("EquipmentService.countAll", false, false,
+                (t, i) -> Services.EquipmentService.countAll()));
+        ops.add(new Operation("EquipmentService.countByUser", false, false,
+                (t, i) -> Services.EquipmentService.countByUser("bench_t" + t)));
+        ops.add(new Operation("EquipmentService.getCurrentRentals", false, false,
+                (t, i) -> Services.EquipmentService.getCurrentRentals("bench_t" + t)));
+        ops.add(new Operation("InstructorService.listNames", false, false,
+                (t, i) -> Services.InstructorService.listNames()));
+        ops.add(new Operation("InstructorService.countAll", false, false,
+                (t, i) -> Services.InstructorService.countAll()));
+        ops.add(new Operation("InstructorService.countByUser", false, false,
+                (t, i) -> Services.InstructorService.countByUser(user(i))));
+
+        // Повні вибірки таблиць
+        ops.add(new Operation("BookingService.listAll", false, true, (t, i) -> Services.BookingService.listAll()));
+        ops.add(new Operation("EquipmentService.listAll", false, true,
+                (t, i) -> Services.EquipmentService.listAll()));
+        ops.add(new Operation("EquipmentService.getAllCurrentRentals", false, true,
+                (t, i) -> Services.EquipmentService.getAllCurrentRentals()));
+        ops.add(new Operation("InstructorService.listAll", false, true,
+                (t, i) -> Services.InstructorService.listAll()));
+        ops.add(new Operation("TransactionService.listAll", false, true,
+                (t, i) -> Services.TransactionService.listAll()));
+
+        return ops;
+    }
+
+    private String user(int i) {
+        return "user" + Math.floorMod(i * 31, users);
+    }
+
+    private Result measure(String config, Operation operation, int threads, int batch) throws Exception {
+        int ops = operation.fullScan ? scanOpsPerThread : opsPerThread;
+        int batchSize = operation.write ? batch : 1;
+        long[][] latencies = new long[threads][ops];
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ops; i += batchSize) {
+                    int count = Math.min(batchSize, ops - i);
+                    if (batchSize > 1) {
+                        runBatch(operation, thread, i, count, latencies[thread], errors);
+                    } else {
+                        latencies[thread][i] = timed(operation, thread, i, errors);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - began;
+        pool.shutdown();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        int total = all.length;
+        Result result = new Result(config, operation.name, total, errors.get(),
+                total / (elapsed / 1e9),
+                percentile(all, 0.50) / 1e3, percentile(all, 0.99) / 1e3, all[total - 1] / 1e3);
+
+        System.out.printf("  %-38s %10.0f ops/s  p50=%9.1fus  p99=%9.1fus%n",
+                result.operation, result.throughput, result.p50Micros, result.p99Micros);
+        return result;
+    }
+
+    // Пакет записів в одній транзакції Services: виклики сервісів приєднуються до неї під WRITE_LOCK
+    private void runBatch(Operation operation, int thread, int from, int count, long[] latencies,
+            AtomicInteger errors) throws SQLException {
+        long started = System.nanoTime();
+        Services.inWriteTransaction(() -> {
+            for (int k = 0; k < count; k++) {
+                latencies[from + k] = timed(operation, thread, from + k, errors);
+            }
+        });
+        // Вартість begin/коміту розподіляється на операції пакета
+        long work = 0;
+        for (int k = 0; k < count; k++) {
+            work += latencies[from + k];
+        }
+        long share = Math.max(0, System.nanoTime() - started - work) / count;
+        for (int k = 0; k < count; k++) {
+            latencies[from + k] += share;
+        }
+    }
+
+    private static long timed(Operation operation, int thread, int iteration, AtomicInteger errors) {
+        long started = System.nanoTime();
+        try {
+            operation.call.run(thread, iteration);
+        } catch (Exception e) {
+            errors.incrementAndGet();
+        }
+        return System.nanoTime() - started;
+    }
+
+    static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private void printTable() {
+        Map<String, List<Result>> byOperation = new LinkedHashMap<>();
+        for (Result r : results) {
+            byOperation.computeIfAbsent(r.operation, k -> new ArrayList<>()).add(r);
+        }
+
+        System.out.println();
+        System.out.printf("%-38s %-32s %8s %7s %12s %10s %10s %10s%n",
+                "operation", "config", "ops", "errors", "ops/s", "p50 us", "p99 us", "max us");
+        for (var entry : byOperation.entrySet()) {
+            for (Result r : entry.getValue()) {
+                System.out.printf("%-38s %-32s %8d %7d %12.0f %10.1f %10.1f %10.1f%n",
+                        r.operation, r.config, r.ops, r.errors, r.throughput, r.p50Micros, r.p99Micros, r.maxMicros);
+            }
+        }
+    }
+
+    private void writeCsv(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file))) {
+            w.println("operation,config,ops,errors,ops_per_sec,p50_us,p99_us,max_us");
+            for (Result r : results) {
+                w.printf(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.1f,%.1f,%.1f%n",
+                        r.operation, r.config, r.ops, r.errors, r.throughput, r.p50Micros, r.p99Micros, r.maxMicros);
+            }
+        }
+        System.out.println("Results written to " + file);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ignored) {
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.bench;
+
+import org.example.Services;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вплив кешу підготовлених запитів (skiservice.statementCache) на затримку окремої операції.
+ * cacheSize=0 - попередня поведінка (prepare/close на кожен виклик), 64 - значення за замовчуванням.
+ *
+ * Читання йдуть через Services; запис у trans виконується тим самим SQL, що й
+ * TransactionService.log, але без Logger, щоб запис у файл логу не затуляв різницю.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class StatementCacheBenchmark {
+
+    private static final DateTimeFormatter F = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    @Param({ "0", "64" })
+    public int cacheSize;
+
+    @Param({ "10000" })
+    public int rows;
+
+    private Path dir;
+    private BenchData data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("ski-stmt-cache-");
+        System.setProperty("skiservice.log", dir.resolve("bench.log").toString());
+        System.setProperty("skiservice.slowlog", dir.resolve("slow.log").toString());
+        System.setProperty("skiservice.statementCache", Integer.toString(cacheSize));
+
+        Services.initDB(dir.resolve(Services.DEFAULT_DB_FILE).toString());
+        data = new BenchData(42, 500);
+
+        Connection conn = Services.getConnection();
+        conn.setAutoCommit(false);
+        try (PreparedStatement p = conn.prepareStatement("INSERT INTO bookings(username,slot,time) VALUES (?,?,?)")) {
+            for (var booking : data.bookings(rows)) {
+                p.setString(1, booking.getUsername());
+                p.setString(2, booking.getSlot());
+                p.setString(3, booking.getTime().format(F));
+                p.addBatch();
+            }
+            p.executeBatch();
+        }
+        try (PreparedStatement p = conn.prepareStatement("INSERT INTO equipment_rent(eq_id,username) VALUES (?,?)")) {
+            for (int i = 0; i < rows / 10; i++) {
+                p.setInt(1, 1 + i % 3);
+                p.setString(2, data.randomUser());
+                p.addBatch();
+            }
+            p.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Services.closeDB();
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int bookingCountByUser() {
+        return Services.BookingService.countByUser(data.randomUser());
+    }
+
+    @Benchmark
+    public int currentRentals() {
+        return Services.EquipmentService.getCurrentRentals(data.randomUser()).size();
+    }
+
+    @Benchmark
+    public int lessonCountByUser() {
+        return Services.InstructorService.countByUser(data.randomUser());
+    }
+
+    @Benchmark
+    public int transactionInsert() throws SQLException {
+        try (PreparedStatement stmt = Services.getConnection().prepareStatement(
+                "INSERT INTO trans(username,type,amount,time) VALUES(?,?,?,?)")) {
+            stmt.setString(1, data.randomUser());
+            stmt.setString(2, "booking");
+            stmt.setDouble(3, 50.0);
+            stmt.setString(4, LocalDateTime.now().format(F));
+            return stmt.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public boolean userExists() throws SQLException {
+        // запит AuthService.login без перевірки хешу - вона не залежить від кешу запитів
+        try (PreparedStatement p = Services.getConnection().prepareStatement(
+                "SELECT password, role FROM users WHERE username=?")) {
+            p.setString(1, "admin");
+            ResultSet rs = p.executeQuery();
+            return rs.next();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Розбір ski-service-logs.txt у потік операцій для повторного відтворення.
+ *
+ * Беруться лише ACTION-рядки, що відповідають викликам Services:
+ * LOGIN_SUCCESS/LOGIN_FAILED, REGISTER_SUCCESS, BOOKING_CREATE/CANCEL/TRANSFER,
+ * EQUIPMENT_RENT/RETURN, LESSON_BOOK та *_REFRESH (читання списків у контролерах).
+ * TRANSACTION_LOG пропускається - його пише сам Services під час операцій запису.
+ */
+public final class WorkloadLog {
+
+    private static final Pattern ACTION_LINE = Pattern.compile(
+            "^\\[(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2})] ACTION: (\\S+) \\| USER: (.*?) \\| PARAMS: (.*)$");
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public static final Set<String> REPLAYED_ACTIONS = Set.of(
+            "LOGIN_SUCCESS", "LOGIN_FAILED", "REGISTER_SUCCESS",
+            "BOOKING_CREATE", "BOOKING_CANCEL", "BOOKING_TRANSFER",
+            "EQUIPMENT_RENT", "EQUIPMENT_RETURN", "LESSON_BOOK",
+            "BOOKING_REFRESH", "EQUIPMENT_REFRESH", "INSTRUCTOR_REFRESH", "DASHBOARD_REFRESH");
+
+    public static final class Entry {
+        private final LocalDateTime timestamp;
+        private final String action;
+        private final String user;
+        private final Map<String, String> params;
+
+        public Entry(LocalDateTime timestamp, String action, String user, Map<String, String> params) {
+            this.timestamp = timestamp;
+            this.action = action;
+            this.user = user;
+            this.params = params;
+        }
+
+        public LocalDateTime getTimestamp() {
+            return timestamp;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public String getUser() {
+            return user;
+        }
+
+        public String param(String key) {
+            return params.get(key);
+        }
+
+        public int intParam(String key) {
+            return Integer.parseInt(params.get(key));
+        }
+
+        public LocalDateTime timeParam(String key) {
+            return LocalDateTime.parse(params.get(key));
+        }
+    }
+
+    private WorkloadLog() {
+    }
+
+    public static List<Entry> parse(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Entry entry = parseLine(line);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        // у файлі трапляються записи з різних запусків не по порядку
+        entries.sort(Comparator.comparing(Entry::getTimestamp));
+        return entries;
+    }
+
+    /**
+     * @return операція або null, якщо рядок не є ACTION, дія не відтворюється чи параметри неповні
+     */
+    public static Entry parseLine(String line) {
+        Matcher m = ACTION_LINE.matcher(line);
+        if (!m.matches() || !REPLAYED_ACTIONS.contains(m.group(2))) {
+            return null;
+        }
+
+        try {
+            Entry entry = new Entry(LocalDateTime.parse(m.group(1), TIMESTAMP_FORMAT), m.group(2), m.group(3),
+                    parseParams(m.group(4)));
+            return isComplete(entry) ? entry : null;
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static Map<String, String> parseParams(String params) {
+        Map<String, String> map = new HashMap<>();
+        for (String part : params.split(", ")) {
+            int eq = part.indexOf('=');
+            if (eq > 0) {
+                map.put(part.substring(0, eq).trim(), part.substring(eq + 1).trim());
+            }
+        }
+        return map;
+    }
+
+    // Перевіряємо параметри одразу, щоб під час відтворення не було помилок розбору
+    // (некоректне число чи дата кидає виняток, який обробляє parseLine)
+    private static boolean isComplete(Entry e) {
+        return switch (e.getAction()) {
+            case "LOGIN_SUCCESS", "LOGIN_FAILED", "REGISTER_SUCCESS" -> e.param("username") != null;
+            case "BOOKING_CREATE" -> e.param("slot") != null && e.param("time") != null
+                    && e.timeParam("time") != null;
+            case "BOOKING_CANCEL" -> e.intParam("booking_id") > 0;
+            case "BOOKING_TRANSFER" -> e.intParam("booking_id") > 0 && e.param("new_slot") != null
+                    && e.param("new_time") != null && e.timeParam("new_time") != null;
+            case "EQUIPMENT_RENT", "EQUIPMENT_RETURN" -> e.intParam("equipment_id") > 0 && e.param("user") != null;
+            case "LESSON_BOOK" -> e.param("instructor") != null && e.param("user") != null
+                    && e.param("time") != null && e.timeParam("time") != null;
+            default -> e.getUser() != null && !e.getUser().isEmpty();
+        };
+    }
+}
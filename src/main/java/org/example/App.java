@@ -7,15 +7,33 @@ import javafx.scene.Parent;
 import javafx.fxml.FXMLLoader;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.example.Services.initDB;
 
 import org.example.controller.*;
+import org.example.metrics.Metrics;
+import org.example.metrics.StartupTracer;
 import org.example.model.User;
+import org.example.session.Session;
 
 public class App extends Application {
+    // -Dskiservice.metrics=<file>, -Dskiservice.metrics.interval=<секунди>
+    private static final String METRICS_FILE = System.getProperty("skiservice.metrics", "ski-service-metrics.txt");
+    private static final long METRICS_INTERVAL_SECONDS = Long.getLong("skiservice.metrics.interval", 60);
+    // -Dskiservice.parallelStartup=false - БД і інтерфейс готуються послідовно, як раніше
+    private static final boolean PARALLEL_STARTUP =
+            Boolean.parseBoolean(System.getProperty("skiservice.parallelStartup", "true"));
+
     private Stage primaryStage;
     private Scene loginScene;
+    // головний екран, розібраний під час запуску; використовується першим входом
+    private FXMLLoader preloadedMain;
 
     public static void main(String[] args) {
         launch(args);
@@ -24,13 +42,42 @@ public class App extends Application {
     @Override
     public void start(Stage stage) throws Exception {
         this.primaryStage = stage;
+        StartupTracer tracer = new StartupTracer(ManagementFactory.getRuntimeMXBean().getUptime());
 
         try {
             Logger.logSystemEvent("APPLICATION_START", "Ski Service Application starting");
-            initDB();
-            showLogin();
-            primaryStage.setTitle("Ski Service");
-            primaryStage.show();
+
+            // відкриття БД і міграція не торкаються JavaFX - у паралельному режимі йдуть у фоні,
+            // поки потік JavaFX розбирає FXML і CSS
+            CompletableFuture<Void> database;
+            if (PARALLEL_STARTUP) {
+                database = CompletableFuture.runAsync(() -> openDatabase(tracer));
+            } else {
+                openDatabase(tracer);
+                database = CompletableFuture.completedFuture(null);
+            }
+
+            try (StartupTracer.Phase phase = tracer.phase("ui.login")) {
+                showLogin();
+            }
+            if (PARALLEL_STARTUP) {
+                try (StartupTracer.Phase phase = tracer.phase("ui.preloadMain")) {
+                    preloadMain();
+                }
+            }
+            try (StartupTracer.Phase phase = tracer.phase("db.wait")) {
+                awaitDatabase(database);
+            }
+            try (StartupTracer.Phase phase = tracer.phase("metrics")) {
+                startMetrics();
+            }
+            try (StartupTracer.Phase phase = tracer.phase("ui.show")) {
+                primaryStage.setTitle("Ski Service");
+                primaryStage.show();
+            }
+            tracer.finish();
+            Logger.logSystemEvent("STARTUP_PROFILE", (PARALLEL_STARTUP ? "parallel" : "sequential") + ", "
+                    + tracer.report());
             Logger.logSystemEvent("APPLICATION_READY", "Application UI loaded successfully");
 
         } catch (Exception e) {
@@ -42,9 +89,54 @@ public class App extends Application {
     @Override
     public void stop() throws Exception {
         Logger.logSystemEvent("APPLICATION_STOP", "Ski Service Application shutting down");
+        Metrics.stopDump();
+        Services.closeDB();
         super.stop();
     }
 
+    private static void openDatabase(StartupTracer tracer) {
+        try (StartupTracer.Phase phase = tracer.phase("db.init")) {
+            initDB();
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // помилка БД з фонового потоку повертається як є, а не загорнутою в CompletionException
+    private static void awaitDatabase(CompletableFuture<Void> database) throws SQLException {
+        try {
+            database.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    // розбір Main.fxml до входу (styles.css вже в кеші після екрана входу); вкладки - після входу.
+    // БД у цей момент ще відкривається у фоні, тож нічого звідси не повинно звертатися до Services
+    private void preloadMain() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/Main.fxml"));
+            loader.load();
+            preloadedMain = loader;
+        } catch (IOException e) {
+            // не критично - перший вхід завантажить екран сам
+            Logger.logError("UI_LOAD", "SYSTEM", e.getMessage(), "Failed to preload main screen");
+        }
+    }
+
+    private void startMetrics() {
+        Runtime runtime = Runtime.getRuntime();
+        Metrics.gauge("jvm.heap.used.mb", () -> (runtime.totalMemory() - runtime.freeMemory()) / (1024.0 * 1024.0));
+        Metrics.gauge("jvm.threads", () -> Thread.activeCount());
+        Metrics.startDump(Paths.get(METRICS_FILE), Duration.ofSeconds(METRICS_INTERVAL_SECONDS));
+    }
+
     private void showLogin() throws IOException {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/Login.fxml"));
@@ -62,16 +154,22 @@ public class App extends Application {
         }
     }
 
-    public void showMain(User currentUser) throws IOException {
+    public void showMain(Session session) throws IOException {
+        User currentUser = session.getUser();
         try {
             Logger.logUserAction("UI_TRANSITION", currentUser.getUsername(), "Transitioning to main application");
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/Main.fxml"));
-            Parent root = loader.load();
+            FXMLLoader loader = preloadedMain;
+            preloadedMain = null;
+            if (loader == null) {
+                loader = new FXMLLoader(getClass().getResource("/fxml/Main.fxml"));
+                loader.load();
+            }
+            Parent root = loader.getRoot();
             Scene mainScene = new Scene(root, 800, 600);
             mainScene.getStylesheets().add(
                     getClass().getResource("/css/styles.css").toExternalForm());
             MainController mainCtrl = loader.getController();
-            mainCtrl.init(primaryStage, loginScene, currentUser);
+            mainCtrl.init(primaryStage, loginScene, session);
             primaryStage.setScene(mainScene);
             Logger.logUserAction("UI_LOAD", currentUser.getUsername(), "Main application screen loaded");
         } catch (IOException e) {
@@ -1,44 +1,58 @@
 package org.example;
 
+import org.example.jfr.LogWriteEvent;
+
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 //Логгери з позначенням основних дій
 public class Logger {
-    private static final String LOG_FILE = "ski-service-logs.txt";
+    // -Dskiservice.log=<file> дозволяє бенчмаркам і тестам писати в окремий файл
+    private static final String LOG_FILE = System.getProperty("skiservice.log", "ski-service-logs.txt");
     private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public static void logUserAction(String action, String user, String parameters) {
         String logMessage = String.format("[%s] ACTION: %s | USER: %s | PARAMS: %s",
                 getCurrentTimestamp(), action, user != null ? user : "SYSTEM", parameters);
-        writeToFile(logMessage);
+        writeToFile("ACTION", action, logMessage);
     }
 
     public static void logError(String action, String user, String error, String parameters) {
         String logMessage = String.format("[%s] ERROR: %s | USER: %s | ERROR: %s | PARAMS: %s",
                 getCurrentTimestamp(), action, user != null ? user : "SYSTEM", error, parameters);
-        writeToFile(logMessage);
+        writeToFile("ERROR", action, logMessage);
     }
 
     public static void logSystemEvent(String event, String details) {
         String logMessage = String.format("[%s] SYSTEM: %s | DETAILS: %s",
                 getCurrentTimestamp(), event, details);
-        writeToFile(logMessage);
+        writeToFile("SYSTEM", event, logMessage);
     }
 
     private static String getCurrentTimestamp() {
         return LocalDateTime.now().format(TIMESTAMP_FORMAT);
     }
 
-    private static synchronized void writeToFile(String message) {
+    private static synchronized void writeToFile(String kind, String action, String message) {
+        LogWriteEvent event = new LogWriteEvent();
+        event.begin();
         try (FileWriter writer = new FileWriter(LOG_FILE, true)) {
             writer.write(message + System.lineSeparator());
             writer.flush();
         } catch (IOException e) {
             System.err.println("Failed to write to log file: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.kind = kind;
+                event.action = action;
+                event.bytes = (message + System.lineSeparator()).getBytes(Charset.defaultCharset()).length;
+                event.commit();
+            }
         }
     }
 }
\ No newline at end of file
@@ -3,87 +3,119 @@ package org.example;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.example.db.InstrumentedConnection;
+import org.example.db.LedgerPartitions;
+import org.example.db.SlowQueryLog;
+import org.example.db.StatementCache;
+import org.example.event.ChangeBus;
+import org.example.event.ChangeEvent;
+import org.example.jfr.LedgerWriteEvent;
+import org.example.metrics.Counter;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
 import org.example.model.Booking;
 import org.example.model.Equipment;
 import org.example.model.Lesson;
 import org.example.model.Transaction;
 import org.example.model.User;
 import org.example.model.UserRental;
+import org.example.schedule.TimerWheel;
+import org.example.security.LoginRateLimiter;
+import org.example.security.LoginThrottledException;
+import org.example.security.PasswordHasher;
+import org.example.security.PasswordPool;
+import org.example.security.UsernameIndex;
+import org.example.service.AnalyticsService;
+import org.example.service.EquipmentAllocator;
+import org.example.service.RentalBillingService;
+import org.example.session.Session;
+import org.example.session.SessionRegistry;
 
 
 public class Services {
-    private static Connection conn;
+    public static final String DEFAULT_DB_FILE = "skiservice.db";
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    // PRAGMA user_version схеми, яку створює createSchema
+    static final int SCHEMA_VERSION = 2;
+
+    // публікується лише після створення схеми: під час паралельного запуску інші потоки
+    // бачать або null, або готове з'єднання
+    private static volatile Connection conn;
+    // архіви журналу транзакцій; -Dskiservice.ledgerArchiveDir, інакше ledger-archive поруч із БД
+    private static Path ledgerArchiveDir = Paths.get("ledger-archive");
+    private static final ChangeBus EVENTS = new ChangeBus();
+    // усі записи через conn - по одному (див. WriteTransaction)
+    private static final ReentrantLock WRITE_LOCK = new ReentrantLock();
+    // події записів, ще не зафіксованих; під WRITE_LOCK
+    private static final List<ChangeEvent> PENDING_EVENTS = new ArrayList<>();
 
     public static void initDB() throws SQLException {
+        initDB(DEFAULT_DB_FILE);
+    }
+
+    /**
+     * Лише з'єднання і схема - без початкових даних, відновлення утримань і таймерів.
+     * Для утиліт командного рядка (імпорт, експорт, архівація), що працюють з тією ж БД,
+     * поки запущений застосунок: вони не повинні змінювати залишки спорядження.
+     */
+    public static void openDB(String dbFile) throws SQLException {
         try {
-            Logger.logSystemEvent("DATABASE_INIT", "Starting database initialization");
-
-            conn = DriverManager.getConnection("jdbc:sqlite:skiservice.db");
-            try (Statement s = conn.createStatement()) {
-                s.execute("PRAGMA foreign_keys = ON;");
-
-                s.execute("""
-                            CREATE TABLE IF NOT EXISTS users(
-                              id INTEGER PRIMARY KEY,
-                              username TEXT UNIQUE NOT NULL,
-                              password TEXT NOT NULL,
-                              role TEXT NOT NULL
-                            );
-                        """);
-                s.execute("""
-                            CREATE TABLE IF NOT EXISTS bookings(
-                              id INTEGER PRIMARY KEY,
-                              username TEXT NOT NULL,
-                              slot TEXT NOT NULL,
-                              time TEXT NOT NULL
-                            );
-                        """);
-                s.execute("""
-                            CREATE TABLE IF NOT EXISTS equipment(
-                              id INTEGER PRIMARY KEY,
-                              type TEXT NOT NULL,
-                              size TEXT NOT NULL,
-                              total INTEGER NOT NULL DEFAULT 0,
-                              available INTEGER NOT NULL DEFAULT 0
-                            );
-                        """);
-                s.execute("""
-                            CREATE TABLE IF NOT EXISTS equipment_rent(
-                              id INTEGER PRIMARY KEY,
-                              eq_id INTEGER NOT NULL,
-                              username TEXT NOT NULL,
-                              FOREIGN KEY(eq_id) REFERENCES equipment(id)
-                            );
-                        """);
-                s.execute("""
-                            CREATE TABLE IF NOT EXISTS instructors(
-                              id INTEGER PRIMARY KEY,
-                              name TEXT NOT NULL
-                            );
-                        """);
-                s.execute("""
-                            CREATE TABLE IF NOT EXISTS lessons(
-                              id INTEGER PRIMARY KEY,
-                              username TEXT NOT NULL,
-                              instructor TEXT NOT NULL,
-                              time TEXT NOT NULL
-                            );
-                        """);
-                s.execute("""
-                            CREATE TABLE IF NOT EXISTS trans(
-                              id INTEGER PRIMARY KEY,
-                              username TEXT NOT NULL,
-                              type TEXT NOT NULL,
-                              amount REAL NOT NULL DEFAULT 0.0,
-                              time TEXT NOT NULL
-                            );
-                        """);
+            Logger.logSystemEvent("DATABASE_OPEN", "Opening database: " + dbFile);
+            openConnection(dbFile);
+        } catch (SQLException e) {
+            Logger.logError("DATABASE_OPEN", "SYSTEM", e.getMessage(), "Failed to open database");
+            throw e;
+        }
+    }
+
+    private static void openConnection(String dbFile) throws SQLException {
+        // -Dskiservice.statementCache=0 вимикає кеш підготовлених запитів
+        int cacheSize = Integer.getInteger("skiservice.statementCache", DEFAULT_STATEMENT_CACHE_SIZE);
+        Connection connection = InstrumentedConnection.wrap(StatementCache.wrap(
+                DriverManager.getConnection("jdbc:sqlite:" + dbFile), cacheSize));
+        String archiveDir = System.getProperty("skiservice.ledgerArchiveDir");
+        ledgerArchiveDir = archiveDir != null ? Paths.get(archiveDir)
+                : Paths.get(dbFile).toAbsolutePath().resolveSibling("ledger-archive");
+        try (Statement s = connection.createStatement()) {
+            s.execute("PRAGMA foreign_keys = ON;");
+
+            // схема вже створена цією (або новішою) версією - DDL і міграції не потрібні
+            int storedVersion;
+            try (ResultSet rs = s.executeQuery("PRAGMA user_version")) {
+                storedVersion = rs.next() ? rs.getInt(1) : 0;
+            }
+            if (storedVersion >= SCHEMA_VERSION) {
+                Logger.logSystemEvent("DATABASE_INIT", "Schema version " + storedVersion + " is current, DDL skipped");
+            } else {
+                createSchema(s);
+                s.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+                Logger.logSystemEvent("DATABASE_MIGRATION",
+                        String.format("Schema version %d -> %d", storedVersion, SCHEMA_VERSION));
             }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        conn = connection;
+        // індекс підбору міг лишитися від попередньої БД
+        EquipmentService.invalidateAllocator();
+    }
+
+    public static void initDB(String dbFile) throws SQLException {
+        try {
+            Logger.logSystemEvent("DATABASE_INIT", "Starting database initialization: " + dbFile);
+            openConnection(dbFile);
 
             try (PreparedStatement p = conn.prepareStatement("SELECT COUNT(*) FROM users")) {
                 ResultSet rs = p.executeQuery();
@@ -91,13 +123,14 @@ public class Services {
                 if (rs.getInt(1) == 0) {
                     try (PreparedStatement userStmt = conn.prepareStatement(
                             "INSERT INTO users(username,password,role) VALUES (?,?,?)")) {
+                        PasswordHasher hasher = PasswordHasher.fromSystemProperties();
                         userStmt.setString(1, "admin");
-                        userStmt.setString(2, "admin");
+                        userStmt.setString(2, hasher.hash("admin"));
                         userStmt.setString(3, "ADMIN");
                         userStmt.executeUpdate();
 
                         userStmt.setString(1, "user");
-                        userStmt.setString(2, "user");
+                        userStmt.setString(2, hasher.hash("user"));
                         userStmt.setString(3, "USER");
                         userStmt.executeUpdate();
                     }
@@ -135,6 +168,8 @@ public class Services {
                     Logger.logSystemEvent("DATABASE_SEEDED", "Initial data created");
                 }
             }
+            AuthService.loadUsernames();
+            EquipmentService.restoreHolds();
             Logger.logSystemEvent("DATABASE_INIT", "Database initialization completed successfully");
         } catch (SQLException e) {
             Logger.logError("DATABASE_INIT", "SYSTEM", e.getMessage(), "Database initialization failed");
@@ -142,39 +177,481 @@ public class Services {
         }
     }
 
+    // усі CREATE ... IF NOT EXISTS і міграції колонок; після зміни тут збільшити SCHEMA_VERSION
+    private static void createSchema(Statement s) throws SQLException {
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS users(
+                      id INTEGER PRIMARY KEY,
+                      username TEXT UNIQUE NOT NULL,
+                      password TEXT NOT NULL,
+                      role TEXT NOT NULL
+                    );
+                """);
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS bookings(
+                      id INTEGER PRIMARY KEY,
+                      username TEXT NOT NULL,
+                      slot TEXT NOT NULL,
+                      time TEXT NOT NULL
+                    );
+                """);
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS equipment(
+                      id INTEGER PRIMARY KEY,
+                      type TEXT NOT NULL,
+                      size TEXT NOT NULL,
+                      total INTEGER NOT NULL DEFAULT 0,
+                      available INTEGER NOT NULL DEFAULT 0
+                    );
+                """);
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS equipment_rent(
+                      id INTEGER PRIMARY KEY,
+                      eq_id INTEGER NOT NULL,
+                      username TEXT NOT NULL,
+                      FOREIGN KEY(eq_id) REFERENCES equipment(id)
+                    );
+                """);
+        // rented_at з'явилася пізніше - старі БД отримують колонку без перестворення таблиці
+        ensureColumn(s, "equipment_rent", "rented_at", "TEXT");
+        // прострочені прокати шукаються діапазоном по rented_at без перегляду всієї таблиці
+        s.execute("CREATE INDEX IF NOT EXISTS idx_equipment_rent_rented_at ON equipment_rent(rented_at)");
+        // утримання одиниць на час підтвердження; available вже зменшено
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS equipment_holds(
+                      id INTEGER PRIMARY KEY,
+                      eq_id INTEGER NOT NULL,
+                      username TEXT NOT NULL,
+                      expires_at TEXT NOT NULL
+                    );
+                """);
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS rental_history(
+                      id INTEGER PRIMARY KEY,
+                      eq_id INTEGER NOT NULL,
+                      username TEXT NOT NULL,
+                      rented_at TEXT,
+                      returned_at TEXT NOT NULL,
+                      minutes INTEGER NOT NULL,
+                      tier TEXT NOT NULL,
+                      charge REAL NOT NULL
+                    );
+                """);
+        // журнал видач: тип і розмір на момент прокату, незалежно від подальших змін equipment
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS rental_events(
+                      id INTEGER PRIMARY KEY,
+                      eq_id INTEGER NOT NULL,
+                      type TEXT NOT NULL,
+                      size TEXT NOT NULL,
+                      username TEXT NOT NULL,
+                      rented_at TEXT NOT NULL
+                    );
+                """);
+        // щоденні агрегати журналу видач для звітів популярності
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS rental_popularity(
+                      day TEXT NOT NULL,
+                      type TEXT NOT NULL,
+                      size TEXT NOT NULL,
+                      rentals INTEGER NOT NULL DEFAULT 0,
+                      PRIMARY KEY(day, type, size)
+                    ) WITHOUT ROWID;
+                """);
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS instructors(
+                      id INTEGER PRIMARY KEY,
+                      name TEXT NOT NULL
+                    );
+                """);
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS lessons(
+                      id INTEGER PRIMARY KEY,
+                      username TEXT NOT NULL,
+                      instructor TEXT NOT NULL,
+                      time TEXT NOT NULL
+                    );
+                """);
+        // AUTOINCREMENT: після архівації старих місяців id не повторюють уже перенесені в архів
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS trans(
+                      id INTEGER PRIMARY KEY AUTOINCREMENT,
+                      username TEXT NOT NULL,
+                      type TEXT NOT NULL,
+                      amount REAL NOT NULL DEFAULT 0.0,
+                      time TEXT NOT NULL
+                    );
+                """);
+        ensureTransAutoIncrement(s);
+        // запити за період читають з trans лише діапазон часу
+        s.execute("CREATE INDEX IF NOT EXISTS idx_trans_time ON trans(time)");
+        // архіви закритих місяців журналу (LedgerPartitions, LedgerArchiver)
+        s.execute("""
+                    CREATE TABLE IF NOT EXISTS trans_partitions(
+                      file TEXT PRIMARY KEY,
+                      month TEXT NOT NULL,
+                      min_time TEXT NOT NULL,
+                      max_time TEXT NOT NULL,
+                      rows INTEGER NOT NULL,
+                      archived_at TEXT NOT NULL
+                    );
+                """);
+    }
+
+    /**
+     * Перестворює trans старої схеми з AUTOINCREMENT (SQLite не змінює тип ключа через ALTER TABLE).
+     * Перенесені явні id підтягують sqlite_sequence до наявного максимуму.
+     */
+    private static void ensureTransAutoIncrement(Statement s) throws SQLException {
+        try (ResultSet rs = s.executeQuery("SELECT sql FROM sqlite_master WHERE type='table' AND name='trans'")) {
+            if (!rs.next() || rs.getString(1).toUpperCase().contains("AUTOINCREMENT")) {
+                return;
+            }
+        }
+        Connection c = s.getConnection();
+        c.setAutoCommit(false);
+        try {
+            s.execute("ALTER TABLE trans RENAME TO trans_old");
+            s.execute("""
+                        CREATE TABLE trans(
+                          id INTEGER PRIMARY KEY AUTOINCREMENT,
+                          username TEXT NOT NULL,
+                          type TEXT NOT NULL,
+                          amount REAL NOT NULL DEFAULT 0.0,
+                          time TEXT NOT NULL
+                        );
+                    """);
+            s.execute("INSERT INTO trans(id, username, type, amount, time) "
+                    + "SELECT id, username, type, amount, time FROM trans_old ORDER BY id");
+            s.execute("DROP TABLE trans_old");
+            c.commit();
+        } catch (SQLException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+        Logger.logSystemEvent("DATABASE_MIGRATION", "Rebuilt trans with AUTOINCREMENT ids");
+    }
+
+    /**
+     * Додає колонку до наявної таблиці, якщо її ще немає (SQLite не підтримує ADD COLUMN IF NOT EXISTS).
+     */
+    private static void ensureColumn(Statement s, String table, String column, String definition)
+            throws SQLException {
+        try (ResultSet rs = s.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return;
+                }
+            }
+        }
+        s.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        Logger.logSystemEvent("DATABASE_MIGRATION", String.format("Added column %s.%s", table, column));
+    }
+
+    public static Connection getConnection() {
+        return conn;
+    }
+
+    /**
+     * Секції журналу транзакцій поточного з'єднання: trans і зареєстровані архіви.
+     */
+    public static LedgerPartitions ledger() {
+        return new LedgerPartitions(conn, ledgerArchiveDir);
+    }
+
+    /**
+     * Шина змін: кожен успішний запис публікує типізовану ChangeEvent після фіксації в БД.
+     */
+    public static ChangeBus events() {
+        return EVENTS;
+    }
+
+    /**
+     * Запис через спільне з'єднання: WRITE_LOCK і одна SQL-транзакція.
+     *
+     * conn одночасно використовують потік JavaFX, потоки API і таймер утримань. Без блокування
+     * autocommit-запит іншого потоку потрапив би всередину чужої транзакції і був би зафіксований
+     * чи відкочений разом з нею. Вкладений begin() (log усередині ret) приєднується до зовнішньої
+     * транзакції. close() без commit() відкочує; події, опубліковані всередині, розсилаються після
+     * фіксації, а при відкоті відкидаються.
+     */
+    private static final class WriteTransaction implements AutoCloseable {
+        private final boolean outer;
+        private final boolean autoCommit;
+        private boolean committed;
+
+        private WriteTransaction(boolean outer, boolean autoCommit) {
+            this.outer = outer;
+            this.autoCommit = autoCommit;
+        }
+
+        static WriteTransaction begin() throws SQLException {
+            WRITE_LOCK.lock();
+            if (WRITE_LOCK.getHoldCount() > 1) {
+                return new WriteTransaction(false, false);
+            }
+            try {
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                return new WriteTransaction(true, autoCommit);
+            } catch (SQLException | RuntimeException e) {
+                WRITE_LOCK.unlock();
+                throw e;
+            }
+        }
+
+        void commit() throws SQLException {
+            if (outer) {
+                conn.commit();
+            }
+            committed = true;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (!outer) {
+                WRITE_LOCK.unlock();
+                return;
+            }
+            List<ChangeEvent> events = new ArrayList<>();
+            try {
+                if (!committed) {
+                    conn.rollback();
+                }
+            } finally {
+                try {
+                    conn.setAutoCommit(autoCommit);
+                } finally {
+                    if (committed) {
+                        events.addAll(PENDING_EVENTS);
+                    }
+                    PENDING_EVENTS.clear();
+                    WRITE_LOCK.unlock();
+                }
+            }
+            // підписники - поза блокуванням
+            events.forEach(EVENTS::publish);
+        }
+    }
+
+    @FunctionalInterface
+    public interface SqlWork {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Кілька викликів сервісів однією транзакцією: їхні WriteTransaction приєднуються до цієї,
+     * фіксація одна наприкінці. Виняток з work відкочує все.
+     */
+    public static void inWriteTransaction(SqlWork work) throws SQLException {
+        try (WriteTransaction tx = WriteTransaction.begin()) {
+            work.run();
+            tx.commit();
+        }
+    }
+
+    private static void publish(ChangeEvent event) {
+        if (WRITE_LOCK.isHeldByCurrentThread()) {
+            PENDING_EVENTS.add(event);
+        } else {
+            EVENTS.publish(event);
+        }
+    }
+
+    public static void closeDB() {
+        if (conn == null)
+            return;
+
+        try {
+            SlowQueryLog.writeSummary();
+            EquipmentService.cancelHoldTimers();
+            conn.close();
+            Logger.logSystemEvent("DATABASE_CLOSE", "Database connection closed");
+        } catch (SQLException e) {
+            Logger.logError("DATABASE_CLOSE", "SYSTEM", e.getMessage(), "Failed to close database connection");
+        } finally {
+            conn = null;
+        }
+    }
+
     public static class AuthService {
-        private static User currentUser;
+        private static final LatencyHistogram LOGIN_TIMER = Metrics.histogram("AuthService.login");
+        private static final LatencyHistogram REGISTER_TIMER = Metrics.histogram("AuthService.register");
+        private static final Counter LOGIN_FAILURES = Metrics.counter("AuthService.login.failed");
+
+        // -Dskiservice.sessionTimeoutMinutes: скільки сеанс живе без звернень
+        private static final SessionRegistry SESSIONS = new SessionRegistry(
+                Duration.ofMinutes(Long.getLong("skiservice.sessionTimeoutMinutes", 30)));
+
+        // -Dskiservice.passwordIterations, -Dskiservice.passwordThreads, -Dskiservice.passwordQueue
+        private static final PasswordHasher HASHER = PasswordHasher.fromSystemProperties();
+        private static final PasswordPool PASSWORD_POOL = PasswordPool.fromSystemProperties();
+
+        // -Dskiservice.loginLimit.*: скільки невдалих спроб дозволено на ім'я і на джерело
+        private static final LoginRateLimiter LOGIN_LIMITER = LoginRateLimiter.fromSystemProperties();
+
+        private static final Counter USERNAME_INDEX_HITS = Metrics.counter("security.usernameIndex.hit");
+        private static final Counter USERNAME_INDEX_DB_CHECKS = Metrics.counter("security.usernameIndex.dbCheck");
+        public static final String USERNAME_TAKEN = "Username already exists";
+
+        // null до initDB (і в тестах з підміненим з'єднанням) - тоді все вирішує БД
+        private static volatile UsernameIndex usernames;
+
+        static {
+            Metrics.gauge("sessions.active", SESSIONS::size);
+            Metrics.gauge("security.loginLimiter.entries", LOGIN_LIMITER::size);
+            Metrics.gauge("security.usernameIndex.size", () -> {
+                UsernameIndex index = usernames;
+                return index == null ? 0 : index.size();
+            });
+        }
 
-        public static boolean login(String username, String password) throws SQLException {
-            String params = String.format("username=%s", username);
+        /**
+         * Вхід з десктопного застосунку - усі спроби з одного джерела.
+         */
+        public static Session login(String username, String password) throws SQLException {
+            return login(username, password, "local");
+        }
+
+        /**
+         * @param source звідки прийшла спроба (IP клієнта API, "local" для десктопа)
+         * @return новий сеанс користувача або null, якщо облікові дані невірні
+         * @throws LoginThrottledException забагато невдалих спроб для імені або джерела
+         */
+        public static Session login(String username, String password, String source) throws SQLException {
+            long start = System.nanoTime();
+            String params = String.format("username=%s, source=%s", username, source);
 
             try {
                 if (username == null || password == null || username.trim().isEmpty() || password.trim().isEmpty()) {
                     Logger.logError("LOGIN", username, "Empty credentials", params);
-                    return false;
+                    return null;
+                }
+
+                // відхилені спроби не доходять до БД і не пишуться в журнал - лише лічильники метрик
+                LoginRateLimiter.Decision decision = LOGIN_LIMITER.tryAcquire(username, source);
+                if (decision != LoginRateLimiter.Decision.ALLOWED) {
+                    throw new LoginThrottledException("Too many login attempts, please try again later",
+                            LOGIN_LIMITER.retryAfter(username, source));
                 }
 
+                String stored = null;
+                String role = null;
                 try (PreparedStatement ps = conn.prepareStatement(
-                        "SELECT role FROM users WHERE username=? AND password=?")) {
+                        "SELECT password, role FROM users WHERE username=?")) {
                     ps.setString(1, username.trim());
-                    ps.setString(2, password.trim());
                     ResultSet rs = ps.executeQuery();
                     if (rs.next()) {
-                        currentUser = new User(username.trim(), rs.getString("role"));
-                        Logger.logUserAction("LOGIN_SUCCESS", username.trim(), params);
-                        return true;
+                        stored = rs.getString("password");
+                        role = rs.getString("role");
                     }
                 }
 
+                // невідомий користувач перевіряється проти фіктивного хешу - час відповіді однаковий
+                String candidate = password.trim();
+                String expected = stored != null ? stored : HASHER.dummyHash();
+                boolean matches = PASSWORD_POOL.call(() -> HASHER.verify(candidate, expected));
+                if (stored != null && matches) {
+                    if (HASHER.needsRehash(stored)) {
+                        rehash(username.trim(), candidate, stored);
+                    }
+                    LOGIN_LIMITER.onSuccess(username, source);
+                    Session session = SESSIONS.create(new User(username.trim(), role));
+                    Logger.logUserAction("LOGIN_SUCCESS", username.trim(), params);
+                    return session;
+                }
+
+                LOGIN_FAILURES.increment();
                 Logger.logUserAction("LOGIN_FAILED", username, params);
-                return false;
+                if (LOGIN_LIMITER.isLocked(username)) {
+                    // один запис на блокування: наступні спроби відсікаються до цього місця
+                    Logger.logUserAction("LOGIN_LOCKOUT", username, params);
+                }
+                return null;
+            } catch (LoginThrottledException e) {
+                throw e;
             } catch (SQLException e) {
                 Logger.logError("LOGIN", username, e.getMessage(), params);
                 throw e;
+            } finally {
+                LOGIN_TIMER.recordSince(start);
+            }
+        }
+
+        /**
+         * Міграція при вході: пароль відкритим текстом або хеш зі старою вартістю замінюється новим хешем.
+         * Умова password=? не дає перезаписати пароль, змінений паралельно. Помилка не заважає входу.
+         */
+        private static void rehash(String username, String password, String stored) {
+            try {
+                // хеш рахуємо поза WRITE_LOCK - під блокуванням лише UPDATE
+                String hash = PASSWORD_POOL.call(() -> HASHER.hash(password));
+                try (WriteTransaction tx = WriteTransaction.begin();
+                     PreparedStatement ps = conn.prepareStatement(
+                             "UPDATE users SET password=? WHERE username=? AND password=?")) {
+                    ps.setString(1, hash);
+                    ps.setString(2, username);
+                    ps.setString(3, stored);
+                    boolean updated = ps.executeUpdate() == 1;
+                    tx.commit();
+                    if (updated) {
+                        Logger.logUserAction("PASSWORD_REHASH", username,
+                                String.format("iterations=%d", HASHER.getIterations()));
+                    }
+                }
+            } catch (SQLException e) {
+                Logger.logError("PASSWORD_REHASH", username, e.getMessage(), String.format("username=%s", username));
+            }
+        }
+
+        /**
+         * Завантажує всі імена в UsernameIndex. Викликається з initDB після створення схеми
+         * і після масового імпорту користувачів.
+         */
+        public static void loadUsernames() throws SQLException {
+            List<String> names = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement("SELECT username FROM users")) {
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+            UsernameIndex index = UsernameIndex.of(names);
+            usernames = index;
+            Logger.logSystemEvent("USERNAME_INDEX", String.format("Loaded %d usernames (%s)",
+                    index.size(), index.isExact() ? "bloom+exact" : "bloom"));
+        }
+
+        /**
+         * Чи зайняте ім'я. Зазвичай відповідає індекс у пам'яті; до БД іде лише невизначена
+         * відповідь Bloom-фільтра (або якщо індекс ще не завантажений).
+         */
+        public static boolean isUsernameTaken(String username) throws SQLException {
+            if (username == null || username.trim().isEmpty()) {
+                return false;
+            }
+            String name = username.trim();
+            UsernameIndex index = usernames;
+            UsernameIndex.Answer answer = index == null ? UsernameIndex.Answer.MAYBE : index.lookup(name);
+            if (answer != UsernameIndex.Answer.MAYBE) {
+                USERNAME_INDEX_HITS.increment();
+                return answer == UsernameIndex.Answer.TAKEN;
+            }
+
+            USERNAME_INDEX_DB_CHECKS.increment();
+            try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM users WHERE username=?")) {
+                ps.setString(1, name);
+                return ps.executeQuery().next();
+            } catch (SQLException e) {
+                Logger.logError("USERNAME_CHECK", username, e.getMessage(), String.format("username=%s", username));
+                throw e;
             }
         }
 
         public static boolean register(String username, String password) throws SQLException {
+            long start = System.nanoTime();
             String params = String.format("username=%s", username);
 
             try {
@@ -183,14 +660,29 @@ public class Services {
                     throw new SQLException("Username and password cannot be empty");
                 }
 
-                try (PreparedStatement ps = conn.prepareStatement(
-                        "INSERT INTO users(username,password,role) VALUES(?,?,?)")) {
+                // відомий дублікат відхиляємо до хешування пароля і INSERT; MAYBE вирішить обмеження UNIQUE
+                UsernameIndex index = usernames;
+                if (index != null && index.lookup(username.trim()) == UsernameIndex.Answer.TAKEN) {
+                    USERNAME_INDEX_HITS.increment();
+                    throw new SQLException(USERNAME_TAKEN);
+                }
+
+                String candidate = password.trim();
+                // хеш рахуємо поза WRITE_LOCK - під блокуванням лише INSERT
+                String hash = PASSWORD_POOL.call(() -> HASHER.hash(candidate));
+                try (WriteTransaction tx = WriteTransaction.begin();
+                     PreparedStatement ps = conn.prepareStatement(
+                             "INSERT INTO users(username,password,role) VALUES(?,?,?)")) {
                     ps.setString(1, username.trim());
-                    ps.setString(2, password.trim());
+                    ps.setString(2, hash);
                     ps.setString(3, "USER");
                     boolean success = ps.executeUpdate() == 1;
+                    tx.commit();
 
                     if (success) {
+                        if (index != null) {
+                            index.add(username.trim());
+                        }
                         Logger.logUserAction("REGISTER_SUCCESS", username.trim(), params);
                     } else {
                         Logger.logError("REGISTER", username, "Failed to insert user", params);
@@ -199,19 +691,50 @@ public class Services {
                     return success;
                 }
             } catch (SQLException e) {
+                UsernameIndex index = usernames;
+                if (index != null && e.getMessage() != null && e.getMessage().contains("UNIQUE constraint failed")) {
+                    // ім'я додали в обхід індексу (інший процес) - наступна спроба відповість без БД
+                    index.add(username.trim());
+                }
                 Logger.logError("REGISTER", username, e.getMessage(), params);
                 throw e;
+            } finally {
+                REGISTER_TIMER.recordSince(start);
             }
         }
-        public static User getCurrentUser() {
-            return currentUser;
+
+        /**
+         * @return активний сеанс за токеном або null, якщо він невідомий чи прострочений
+         */
+        public static Session getSession(String token) {
+            return SESSIONS.get(token);
+        }
+
+        public static void logout(Session session) {
+            if (session == null)
+                return;
+
+            SESSIONS.invalidate(session.getToken());
+            Logger.logUserAction("LOGOUT", session.getUsername(), "Session closed");
+        }
+
+        public static SessionRegistry sessions() {
+            return SESSIONS;
         }
     }
 
     public static class BookingService {
         private static final DateTimeFormatter F = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        private static final LatencyHistogram BOOK_TIMER = Metrics.histogram("BookingService.book");
+        private static final LatencyHistogram CANCEL_TIMER = Metrics.histogram("BookingService.cancel");
+        private static final LatencyHistogram TRANSFER_TIMER = Metrics.histogram("BookingService.transfer");
+        private static final LatencyHistogram LIST_ALL_TIMER = Metrics.histogram("BookingService.listAll");
+        private static final LatencyHistogram FIND_BY_ID_TIMER = Metrics.histogram("BookingService.findById");
+        private static final LatencyHistogram COUNT_ALL_TIMER = Metrics.histogram("BookingService.countAll");
+        private static final LatencyHistogram COUNT_BY_USER_TIMER = Metrics.histogram("BookingService.countByUser");
 
         public static void book(String user, String slot, LocalDateTime when) throws SQLException {
+            long start = System.nanoTime();
             String params = String.format("slot=%s, time=%s", slot, when);
 
             try {
@@ -220,54 +743,72 @@ public class Services {
                     throw new SQLException("User, slot, and time cannot be null");
                 }
 
-                try (PreparedStatement ins = conn.prepareStatement(
-                        "INSERT INTO bookings(username,slot,time) VALUES(?,?,?)")) {
-                    ins.setString(1, user);
-                    ins.setString(2, slot);
-                    ins.setString(3, when.format(F));
-                    ins.executeUpdate();
-                }
+                int bookingId;
+                try (WriteTransaction tx = WriteTransaction.begin()) {
+                    try (PreparedStatement ins = conn.prepareStatement(
+                            "INSERT INTO bookings(username,slot,time) VALUES(?,?,?)", Statement.RETURN_GENERATED_KEYS)) {
+                        ins.setString(1, user);
+                        ins.setString(2, slot);
+                        ins.setString(3, when.format(F));
+                        ins.executeUpdate();
+                        ResultSet keys = ins.getGeneratedKeys();
+                        keys.next();
+                        bookingId = keys.getInt(1);
+                    }
 
-                TransactionService.log(user, "booking", 50.0, when);
+                    TransactionService.log(user, "booking", 50.0, when);
+                    tx.commit();
+                }
                 Logger.logUserAction("BOOKING_CREATE", user, params);
+                publish(new ChangeEvent.BookingCreated(new Booking(bookingId, user, slot, when)));
 
             } catch (SQLException e) {
                 Logger.logError("BOOKING_CREATE", user, e.getMessage(), params);
                 throw e;
+            } finally {
+                BOOK_TIMER.recordSince(start);
             }
         }
 
         public static void cancel(int id) throws SQLException {
+            long start = System.nanoTime();
             String params = String.format("booking_id=%d", id);
             String user = "UNKNOWN";
 
             try {
-                try (PreparedStatement getUser = conn.prepareStatement("SELECT username FROM bookings WHERE id=?")) {
-                    getUser.setInt(1, id);
-                    ResultSet rs = getUser.executeQuery();
-                    if (rs.next()) {
-                        user = rs.getString("username");
+                try (WriteTransaction tx = WriteTransaction.begin()) {
+                    try (PreparedStatement getUser = conn.prepareStatement("SELECT username FROM bookings WHERE id=?")) {
+                        getUser.setInt(1, id);
+                        ResultSet rs = getUser.executeQuery();
+                        if (rs.next()) {
+                            user = rs.getString("username");
+                        }
                     }
-                }
-
-                try (PreparedStatement d = conn.prepareStatement("DELETE FROM bookings WHERE id=?")) {
-                    d.setInt(1, id);
-                    int deleted = d.executeUpdate();
 
-                    if (deleted > 0) {
-                        TransactionService.log("system", "cancel_booking", -50.0, LocalDateTime.now());
-                        Logger.logUserAction("BOOKING_CANCEL", user, params);
-                    } else {
-                        Logger.logError("BOOKING_CANCEL", user, "Booking not found", params);
+                    try (PreparedStatement d = conn.prepareStatement("DELETE FROM bookings WHERE id=?")) {
+                        d.setInt(1, id);
+                        int deleted = d.executeUpdate();
+
+                        if (deleted > 0) {
+                            TransactionService.log("system", "cancel_booking", -50.0, LocalDateTime.now());
+                            Logger.logUserAction("BOOKING_CANCEL", user, params);
+                            publish(new ChangeEvent.BookingCancelled(id, user));
+                        } else {
+                            Logger.logError("BOOKING_CANCEL", user, "Booking not found", params);
+                        }
                     }
+                    tx.commit();
                 }
             } catch (SQLException e) {
                 Logger.logError("BOOKING_CANCEL", user, e.getMessage(), params);
                 throw e;
+            } finally {
+                CANCEL_TIMER.recordSince(start);
             }
         }
 
         public static void transfer(int id, String slot, LocalDateTime when) throws SQLException {
+            long start = System.nanoTime();
             String params = String.format("booking_id=%d, new_slot=%s, new_time=%s", id, slot, when);
             String user = "UNKNOWN";
 
@@ -277,34 +818,41 @@ public class Services {
                     throw new SQLException("Slot and time cannot be null");
                 }
 
-                try (PreparedStatement getUser = conn.prepareStatement("SELECT username FROM bookings WHERE id=?")) {
-                    getUser.setInt(1, id);
-                    ResultSet rs = getUser.executeQuery();
-                    if (rs.next()) {
-                        user = rs.getString("username");
+                try (WriteTransaction tx = WriteTransaction.begin()) {
+                    try (PreparedStatement getUser = conn.prepareStatement("SELECT username FROM bookings WHERE id=?")) {
+                        getUser.setInt(1, id);
+                        ResultSet rs = getUser.executeQuery();
+                        if (rs.next()) {
+                            user = rs.getString("username");
+                        }
                     }
-                }
 
-                try (PreparedStatement u = conn.prepareStatement(
-                        "UPDATE bookings SET slot=?, time=? WHERE id=?")) {
-                    u.setString(1, slot);
-                    u.setString(2, when.format(F));
-                    u.setInt(3, id);
-                    int updated = u.executeUpdate();
-
-                    if (updated > 0) {
-                        Logger.logUserAction("BOOKING_TRANSFER", user, params);
-                    } else {
-                        Logger.logError("BOOKING_TRANSFER", user, "Booking not found", params);
+                    try (PreparedStatement u = conn.prepareStatement(
+                            "UPDATE bookings SET slot=?, time=? WHERE id=?")) {
+                        u.setString(1, slot);
+                        u.setString(2, when.format(F));
+                        u.setInt(3, id);
+                        int updated = u.executeUpdate();
+
+                        if (updated > 0) {
+                            Logger.logUserAction("BOOKING_TRANSFER", user, params);
+                            publish(new ChangeEvent.BookingTransferred(new Booking(id, user, slot, when)));
+                        } else {
+                            Logger.logError("BOOKING_TRANSFER", user, "Booking not found", params);
+                        }
                     }
+                    tx.commit();
                 }
             } catch (SQLException e) {
                 Logger.logError("BOOKING_TRANSFER", user, e.getMessage(), params);
                 throw e;
+            } finally {
+                TRANSFER_TIMER.recordSince(start);
             }
         }
 
         public static ObservableList<Booking> listAll() {
+            long start = System.nanoTime();
             ObservableList<Booking> L = FXCollections.observableArrayList();
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery("SELECT * FROM bookings")) {
@@ -318,11 +866,35 @@ public class Services {
             } catch (Exception e) {
                 Logger.logError("BOOKING_LIST", "SYSTEM", e.getMessage(), "Loading all bookings");
                 e.printStackTrace();
+            } finally {
+                LIST_ALL_TIMER.recordSince(start);
             }
             return L;
         }
 
+        public static Booking findById(int id) {
+            long start = System.nanoTime();
+            try (PreparedStatement p = conn.prepareStatement("SELECT * FROM bookings WHERE id=?")) {
+                p.setInt(1, id);
+                ResultSet rs = p.executeQuery();
+                if (rs.next()) {
+                    return new Booking(
+                            rs.getInt("id"),
+                            rs.getString("username"),
+                            rs.getString("slot"),
+                            LocalDateTime.parse(rs.getString("time"), F));
+                }
+            } catch (Exception e) {
+                Logger.logError("BOOKING_FIND", "SYSTEM", e.getMessage(), String.format("booking_id=%d", id));
+                e.printStackTrace();
+            } finally {
+                FIND_BY_ID_TIMER.recordSince(start);
+            }
+            return null;
+        }
+
         public static int countAll() {
+            long start = System.nanoTime();
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM bookings")) {
                 rs.next();
@@ -330,10 +902,13 @@ public class Services {
             } catch (Exception e) {
                 Logger.logError("BOOKING_COUNT", "SYSTEM", e.getMessage(), "Counting all bookings");
                 return 0;
+            } finally {
+                COUNT_ALL_TIMER.recordSince(start);
             }
         }
 
         public static int countByUser(String user) {
+            long start = System.nanoTime();
             if (user == null)
                 return 0;
 
@@ -346,13 +921,56 @@ public class Services {
             } catch (Exception e) {
                 Logger.logError("BOOKING_COUNT_USER", user, e.getMessage(), String.format("user=%s", user));
                 e.printStackTrace();
+            } finally {
+                COUNT_BY_USER_TIMER.recordSince(start);
             }
             return 0;
         }
     }
 
     public static class EquipmentService {
+        private static final LatencyHistogram LIST_ALL_TIMER = Metrics.histogram("EquipmentService.listAll");
+        private static final LatencyHistogram RENT_TIMER = Metrics.histogram("EquipmentService.rent");
+        private static final LatencyHistogram RET_TIMER = Metrics.histogram("EquipmentService.ret");
+        private static final LatencyHistogram COUNT_ALL_TIMER = Metrics.histogram("EquipmentService.countAll");
+        private static final LatencyHistogram COUNT_BY_USER_TIMER =
+                Metrics.histogram("EquipmentService.countByUser");
+        private static final LatencyHistogram GET_CURRENT_RENTALS_TIMER =
+                Metrics.histogram("EquipmentService.getCurrentRentals");
+        private static final LatencyHistogram GET_ALL_CURRENT_RENTALS_TIMER =
+                Metrics.histogram("EquipmentService.getAllCurrentRentals");
+        private static final LatencyHistogram GET_OVERDUE_RENTALS_TIMER =
+                Metrics.histogram("EquipmentService.getOverdueRentals");
+        private static final LatencyHistogram GET_RENTAL_POPULARITY_TIMER =
+                Metrics.histogram("EquipmentService.getRentalPopularity");
+        private static final LatencyHistogram HOLD_TIMER = Metrics.histogram("EquipmentService.hold");
+        private static final LatencyHistogram HOLD_PARTY_TIMER = Metrics.histogram("EquipmentService.holdParty");
+        private static final LatencyHistogram CONFIRM_HOLD_TIMER = Metrics.histogram("EquipmentService.confirmHold");
+        private static final Counter HOLDS_CREATED = Metrics.counter("equipment.holds.created");
+        private static final Counter HOLDS_CONFIRMED = Metrics.counter("equipment.holds.confirmed");
+        private static final Counter HOLDS_RELEASED = Metrics.counter("equipment.holds.released");
+        private static final Counter HOLDS_EXPIRED = Metrics.counter("equipment.holds.expired");
+        public static final String HOLD_EXPIRED = "Hold expired";
+        private static final Duration HOLD_TTL = Duration.ofSeconds(Long.getLong("skiservice.holdSeconds", 120));
+        private static final Duration HOLD_EXPIRE_RETRY = Duration.ofSeconds(30);
+        // id утримання -> таймер його зняття
+        private static final Map<Long, TimerWheel.Timeout> HOLD_TIMEOUTS = new ConcurrentHashMap<>();
+
+        // довгоживучий індекс підбору; null - перебудувати з каталогу при наступному запиті
+        private static volatile EquipmentAllocator allocator;
+        private static final ReentrantLock ALLOCATOR_LOCK = new ReentrantLock();
+
+        static {
+            Metrics.gauge("equipment.holds.active", HOLD_TIMEOUTS::size);
+            EVENTS.subscribe(ChangeEvent.StockChanged.class, EquipmentService::applyStockChange);
+        }
+        // фіксована ширина, щоб рядки порівнювались у SQL як час
+        private static final DateTimeFormatter RENTED_AT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+        private static final DateTimeFormatter RENTED_SINCE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        private static final RentalBillingService BILLING = new RentalBillingService();
+
         public static ObservableList<Equipment> listAll() {
+            long start = System.nanoTime();
             ObservableList<Equipment> L = FXCollections.observableArrayList();
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery("SELECT * FROM equipment")) {
@@ -366,11 +984,53 @@ public class Services {
             } catch (Exception e) {
                 Logger.logError("EQUIPMENT_LIST", "SYSTEM", e.getMessage(), "Loading all equipment");
                 e.printStackTrace();
+            } finally {
+                LIST_ALL_TIMER.recordSince(start);
             }
             return L;
         }
 
+        /**
+         * Індекс підбору за типом і розміром (EquipmentAllocator) для каси і API. Будується з каталогу
+         * при першому запиті, далі оновлюється подіями StockChanged без звернень до БД.
+         * Якщо індекс розійшовся з БД (утримання не вдалося), він перебудовується.
+         */
+        public static EquipmentAllocator allocator() {
+            EquipmentAllocator current = allocator;
+            if (current != null) {
+                return current;
+            }
+            ALLOCATOR_LOCK.lock();
+            try {
+                if (allocator == null) {
+                    List<Equipment> catalog = listAll();
+                    EquipmentAllocator built = EquipmentAllocator.of(catalog);
+                    if (catalog.isEmpty()) {
+                        // listAll ковтає помилки БД - порожній знімок не запам'ятовуємо
+                        return built;
+                    }
+                    allocator = built;
+                }
+                return allocator;
+            } finally {
+                ALLOCATOR_LOCK.unlock();
+            }
+        }
+
+        static void invalidateAllocator() {
+            allocator = null;
+        }
+
+        private static void applyStockChange(ChangeEvent.StockChanged event) {
+            EquipmentAllocator current = allocator;
+            if (current != null && !current.apply(event.getEquipmentId(), event.getDelta())) {
+                // позиції не було в знімку (додана після побудови) - наступний запит перебудує індекс
+                allocator = null;
+            }
+        }
+
         public static void rent(int eqId, String user) throws SQLException {
+            long start = System.nanoTime();
             String params = String.format("equipment_id=%d, user=%s", eqId, user);
 
             try {
@@ -379,45 +1039,48 @@ public class Services {
                     throw new SQLException("User cannot be null or empty");
                 }
 
-                try (PreparedStatement p = conn.prepareStatement(
-                        "SELECT available, type, size FROM equipment WHERE id=?")) {
-                    p.setInt(1, eqId);
-                    ResultSet rs = p.executeQuery();
-                    if (!rs.next()) {
-                        Logger.logError("EQUIPMENT_RENT", user, "Equipment not found", params);
-                        throw new SQLException("Equipment not found");
+                try (WriteTransaction tx = WriteTransaction.begin()) {
+                    String type;
+                    String size;
+                    try (PreparedStatement p = conn.prepareStatement(
+                            "SELECT available, type, size FROM equipment WHERE id=?")) {
+                        p.setInt(1, eqId);
+                        ResultSet rs = p.executeQuery();
+                        if (!rs.next()) {
+                            Logger.logError("EQUIPMENT_RENT", user, "Equipment not found", params);
+                            throw new SQLException("Equipment not found");
+                        }
+                        type = rs.getString("type");
+                        size = rs.getString("size");
+                        if (rs.getInt("available") < 1) {
+                            String equipmentInfo = String.format("type=%s, size=%s", type, size);
+                            Logger.logError("EQUIPMENT_RENT", user, "None available", params + ", " + equipmentInfo);
+                            throw new SQLException("None available");
+                        }
                     }
-                    if (rs.getInt("available") < 1) {
-                        String equipmentInfo = String.format("type=%s, size=%s", rs.getString("type"),
-                                rs.getString("size"));
-                        Logger.logError("EQUIPMENT_RENT", user, "None available", params + ", " + equipmentInfo);
-                        throw new SQLException("None available");
-                    }
-                }
 
-                try (PreparedStatement updateStmt = conn.prepareStatement(
-                        "UPDATE equipment SET available=available-1 WHERE id=?")) {
-                    updateStmt.setInt(1, eqId);
-                    updateStmt.executeUpdate();
-                }
+                    try (PreparedStatement updateStmt = conn.prepareStatement(
+                            "UPDATE equipment SET available=available-1 WHERE id=?")) {
+                        updateStmt.setInt(1, eqId);
+                        updateStmt.executeUpdate();
+                    }
 
-                try (PreparedStatement insertStmt = conn.prepareStatement(
-                        "INSERT INTO equipment_rent(eq_id,username) VALUES(?,?)")) {
-                    insertStmt.setInt(1, eqId);
-                    insertStmt.setString(2, user);
-                    insertStmt.executeUpdate();
+                    startRental(eqId, type, size, user);
+                    tx.commit();
                 }
-
-                TransactionService.log(user, "rent_eq", 20.0, LocalDateTime.now());
                 Logger.logUserAction("EQUIPMENT_RENT", user, params);
+                publish(new ChangeEvent.StockChanged(eqId, -1, user));
 
             } catch (SQLException e) {
                 Logger.logError("EQUIPMENT_RENT", user, e.getMessage(), params);
                 throw e;
+            } finally {
+                RENT_TIMER.recordSince(start);
             }
         }
 
         public static void ret(int eqId, String user) throws SQLException {
+            long start = System.nanoTime();
             String params = String.format("equipment_id=%d, user=%s", eqId, user);
 
             try {
@@ -426,32 +1089,71 @@ public class Services {
                     throw new SQLException("User cannot be null or empty");
                 }
 
-                try (PreparedStatement updateStmt = conn.prepareStatement(
-                        "UPDATE equipment SET available=available+1 WHERE id=?")) {
-                    updateStmt.setInt(1, eqId);
-                    updateStmt.executeUpdate();
-                }
+                try (WriteTransaction tx = WriteTransaction.begin()) {
+                    // найстаріший прокат цього спорядження користувачем - саме його і повертають
+                    int rentalId;
+                    String rentedAt;
+                    try (PreparedStatement findStmt = conn.prepareStatement(
+                            "SELECT id, rented_at FROM equipment_rent WHERE eq_id=? AND username=? ORDER BY id LIMIT 1")) {
+                        findStmt.setInt(1, eqId);
+                        findStmt.setString(2, user);
+                        ResultSet rs = findStmt.executeQuery();
+                        if (!rs.next()) {
+                            Logger.logError("EQUIPMENT_RETURN", user, "Rental record not found", params);
+                            return;
+                        }
+                        rentalId = rs.getInt("id");
+                        rentedAt = rs.getString("rented_at");
+                    }
 
-                try (PreparedStatement deleteStmt = conn.prepareStatement(
-                        "DELETE FROM equipment_rent WHERE eq_id=? AND username=?")) {
-                    deleteStmt.setInt(1, eqId);
-                    deleteStmt.setString(2, user);
-                    int deleted = deleteStmt.executeUpdate();
+                    try (PreparedStatement updateStmt = conn.prepareStatement(
+                            "UPDATE equipment SET available=available+1 WHERE id=?")) {
+                        updateStmt.setInt(1, eqId);
+                        updateStmt.executeUpdate();
+                    }
 
-                    if (deleted > 0) {
-                        TransactionService.log(user, "return_eq", -20.0, LocalDateTime.now());
-                        Logger.logUserAction("EQUIPMENT_RETURN", user, params);
-                    } else {
-                        Logger.logError("EQUIPMENT_RETURN", user, "Rental record not found", params);
+                    try (PreparedStatement deleteStmt = conn.prepareStatement(
+                            "DELETE FROM equipment_rent WHERE id=?")) {
+                        deleteStmt.setInt(1, rentalId);
+                        deleteStmt.executeUpdate();
+                    }
+
+                    LocalDateTime returnedAt = LocalDateTime.now();
+                    RentalBillingService.RentalCharge charge = BILLING.calculateCharge(
+                            rentedAt == null ? null : LocalDateTime.parse(rentedAt, RENTED_AT), returnedAt);
+                    try (PreparedStatement historyStmt = conn.prepareStatement(
+                            "INSERT INTO rental_history(eq_id,username,rented_at,returned_at,minutes,tier,charge) "
+                                    + "VALUES(?,?,?,?,?,?,?)")) {
+                        historyStmt.setInt(1, eqId);
+                        historyStmt.setString(2, user);
+                        historyStmt.setString(3, rentedAt);
+                        historyStmt.setString(4, returnedAt.format(RENTED_AT));
+                        historyStmt.setLong(5, charge.getMinutes());
+                        historyStmt.setString(6, charge.getTier());
+                        historyStmt.setDouble(7, charge.getTotal());
+                        historyStmt.executeUpdate();
+                    }
+
+                    TransactionService.log(user, "return_eq", -20.0, returnedAt);
+                    if (charge.getOvertime() > 0) {
+                        TransactionService.log(user, RentalBillingService.OVERTIME_TYPE, charge.getOvertime(), returnedAt);
                     }
+                    tx.commit();
+                    Logger.logUserAction("EQUIPMENT_RETURN", user, String.format("%s, minutes=%d, tier=%s, charge=%.2f",
+                            params, charge.getMinutes(), charge.getTier(), charge.getTotal()));
+                    publish(new ChangeEvent.RentalReturned(eqId, user, charge.getTotal()));
+                    publish(new ChangeEvent.StockChanged(eqId, 1, user));
                 }
             } catch (SQLException e) {
                 Logger.logError("EQUIPMENT_RETURN", user, e.getMessage(), params);
                 throw e;
+            } finally {
+                RET_TIMER.recordSince(start);
             }
         }
 
         public static int countAll() {
+            long start = System.nanoTime();
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM equipment_rent")) {
                 rs.next();
@@ -459,10 +1161,13 @@ public class Services {
             } catch (Exception e) {
                 Logger.logError("EQUIPMENT_COUNT", "SYSTEM", e.getMessage(), "Counting all rentals");
                 return 0;
+            } finally {
+                COUNT_ALL_TIMER.recordSince(start);
             }
         }
 
         public static int countByUser(String user) {
+            long start = System.nanoTime();
             if (user == null)
                 return 0;
 
@@ -475,17 +1180,20 @@ public class Services {
             } catch (Exception e) {
                 Logger.logError("EQUIPMENT_COUNT_USER", user, e.getMessage(), String.format("user=%s", user));
                 e.printStackTrace();
+            } finally {
+                COUNT_BY_USER_TIMER.recordSince(start);
             }
             return 0;
         }
 
         public static ObservableList<UserRental> getCurrentRentals(String username) {
+            long start = System.nanoTime();
             ObservableList<UserRental> rentals = FXCollections.observableArrayList();
             if (username == null)
                 return rentals;
 
             try (PreparedStatement p = conn.prepareStatement(
-                    "SELECT er.eq_id, e.type, e.size, er.username " +
+                    "SELECT er.eq_id, e.type, e.size, er.username, er.rented_at " +
                             "FROM equipment_rent er " +
                             "JOIN equipment e ON er.eq_id = e.id " +
                             "WHERE er.username = ?")) {
@@ -498,19 +1206,22 @@ public class Services {
                             rs.getString("type"),
                             rs.getString("size"),
                             rs.getString("username"),
-                            "Active"));
+                            rentedSince(rs.getString("rented_at"))));
                 }
             } catch (Exception e) {
                 Logger.logError("EQUIPMENT_GET_RENTALS", username, e.getMessage(), String.format("user=%s", username));
                 e.printStackTrace();
+            } finally {
+                GET_CURRENT_RENTALS_TIMER.recordSince(start);
             }
             return rentals;
         }
 
         public static ObservableList<UserRental> getAllCurrentRentals() {
+            long start = System.nanoTime();
             ObservableList<UserRental> rentals = FXCollections.observableArrayList();
             try (PreparedStatement p = conn.prepareStatement(
-                    "SELECT er.eq_id, e.type, e.size, er.username " +
+                    "SELECT er.eq_id, e.type, e.size, er.username, er.rented_at " +
                             "FROM equipment_rent er " +
                             "JOIN equipment e ON er.eq_id = e.id")) {
                 ResultSet rs = p.executeQuery();
@@ -521,20 +1232,443 @@ public class Services {
                             rs.getString("type"),
                             rs.getString("size"),
                             rs.getString("username"),
-                            "Active"));
+                            rentedSince(rs.getString("rented_at"))));
                 }
             } catch (Exception e) {
                 Logger.logError("EQUIPMENT_GET_ALL_RENTALS", "SYSTEM", e.getMessage(), "Loading all current rentals");
                 e.printStackTrace();
+            } finally {
+                GET_ALL_CURRENT_RENTALS_TIMER.recordSince(start);
             }
             return rentals;
         }
+
+        /**
+         * Прокати, видані раніше за межу прострочення (-Dskiservice.rentalOverdueHours), найстаріші першими.
+         * Запит іде діапазоном по індексу idx_equipment_rent_rented_at.
+         */
+        public static ObservableList<UserRental> getOverdueRentals() {
+            long start = System.nanoTime();
+            ObservableList<UserRental> rentals = FXCollections.observableArrayList();
+            String cutoff = BILLING.overdueCutoff(LocalDateTime.now()).format(RENTED_AT);
+            try (PreparedStatement p = conn.prepareStatement(
+                    "SELECT er.eq_id, e.type, e.size, er.username, er.rented_at " +
+                            "FROM equipment_rent er " +
+                            "JOIN equipment e ON er.eq_id = e.id " +
+                            "WHERE er.rented_at < ? " +
+                            "ORDER BY er.rented_at")) {
+                p.setString(1, cutoff);
+                ResultSet rs = p.executeQuery();
+
+                while (rs.next()) {
+                    rentals.add(new UserRental(
+                            rs.getInt("eq_id"),
+                            rs.getString("type"),
+                            rs.getString("size"),
+                            rs.getString("username"),
+                            rentedSince(rs.getString("rented_at"))));
+                }
+            } catch (Exception e) {
+                Logger.logError("EQUIPMENT_GET_OVERDUE", "SYSTEM", e.getMessage(), "cutoff=" + cutoff);
+                e.printStackTrace();
+            } finally {
+                GET_OVERDUE_RENTALS_TIMER.recordSince(start);
+            }
+            return rentals;
+        }
+
+        // видача вже зарезервованої одиниці: прокат, журнал видач і оплата
+        private static void startRental(int eqId, String type, String size, String user) throws SQLException {
+            LocalDateTime rentedAt = LocalDateTime.now();
+            try (PreparedStatement insertStmt = conn.prepareStatement(
+                    "INSERT INTO equipment_rent(eq_id,username,rented_at) VALUES(?,?,?)")) {
+                insertStmt.setInt(1, eqId);
+                insertStmt.setString(2, user);
+                insertStmt.setString(3, rentedAt.format(RENTED_AT));
+                insertStmt.executeUpdate();
+            }
+
+            recordRentalEvent(eqId, type, size, user, rentedAt);
+            TransactionService.log(user, "rent_eq", 20.0, rentedAt);
+            publish(new ChangeEvent.RentalStarted(
+                    new UserRental(eqId, type, size, user, rentedAt.format(RENTED_SINCE))));
+        }
+
+        /**
+         * Утримує одиницю спорядження на час підтвердження оплати: available зменшується одразу,
+         * тож утримання видно в залишках, а інший клієнт не забере останню пару.
+         * Якщо утримання не підтверджено (confirmHold) чи не скасовано (releaseHold) за
+         * -Dskiservice.holdSeconds (120), воно знімається автоматично.
+         *
+         * @return id утримання
+         */
+        public static long hold(int eqId, String user) throws SQLException {
+            long start = System.nanoTime();
+            String params = String.format("equipment_id=%d, user=%s", eqId, user);
+
+            try {
+                if (user == null || user.trim().isEmpty()) {
+                    Logger.logError("EQUIPMENT_HOLD", user, "Empty user", params);
+                    throw new SQLException("User cannot be null or empty");
+                }
+
+                // зменшення залишку і рядок утримання - однією транзакцією: restoreHolds відновлює
+                // лише утримання з рядком, тож одиниця без нього була б втрачена назавжди
+                long holdId;
+                try (WriteTransaction tx = WriteTransaction.begin()) {
+                    // перевірка і зменшення одним запитом - двоє клієнтів не утримають одну одиницю
+                    try (PreparedStatement updateStmt = conn.prepareStatement(
+                            "UPDATE equipment SET available=available-1 WHERE id=? AND available>0")) {
+                        updateStmt.setInt(1, eqId);
+                        if (updateStmt.executeUpdate() == 0) {
+                            // індекс обрав позицію без залишку - він застарів
+                            invalidateAllocator();
+                            Logger.logError("EQUIPMENT_HOLD", user, "None available", params);
+                            throw new SQLException("None available");
+                        }
+                    }
+
+                    holdId = insertHold(eqId, user, LocalDateTime.now().plus(HOLD_TTL));
+                    tx.commit();
+                    scheduleHoldExpiry(holdId, HOLD_TTL);
+                }
+                HOLDS_CREATED.increment();
+                Logger.logUserAction("EQUIPMENT_HOLD", user, params + ", hold_id=" + holdId);
+                publish(new ChangeEvent.StockChanged(eqId, -1, user));
+                return holdId;
+            } catch (SQLException e) {
+                Logger.logError("EQUIPMENT_HOLD", user, e.getMessage(), params);
+                throw e;
+            } finally {
+                HOLD_TIMER.recordSince(start);
+            }
+        }
+
+        /**
+         * Утримує одиниці для всієї групи (id позицій з EquipmentAllocator.allocateParty, повтори -
+         * кілька одиниць однієї позиції) однією транзакцією: або утримано все, або нічого.
+         *
+         * @return id утримань у порядку eqIds; кожне підтверджується confirmHold
+         */
+        public static List<Long> holdParty(List<Integer> eqIds, String user) throws SQLException {
+            long start = System.nanoTime();
+            String params = String.format("equipment_ids=%s, user=%s", eqIds, user);
+
+            try {
+                if (user == null || user.trim().isEmpty()) {
+                    Logger.logError("EQUIPMENT_HOLD_PARTY", user, "Empty user", params);
+                    throw new SQLException("User cannot be null or empty");
+                }
+                if (eqIds == null || eqIds.isEmpty()) {
+                    Logger.logError("EQUIPMENT_HOLD_PARTY", user, "Empty party order", params);
+                    throw new SQLException("Party order is empty");
+                }
+
+                Map<Integer, Integer> counts = new LinkedHashMap<>();
+                for (Integer eqId : eqIds) {
+                    counts.merge(eqId, 1, Integer::sum);
+                }
+
+                List<Long> holdIds = new ArrayList<>(eqIds.size());
+                try (WriteTransaction tx = WriteTransaction.begin()) {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(
+                            "UPDATE equipment SET available=available-? WHERE id=? AND available>=?")) {
+                        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+                            updateStmt.setInt(1, entry.getValue());
+                            updateStmt.setInt(2, entry.getKey());
+                            updateStmt.setInt(3, entry.getValue());
+                            if (updateStmt.executeUpdate() == 0) {
+                                invalidateAllocator();
+                                throw new SQLException("None available");
+                            }
+                        }
+                    }
+                    LocalDateTime expiresAt = LocalDateTime.now().plus(HOLD_TTL);
+                    for (Integer eqId : eqIds) {
+                        holdIds.add(insertHold(eqId, user, expiresAt));
+                    }
+                    tx.commit();
+                    // таймери лише після фіксації і ще під блокуванням - тайм-аут не почнеться
+                    // раніше, ніж утримання стануть видимі
+                    for (Long holdId : holdIds) {
+                        scheduleHoldExpiry(holdId, HOLD_TTL);
+                    }
+                }
+
+                HOLDS_CREATED.add(holdIds.size());
+                Logger.logUserAction("EQUIPMENT_HOLD_PARTY", user, params + ", hold_ids=" + holdIds);
+                for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+                    publish(new ChangeEvent.StockChanged(entry.getKey(), -entry.getValue(), user));
+                }
+                return holdIds;
+            } catch (SQLException e) {
+                Logger.logError("EQUIPMENT_HOLD_PARTY", user, e.getMessage(), params);
+                throw e;
+            } finally {
+                HOLD_PARTY_TIMER.recordSince(start);
+            }
+        }
+
+        private static long insertHold(int eqId, String user, LocalDateTime expiresAt) throws SQLException {
+            try (PreparedStatement insertStmt = conn.prepareStatement(
+                    "INSERT INTO equipment_holds(eq_id,username,expires_at) VALUES(?,?,?)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                insertStmt.setInt(1, eqId);
+                insertStmt.setString(2, user);
+                insertStmt.setString(3, expiresAt.format(RENTED_AT));
+                insertStmt.executeUpdate();
+                ResultSet keys = insertStmt.getGeneratedKeys();
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+
+        /**
+         * Перетворює утримання на прокат (без повторної перевірки залишку).
+         */
+        public static void confirmHold(long holdId, String user) throws SQLException {
+            long start = System.nanoTime();
+            String params = String.format("hold_id=%d, user=%s", holdId, user);
+
+            try {
+                try (WriteTransaction tx = WriteTransaction.begin()) {
+                    int eqId;
+                    String type;
+                    String size;
+                    try (PreparedStatement p = conn.prepareStatement(
+                            "SELECT h.eq_id, e.type, e.size FROM equipment_holds h "
+                                    + "JOIN equipment e ON e.id = h.eq_id WHERE h.id=? AND h.username=?")) {
+                        p.setLong(1, holdId);
+                        p.setString(2, user);
+                        ResultSet rs = p.executeQuery();
+                        if (!rs.next()) {
+                            Logger.logError("EQUIPMENT_HOLD_CONFIRM", user, "Hold not found", params);
+                            throw new SQLException(HOLD_EXPIRED);
+                        }
+                        eqId = rs.getInt("eq_id");
+                        type = rs.getString("type");
+                        size = rs.getString("size");
+                    }
+
+                    // видалення рядка вирішує гонку з тайм-аутом: хто видалив, той і володіє одиницею
+                    try (PreparedStatement deleteStmt = conn.prepareStatement(
+                            "DELETE FROM equipment_holds WHERE id=?")) {
+                        deleteStmt.setLong(1, holdId);
+                        if (deleteStmt.executeUpdate() == 0) {
+                            Logger.logError("EQUIPMENT_HOLD_CONFIRM", user, "Hold expired", params);
+                            throw new SQLException(HOLD_EXPIRED);
+                        }
+                    }
+
+                    startRental(eqId, type, size, user);
+                    tx.commit();
+                    // таймер знімаємо лише після фіксації: при відкоті утримання лишається і має зникнути саме
+                    cancelHoldExpiry(holdId);
+                    HOLDS_CONFIRMED.increment();
+                    Logger.logUserAction("EQUIPMENT_RENT", user, params + String.format(", equipment_id=%d", eqId));
+                }
+            } catch (SQLException e) {
+                Logger.logError("EQUIPMENT_HOLD_CONFIRM", user, e.getMessage(), params);
+                throw e;
+            } finally {
+                CONFIRM_HOLD_TIMER.recordSince(start);
+            }
+        }
+
+        /**
+         * Скасовує утримання і повертає одиницю в залишок.
+         *
+         * @return false, якщо утримання вже підтверджене, зняте або належить іншому користувачу
+         */
+        public static boolean releaseHold(long holdId, String user) throws SQLException {
+            String params = String.format("hold_id=%d, user=%s", holdId, user);
+            try (WriteTransaction tx = WriteTransaction.begin()) {
+                boolean released = release(holdId, user);
+                tx.commit();
+                if (released) {
+                    cancelHoldExpiry(holdId);
+                    HOLDS_RELEASED.increment();
+                    Logger.logUserAction("EQUIPMENT_HOLD_RELEASE", user, params);
+                }
+                return released;
+            } catch (SQLException e) {
+                Logger.logError("EQUIPMENT_HOLD_RELEASE", user, e.getMessage(), params);
+                throw e;
+            }
+        }
+
+        public static int countHolds() {
+            return HOLD_TIMEOUTS.size();
+        }
+
+        /**
+         * Відновлює таймери утримань, що лишились у БД після перезапуску; прострочені знімає одразу.
+         */
+        static void restoreHolds() {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> expired = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id, expires_at FROM equipment_holds")) {
+                while (rs.next()) {
+                    long holdId = rs.getLong("id");
+                    LocalDateTime expiresAt = LocalDateTime.parse(rs.getString("expires_at"), RENTED_AT);
+                    if (expiresAt.isAfter(now)) {
+                        scheduleHoldExpiry(holdId, Duration.between(now, expiresAt));
+                    } else {
+                        expired.add(holdId);
+                    }
+                }
+            } catch (Exception e) {
+                Logger.logError("EQUIPMENT_HOLD_RESTORE", "SYSTEM", e.getMessage(), "Restoring holds");
+                e.printStackTrace();
+            }
+            expired.forEach(EquipmentService::expireHold);
+        }
+
+        // утримання лишаються в БД і відновлюються наступним initDB
+        static void cancelHoldTimers() {
+            for (Long holdId : HOLD_TIMEOUTS.keySet()) {
+                cancelHoldExpiry(holdId);
+            }
+        }
+
+        private static void scheduleHoldExpiry(long holdId, Duration ttl) {
+            HOLD_TIMEOUTS.put(holdId, HoldTimers.WHEEL.schedule(() -> expireHold(holdId), ttl));
+        }
+
+        private static void cancelHoldExpiry(long holdId) {
+            TimerWheel.Timeout timeout = HOLD_TIMEOUTS.remove(holdId);
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+
+        // потік таймера пише через те саме з'єднання - під тим самим WRITE_LOCK, що й запити
+        private static void expireHold(long holdId) {
+            HOLD_TIMEOUTS.remove(holdId);
+            try (WriteTransaction tx = WriteTransaction.begin()) {
+                boolean released = release(holdId, null);
+                tx.commit();
+                if (released) {
+                    HOLDS_EXPIRED.increment();
+                    Logger.logSystemEvent("EQUIPMENT_HOLD_EXPIRED", "hold_id=" + holdId);
+                }
+            } catch (SQLException e) {
+                // зняття відкочено, рядок утримання лишився - повторюємо, інакше одиниця не повернеться
+                Logger.logError("EQUIPMENT_HOLD_EXPIRE", "SYSTEM", e.getMessage(), "hold_id=" + holdId);
+                scheduleHoldExpiry(holdId, HOLD_EXPIRE_RETRY);
+            }
+        }
+
+        // user == null - зняття за тайм-аутом, без перевірки власника.
+        // Видалення рядка і повернення одиниці - лише всередині WriteTransaction викликача
+        private static boolean release(long holdId, String user) throws SQLException {
+            int eqId;
+            String owner;
+            try (PreparedStatement p = conn.prepareStatement(
+                    "SELECT eq_id, username FROM equipment_holds WHERE id=?")) {
+                p.setLong(1, holdId);
+                ResultSet rs = p.executeQuery();
+                if (!rs.next() || (user != null && !user.equals(rs.getString("username")))) {
+                    return false;
+                }
+                eqId = rs.getInt("eq_id");
+                owner = rs.getString("username");
+            }
+
+            try (PreparedStatement deleteStmt = conn.prepareStatement(
+                    "DELETE FROM equipment_holds WHERE id=?")) {
+                deleteStmt.setLong(1, holdId);
+                if (deleteStmt.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+
+            try (PreparedStatement updateStmt = conn.prepareStatement(
+                    "UPDATE equipment SET available=available+1 WHERE id=?")) {
+                updateStmt.setInt(1, eqId);
+                updateStmt.executeUpdate();
+            }
+            publish(new ChangeEvent.StockChanged(eqId, 1, owner));
+            return true;
+        }
+
+        // колесо з потоком створюється лише при першому утриманні
+        private static final class HoldTimers {
+            static final TimerWheel WHEEL = new TimerWheel(Duration.ofSeconds(1), 512).start("equipment-holds");
+        }
+
+        // запис у журнал видач і збільшення денного агрегату для (день, тип, розмір)
+        private static void recordRentalEvent(int eqId, String type, String size, String user,
+                LocalDateTime rentedAt) throws SQLException {
+            try (PreparedStatement eventStmt = conn.prepareStatement(
+                    "INSERT INTO rental_events(eq_id,type,size,username,rented_at) VALUES(?,?,?,?,?)")) {
+                eventStmt.setInt(1, eqId);
+                eventStmt.setString(2, type);
+                eventStmt.setString(3, size);
+                eventStmt.setString(4, user);
+                eventStmt.setString(5, rentedAt.format(RENTED_AT));
+                eventStmt.executeUpdate();
+            }
+
+            try (PreparedStatement bucketStmt = conn.prepareStatement(
+                    "INSERT INTO rental_popularity(day,type,size,rentals) VALUES(?,?,?,1) "
+                            + "ON CONFLICT(day,type,size) DO UPDATE SET rentals=rentals+1")) {
+                bucketStmt.setString(1, rentedAt.toLocalDate().toString());
+                bucketStmt.setString(2, type.toLowerCase());
+                bucketStmt.setString(3, size);
+                bucketStmt.executeUpdate();
+            }
+        }
+
+        /**
+         * Кількість видач за тип і розмір з from по to включно. Сумуються щоденні агрегати
+         * rental_popularity (не більше днів * розмірів рядків), а не журнал видач чи trans.
+         * Прокати, видані до появи журналу, не враховуються.
+         */
+        public static List<AnalyticsService.RentalCount> getRentalPopularity(LocalDate from, LocalDate to) {
+            long start = System.nanoTime();
+            List<AnalyticsService.RentalCount> counts = new ArrayList<>();
+            String params = String.format("from=%s, to=%s", from, to);
+            try (PreparedStatement p = conn.prepareStatement(
+                    "SELECT type, size, SUM(rentals) AS rentals FROM rental_popularity "
+                            + "WHERE day >= ? AND day <= ? GROUP BY type, size")) {
+                p.setString(1, from.toString());
+                p.setString(2, to.toString());
+                ResultSet rs = p.executeQuery();
+
+                while (rs.next()) {
+                    counts.add(new AnalyticsService.RentalCount(
+                            rs.getString("type"),
+                            rs.getString("size"),
+                            rs.getInt("rentals")));
+                }
+            } catch (Exception e) {
+                Logger.logError("EQUIPMENT_POPULARITY", "SYSTEM", e.getMessage(), params);
+                e.printStackTrace();
+            } finally {
+                GET_RENTAL_POPULARITY_TIMER.recordSince(start);
+            }
+            return counts;
+        }
+
+        // прокати, видані до появи rented_at, показуються як раніше
+        private static String rentedSince(String rentedAt) {
+            return rentedAt == null ? "Active" : LocalDateTime.parse(rentedAt, RENTED_AT).format(RENTED_SINCE);
+        }
     }
 
     public static class InstructorService {
         private static final DateTimeFormatter F = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        private static final LatencyHistogram LIST_NAMES_TIMER = Metrics.histogram("InstructorService.listNames");
+        private static final LatencyHistogram BOOK_TIMER = Metrics.histogram("InstructorService.book");
+        private static final LatencyHistogram LIST_ALL_TIMER = Metrics.histogram("InstructorService.listAll");
+        private static final LatencyHistogram COUNT_ALL_TIMER = Metrics.histogram("InstructorService.countAll");
+        private static final LatencyHistogram COUNT_BY_USER_TIMER =
+                Metrics.histogram("InstructorService.countByUser");
 
         public static List<String> listNames() {
+            long start = System.nanoTime();
             List<String> L = new ArrayList<>();
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery("SELECT name FROM instructors")) {
@@ -543,11 +1677,14 @@ public class Services {
             } catch (Exception e) {
                 Logger.logError("INSTRUCTOR_LIST_NAMES", "SYSTEM", e.getMessage(), "Loading instructor names");
                 e.printStackTrace();
+            } finally {
+                LIST_NAMES_TIMER.recordSince(start);
             }
             return L;
         }
 
         public static void book(String instr, String user, LocalDateTime when) throws SQLException {
+            long start = System.nanoTime();
             String params = String.format("instructor=%s, user=%s, time=%s", instr, user, when);
 
             try {
@@ -556,37 +1693,48 @@ public class Services {
                     throw new SQLException("Instructor, user, and time cannot be null");
                 }
 
-                // перевірка для інструкторів - вони можуть викладати лише один урок за раз!!!!!!!
-                try (PreparedStatement p = conn.prepareStatement(
-                        "SELECT COUNT(*) FROM lessons WHERE instructor=? AND time=?")) {
-                    p.setString(1, instr);
-                    p.setString(2, when.format(F));
-                    ResultSet rs = p.executeQuery();
-                    rs.next();
-                    if (rs.getInt(1) > 0) {
-                        Logger.logError("LESSON_BOOK", user, "Slot already taken", params);
-                        throw new SQLException("Instructor is not available at this time");
+                int lessonId;
+                try (WriteTransaction tx = WriteTransaction.begin()) {
+                    // перевірка для інструкторів - вони можуть викладати лише один урок за раз!!!!!!!
+                    try (PreparedStatement p = conn.prepareStatement(
+                            "SELECT COUNT(*) FROM lessons WHERE instructor=? AND time=?")) {
+                        p.setString(1, instr);
+                        p.setString(2, when.format(F));
+                        ResultSet rs = p.executeQuery();
+                        rs.next();
+                        if (rs.getInt(1) > 0) {
+                            Logger.logError("LESSON_BOOK", user, "Slot already taken", params);
+                            throw new SQLException("Instructor is not available at this time");
+                        }
                     }
-                }
 
-                try (PreparedStatement insertStmt = conn.prepareStatement(
-                        "INSERT INTO lessons(username,instructor,time) VALUES(?,?,?)")) {
-                    insertStmt.setString(1, user);
-                    insertStmt.setString(2, instr);
-                    insertStmt.setString(3, when.format(F));
-                    insertStmt.executeUpdate();
-                }
+                    try (PreparedStatement insertStmt = conn.prepareStatement(
+                            "INSERT INTO lessons(username,instructor,time) VALUES(?,?,?)", Statement.RETURN_GENERATED_KEYS)) {
+                        insertStmt.setString(1, user);
+                        insertStmt.setString(2, instr);
+                        insertStmt.setString(3, when.format(F));
+                        insertStmt.executeUpdate();
+                        ResultSet keys = insertStmt.getGeneratedKeys();
+                        keys.next();
+                        lessonId = keys.getInt(1);
+                    }
 
-                TransactionService.log(user, "lesson", 30.0, when);
+                    TransactionService.log(user, "lesson", 30.0, when);
+                    tx.commit();
+                }
                 Logger.logUserAction("LESSON_BOOK", user, params);
+                publish(new ChangeEvent.LessonBooked(new Lesson(lessonId, user, instr, when)));
 
             } catch (SQLException e) {
                 Logger.logError("LESSON_BOOK", user, e.getMessage(), params);
                 throw e;
+            } finally {
+                BOOK_TIMER.recordSince(start);
             }
         }
 
         public static ObservableList<Lesson> listAll() {
+            long start = System.nanoTime();
             ObservableList<Lesson> L = FXCollections.observableArrayList();
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery("SELECT * FROM lessons")) {
@@ -600,11 +1748,14 @@ public class Services {
             } catch (Exception e) {
                 Logger.logError("LESSON_LIST", "SYSTEM", e.getMessage(), "Loading all lessons");
                 e.printStackTrace();
+            } finally {
+                LIST_ALL_TIMER.recordSince(start);
             }
             return L;
         }
 
         public static int countAll() {
+            long start = System.nanoTime();
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM lessons")) {
                 rs.next();
@@ -612,10 +1763,13 @@ public class Services {
             } catch (Exception e) {
                 Logger.logError("LESSON_COUNT", "SYSTEM", e.getMessage(), "Counting all lessons");
                 return 0;
+            } finally {
+                COUNT_ALL_TIMER.recordSince(start);
             }
         }
 
         public static int countByUser(String user) {
+            long start = System.nanoTime();
             if (user == null)
                 return 0;
 
@@ -628,6 +1782,8 @@ public class Services {
             } catch (Exception e) {
                 Logger.logError("LESSON_COUNT_USER", user, e.getMessage(), String.format("user=%s", user));
                 e.printStackTrace();
+            } finally {
+                COUNT_BY_USER_TIMER.recordSince(start);
             }
             return 0;
         }
@@ -635,8 +1791,14 @@ public class Services {
 
     public static class TransactionService {
         private static final DateTimeFormatter F = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        private static final LatencyHistogram LOG_TIMER = Metrics.histogram("TransactionService.log");
+        private static final LatencyHistogram LIST_ALL_TIMER = Metrics.histogram("TransactionService.listAll");
+        private static final LatencyHistogram LIST_BETWEEN_TIMER = Metrics.histogram("TransactionService.listBetween");
 
         public static void log(String user, String type, double amount, LocalDateTime when) {
+            long start = System.nanoTime();
+            LedgerWriteEvent ledgerEvent = new LedgerWriteEvent();
+            ledgerEvent.begin();
             String params = String.format("type=%s, amount=%.2f, time=%s", type, amount, when);
 
             if (user == null || type == null || when == null) {
@@ -645,38 +1807,108 @@ public class Services {
                 return;
             }
 
-            try (PreparedStatement stmt = conn.prepareStatement(
-                    "INSERT INTO trans(username,type,amount,time) VALUES(?,?,?,?)")) {
+            boolean failed = false;
+            try (WriteTransaction tx = WriteTransaction.begin();
+                 PreparedStatement stmt = conn.prepareStatement(
+                         "INSERT INTO trans(username,type,amount,time) VALUES(?,?,?,?)")) {
                 stmt.setString(1, user);
                 stmt.setString(2, type);
                 stmt.setDouble(3, amount);
                 stmt.setString(4, when.format(F));
                 stmt.executeUpdate();
+                tx.commit();
 
                 Logger.logUserAction("TRANSACTION_LOG", user, params);
+                publish(new ChangeEvent.TransactionLogged(user, type, amount, when));
             } catch (Exception e) {
+                failed = true;
                 Logger.logError("TRANSACTION_LOG", user, e.getMessage(), params);
                 e.printStackTrace();
+            } finally {
+                LOG_TIMER.recordSince(start);
+                ledgerEvent.end();
+                if (ledgerEvent.shouldCommit()) {
+                    ledgerEvent.username = user;
+                    ledgerEvent.type = type;
+                    ledgerEvent.amount = amount;
+                    ledgerEvent.failed = failed;
+                    ledgerEvent.commit();
+                }
             }
         }
 
         public static ObservableList<Transaction> listAll() {
+            long start = System.nanoTime();
+            try {
+                return load(null, null);
+            } finally {
+                LIST_ALL_TIMER.recordSince(start);
+            }
+        }
+
+        /**
+         * Транзакції з [from, to); null - без межі. Архіви, що не перетинають період, не відкриваються.
+         */
+        public static ObservableList<Transaction> listBetween(LocalDateTime from, LocalDateTime to) {
+            long start = System.nanoTime();
+            try {
+                return load(from, to);
+            } finally {
+                LIST_BETWEEN_TIMER.recordSince(start);
+            }
+        }
+
+        private static ObservableList<Transaction> load(LocalDateTime from, LocalDateTime to) {
             ObservableList<Transaction> L = FXCollections.observableArrayList();
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("SELECT * FROM trans")) {
-                while (rs.next()) {
-                    L.add(new Transaction(
-                            rs.getInt("id"),
-                            rs.getString("username"),
-                            rs.getString("type"),
-                            rs.getDouble("amount"),
-                            LocalDateTime.parse(rs.getString("time"), F)));
+            String params = String.format("from=%s, to=%s", from, to);
+            try {
+                LedgerPartitions ledger = ledger();
+                List<LedgerPartitions.Archive> archives = ledger.overlapping(from, to);
+                for (LedgerPartitions.Archive archive : archives) {
+                    try (Connection archiveConn = ledger.open(archive)) {
+                        read(archiveConn, from, to, L);
+                    }
+                }
+                read(conn, from, to, L);
+                if (!archives.isEmpty()) {
+                    // транзакції із заднім числом можуть лежати в архіві, створеному пізніше
+                    L.sort(Comparator.comparingInt(Transaction::getId));
                 }
             } catch (Exception e) {
-                Logger.logError("TRANSACTION_LIST", "SYSTEM", e.getMessage(), "Loading all transactions");
+                Logger.logError("TRANSACTION_LIST", "SYSTEM", e.getMessage(), "Loading transactions: " + params);
                 e.printStackTrace();
             }
             return L;
         }
+
+        private static void read(Connection c, LocalDateTime from, LocalDateTime to, List<Transaction> out)
+                throws SQLException {
+            StringBuilder sql = new StringBuilder("SELECT * FROM trans WHERE 1=1");
+            List<String> args = new ArrayList<>();
+            if (from != null) {
+                sql.append(" AND time >= ?");
+                args.add(from.format(F));
+            }
+            if (to != null) {
+                sql.append(" AND time < ?");
+                args.add(to.format(F));
+            }
+            sql.append(" ORDER BY id");
+            try (PreparedStatement stmt = c.prepareStatement(sql.toString())) {
+                for (int i = 0; i < args.size(); i++) {
+                    stmt.setString(i + 1, args.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        out.add(new Transaction(
+                                rs.getInt("id"),
+                                rs.getString("username"),
+                                rs.getString("type"),
+                                rs.getDouble("amount"),
+                                LocalDateTime.parse(rs.getString("time"), F)));
+                    }
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -3,10 +3,14 @@ package org.example.controller;
 import org.example.Services;
 import org.example.model.*;
 import org.example.service.*;
+import org.example.jfr.ControllerRefreshEvent;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.BarChart;
@@ -16,9 +20,21 @@ import javafx.scene.chart.XYChart;
 import javafx.collections.ObservableList;
 import javafx.collections.FXCollections;
 
+import java.time.LocalDate;
 import java.util.*;
 
 public class AnalyticsController {
+    private static final LatencyHistogram LOAD_ANALYTICS_DATA_TIMER =
+            Metrics.histogram("AnalyticsController.loadAnalyticsData");
+    // періоди для популярності спорядження: назва -> кількість днів, включно з сьогодні
+    private static final Map<String, Integer> POPULARITY_RANGES = new LinkedHashMap<>();
+    static {
+        POPULARITY_RANGES.put("Last 7 Days", 7);
+        POPULARITY_RANGES.put("Last 30 Days", 30);
+        POPULARITY_RANGES.put("Last 90 Days", 90);
+        POPULARITY_RANGES.put("Last 365 Days", 365);
+    }
+
     @FXML
     private VBox mainContainer;
 
@@ -30,6 +46,7 @@ public class AnalyticsController {
     private TableView<AnalyticsService.InstructorStats> tvPopularInstructors;
     private TableView<AnalyticsService.EquipmentStats> tvPopularSki;
     private TableView<AnalyticsService.EquipmentStats> tvPopularSnowboard;
+    private ComboBox<String> cbPopularityRange;
 
     private User currentUser;
     private AnalyticsService analyticsService = new AnalyticsService();
@@ -130,7 +147,7 @@ public class AnalyticsController {
         colSkiSize.setCellValueFactory(new PropertyValueFactory<>("size"));
         colSkiSize.setPrefWidth(100);
 
-        TableColumn<AnalyticsService.EquipmentStats, String> colSkiRentals = new TableColumn<>("Current Rentals");
+        TableColumn<AnalyticsService.EquipmentStats, String> colSkiRentals = new TableColumn<>("Rentals");
         colSkiRentals.setCellValueFactory(new PropertyValueFactory<>("rentalsCount"));
         colSkiRentals.setPrefWidth(150);
 
@@ -143,16 +160,22 @@ public class AnalyticsController {
         colSnowSize.setCellValueFactory(new PropertyValueFactory<>("size"));
         colSnowSize.setPrefWidth(100);
 
-        TableColumn<AnalyticsService.EquipmentStats, String> colSnowRentals = new TableColumn<>("Current Rentals");
+        TableColumn<AnalyticsService.EquipmentStats, String> colSnowRentals = new TableColumn<>("Rentals");
         colSnowRentals.setCellValueFactory(new PropertyValueFactory<>("rentalsCount"));
         colSnowRentals.setPrefWidth(150);
 
         tvPopularSnowboard.getColumns().addAll(colSnowSize, colSnowRentals);
+
+        cbPopularityRange = new ComboBox<>(FXCollections.observableArrayList(POPULARITY_RANGES.keySet()));
+        cbPopularityRange.setValue("Last 30 Days");
+        cbPopularityRange.setOnAction(e -> loadPopularEquipmentData());
     }
 
     private VBox createEquipmentTablesContainer() {
         VBox container = new VBox(10);
 
+        HBox rangeBox = new HBox(10, new Label("Period:"), cbPopularityRange);
+
         // Лижна секція
         Label skiLabel = new Label("Ski Equipment (by Size)");
         skiLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
@@ -162,6 +185,7 @@ public class AnalyticsController {
         snowLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
 
         container.getChildren().addAll(
+                rangeBox,
                 skiLabel,
                 tvPopularSki,
                 snowLabel,
@@ -171,6 +195,8 @@ public class AnalyticsController {
     }
 
     private void loadAnalyticsData() {
+        long start = System.nanoTime();
+        ControllerRefreshEvent refreshEvent = ControllerRefreshEvent.start("AnalyticsController", "loadAnalyticsData");
         try {
             loadAttendanceData();
             loadHourlyActivityData();
@@ -179,6 +205,9 @@ public class AnalyticsController {
         } catch (Exception e) {
             System.err.println("Error loading analytics data: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            LOAD_ANALYTICS_DATA_TIMER.recordSince(start);
+            refreshEvent.commit();
         }
     }
 
@@ -187,8 +216,10 @@ public class AnalyticsController {
             return;
 
         try {
-            // отримання даних із сервісу по транзакціям
-            ObservableList<Transaction> transactions = Services.TransactionService.listAll();
+            // отримання даних із сервісу по транзакціям - лише за останні 30 днів
+            LocalDate today = LocalDate.now();
+            ObservableList<Transaction> transactions = Services.TransactionService.listBetween(
+                    today.minusDays(29).atStartOfDay(), today.plusDays(1).atStartOfDay());
 
             Map<String, Integer> dailyAttendance = analyticsService.calculateDailyAttendance(
                     new ArrayList<>(transactions));
@@ -264,16 +295,19 @@ public class AnalyticsController {
     }
 
     public void loadPopularEquipmentData() {
-        if (tvPopularSki == null || tvPopularSnowboard == null)
+        if (tvPopularSki == null || tvPopularSnowboard == null || cbPopularityRange == null)
             return;
 
         try {
-            ObservableList<UserRental> allRentals = Services.EquipmentService.getAllCurrentRentals();
+            // видачі за обраний період - з денних агрегатів rental_popularity, а не з відкритих прокатів
+            int days = POPULARITY_RANGES.getOrDefault(cbPopularityRange.getValue(), 30);
+            LocalDate today = LocalDate.now();
+            List<AnalyticsService.RentalCount> history = Services.EquipmentService.getRentalPopularity(
+                    today.minusDays(days - 1), today);
             ObservableList<Equipment> equipment = Services.EquipmentService.listAll();
 
-            AnalyticsService.EquipmentPopularity popularity = analyticsService.calculateEquipmentPopularity(
-                    new ArrayList<>(allRentals),
-                    new ArrayList<>(equipment));
+            AnalyticsService.EquipmentPopularity popularity = analyticsService.calculateEquipmentPopularityWithHistory(
+                    new ArrayList<>(equipment), history);
 
             tvPopularSki.setItems(FXCollections.observableArrayList(popularity.getSkiStats()));
             tvPopularSnowboard.setItems(FXCollections.observableArrayList(popularity.getSnowboardStats()));
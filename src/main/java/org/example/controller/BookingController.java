@@ -3,7 +3,12 @@ package org.example.controller;
 import org.example.service.*;
 import org.example.Logger;
 import org.example.Services;
+import org.example.event.ChangeEvent;
+import org.example.jfr.ControllerRefreshEvent;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -11,10 +16,15 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import org.example.model.Booking;
+import org.example.model.User;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class BookingController {
+    private static final LatencyHistogram REFRESH_TIMER = Metrics.histogram("BookingController.refresh");
+    private static final LatencyHistogram APPLY_CHANGES_TIMER = Metrics.histogram("BookingController.applyChanges");
+
     @FXML
     private TableView<Booking> tvBooking;
     @FXML
@@ -34,10 +44,21 @@ public class BookingController {
 
     private MainController mainController;
     private final BookingService bookingService = new BookingService();
+    private final ObservableList<Booking> bookings = FXCollections.observableArrayList();
 
     public void setMainController(MainController mainController) {
         this.mainController = mainController;
         Logger.logSystemEvent("CONTROLLER_INIT", "BookingController linked to MainController");
+        // дані залежать від користувача, тому завантажуються лише коли відомий сеанс
+        refresh();
+        // далі список змінюється подіями шини, без повторного listAll()
+        mainController.track(Services.events().subscribeBatched(Platform::runLater, this::applyChanges,
+                ChangeEvent.BookingCreated.class, ChangeEvent.BookingCancelled.class,
+                ChangeEvent.BookingTransferred.class));
+    }
+
+    private User currentUser() {
+        return mainController.getSession().getUser();
     }
 
     @FXML
@@ -48,7 +69,6 @@ public class BookingController {
             setupTableColumns();
             setupFormControls();
             setupEventHandlers();
-            refresh();
 
             Logger.logSystemEvent("CONTROLLER_INIT", "BookingController initialized successfully");
         } catch (Exception e) {
@@ -62,6 +82,7 @@ public class BookingController {
         colUser.setCellValueFactory(new PropertyValueFactory<>("username"));
         colSlot.setCellValueFactory(new PropertyValueFactory<>("slot"));
         colTime.setCellValueFactory(new PropertyValueFactory<>("time"));
+        tvBooking.setItems(bookings);
     }
 
     private void setupFormControls() {
@@ -76,7 +97,7 @@ public class BookingController {
     }
 
     private void handleBooking() {
-        String currentUsername = Services.AuthService.getCurrentUser().getUsername();
+        String currentUsername = currentUser().getUsername();
         String selectedSlot = cbSlot.getValue();
         LocalDate selectedDate = dpDate.getValue();
         String params = String.format("slot=%s, date=%s", selectedSlot, selectedDate);
@@ -95,9 +116,6 @@ public class BookingController {
             LocalDateTime bookingTime = bookingService.getTimeFromSlot(selectedSlot, selectedDate);
 
             Services.BookingService.book(currentUsername, selectedSlot, bookingTime);
-
-            refresh();
-            refreshMainDashboard();
             showInfo("Booking created successfully!");
             clearForm();
 
@@ -108,7 +126,7 @@ public class BookingController {
     }
 
     private void handleCancellation() {
-        String currentUsername = Services.AuthService.getCurrentUser().getUsername();
+        String currentUsername = currentUser().getUsername();
         Booking selectedBooking = tvBooking.getSelectionModel().getSelectedItem();
         String params = selectedBooking != null ? String.format("booking_id=%d", selectedBooking.getId())
                 : "no_selection";
@@ -132,8 +150,6 @@ public class BookingController {
                 if (response == ButtonType.OK) {
                     try {
                         Services.BookingService.cancel(selectedBooking.getId());
-                        refresh();
-                        refreshMainDashboard();
                         showInfo("Booking cancelled successfully!");
                     } catch (Exception ex) {
                         Logger.logError("BOOKING_CANCEL_ATTEMPT", currentUsername, ex.getMessage(), params);
@@ -151,7 +167,7 @@ public class BookingController {
     }
 
     private void handleTransfer() {
-        String currentUsername = Services.AuthService.getCurrentUser().getUsername();
+        String currentUsername = currentUser().getUsername();
         Booking selectedBooking = tvBooking.getSelectionModel().getSelectedItem();
         String params = selectedBooking != null ? String.format("booking_id=%d", selectedBooking.getId())
                 : "no_selection";
@@ -194,8 +210,6 @@ public class BookingController {
                                 selectedBooking.getId(), newSlot, newDate);
 
                         Services.BookingService.transfer(selectedBooking.getId(), newSlot, newBookingTime);
-                        refresh();
-                        refreshMainDashboard();
                         showInfo("Booking transferred successfully!");
                         Logger.logUserAction("BOOKING_TRANSFER_SUCCESS", currentUsername, transferParams);
 
@@ -213,9 +227,11 @@ public class BookingController {
     }
 
     private void refresh() {
+        long start = System.nanoTime();
+        ControllerRefreshEvent refreshEvent = ControllerRefreshEvent.start("BookingController", "refresh");
         try {
-            String currentUsername = Services.AuthService.getCurrentUser().getUsername();
-            String currentUserRole = Services.AuthService.getCurrentUser().getRole();
+            String currentUsername = currentUser().getUsername();
+            String currentUserRole = currentUser().getRole();
             Logger.logUserAction("BOOKING_REFRESH", currentUsername, "Refreshing booking list");
 
             ObservableList<Booking> allBookings = Services.BookingService.listAll();
@@ -223,11 +239,14 @@ public class BookingController {
             var filteredBookings = bookingService.filterBookingsForUser(
                     allBookings, currentUsername, currentUserRole);
 
-            tvBooking.setItems(FXCollections.observableArrayList(filteredBookings));
+            bookings.setAll(filteredBookings);
 
         } catch (Exception e) {
             Logger.logError("BOOKING_REFRESH", "SYSTEM", e.getMessage(), "Failed to refresh booking list");
             e.printStackTrace();
+        } finally {
+            REFRESH_TIMER.recordSince(start);
+            refreshEvent.commit();
         }
     }
 
@@ -236,14 +255,31 @@ public class BookingController {
         dpDate.setValue(LocalDate.now());
     }
 
-    private void refreshMainDashboard() {
+    private void applyChanges(List<ChangeEvent> events) {
+        long start = System.nanoTime();
+        ControllerRefreshEvent refreshEvent = ControllerRefreshEvent.start("BookingController", "applyChanges");
         try {
-            if (mainController != null) {
-                mainController.refreshDashboard();
+            String currentUsername = currentUser().getUsername();
+            String currentUserRole = currentUser().getRole();
+
+            for (ChangeEvent event : events) {
+                if (event instanceof ChangeEvent.BookingCreated created) {
+                    // той самий фільтр, що й при повному завантаженні: користувач бачить лише свої
+                    bookings.addAll(bookingService.filterBookingsForUser(
+                            List.of(created.getBooking()), currentUsername, currentUserRole));
+                } else if (event instanceof ChangeEvent.BookingCancelled cancelled) {
+                    bookings.removeIf(b -> b.getId() == cancelled.getBookingId());
+                } else if (event instanceof ChangeEvent.BookingTransferred transferred) {
+                    Booking moved = transferred.getBooking();
+                    bookings.replaceAll(b -> b.getId() == moved.getId() ? moved : b);
+                }
             }
         } catch (Exception e) {
-            Logger.logError("DASHBOARD_REFRESH", "SYSTEM", e.getMessage(), "Failed to refresh main dashboard");
+            Logger.logError("BOOKING_REFRESH", "SYSTEM", e.getMessage(), "Failed to apply booking changes");
             e.printStackTrace();
+        } finally {
+            APPLY_CHANGES_TIMER.recordSince(start);
+            refreshEvent.commit();
         }
     }
 
@@ -3,6 +3,9 @@ package org.example.controller;
 import org.example.Services;
 import org.example.model.*;
 import org.example.service.*;
+import org.example.jfr.ControllerRefreshEvent;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -10,7 +13,13 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 
+import java.time.LocalDateTime;
+
 public class DashboardController {
+    private static final LatencyHistogram REFRESH_TIMER = Metrics.histogram("DashboardController.refresh");
+    // "Recent activity" показує 10 записів; старіші за місяць туди не потрапляють, архіви не відкриваються
+    private static final int ACTIVITY_WINDOW_DAYS = 30;
+
     @FXML
     private Label lblWelcome;
     @FXML
@@ -134,7 +143,8 @@ public class DashboardController {
             ObservableList<Booking> allBookings = Services.BookingService.listAll();
             ObservableList<UserRental> allRentals = Services.EquipmentService.getCurrentRentals(username);
             ObservableList<Lesson> allLessons = Services.InstructorService.listAll();
-            ObservableList<Transaction> allTransactions = Services.TransactionService.listAll();
+            ObservableList<Transaction> allTransactions = Services.TransactionService.listBetween(
+                    LocalDateTime.now().minusDays(ACTIVITY_WINDOW_DAYS), null);
 
             var stats = dashboardService.calculateUserStats(username, allBookings, allRentals, allLessons);
             updateQuickStats(stats);
@@ -279,6 +289,8 @@ public class DashboardController {
     }
 
     public void refresh() {
+        long start = System.nanoTime();
+        ControllerRefreshEvent refreshEvent = ControllerRefreshEvent.start("DashboardController", "refresh");
         try {
             if (currentUser != null) {
                 loadUserData();
@@ -288,6 +300,9 @@ public class DashboardController {
         } catch (Exception e) {
             System.err.println("Error refreshing dashboard: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            REFRESH_TIMER.recordSince(start);
+            refreshEvent.commit();
         }
     }
 
@@ -2,8 +2,13 @@ package org.example.controller;
 
 import org.example.Logger;
 import org.example.Services;
+import org.example.event.ChangeEvent;
 import org.example.service.*;
+import org.example.jfr.ControllerRefreshEvent;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -11,9 +16,15 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import org.example.model.Equipment;
+import org.example.model.User;
 import org.example.model.UserRental;
 
+import java.util.List;
+
 public class EquipmentController {
+    private static final LatencyHistogram REFRESH_TIMER = Metrics.histogram("EquipmentController.refresh");
+    private static final LatencyHistogram APPLY_CHANGES_TIMER = Metrics.histogram("EquipmentController.applyChanges");
+
     @FXML
     private TableView<Equipment> tvEquip;
     @FXML
@@ -45,10 +56,22 @@ public class EquipmentController {
 
     private MainController mainController;
     private final EquipmentService equipmentService = new EquipmentService();
+    private final ObservableList<Equipment> equipment = FXCollections.observableArrayList();
+    private final ObservableList<UserRental> myRentals = FXCollections.observableArrayList();
 
     public void setMainController(MainController mainController) {
         this.mainController = mainController;
         Logger.logSystemEvent("CONTROLLER_INIT", "EquipmentController linked to MainController");
+        // дані залежать від користувача, тому завантажуються лише коли відомий сеанс
+        refresh();
+        // залишки і прокати далі оновлюються подіями шини, зокрема змінами інших кас і тайм-аутами утримань
+        mainController.track(Services.events().subscribeBatched(Platform::runLater, this::applyChanges,
+                ChangeEvent.StockChanged.class, ChangeEvent.RentalStarted.class,
+                ChangeEvent.RentalReturned.class));
+    }
+
+    private User currentUser() {
+        return mainController.getSession().getUser();
     }
 
     @FXML
@@ -59,7 +82,6 @@ public class EquipmentController {
             setupTables();
             setupControls();
             setupEventHandlers();
-            refresh();
 
             Logger.logSystemEvent("CONTROLLER_INIT", "EquipmentController initialized successfully");
         } catch (Exception e) {
@@ -79,6 +101,10 @@ public class EquipmentController {
         colMyType.setCellValueFactory(new PropertyValueFactory<>("type"));
         colMySize.setCellValueFactory(new PropertyValueFactory<>("size"));
         colMyStatus.setCellValueFactory(new PropertyValueFactory<>("rentedSince"));
+
+        tvEquip.setItems(equipment);
+        tvMyRentals.setItems(myRentals);
+        cbMyRentals.setItems(myRentals);
     }
 
     private void setupControls() {
@@ -123,7 +149,7 @@ public class EquipmentController {
     }
 
     private void handleRental() {
-        String username = Services.AuthService.getCurrentUser().getUsername();
+        String username = currentUser().getUsername();
         String selectedType = cbType.getValue();
         String selectedSize = cbSize.getValue();
         String params = String.format("type=%s, size=%s", selectedType, selectedSize);
@@ -138,15 +164,17 @@ public class EquipmentController {
                 return;
             }
 
-            ObservableList<Equipment> allEquipment = Services.EquipmentService.listAll();
-            Equipment availableEquipment = equipmentService.findAvailableEquipment(
-                    allEquipment, selectedType, selectedSize);
+            // точний розмір або найближча заміна, якщо потрібного немає; спільний індекс тримається
+            // актуальним подіями StockChanged, а залишок остаточно перевіряє hold()
+            EquipmentAllocator.Allocation allocation = Services.EquipmentService.allocator()
+                    .find(selectedType, selectedSize);
 
-            if (availableEquipment == null) {
+            if (allocation == null) {
                 Logger.logError("EQUIPMENT_RENT_ATTEMPT", username, "No equipment available", params);
                 showAlert("No " + selectedType + " equipment available in size " + selectedSize);
                 return;
             }
+            Equipment availableEquipment = allocation.getEquipment();
 
             var availabilityResult = equipmentService.checkAvailability(availableEquipment);
             if (!availabilityResult.isAvailable()) {
@@ -154,28 +182,46 @@ public class EquipmentController {
                 return;
             }
 
+            // одиниця утримується, поки відкрите вікно підтвердження - інша каса її не видасть
+            long holdId;
+            try {
+                holdId = Services.EquipmentService.hold(availableEquipment.getId(), username);
+            } catch (Exception ex) {
+                Logger.logError("EQUIPMENT_RENT_ATTEMPT", username, ex.getMessage(), params);
+                showAlert("No " + selectedType + " equipment available in size " + selectedSize);
+                // знімок залишків застарів - повне перезавантаження, злите з іншими запитами
+                mainController.requestRefresh("equipment", this::refresh);
+                return;
+            }
+
             // відображення вікна підтвердження
             Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
             confirm.setHeaderText("Rent Equipment");
-            confirm.setContentText("Rent " + selectedType + " (Size: " + selectedSize + ") for $20?");
-            confirm.showAndWait().ifPresent(response -> {
-                if (response == ButtonType.OK) {
-                    try {
-                        String finalParams = params + String.format(", equipment_id=%d", availableEquipment.getId());
-                        Services.EquipmentService.rent(availableEquipment.getId(), username);
-                        refresh();
-                        refreshMainDashboard();
-                        showInfo("Equipment rented successfully!");
-                        clearRentalForm();
-                        Logger.logUserAction("EQUIPMENT_RENT_SUCCESS", username, finalParams);
-                    } catch (Exception ex) {
-                        Logger.logError("EQUIPMENT_RENT_ATTEMPT", username, ex.getMessage(), params);
-                        showAlert("Rental failed: " + ex.getMessage());
-                    }
-                } else {
-                    Logger.logUserAction("EQUIPMENT_RENT_CANCELLED", username, params);
+            confirm.setContentText(allocation.isSubstitute()
+                    ? "Size " + selectedSize + " is not available. Rent " + selectedType + " (Size: "
+                            + availableEquipment.getSize() + ") for $20 instead?"
+                    : "Rent " + selectedType + " (Size: " + selectedSize + ") for $20?");
+            var response = confirm.showAndWait();
+            if (response.isPresent() && response.get() == ButtonType.OK) {
+                try {
+                    String finalParams = params + String.format(", equipment_id=%d", availableEquipment.getId());
+                    Services.EquipmentService.confirmHold(holdId, username);
+                    showInfo("Equipment rented successfully!");
+                    clearRentalForm();
+                    Logger.logUserAction("EQUIPMENT_RENT_SUCCESS", username, finalParams);
+                } catch (Exception ex) {
+                    Logger.logError("EQUIPMENT_RENT_ATTEMPT", username, ex.getMessage(), params);
+                    showAlert("Rental failed: " + ex.getMessage());
+                    mainController.requestRefresh("equipment", this::refresh);
                 }
-            });
+            } else {
+                try {
+                    Services.EquipmentService.releaseHold(holdId, username);
+                } catch (Exception ex) {
+                    Logger.logError("EQUIPMENT_RENT_ATTEMPT", username, ex.getMessage(), params);
+                }
+                Logger.logUserAction("EQUIPMENT_RENT_CANCELLED", username, params);
+            }
 
         } catch (Exception ex) {
             Logger.logError("EQUIPMENT_RENT_ATTEMPT", username, ex.getMessage(), params);
@@ -184,7 +230,7 @@ public class EquipmentController {
     }
 
     private void handleReturn() {
-        String username = Services.AuthService.getCurrentUser().getUsername();
+        String username = currentUser().getUsername();
         UserRental selectedRental = cbMyRentals.getValue();
         String params = selectedRental != null
                 ? String.format("equipment_id=%d, type=%s, size=%s", selectedRental.getEquipmentId(),
@@ -208,8 +254,6 @@ public class EquipmentController {
                 if (response == ButtonType.OK) {
                     try {
                         Services.EquipmentService.ret(selectedRental.getEquipmentId(), username);
-                        refresh();
-                        refreshMainDashboard();
                         showInfo("Equipment returned successfully!");
                         Logger.logUserAction("EQUIPMENT_RETURN_SUCCESS", username, params);
                     } catch (Exception ex) {
@@ -228,35 +272,73 @@ public class EquipmentController {
     }
 
     private void refresh() {
+        long start = System.nanoTime();
+        ControllerRefreshEvent refreshEvent = ControllerRefreshEvent.start("EquipmentController", "refresh");
         try {
-            String username = Services.AuthService.getCurrentUser().getUsername();
+            String username = currentUser().getUsername();
             Logger.logUserAction("EQUIPMENT_REFRESH", username, "Refreshing equipment lists");
 
             // завантаження всього спорядження
-            ObservableList<Equipment> allEquipment = Services.EquipmentService.listAll();
-            tvEquip.setItems(allEquipment);
+            equipment.setAll(Services.EquipmentService.listAll());
 
             // завантаження поточних бронювань користувача
-            ObservableList<UserRental> currentRentals = Services.EquipmentService.getCurrentRentals(username);
-            tvMyRentals.setItems(currentRentals);
-            cbMyRentals.setItems(currentRentals);
+            myRentals.setAll(Services.EquipmentService.getCurrentRentals(username));
 
             updateButtonStates();
         } catch (Exception e) {
             Logger.logError("EQUIPMENT_REFRESH", "SYSTEM", e.getMessage(), "Failed to refresh equipment lists");
             e.printStackTrace();
+        } finally {
+            REFRESH_TIMER.recordSince(start);
+            refreshEvent.commit();
         }
     }
 
-    private void updateButtonStates() {
-        String username = Services.AuthService.getCurrentUser().getUsername();
-        ObservableList<UserRental> currentRentals = Services.EquipmentService.getCurrentRentals(username);
+    private void applyChanges(List<ChangeEvent> events) {
+        long start = System.nanoTime();
+        ControllerRefreshEvent refreshEvent = ControllerRefreshEvent.start("EquipmentController", "applyChanges");
+        try {
+            String username = currentUser().getUsername();
+
+            for (ChangeEvent event : events) {
+                if (event instanceof ChangeEvent.StockChanged stock) {
+                    for (Equipment item : equipment) {
+                        if (item.getId() == stock.getEquipmentId()) {
+                            item.setAvailable(item.getAvailable() + stock.getDelta());
+                            break;
+                        }
+                    }
+                } else if (event instanceof ChangeEvent.RentalStarted started
+                        && username.equals(started.getUsername())) {
+                    myRentals.add(started.getRental());
+                } else if (event instanceof ChangeEvent.RentalReturned returned
+                        && username.equals(returned.getUsername())) {
+                    // повертається найстаріший прокат цієї позиції - він перший у списку
+                    for (int i = 0; i < myRentals.size(); i++) {
+                        if (myRentals.get(i).getEquipmentId() == returned.getEquipmentId()) {
+                            myRentals.remove(i);
+                            break;
+                        }
+                    }
+                }
+            }
 
+            updateButtonStates();
+        } catch (Exception e) {
+            Logger.logError("EQUIPMENT_REFRESH", "SYSTEM", e.getMessage(), "Failed to apply equipment changes");
+            e.printStackTrace();
+        } finally {
+            APPLY_CHANGES_TIMER.recordSince(start);
+            refreshEvent.commit();
+        }
+    }
+
+    private void updateButtonStates() {
         //перевірка, чи досягнуто ліміту оренди
-        boolean hasReachedLimit = equipmentService.hasReachedRentalLimit(currentRentals, 5); // Max 5 rentals
+        boolean hasReachedLimit = equipmentService.hasReachedRentalLimit(myRentals, 5); // Max 5 rentals
 
         btnRent.setDisable(cbType.getValue() == null || cbSize.getValue() == null || hasReachedLimit);
-        btnReturn.setDisable(currentRentals.isEmpty() || cbMyRentals.getValue() == null);
+        btnReturn.setDisable(myRentals.isEmpty() || cbMyRentals.getValue() == null);
 
         if (hasReachedLimit) {
             btnRent.setTooltip(new Tooltip("You have reached the maximum rental limit"));
@@ -270,17 +352,6 @@ public class EquipmentController {
         cbSize.setValue(null);
     }
 
-    private void refreshMainDashboard() {
-        try {
-            if (mainController != null) {
-                mainController.refreshDashboard();
-            }
-        } catch (Exception e) {
-            Logger.logError("DASHBOARD_REFRESH", "SYSTEM", e.getMessage(), "Failed to refresh main dashboard");
-            e.printStackTrace();
-        }
-    }
-
     private void showAlert(String message) {
         try {
             Alert alert = new Alert(Alert.AlertType.ERROR);
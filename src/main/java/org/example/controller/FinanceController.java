@@ -3,6 +3,9 @@ package org.example.controller;
 import org.example.Services;
 import org.example.model.*;
 import org.example.service.*;
+import org.example.jfr.ControllerRefreshEvent;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -23,6 +26,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class FinanceController {
+    private static final LatencyHistogram LOAD_TIMER = Metrics.histogram("FinanceController.load");
+
     @FXML
     private VBox mainContainer;
     @FXML
@@ -133,16 +138,38 @@ public class FinanceController {
     }
 
     private void load() {
-        ObservableList<Transaction> all = Services.TransactionService.listAll();
-        if (currentUser.getRole().equals("ADMIN")) {
-            tvTrans.setItems(all);
-        } else {
-            tvTrans.setItems(
-                    all.filtered(t -> t.getUsername().equals(currentUser.getUsername())));
+        long start = System.nanoTime();
+        ControllerRefreshEvent refreshEvent = ControllerRefreshEvent.start("FinanceController", "load");
+        try {
+            ObservableList<Transaction> all;
+            if (currentUser.getRole().equals("ADMIN")) {
+                // повний журнал - лише для адміністратора
+                all = Services.TransactionService.listAll();
+                tvTrans.setItems(all);
+            } else {
+                all = Services.TransactionService.listBetween(reportFrom(), reportTo());
+                tvTrans.setItems(
+                        all.filtered(t -> t.getUsername().equals(currentUser.getUsername())));
+            }
+
+            loadWeeklyChartData(all);
+            loadMonthlyReportsData(all);
+        } finally {
+            LOAD_TIMER.recordSince(start);
+            refreshEvent.commit();
         }
+    }
+
+    // тижнева діаграма - останні 7 днів, місячний звіт - з 1-го числа; беремо раніший із двох початків
+    private static LocalDateTime reportFrom() {
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = today.minusDays(6);
+        LocalDate monthStart = today.withDayOfMonth(1);
+        return (weekStart.isBefore(monthStart) ? weekStart : monthStart).atStartOfDay();
+    }
 
-        loadWeeklyChartData(all);
-        loadMonthlyReportsData(all);
+    private static LocalDateTime reportTo() {
+        return LocalDate.now().plusDays(1).atStartOfDay();
     }
 
     private void loadWeeklyChartData(ObservableList<Transaction> transactions) {
@@ -180,6 +207,7 @@ public class FinanceController {
                         bookingData.merge(dayLabel, amount, Double::sum);
                         break;
                     case "rent_eq":
+                    case "rent_overtime":
                         equipmentData.merge(dayLabel, amount, Double::sum);
                         break;
                     case "return_eq":
@@ -271,6 +299,7 @@ public class FinanceController {
                         counts.merge("Cancellations", 1, Integer::sum);
                         break;
                     case "rent_eq":
+                    case "rent_overtime":
                         totals.merge("Equipment Rentals", amount, Double::sum);
                         counts.merge("Equipment Rentals", 1, Integer::sum);
                         break;
@@ -317,6 +346,8 @@ public class FinanceController {
                 return -Math.abs(originalAmount); // -50
             case "rent_eq":
                 return originalAmount; // +20
+            case "rent_overtime":
+                return originalAmount; // доплата за прострочення
             case "return_eq":
                 return 0.0; // 0 (user doesn't get money back)
             case "lesson":
@@ -2,9 +2,14 @@ package org.example.controller;
 
 import org.example.Logger;
 import org.example.Services;
+import org.example.event.ChangeEvent;
 import org.example.model.*;
 import org.example.service.*;
+import org.example.jfr.ControllerRefreshEvent;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -20,6 +25,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 public class InstructorController {
+    private static final LatencyHistogram REFRESH_TIMER = Metrics.histogram("InstructorController.refresh");
+    private static final LatencyHistogram APPLY_CHANGES_TIMER =
+            Metrics.histogram("InstructorController.applyChanges");
+
     @FXML
     private TableView<InstructorWorkload> tvInstructorWorkload;
     @FXML
@@ -55,10 +64,22 @@ public class InstructorController {
 
     private MainController mainController;
     private final InstructorService instructorService = new InstructorService();
+    // усі уроки (для навантаження і перевірок) і видима користувачу частина
+    private final ObservableList<Lesson> allLessons = FXCollections.observableArrayList();
+    private final ObservableList<Lesson> lessons = FXCollections.observableArrayList();
+    private List<String> instructorNames = List.of();
 
     public void setMainController(MainController mainController) {
         this.mainController = mainController;
         Logger.logSystemEvent("CONTROLLER_INIT", "InstructorController linked to MainController");
+        // дані залежать від користувача, тому завантажуються лише коли відомий сеанс
+        refresh();
+        mainController.track(Services.events().subscribeBatched(Platform::runLater, this::applyChanges,
+                ChangeEvent.LessonBooked.class));
+    }
+
+    private User currentUser() {
+        return mainController.getSession().getUser();
     }
 
     @FXML
@@ -70,7 +91,6 @@ public class InstructorController {
             setupLessonsTable();
             setupBookingControls();
             setupEventHandlers();
-            refresh();
 
             Logger.logSystemEvent("CONTROLLER_INIT", "InstructorController initialized successfully");
         } catch (Exception e) {
@@ -92,11 +112,11 @@ public class InstructorController {
         colUser.setCellValueFactory(new PropertyValueFactory<>("username"));
         colInstr.setCellValueFactory(new PropertyValueFactory<>("instructor"));
         colTime.setCellValueFactory(new PropertyValueFactory<>("time"));
+        tvLessons.setItems(lessons);
     }
 
     private void setupBookingControls() {
-        cbInstructor.setItems(FXCollections.observableArrayList(
-                Services.InstructorService.listNames()));
+        // список інструкторів заповнює refresh(): initialize() не звертається до БД
         dpInsDate.setValue(LocalDate.now());
 
         List<Integer> availableHours = instructorService.getAvailableLessonHours();
@@ -136,7 +156,7 @@ public class InstructorController {
     }
 
     private void handleLessonBooking() {
-        String username = Services.AuthService.getCurrentUser().getUsername();
+        String username = currentUser().getUsername();
         String instructor = cbInstructor.getValue();
         LocalDate selectedDate = dpInsDate.getValue();
         Integer selectedHour = spHour.getValue();
@@ -145,7 +165,7 @@ public class InstructorController {
         Logger.logUserAction("LESSON_BOOK_ATTEMPT", username, params);
 
         try {
-            ObservableList<Lesson> existingLessons = Services.InstructorService.listAll();
+            ObservableList<Lesson> existingLessons = allLessons;
 
             var validationResult = instructorService.validateLessonBooking(
                     instructor, selectedDate, selectedHour, username, existingLessons);
@@ -172,8 +192,6 @@ public class InstructorController {
                 if (response == ButtonType.OK) {
                     try {
                         Services.InstructorService.book(instructor, username, lessonTime);
-                        refresh();
-                        refreshMainDashboard();
                         showInfo("Lesson booked successfully!");
                         clearBookingForm();
                         Logger.logUserAction("LESSON_BOOK_SUCCESS", username, params);
@@ -193,25 +211,55 @@ public class InstructorController {
     }
 
     private void refresh() {
+        long start = System.nanoTime();
+        ControllerRefreshEvent refreshEvent = ControllerRefreshEvent.start("InstructorController", "refresh");
         try {
-            String username = Services.AuthService.getCurrentUser().getUsername();
-            String userRole = Services.AuthService.getCurrentUser().getRole();
+            String username = currentUser().getUsername();
+            String userRole = currentUser().getRole();
             Logger.logUserAction("INSTRUCTOR_REFRESH", username, "Refreshing instructor data");
 
+            instructorNames = Services.InstructorService.listNames();
+            cbInstructor.setItems(FXCollections.observableArrayList(instructorNames));
+            allLessons.setAll(Services.InstructorService.listAll());
             refreshLessonsTable(username, userRole);
             refreshWorkloadTable();
         } catch (Exception e) {
             Logger.logError("INSTRUCTOR_REFRESH", "SYSTEM", e.getMessage(), "Failed to refresh instructor data");
             e.printStackTrace();
+        } finally {
+            REFRESH_TIMER.recordSince(start);
+            refreshEvent.commit();
         }
     }
 
-    private void refreshLessonsTable(String username, String userRole) {
+    private void applyChanges(List<ChangeEvent> events) {
+        long start = System.nanoTime();
+        ControllerRefreshEvent refreshEvent = ControllerRefreshEvent.start("InstructorController", "applyChanges");
         try {
-            ObservableList<Lesson> allLessons = Services.InstructorService.listAll();
+            String username = currentUser().getUsername();
+            String userRole = currentUser().getRole();
+
+            for (ChangeEvent event : events) {
+                if (event instanceof ChangeEvent.LessonBooked booked) {
+                    allLessons.add(booked.getLesson());
+                    lessons.addAll(instructorService.filterLessonsForUser(
+                            List.of(booked.getLesson()), username, userRole));
+                }
+            }
+            // навантаження рахується з уже завантажених уроків, без запитів до БД
+            refreshWorkloadTable();
+        } catch (Exception e) {
+            Logger.logError("INSTRUCTOR_REFRESH", "SYSTEM", e.getMessage(), "Failed to apply lesson changes");
+            e.printStackTrace();
+        } finally {
+            APPLY_CHANGES_TIMER.recordSince(start);
+            refreshEvent.commit();
+        }
+    }
 
-            var filteredLessons = instructorService.filterLessonsForUser(allLessons, username, userRole);
-            tvLessons.setItems(FXCollections.observableArrayList(filteredLessons));
+    private void refreshLessonsTable(String username, String userRole) {
+        try {
+            lessons.setAll(instructorService.filterLessonsForUser(allLessons, username, userRole));
 
         } catch (Exception e) {
             Logger.logError("LESSON_REFRESH", "SYSTEM", e.getMessage(), "Failed to refresh lessons table");
@@ -221,9 +269,6 @@ public class InstructorController {
 
     private void refreshWorkloadTable() {
         try {
-            List<String> instructorNames = Services.InstructorService.listNames();
-            ObservableList<Lesson> allLessons = Services.InstructorService.listAll();
-
             var workloadStats = instructorService.calculateInstructorWorkloads(instructorNames, allLessons);
 
             ObservableList<InstructorWorkload> workloadData = FXCollections.observableArrayList();
@@ -256,17 +301,6 @@ public class InstructorController {
         spHour.getValueFactory().setValue(9);
     }
 
-    private void refreshMainDashboard() {
-        try {
-            if (mainController != null) {
-                mainController.refreshDashboard();
-            }
-        } catch (Exception e) {
-            Logger.logError("DASHBOARD_REFRESH", "SYSTEM", e.getMessage(), "Failed to refresh main dashboard");
-            e.printStackTrace();
-        }
-    }
-
     private void showAlert(String message) {
         try {
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -8,6 +8,7 @@ import org.example.service.*;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import org.example.model.User;
+import org.example.session.Session;
 
 public class LoginController {
     @FXML
@@ -65,13 +66,14 @@ public class LoginController {
                 return;
             }
 
-            if (Services.AuthService.login(username, password)) {
-                User user = Services.AuthService.getCurrentUser();
+            Session session = Services.AuthService.login(username, password);
+            if (session != null) {
+                User user = session.getUser();
                 Logger.logUserAction("LOGIN_SUCCESS_UI", user.getUsername(),
                         String.format("role=%s", user.getRole()));
 
                 clearForm();
-                app.showMain(user);
+                app.showMain(session);
             } else {
                 Logger.logUserAction("LOGIN_FAILED_UI", username, params);
                 showMessage("Invalid username or password", MessageType.ERROR);
@@ -112,6 +114,13 @@ public class LoginController {
 
             String sanitizedUsername = authService.sanitizeUsername(username);
 
+            // відповідає індекс імен у пам'яті, без INSERT і хешування пароля
+            if (Services.AuthService.isUsernameTaken(sanitizedUsername)) {
+                Logger.logError("REGISTER_ATTEMPT", username, "Username already exists", params);
+                showMessage("Username already exists. Please choose a different one.", MessageType.ERROR);
+                return;
+            }
+
             boolean success = Services.AuthService.register(sanitizedUsername, password);
             if (success) {
                 Logger.logUserAction("REGISTER_SUCCESS", sanitizedUsername, params);
@@ -124,7 +133,8 @@ public class LoginController {
 
         } catch (Exception ex) {
             String errorMessage = ex.getMessage();
-            if (errorMessage != null && errorMessage.contains("UNIQUE constraint failed")) {
+            if (errorMessage != null && (errorMessage.contains("UNIQUE constraint failed")
+                    || errorMessage.equals(Services.AuthService.USERNAME_TAKEN))) {
                 Logger.logError("REGISTER_ATTEMPT", username, "Username already exists", params);
                 showMessage("Username already exists. Please choose a different one.", MessageType.ERROR);
             } else {
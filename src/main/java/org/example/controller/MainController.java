@@ -1,7 +1,16 @@
 package org.example.controller;
 
 import org.example.Logger;
+import org.example.Services;
+import org.example.event.ChangeBus;
+import org.example.event.ChangeEvent;
+import org.example.jfr.ControllerRefreshEvent;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
+import org.example.schedule.RefreshScheduler;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.*;
@@ -9,10 +18,20 @@ import javafx.scene.Parent;
 import javafx.stage.Stage;
 import javafx.scene.Scene;
 import org.example.model.User;
+import org.example.session.Session;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class MainController {
+    private static final LatencyHistogram REFRESH_DASHBOARD_TIMER =
+            Metrics.histogram("MainController.refreshDashboard");
+    private static final javafx.util.Duration PREFETCH_DELAY = javafx.util.Duration.millis(300);
+
     @FXML
     private TabPane tabPane;
     @FXML
@@ -24,16 +43,24 @@ public class MainController {
 
     private Stage primaryStage;
     private Scene loginScene;
+    private Session session;
     private User currentUser;
     private DashboardController dashboardController;
     private BookingController bookingController;
     private EquipmentController equipmentController;
     private InstructorController instructorController;
+    // підписки вкладок на шину змін; знімаються при виході, щоб закриті вкладки не отримували подій
+    private final List<ChangeBus.Subscription> subscriptions = new ArrayList<>();
+    // злиття повторних перезавантажень вкладок під час серії дій
+    private final RefreshScheduler refreshScheduler = RefreshScheduler.fromSystemProperties(Platform::runLater);
+    // ще не завантажені вкладки в порядку попереднього завантаження
+    private final Map<Tab, LazyTab> lazyTabs = new LinkedHashMap<>();
 
-    public void init(Stage primaryStage, Scene loginScene, User currentUser) throws IOException {
+    public void init(Stage primaryStage, Scene loginScene, Session session) throws IOException {
         this.primaryStage = primaryStage;
         this.loginScene = loginScene;
-        this.currentUser = currentUser;
+        this.session = session;
+        this.currentUser = session.getUser();
 
         try {
             Logger.logUserAction("MAIN_INIT", currentUser.getUsername(),
@@ -42,8 +69,10 @@ public class MainController {
             lblWelcome.setText("Hello, " + currentUser.getUsername()
                     + " (" + currentUser.getRole() + ")");
 
-            loadUserTabs(currentUser);
-            loadAdminTabs(currentUser);
+            // вкладки завантажуються при першому виборі, а не всі під час входу
+            registerTabs(currentUser);
+            tabPane.getSelectionModel().selectedItemProperty()
+                    .addListener((obs, oldTab, newTab) -> ensureLoaded(newTab));
 
             if (currentUser.getRole().equals("ADMIN")) {
                 tabDashboard.setDisable(true);
@@ -60,9 +89,15 @@ public class MainController {
                 tabPane.getSelectionModel().select(tabDashboard);
                 Logger.logUserAction("UI_CONFIG", currentUser.getUsername(), "User interface configured");
             }
+            // вкладка могла бути вибрана ще до реєстрації слухача
+            ensureLoaded(tabPane.getSelectionModel().getSelectedItem());
+            prefetchTabs();
 
             btnLogout.setOnAction(e -> {
                 Logger.logUserAction("LOGOUT", currentUser.getUsername(), "User logged out");
+                closeSubscriptions();
+                refreshScheduler.close();
+                Services.AuthService.logout(session);
                 primaryStage.setScene(loginScene);
             });
 
@@ -73,61 +108,131 @@ public class MainController {
         }
     }
 
-    private void loadUserTabs(User currentUser) throws IOException {
-        try {
-            FXMLLoader dashLoader = new FXMLLoader(getClass().getResource("/fxml/DashboardView.fxml"));
-            Parent dashRoot = dashLoader.load();
-            dashboardController = dashLoader.getController();
-            dashboardController.setCurrentUser(currentUser);
-            tabDashboard.setContent(dashRoot);
+    // вигляди користувача і адміністратора; вкладки іншої ролі вимкнені і не завантажуються
+    private void registerTabs(User currentUser) {
+        if (currentUser.getRole().equals("ADMIN")) {
+            lazyTabs.put(tabFinance, new LazyTab("finance", "/fxml/FinanceView.fxml", loader -> {
+                FinanceController finCtrl = loader.getController();
+                finCtrl.setCurrentUser(currentUser);
+            }));
+            lazyTabs.put(tabAnalytics, new LazyTab("analytics", "/fxml/AnalyticsView.fxml", loader -> {
+                AnalyticsController anCtrl = loader.getController();
+                anCtrl.setCurrentUser(currentUser);
+            }));
+            return;
+        }
 
-            FXMLLoader bookingLoader = new FXMLLoader(getClass().getResource("/fxml/BookingView.fxml"));
-            Parent bookingRoot = bookingLoader.load();
-            bookingController = bookingLoader.getController();
+        lazyTabs.put(tabDashboard, new LazyTab("dashboard", "/fxml/DashboardView.fxml", loader -> {
+            dashboardController = loader.getController();
+            dashboardController.setCurrentUser(currentUser);
+            // панель оновлюється подіями змін замість викликів refreshDashboard() з інших вкладок
+            track(Services.events().subscribeBatched(Platform::runLater, this::onDataChanged,
+                    ChangeEvent.BookingCreated.class, ChangeEvent.BookingCancelled.class,
+                    ChangeEvent.BookingTransferred.class, ChangeEvent.RentalStarted.class,
+                    ChangeEvent.RentalReturned.class, ChangeEvent.LessonBooked.class,
+                    ChangeEvent.TransactionLogged.class));
+        }));
+        lazyTabs.put(tabBooking, new LazyTab("booking", "/fxml/BookingView.fxml", loader -> {
+            bookingController = loader.getController();
             bookingController.setMainController(this);
-            tabBooking.setContent(bookingRoot);
-
-            FXMLLoader equipLoader = new FXMLLoader(getClass().getResource("/fxml/EquipmentView.fxml"));
-            Parent equipRoot = equipLoader.load();
-            equipmentController = equipLoader.getController();
+        }));
+        lazyTabs.put(tabEquipment, new LazyTab("equipment", "/fxml/EquipmentView.fxml", loader -> {
+            equipmentController = loader.getController();
             equipmentController.setMainController(this);
-            tabEquipment.setContent(equipRoot);
-
-            FXMLLoader instrLoader = new FXMLLoader(getClass().getResource("/fxml/InstructorView.fxml"));
-            Parent instrRoot = instrLoader.load();
-            instructorController = instrLoader.getController();
+        }));
+        lazyTabs.put(tabInstructors, new LazyTab("instructors", "/fxml/InstructorView.fxml", loader -> {
+            instructorController = loader.getController();
             instructorController.setMainController(this);
-            tabInstructors.setContent(instrRoot);
+        }));
+    }
 
-            Logger.logUserAction("UI_LOAD", currentUser.getUsername(), "User tabs loaded successfully");
-        } catch (IOException e) {
-            Logger.logError("UI_LOAD", currentUser.getUsername(), e.getMessage(), "Failed to load user tabs");
-            throw e;
+    /**
+     * Завантажує FXML і дані вкладки при першому показі; повторні виклики нічого не роблять.
+     */
+    private void ensureLoaded(Tab tab) {
+        LazyTab lazyTab = tab == null ? null : lazyTabs.remove(tab);
+        if (lazyTab == null) {
+            return;
         }
-    }
 
-    private void loadAdminTabs(User currentUser) throws IOException {
+        long start = System.nanoTime();
         try {
-            FXMLLoader finLoader = new FXMLLoader(getClass().getResource("/fxml/FinanceView.fxml"));
-            Parent finRoot = finLoader.load();
-            FinanceController finCtrl = finLoader.getController();
-            finCtrl.setCurrentUser(currentUser);
-            tabFinance.setContent(finRoot);
-
-            FXMLLoader anLoader = new FXMLLoader(getClass().getResource("/fxml/AnalyticsView.fxml"));
-            Parent anRoot = anLoader.load();
-            AnalyticsController anCtrl = anLoader.getController();
-            anCtrl.setCurrentUser(currentUser);
-            tabAnalytics.setContent(anRoot);
-
-            Logger.logUserAction("UI_LOAD", currentUser.getUsername(), "Admin tabs loaded successfully");
+            FXMLLoader loader = new FXMLLoader(getClass().getResource(lazyTab.fxml));
+            Parent root = loader.load();
+            lazyTab.init.accept(loader);
+            tab.setContent(root);
+            Logger.logUserAction("UI_LOAD", currentUser.getUsername(), String.format("tab=%s, ms=%.1f",
+                    lazyTab.name, (System.nanoTime() - start) / 1_000_000.0));
         } catch (IOException e) {
-            Logger.logError("UI_LOAD", currentUser.getUsername(), e.getMessage(), "Failed to load admin tabs");
-            throw e;
+            Logger.logError("UI_LOAD", currentUser.getUsername(), e.getMessage(),
+                    "Failed to load tab " + lazyTab.name);
+            e.printStackTrace();
+        } finally {
+            Metrics.histogram("MainController.loadTab." + lazyTab.name).recordSince(start);
+        }
+    }
+
+    // інші вкладки своєї ролі довантажуються по одній, коли перша вже показана
+    private void prefetchTabs() {
+        if (!Boolean.parseBoolean(System.getProperty("skiservice.prefetchTabs", "true"))) {
+            return;
+        }
+        PauseTransition delay = new PauseTransition(PREFETCH_DELAY);
+        delay.setOnFinished(e -> prefetchNext());
+        delay.play();
+    }
+
+    private void prefetchNext() {
+        if (lazyTabs.isEmpty() || primaryStage.getScene() == loginScene) {
+            return;
+        }
+        ensureLoaded(lazyTabs.keySet().iterator().next());
+        // кожна вкладка окремим завданням - між ними інтерфейс обробляє введення
+        Platform.runLater(this::prefetchNext);
+    }
+
+    /**
+     * Сеанс користувача, що увійшов; вкладені контролери беруть користувача звідси.
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Реєструє підписку вкладки на шину змін; вона діє до виходу користувача.
+     */
+    public void track(ChangeBus.Subscription subscription) {
+        subscriptions.add(subscription);
+    }
+
+    /**
+     * Планує повне перезавантаження вкладки; запити, що прийшли до його виконання, зливаються в один.
+     */
+    public void requestRefresh(String view, Runnable refresh) {
+        refreshScheduler.request(view, refresh);
+    }
+
+    private void closeSubscriptions() {
+        for (ChangeBus.Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        subscriptions.clear();
+    }
+
+    // одна перебудова панелі на пакет подій, і лише якщо зміни стосуються цього користувача
+    private void onDataChanged(List<ChangeEvent> events) {
+        String username = currentUser.getUsername();
+        for (ChangeEvent event : events) {
+            if (username.equals(event.getUsername())) {
+                requestRefresh("dashboard", this::refreshDashboard);
+                return;
+            }
         }
     }
 
     public void refreshDashboard() {
+        long start = System.nanoTime();
+        ControllerRefreshEvent refreshEvent = ControllerRefreshEvent.start("MainController", "refreshDashboard");
         try {
             if (dashboardController != null) {
                 dashboardController.refresh();
@@ -137,6 +242,22 @@ public class MainController {
             Logger.logError("DASHBOARD_REFRESH", currentUser.getUsername(), e.getMessage(),
                     "Failed to refresh dashboard");
             e.printStackTrace();
+        } finally {
+            REFRESH_DASHBOARD_TIMER.recordSince(start);
+            refreshEvent.commit();
+        }
+    }
+
+    private static final class LazyTab {
+        private final String name;
+        private final String fxml;
+        // зв'язує контролер вигляду з сеансом; тут же він завантажує свої дані
+        private final Consumer<FXMLLoader> init;
+
+        LazyTab(String name, String fxml, Consumer<FXMLLoader> init) {
+            this.name = name;
+            this.fxml = fxml;
+            this.init = init;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,263 @@
+package org.example.db;
+
+import org.example.jfr.DatabaseCallEvent;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Обгортка над JDBC-з'єднанням Services, яка відстежує кожен виконаний запит:
+ * JFR-подія DatabaseCall, статистика QueryStats і журнал повільних запитів SlowQueryLog.
+ *
+ * Запит вважається завершеним після executeUpdate/executeBatch, а для executeQuery -
+ * коли ResultSet прочитано до кінця або закрито (чи закрито сам statement),
+ * тому тривалість включає читання рядків.
+ */
+public final class InstrumentedConnection {
+
+    private InstrumentedConnection() {
+    }
+
+    public static Connection wrap(Connection connection) {
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedConnection.class.getClassLoader(), new Class<?>[] { type },
+                handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Одне виконання запиту.
+     */
+    static final class Execution {
+        final Connection raw;
+        final String sql;
+        final List<Object> params;
+        final DatabaseCallEvent event = new DatabaseCallEvent();
+        final long startNanos;
+        int rows;
+        int batchSize;
+        private boolean finished;
+
+        Execution(Connection raw, String sql, List<Object> params) {
+            this.raw = raw;
+            this.sql = sql;
+            this.params = params;
+            event.begin();
+            this.startNanos = System.nanoTime();
+        }
+
+        void finish(boolean failed) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            long nanos = System.nanoTime() - startNanos;
+            event.end();
+            if (event.shouldCommit()) {
+                event.statement = SqlNames.shortName(sql);
+                event.sql = sql;
+                event.rows = rows;
+                event.batchSize = batchSize;
+                event.failed = failed;
+                event.commit();
+            }
+
+            QueryStats.Shape shape = QueryStats.record(sql, rows, nanos, failed);
+            if (shape.getPlan() == null) {
+                // план знімаємо один раз для кожної форми запиту
+                shape.setPlan(SlowQueryLog.explain(raw, sql, params));
+            }
+            if (SlowQueryLog.isSlow(nanos)) {
+                SlowQueryLog.record(shape, sql, params, rows, nanos);
+            }
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement" -> {
+                    PreparedStatement statement = (PreparedStatement) InstrumentedConnection.invoke(target, method,
+                            args);
+                    return proxy(PreparedStatement.class, new StatementHandler(target, statement, (String) args[0]));
+                }
+                case "createStatement" -> {
+                    Statement statement = (Statement) InstrumentedConnection.invoke(target, method, args);
+                    return proxy(Statement.class, new StatementHandler(target, statement, null));
+                }
+                case "unwrap" -> {
+                    return ((Class<?>) args[0]).isInstance(target) ? target : target.unwrap((Class<?>) args[0]);
+                }
+                default -> {
+                    return InstrumentedConnection.invoke(target, method, args);
+                }
+            }
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Connection connection;
+        private final Statement target;
+        private final String preparedSql;
+        private final List<Object> params = new ArrayList<>();
+        private final List<String> batch = new ArrayList<>();
+        private Execution open;
+
+        StatementHandler(Connection connection, Statement target, String preparedSql) {
+            this.connection = connection;
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index
+                    && preparedSql != null) {
+                bind(index, name.equals("setNull") ? null : args[1]);
+                return InstrumentedConnection.invoke(target, method, args);
+            }
+
+            switch (name) {
+                case "clearParameters" -> params.clear();
+                case "addBatch" -> batch.add(args == null ? preparedSql : (String) args[0]);
+                case "clearBatch" -> batch.clear();
+                case "executeQuery" -> {
+                    Execution execution = start(args);
+                    try {
+                        ResultSet rs = (ResultSet) InstrumentedConnection.invoke(target, method, args);
+                        return proxy(ResultSet.class, new ResultSetHandler(rs, execution));
+                    } catch (Throwable e) {
+                        execution.finish(true);
+                        throw e;
+                    }
+                }
+                case "executeUpdate", "executeLargeUpdate", "execute" -> {
+                    Execution execution = start(args);
+                    boolean failed = true;
+                    try {
+                        Object result = InstrumentedConnection.invoke(target, method, args);
+                        if (result instanceof Number n) {
+                            execution.rows = n.intValue();
+                        } else if (Boolean.FALSE.equals(result)) {
+                            execution.rows = target.getUpdateCount();
+                        }
+                        failed = false;
+                        return result;
+                    } finally {
+                        execution.finish(failed);
+                    }
+                }
+                case "executeBatch", "executeLargeBatch" -> {
+                    Execution execution = start(batch.size() == 1 ? new Object[] { batch.get(0) } : null);
+                    execution.batchSize = batch.size();
+                    batch.clear();
+                    boolean failed = true;
+                    try {
+                        Object result = InstrumentedConnection.invoke(target, method, args);
+                        execution.rows = sumCounts(result);
+                        failed = false;
+                        return result;
+                    } finally {
+                        execution.finish(failed);
+                    }
+                }
+                case "close" -> finishOpen();
+                default -> {
+                }
+            }
+            return InstrumentedConnection.invoke(target, method, args);
+        }
+
+        private void bind(int index, Object value) {
+            while (params.size() < index) {
+                params.add(null);
+            }
+            params.set(index - 1, value);
+        }
+
+        private Execution start(Object[] args) {
+            finishOpen();
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+            open = new Execution(connection, sql, preparedSql != null ? new ArrayList<>(params) : List.of());
+            return open;
+        }
+
+        private void finishOpen() {
+            if (open != null) {
+                open.finish(false);
+                open = null;
+            }
+        }
+
+        private static int sumCounts(Object result) {
+            int total = 0;
+            if (result instanceof int[] counts) {
+                for (int c : counts) {
+                    total += Math.max(c, 0);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long c : counts) {
+                    total += (int) Math.max(c, 0);
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final Execution execution;
+
+        ResultSetHandler(ResultSet target, Execution execution) {
+            this.target = target;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    boolean hasRow = (Boolean) InstrumentedConnection.invoke(target, method, args);
+                    if (hasRow) {
+                        execution.rows++;
+                    } else {
+                        execution.finish(false);
+                    }
+                    return hasRow;
+                }
+                case "close" -> execution.finish(false);
+                default -> {
+                }
+            }
+            return InstrumentedConnection.invoke(target, method, args);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.db;
+
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Розподіл журналу транзакцій за часом.
+ *
+ * Активна секція - таблиця trans основної БД: усі записи (TransactionService.log) йдуть лише туди.
+ * Закриті місяці LedgerArchiver переносить в окремі файли archiveDir/trans-YYYY-MM.db (таблиця trans
+ * тієї ж структури) і реєструє в trans_partitions з межами часу. Запит за діапазоном читає таблицю
+ * trans і лише ті архіви, чиї межі перетинають діапазон; решта файлів не відкривається.
+ *
+ * Транзакція із заднім числом за вже заархівований місяць лишається в trans, доки наступний запуск
+ * архіватора не перенесе її в додатковий файл того ж місяця - запити її бачать в обох випадках.
+ */
+public final class LedgerPartitions {
+    public static final String HOT_TABLE = "trans";
+
+    private static final Counter SCANNED = Metrics.counter("ledger.partitions.scanned");
+    private static final Counter PRUNED = Metrics.counter("ledger.partitions.pruned");
+
+    // SQLITE_OPEN_READONLY: архіви ніколи не відкриваються на запис
+    private static final String READ_ONLY_OPEN_MODE = "1";
+
+    private final Connection conn;
+    private final Path archiveDir;
+
+    public LedgerPartitions(Connection conn, Path archiveDir) {
+        this.conn = conn;
+        this.archiveDir = archiveDir;
+    }
+
+    public Connection getConnection() {
+        return conn;
+    }
+
+    public Path getArchiveDir() {
+        return archiveDir;
+    }
+
+    /**
+     * Усі зареєстровані архіви в хронологічному порядку.
+     */
+    public List<Archive> archives() throws SQLException {
+        List<Archive> result = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT file, month, min_time, max_time, rows FROM trans_partitions ORDER BY min_time, file");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                result.add(new Archive(archiveDir.resolve(rs.getString(1)), YearMonth.parse(rs.getString(2)),
+                        LocalDateTime.parse(rs.getString(3)), LocalDateTime.parse(rs.getString(4)), rs.getLong(5)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Архіви, що можуть містити транзакції з [from, to); null - без межі.
+     * Активна секція (trans) у результат не входить - її читають завжди.
+     */
+    public List<Archive> overlapping(LocalDateTime from, LocalDateTime to) throws SQLException {
+        return overlapping(archives(), from, to);
+    }
+
+    public static List<Archive> overlapping(List<Archive> archives, LocalDateTime from, LocalDateTime to) {
+        List<Archive> result = new ArrayList<>();
+        for (Archive archive : archives) {
+            if (archive.overlaps(from, to)) {
+                result.add(archive);
+            }
+        }
+        SCANNED.add(result.size());
+        PRUNED.add(archives.size() - result.size());
+        return result;
+    }
+
+    /**
+     * Окреме з'єднання лише для читання; закриває викликач.
+     */
+    public Connection open(Archive archive) throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("open_mode", READ_ONLY_OPEN_MODE);
+        return InstrumentedConnection.wrap(
+                DriverManager.getConnection("jdbc:sqlite:" + archive.getFile(), props));
+    }
+
+    public static final class Archive {
+        private final Path file;
+        private final YearMonth month;
+        private final LocalDateTime minTime;
+        private final LocalDateTime maxTime;
+        private final long rows;
+
+        public Archive(Path file, YearMonth month, LocalDateTime minTime, LocalDateTime maxTime, long rows) {
+            this.file = file;
+            this.month = month;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.rows = rows;
+        }
+
+        /**
+         * Чи перетинає [minTime, maxTime] архіву діапазон [from, to).
+         */
+        public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            return (from == null || !maxTime.isBefore(from)) && (to == null || minTime.isBefore(to));
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public YearMonth getMonth() {
+            return month;
+        }
+
+        public LocalDateTime getMinTime() {
+            return minTime;
+        }
+
+        public LocalDateTime getMaxTime() {
+            return maxTime;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        @Override
+        public String toString() {
+            return file.getFileName() + "[" + minTime + ".." + maxTime + ", rows=" + rows + "]";
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.db;
+
+import org.example.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Зведена статистика по формі запиту (SQL без літералів і зайвих пробілів):
+ * кількість викликів, сумарний час, перцентилі, прочитані/змінені рядки і план виконання.
+ * Запити з повним скануванням таблиці (SCAN без індексу) видно одразу у report().
+ */
+public final class QueryStats {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    // обмеження кешу "текст запиту -> форма", щоб запити з різними літералами не роздували пам'ять
+    private static final int MAX_TEXT_ALIASES = 1000;
+
+    private static final Map<String, Shape> SHAPES = new ConcurrentHashMap<>();
+    private static final Map<String, Shape> BY_TEXT = new ConcurrentHashMap<>();
+
+    public static final class Shape {
+        private final String sql;
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder slow = new LongAdder();
+        private volatile String plan;
+
+        Shape(String sql) {
+            this.sql = sql;
+            this.name = SqlNames.shortName(sql);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency.snapshot();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getSlowCount() {
+            return slow.sum();
+        }
+
+        /**
+         * @return план з EXPLAIN QUERY PLAN (кроки через "; "), знятий при першому виконанні форми
+         */
+        public String getPlan() {
+            return plan;
+        }
+
+        void setPlan(String plan) {
+            this.plan = plan;
+        }
+
+        public boolean isFullScan() {
+            return plan != null && isFullScan(plan);
+        }
+
+        static boolean isFullScan(String plan) {
+            for (String step : plan.split("; ")) {
+                if (step.startsWith("SCAN ") && !step.contains(" INDEX ")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private QueryStats() {
+    }
+
+    public static String shapeOf(String sql) {
+        String normalized = SqlNames.normalize(sql);
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        return NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+    }
+
+    static Shape record(String sql, int rowCount, long nanos, boolean failed) {
+        Shape shape = BY_TEXT.get(sql);
+        if (shape == null) {
+            shape = SHAPES.computeIfAbsent(shapeOf(sql), Shape::new);
+            if (BY_TEXT.size() < MAX_TEXT_ALIASES) {
+                BY_TEXT.putIfAbsent(sql, shape);
+            }
+        }
+        shape.latency.record(nanos);
+        shape.totalNanos.add(nanos);
+        shape.rows.add(rowCount);
+        if (failed) {
+            shape.errors.increment();
+        }
+        return shape;
+    }
+
+    static void markSlow(Shape shape) {
+        shape.slow.increment();
+    }
+
+    /**
+     * @return унікальні форми запитів, найдорожчі за сумарним часом першими
+     */
+    public static List<Shape> snapshot() {
+        List<Shape> shapes = new ArrayList<>(SHAPES.values());
+        shapes.sort(Comparator.comparingLong(Shape::getTotalNanos).reversed());
+        return shapes;
+    }
+
+    public static void reset() {
+        SHAPES.clear();
+        BY_TEXT.clear();
+    }
+
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-28s %8s %10s %10s %10s %10s %10s %6s %5s  %s%n",
+                "statement", "calls", "total ms", "mean us", "p99 us", "max us", "rows", "slow", "scan", "sql"));
+        for (Shape s : snapshot()) {
+            LatencyHistogram.Snapshot h = s.getLatency();
+            sb.append(String.format(Locale.ROOT, "%-28s %8d %10.1f %10.1f %10.1f %10.1f %10d %6d %5s  %s%n",
+                    s.getName(), h.getCount(), s.getTotalNanos() / 1e6, h.getMeanNanos() / 1e3,
+                    h.getPercentileNanos(99) / 1e3, h.getMaxNanos() / 1e3, s.getRows(), s.getSlowCount(),
+                    s.getPlan() == null ? "?" : (s.isFullScan() ? "YES" : "no"), s.getSql()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.db;
+
+import org.example.Logger;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Журнал повільних запитів: SQL, прив'язані параметри і EXPLAIN QUERY PLAN для кожного
+ * запиту, що виконувався довше за поріг.
+ *
+ * Поріг: -Dskiservice.slowQueryMs (за замовчуванням 50), файл: -Dskiservice.slowlog.
+ * Значення параметрів за замовчуванням не пишуться - лише їхні типи; -Dskiservice.slowlog.params=true
+ * вмикає значення, але запити до users і з колонкою password (паролі, хеші) маскуються завжди.
+ */
+public final class SlowQueryLog {
+    private static final String LOG_FILE = System.getProperty("skiservice.slowlog", "ski-service-slow-queries.txt");
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final boolean LOG_PARAM_VALUES = Boolean.getBoolean("skiservice.slowlog.params");
+    private static final Pattern SENSITIVE_SQL = Pattern.compile("\\busers\\b|password", Pattern.CASE_INSENSITIVE);
+
+    private static volatile long thresholdNanos = Duration.ofMillis(
+            Long.getLong("skiservice.slowQueryMs", 50)).toNanos();
+
+    private SlowQueryLog() {
+    }
+
+    public static Duration getThreshold() {
+        return Duration.ofNanos(thresholdNanos);
+    }
+
+    public static void setThreshold(Duration threshold) {
+        thresholdNanos = threshold.toNanos();
+    }
+
+    static boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    static void record(QueryStats.Shape shape, String sql, List<Object> params, int rows, long nanos) {
+        QueryStats.markSlow(shape);
+
+        writeToFile(String.format(Locale.ROOT, "[%s] SLOW_QUERY: %.1f ms | ROWS: %d | SQL: %s | PARAMS: %s | PLAN: %s",
+                LocalDateTime.now().format(TIMESTAMP_FORMAT), nanos / 1e6, rows, SqlNames.normalize(sql),
+                formatParams(sql, params, LOG_PARAM_VALUES), shape.getPlan()));
+    }
+
+    /**
+     * Параметри для рядка журналу: значення лише якщо logValues і запит не чіпає облікові дані,
+     * інакше типи ("[String, Integer]").
+     */
+    public static String formatParams(String sql, List<Object> params, boolean logValues) {
+        if (logValues && !SENSITIVE_SQL.matcher(sql).find()) {
+            return params.toString();
+        }
+        StringJoiner types = new StringJoiner(", ", "[", "]");
+        for (Object param : params) {
+            types.add(param == null ? "null" : param.getClass().getSimpleName());
+        }
+        return types.toString();
+    }
+
+    /**
+     * EXPLAIN QUERY PLAN на "сирому" з'єднанні (поза обгорткою, щоб не рахувати його як запит).
+     * Діагностика ніколи не повинна ламати сам запит, тому будь-яка помилка лише потрапляє в текст плану.
+     */
+    static String explain(Connection raw, String sql, List<Object> params) {
+        String verb = SqlNames.shortName(sql).split(" ")[0];
+        if (!List.of("SELECT", "INSERT", "UPDATE", "DELETE").contains(verb)) {
+            return "n/a";
+        }
+
+        try (PreparedStatement p = raw.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                p.setObject(i + 1, params.get(i));
+            }
+            StringJoiner plan = new StringJoiner("; ");
+            try (ResultSet rs = p.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            }
+            return plan.toString();
+        } catch (SQLException | RuntimeException e) {
+            return "unavailable: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Дописує у журнал зведену таблицю QueryStats (викликається при закритті БД).
+     */
+    public static void writeSummary() {
+        if (QueryStats.snapshot().isEmpty()) {
+            return;
+        }
+        writeToFile(String.format("[%s] QUERY_STATS:%n%s", LocalDateTime.now().format(TIMESTAMP_FORMAT),
+                QueryStats.report()));
+    }
+
+    private static synchronized void writeToFile(String message) {
+        try (FileWriter writer = new FileWriter(LOG_FILE, true)) {
+            writer.write(message + System.lineSeparator());
+        } catch (IOException e) {
+            Logger.logError("SLOW_QUERY_LOG", "SYSTEM", e.getMessage(), "file=" + LOG_FILE);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.db;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Короткі назви SQL-запитів для подій і статистики: "SELECT bookings", "UPDATE equipment".
+ */
+public final class SqlNames {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TABLE = Pattern.compile(
+            "(?i)^(SELECT\\b.*?\\bFROM|INSERT\\s+(?:OR\\s+\\w+\\s+)?INTO|UPDATE|DELETE\\s+FROM|PRAGMA)\\s+([\\w.]+)");
+
+    private SqlNames() {
+    }
+
+    public static String normalize(String sql) {
+        return sql == null ? "" : WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+    }
+
+    public static String shortName(String sql) {
+        String normalized = normalize(sql);
+        Matcher m = TABLE.matcher(normalized);
+        if (m.find()) {
+            String verb = m.group(1).split(" ")[0].toUpperCase(Locale.ROOT);
+            return verb + " " + m.group(2);
+        }
+        int space = normalized.indexOf(' ');
+        return (space < 0 ? normalized : normalized.substring(0, space)).toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,214 @@
+package org.example.db;
+
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Кеш скомпільованих PreparedStatement для одного з'єднання, ключ - текст SQL.
+ *
+ * Services відкриває запит через conn.prepareStatement(sql) і одразу закриває його у
+ * try-with-resources. З кешем close() не знищує запит, а повертає його у кеш
+ * (з очищеними параметрами і закритим ResultSet), тож наступний виклик з тим самим SQL
+ * не парсить і не планує запит наново. Запит видається лише одному користувачу одночасно;
+ * паралельний виклик з тим самим SQL отримує окремий екземпляр.
+ *
+ * Кеш обмежений кількістю простоюючих запитів; найдавніше використані закриваються (LRU).
+ */
+public final class StatementCache {
+
+    private static final Counter HITS = Metrics.counter("db.statementCache.hits");
+    private static final Counter MISSES = Metrics.counter("db.statementCache.misses");
+    private static final Counter EVICTIONS = Metrics.counter("db.statementCache.evictions");
+
+    private final Connection target;
+    private final int maxSize;
+    // access-order: перший елемент - найдавніше використаний SQL
+    private final LinkedHashMap<String, Deque<PreparedStatement>> idle = new LinkedHashMap<>(16, 0.75f, true);
+    private int idleCount;
+
+    private StatementCache(Connection target, int maxSize) {
+        this.target = target;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param maxSize найбільша кількість простоюючих запитів; 0 - без кешування
+     */
+    public static Connection wrap(Connection connection, int maxSize) {
+        if (maxSize <= 0) {
+            return connection;
+        }
+        StatementCache cache = new StatementCache(connection, maxSize);
+        Metrics.gauge("db.statementCache.size", () -> cache.size());
+        return proxy(Connection.class, cache.new ConnectionHandler());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StatementCache.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    synchronized int size() {
+        return idleCount;
+    }
+
+    private PreparedStatement checkout(String sql) throws SQLException {
+        PreparedStatement statement = null;
+        synchronized (this) {
+            Deque<PreparedStatement> statements = idle.get(sql);
+            if (statements != null && !statements.isEmpty()) {
+                statement = statements.pop();
+                idleCount--;
+            }
+        }
+        if (statement != null) {
+            HITS.increment();
+            return statement;
+        }
+        MISSES.increment();
+        return target.prepareStatement(sql);
+    }
+
+    private void release(String sql, PreparedStatement statement) throws SQLException {
+        try {
+            statement.clearParameters();
+            statement.clearBatch();
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+
+        List<PreparedStatement> evicted = new ArrayList<>();
+        synchronized (this) {
+            idle.computeIfAbsent(sql, k -> new ArrayDeque<>()).push(statement);
+            idleCount++;
+            Iterator<Map.Entry<String, Deque<PreparedStatement>>> it = idle.entrySet().iterator();
+            while (idleCount > maxSize && it.hasNext()) {
+                Deque<PreparedStatement> oldest = it.next().getValue();
+                while (idleCount > maxSize && !oldest.isEmpty()) {
+                    evicted.add(oldest.pollLast());
+                    idleCount--;
+                }
+                if (oldest.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+
+        for (PreparedStatement stale : evicted) {
+            EVICTIONS.increment();
+            closeQuietly(stale);
+        }
+    }
+
+    private void closeAll() {
+        List<PreparedStatement> all = new ArrayList<>();
+        synchronized (this) {
+            idle.values().forEach(all::addAll);
+            idle.clear();
+            idleCount = 0;
+        }
+        all.forEach(StatementCache::closeQuietly);
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // запит вже не використовується, помилка закриття нічого не змінює
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement" -> {
+                    // кешуємо лише prepareStatement(String) - інші варіанти мають додаткові налаштування
+                    if (args.length == 1) {
+                        String sql = (String) args[0];
+                        return proxy(PreparedStatement.class, new StatementHandle(sql, checkout(sql)));
+                    }
+                }
+                case "close" -> closeAll();
+                case "unwrap" -> {
+                    return ((Class<?>) args[0]).isInstance(target) ? target : target.unwrap((Class<?>) args[0]);
+                }
+                default -> {
+                }
+            }
+            return StatementCache.invoke(target, method, args);
+        }
+    }
+
+    /**
+     * Видача кешованого запиту одному користувачу. Після close() handle недійсний,
+     * а фізичний запит повертається в кеш.
+     */
+    private final class StatementHandle implements InvocationHandler {
+        private final String sql;
+        private final PreparedStatement statement;
+        private ResultSet lastResultSet;
+        private boolean closed;
+
+        StatementHandle(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        // незакритий ResultSet у SQLite тримає відкриту транзакцію читання
+                        if (lastResultSet != null && !lastResultSet.isClosed()) {
+                            lastResultSet.close();
+                        }
+                        release(sql, statement);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed;
+                }
+                default -> {
+                }
+            }
+
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            Object result = StatementCache.invoke(statement, method, args);
+            if (result instanceof ResultSet rs) {
+                lastResultSet = rs;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.event;
+
+import org.example.Logger;
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Шина змін у межах процесу: Services публікує типізовані ChangeEvent, контролери і кеші
+ * підписуються і застосовують зміни до своїх списків замість повного перезавантаження.
+ *
+ * publish() викликає звичайних підписників синхронно в потоці, що змінив дані. Пакетний
+ * підписник (subscribeBatched) накопичує події і передає їх одним списком через свій executor
+ * (для JavaFX - Platform::runLater): серія подій до того, як executor дійде до виконання,
+ * дає одне оновлення інтерфейсу.
+ */
+public final class ChangeBus {
+    private static final Counter PUBLISHED = Metrics.counter("events.published");
+    private static final Counter BATCHES = Metrics.counter("events.batches");
+    private static final Counter COALESCED = Metrics.counter("events.coalesced");
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public <E extends ChangeEvent> Subscription subscribe(Class<E> type, Consumer<? super E> handler) {
+        Listener listener = new Listener(List.of(type), event -> handler.accept(type.cast(event)));
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    /**
+     * @param types типи подій; без типів - усі події
+     */
+    @SafeVarargs
+    public final Subscription subscribeBatched(Executor executor, Consumer<List<ChangeEvent>> handler,
+            Class<? extends ChangeEvent>... types) {
+        Batcher batcher = new Batcher(executor, handler);
+        Listener listener = new Listener(List.of(types), batcher::add);
+        listeners.add(listener);
+        return () -> {
+            batcher.closed = true;
+            listeners.remove(listener);
+        };
+    }
+
+    public void publish(ChangeEvent event) {
+        PUBLISHED.increment();
+        for (Listener listener : listeners) {
+            if (listener.accepts(event)) {
+                try {
+                    listener.handler.accept(event);
+                } catch (RuntimeException e) {
+                    // збій одного підписника не скасовує вже записану зміну і не зупиняє решту
+                    Logger.logError("CHANGE_EVENT", event.getUsername(), e.getMessage(), event.toString());
+                }
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return listeners.size();
+    }
+
+    /**
+     * Відписка; повторний close() нічого не робить.
+     */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Listener {
+        private final List<Class<? extends ChangeEvent>> types;
+        private final Consumer<ChangeEvent> handler;
+
+        Listener(List<Class<? extends ChangeEvent>> types, Consumer<ChangeEvent> handler) {
+            this.types = types;
+            this.handler = handler;
+        }
+
+        boolean accepts(ChangeEvent event) {
+            if (types.isEmpty()) {
+                return true;
+            }
+            for (Class<? extends ChangeEvent> type : types) {
+                if (type.isInstance(event)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Batcher {
+        private final Executor executor;
+        private final Consumer<List<ChangeEvent>> handler;
+        private final Queue<ChangeEvent> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Batcher(Executor executor, Consumer<List<ChangeEvent>> handler) {
+            this.executor = executor;
+            this.handler = handler;
+        }
+
+        void add(ChangeEvent event) {
+            pending.add(event);
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::flush);
+            }
+        }
+
+        private void flush() {
+            // скидаємо прапорець до вибирання: подія, що прийде під час обробки, запланує новий прохід
+            scheduled.set(false);
+            List<ChangeEvent> batch = new ArrayList<>();
+            ChangeEvent event;
+            while ((event = pending.poll()) != null) {
+                batch.add(event);
+            }
+            if (batch.isEmpty() || closed) {
+                return;
+            }
+            BATCHES.increment();
+            COALESCED.add(batch.size() - 1);
+            try {
+                handler.accept(batch);
+            } catch (RuntimeException e) {
+                Logger.logError("CHANGE_EVENT", "SYSTEM", e.getMessage(), "Batch of " + batch.size() + " events");
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.event;
+
+import org.example.model.Booking;
+import org.example.model.Lesson;
+import org.example.model.UserRental;
+
+import java.time.LocalDateTime;
+
+/**
+ * Зміна даних, вже записана в БД. Services публікує подію після запису (для транзакцій - після
+ * commit), тож підписник, який за потреби дочитає БД, побачить той самий стан.
+ */
+public abstract class ChangeEvent {
+    private final String username;
+
+    protected ChangeEvent(String username) {
+        this.username = username;
+    }
+
+    /**
+     * Користувач, якого стосується зміна ("system" для автоматичних змін).
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[user=" + username + "]";
+    }
+
+    public static class BookingCreated extends ChangeEvent {
+        private final Booking booking;
+
+        public BookingCreated(Booking booking) {
+            super(booking.getUsername());
+            this.booking = booking;
+        }
+
+        public Booking getBooking() {
+            return booking;
+        }
+    }
+
+    public static class BookingCancelled extends ChangeEvent {
+        private final int bookingId;
+
+        public BookingCancelled(int bookingId, String username) {
+            super(username);
+            this.bookingId = bookingId;
+        }
+
+        public int getBookingId() {
+            return bookingId;
+        }
+    }
+
+    public static class BookingTransferred extends ChangeEvent {
+        private final Booking booking;
+
+        public BookingTransferred(Booking booking) {
+            super(booking.getUsername());
+            this.booking = booking;
+        }
+
+        /**
+         * Бронювання з новими слотом і часом.
+         */
+        public Booking getBooking() {
+            return booking;
+        }
+    }
+
+    public static class RentalStarted extends ChangeEvent {
+        private final UserRental rental;
+
+        public RentalStarted(UserRental rental) {
+            super(rental.getUsername());
+            this.rental = rental;
+        }
+
+        public UserRental getRental() {
+            return rental;
+        }
+    }
+
+    public static class RentalReturned extends ChangeEvent {
+        private final int equipmentId;
+        private final double charge;
+
+        public RentalReturned(int equipmentId, String username, double charge) {
+            super(username);
+            this.equipmentId = equipmentId;
+            this.charge = charge;
+        }
+
+        public int getEquipmentId() {
+            return equipmentId;
+        }
+
+        public double getCharge() {
+            return charge;
+        }
+    }
+
+    /**
+     * Зміна залишку позиції: прокат, повернення, утримання або його зняття.
+     */
+    public static class StockChanged extends ChangeEvent {
+        private final int equipmentId;
+        private final int delta;
+
+        public StockChanged(int equipmentId, int delta, String username) {
+            super(username);
+            this.equipmentId = equipmentId;
+            this.delta = delta;
+        }
+
+        public int getEquipmentId() {
+            return equipmentId;
+        }
+
+        public int getDelta() {
+            return delta;
+        }
+    }
+
+    public static class LessonBooked extends ChangeEvent {
+        private final Lesson lesson;
+
+        public LessonBooked(Lesson lesson) {
+            super(lesson.getUsername());
+            this.lesson = lesson;
+        }
+
+        public Lesson getLesson() {
+            return lesson;
+        }
+    }
+
+    public static class TransactionLogged extends ChangeEvent {
+        private final String type;
+        private final double amount;
+        private final LocalDateTime time;
+
+        public TransactionLogged(String username, String type, double amount, LocalDateTime time) {
+            super(username);
+            this.type = type;
+            this.amount = amount;
+            this.time = time;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,620 @@
+package org.example.io;
+
+import org.example.Logger;
+import org.example.Services;
+import org.example.metrics.Counter;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
+import org.example.security.PasswordHasher;
+import org.example.service.AuthService;
+import org.example.service.EquipmentService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Масовий імпорт користувачів, спорядження та інструкторів з CSV на початку сезону.
+ *
+ * Файл читається потоково, кожен рядок перевіряється тими ж правилами, що й форми застосунку
+ * (org.example.service.AuthService, EquipmentService). Прийняті рядки пишуться пакетами по chunkSize
+ * в одній транзакції разом з позицією в таблиці import_progress, тож після збою повторний запуск
+ * продовжує з останнього зафіксованого пакета і нічого не дублює. Відхилені рядки з причиною
+ * дописуються у <файл>.rejects.csv після фіксації свого пакета.
+ *
+ * Формат (перший рядок - заголовок, порядок колонок довільний):
+ * users: username,password[,role] - пароль відкритим текстом, у БД потрапляє лише хеш
+ * equipment: type,size,total[,available] - кількість додається до наявної позиції того ж типу й розміру
+ * instructors: name
+ *
+ * Запуск:
+ * java -cp ... org.example.io.CsvImporter --kind=equipment --file=season.csv [--db=ski.db] [--chunk=500] [--restart]
+ */
+public final class CsvImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static final Counter IMPORTED = Metrics.counter("import.rows.imported");
+    private static final Counter REJECTED = Metrics.counter("import.rows.rejected");
+    private static final LatencyHistogram CHUNK_TIMER = Metrics.histogram("import.chunk");
+
+    public enum Kind {
+        USERS, EQUIPMENT, INSTRUCTORS
+    }
+
+    public static final class Result {
+        private final long imported;
+        private final long rejected;
+        private final long skipped;
+        private final int chunks;
+
+        Result(long imported, long rejected, long skipped, int chunks) {
+            this.imported = imported;
+            this.rejected = rejected;
+            this.skipped = skipped;
+            this.chunks = chunks;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Рядки, зафіксовані попереднім (перерваним) запуском.
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("imported=%d, rejected=%d, skipped=%d, chunks=%d", imported, rejected, skipped, chunks);
+        }
+    }
+
+    private final Connection conn;
+    private final int chunkSize;
+
+    public CsvImporter(Connection conn, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.conn = conn;
+        this.chunkSize = chunkSize;
+    }
+
+    public static Path rejectsFile(Path csv) {
+        return csv.resolveSibling(csv.getFileName() + ".rejects.csv");
+    }
+
+    /**
+     * @param restart почати файл спочатку, забувши збережену позицію
+     */
+    public Result importFile(Kind kind, Path csv, boolean restart) throws IOException, SQLException {
+        String source = csv.toAbsolutePath().normalize() + "#" + kind;
+        String params = String.format("kind=%s, file=%s, chunk=%d", kind, csv, chunkSize);
+        Logger.logSystemEvent("IMPORT_START", params);
+
+        boolean autoCommit = conn.getAutoCommit();
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(csv, StandardCharsets.UTF_8))) {
+            ensureProgressTable();
+            if (restart) {
+                clearProgress(source);
+            }
+            long done = committedRows(source);
+
+            String[] header = reader.next();
+            if (header == null) {
+                throw new IOException("Empty CSV file: " + csv);
+            }
+            Map<String, Integer> columns = columns(header);
+            Target target = target(kind);
+            for (String required : target.requiredColumns()) {
+                if (!columns.containsKey(required)) {
+                    throw new IOException("Missing column '" + required + "' in " + csv);
+                }
+            }
+
+            // вже зафіксовані рядки лише прочитуємо
+            long skipped = 0;
+            while (skipped < done && reader.next() != null) {
+                skipped++;
+            }
+
+            conn.setAutoCommit(false);
+            target.prepare();
+            try (Writer rejects = openRejects(csv, header, done == 0)) {
+                long imported = 0;
+                long rejected = 0;
+                int chunks = 0;
+                List<String> chunkRejects = new ArrayList<>();
+                int inChunk = 0;
+                String[] record;
+                while ((record = reader.next()) != null) {
+                    Row row = new Row(columns, record);
+                    String reason = target.add(row);
+                    if (reason != null) {
+                        chunkRejects.add(rejectLine(reader.getRecordNumber(), record, reason));
+                    }
+                    inChunk++;
+                    if (inChunk == chunkSize) {
+                        done += inChunk;
+                        imported += commitChunk(target, source, kind, done);
+                        rejected += flushRejects(rejects, chunkRejects);
+                        chunks++;
+                        inChunk = 0;
+                    }
+                }
+                if (inChunk > 0) {
+                    done += inChunk;
+                    imported += commitChunk(target, source, kind, done);
+                    rejected += flushRejects(rejects, chunkRejects);
+                    chunks++;
+                }
+
+                if (kind == Kind.USERS) {
+                    // нові імена мають одразу потрапити в індекс перевірки "ім'я зайняте"
+                    Services.AuthService.loadUsernames();
+                }
+                Result result = new Result(imported, rejected, skipped, chunks);
+                Logger.logSystemEvent("IMPORT_COMPLETE", params + ", " + result);
+                return result;
+            } finally {
+                target.close();
+            }
+        } catch (IOException | SQLException e) {
+            rollbackQuietly();
+            Logger.logError("IMPORT", "SYSTEM", e.getMessage(), params);
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private int commitChunk(Target target, String source, Kind kind, long rowsDone) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            int written = target.flush();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT OR REPLACE INTO import_progress(source, kind, rows_done, updated) VALUES(?,?,?,?)")) {
+                ps.setString(1, source);
+                ps.setString(2, kind.name());
+                ps.setLong(3, rowsDone);
+                ps.setString(4, LocalDateTime.now().toString());
+                ps.executeUpdate();
+            }
+            conn.commit();
+            IMPORTED.add(written);
+            return written;
+        } finally {
+            CHUNK_TIMER.recordSince(start);
+        }
+    }
+
+    private static long flushRejects(Writer rejects, List<String> lines) throws IOException {
+        for (String line : lines) {
+            rejects.write(line);
+            rejects.write('\n');
+        }
+        rejects.flush();
+        int count = lines.size();
+        REJECTED.add(count);
+        lines.clear();
+        return count;
+    }
+
+    private static Writer openRejects(Path csv, String[] header, boolean fresh) throws IOException {
+        Path path = rejectsFile(csv);
+        boolean writeHeader = fresh || !Files.exists(path);
+        BufferedWriter writer = fresh
+                ? Files.newBufferedWriter(path, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+        if (writeHeader) {
+            String[] columns = new String[header.length + 2];
+            columns[0] = "record";
+            System.arraycopy(header, 0, columns, 1, header.length);
+            columns[columns.length - 1] = "reason";
+            writer.write(CsvReader.line(columns));
+            writer.write('\n');
+        }
+        return writer;
+    }
+
+    private static String rejectLine(long recordNumber, String[] record, String reason) {
+        String[] columns = new String[record.length + 2];
+        columns[0] = Long.toString(recordNumber);
+        System.arraycopy(record, 0, columns, 1, record.length);
+        columns[columns.length - 1] = reason;
+        return CsvReader.line(columns);
+    }
+
+    private void ensureProgressTable() throws SQLException {
+        try (Statement s = conn.createStatement()) {
+            s.execute("""
+                        CREATE TABLE IF NOT EXISTS import_progress(
+                          source TEXT PRIMARY KEY,
+                          kind TEXT NOT NULL,
+                          rows_done INTEGER NOT NULL,
+                          updated TEXT NOT NULL
+                        );
+                    """);
+        }
+    }
+
+    private long committedRows(String source) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT rows_done FROM import_progress WHERE source=?")) {
+            ps.setString(1, source);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private void clearProgress(String source) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM import_progress WHERE source=?")) {
+            ps.setString(1, source);
+            ps.executeUpdate();
+        }
+    }
+
+    private void rollbackQuietly() {
+        try {
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+            }
+        } catch (SQLException e) {
+            Logger.logError("IMPORT_ROLLBACK", "SYSTEM", e.getMessage(), "Rollback failed");
+        }
+    }
+
+    private static Map<String, Integer> columns(String[] header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            columns.put(header[i].trim().toLowerCase(Locale.ROOT), i);
+        }
+        return columns;
+    }
+
+    /**
+     * Запис CSV з доступом до полів за назвою колонки.
+     */
+    static final class Row {
+        private final Map<String, Integer> columns;
+        private final String[] values;
+
+        Row(Map<String, Integer> columns, String[] values) {
+            this.columns = columns;
+            this.values = values;
+        }
+
+        String get(String column) {
+            Integer index = columns.get(column);
+            return index == null || index >= values.length ? "" : values[index].trim();
+        }
+    }
+
+    /**
+     * Куди і як пишуться рядки одного виду.
+     */
+    private interface Target extends AutoCloseable {
+        String[] requiredColumns();
+
+        void prepare() throws SQLException;
+
+        /**
+         * Перевіряє рядок і додає його до пакета.
+         *
+         * @return причина відхилення або null, якщо рядок прийнято
+         */
+        String add(Row row) throws SQLException;
+
+        /**
+         * Виконує накопичений пакет у поточній транзакції.
+         *
+         * @return скільки рядків записано
+         */
+        int flush() throws SQLException;
+
+        @Override
+        void close() throws SQLException;
+    }
+
+    private Target target(Kind kind) {
+        return switch (kind) {
+            case USERS -> new UserTarget();
+            case EQUIPMENT -> new EquipmentTarget();
+            case INSTRUCTORS -> new InstructorTarget();
+        };
+    }
+
+    private final class UserTarget implements Target {
+        private final AuthService authService = new AuthService();
+        private final PasswordHasher hasher = PasswordHasher.fromSystemProperties();
+        // імена з цього файлу, які ще не потрапили в індекс Services
+        private final Set<String> seen = new HashSet<>();
+        private final List<String[]> pending = new ArrayList<>();
+        private PreparedStatement insert;
+
+        @Override
+        public String[] requiredColumns() {
+            return new String[] { "username", "password" };
+        }
+
+        @Override
+        public void prepare() throws SQLException {
+            Services.AuthService.loadUsernames();
+            insert = conn.prepareStatement("INSERT INTO users(username,password,role) VALUES(?,?,?)");
+        }
+
+        @Override
+        public String add(Row row) throws SQLException {
+            String username = row.get("username");
+            String password = row.get("password");
+            String role = row.get("role").isEmpty() ? "USER" : row.get("role").toUpperCase(Locale.ROOT);
+
+            AuthService.AuthValidationResult result = authService.validateRegistrationCredentials(username, password);
+            if (!result.isValid()) {
+                return result.getMessage();
+            }
+            if (authService.isPasswordSameAsUsername(username, password)) {
+                return "Password cannot be the same as username";
+            }
+            AuthService.AuthValidationResult roleResult = authService.validateUserRole(role);
+            if (!roleResult.isValid()) {
+                return roleResult.getMessage();
+            }
+
+            String sanitized = authService.sanitizeUsername(username);
+            if (!seen.add(sanitized) || Services.AuthService.isUsernameTaken(sanitized)) {
+                return "Username already exists";
+            }
+            pending.add(new String[] { sanitized, password, role });
+            return null;
+        }
+
+        @Override
+        public int flush() throws SQLException {
+            // хешування - найдорожча частина імпорту; пакет хешується паралельно
+            List<String> hashes = pending.parallelStream()
+                    .map(u -> hasher.hash(u[1]))
+                    .toList();
+            for (int i = 0; i < pending.size(); i++) {
+                insert.setString(1, pending.get(i)[0]);
+                insert.setString(2, hashes.get(i));
+                insert.setString(3, pending.get(i)[2]);
+                insert.addBatch();
+            }
+            int written = pending.size();
+            if (written > 0) {
+                insert.executeBatch();
+            }
+            pending.clear();
+            return written;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (insert != null) {
+                insert.close();
+            }
+        }
+    }
+
+    private final class EquipmentTarget implements Target {
+        private final EquipmentService equipmentService = new EquipmentService();
+        // type + \0 + size -> {total, available}: рядки пакета з однаковою позицією складаються
+        private final Map<String, int[]> pending = new HashMap<>();
+        private int accepted;
+        private PreparedStatement insertMissing;
+        private PreparedStatement addStock;
+
+        @Override
+        public String[] requiredColumns() {
+            return new String[] { "type", "size", "total" };
+        }
+
+        @Override
+        public void prepare() throws SQLException {
+            // позиція з таким самим типом і розміром поповнюється, а не дублюється
+            insertMissing = conn.prepareStatement("""
+                    INSERT INTO equipment(type,size,total,available)
+                    SELECT ?,?,0,0 WHERE NOT EXISTS (SELECT 1 FROM equipment WHERE type=? AND size=?)""");
+            addStock = conn.prepareStatement(
+                    "UPDATE equipment SET total=total+?, available=available+? WHERE type=? AND size=?");
+        }
+
+        @Override
+        public String add(Row row) {
+            String type = row.get("type");
+            String size = row.get("size").toUpperCase(Locale.ROOT);
+            String canonicalType = null;
+            for (String known : equipmentService.getAvailableEquipmentTypes()) {
+                if (known.equalsIgnoreCase(type)) {
+                    // у БД типи зберігаються з великої літери: "Ski", "Snowboard"
+                    canonicalType = Character.toUpperCase(known.charAt(0)) + known.substring(1);
+                }
+            }
+            if (canonicalType == null) {
+                return "Unknown equipment type: " + type;
+            }
+            if (!equipmentService.getAvailableSizes().contains(size)) {
+                return "Unknown size: " + size;
+            }
+
+            int total;
+            int available;
+            try {
+                total = Integer.parseInt(row.get("total"));
+                available = row.get("available").isEmpty() ? total : Integer.parseInt(row.get("available"));
+            } catch (NumberFormatException e) {
+                return "Quantity must be a whole number";
+            }
+            if (total <= 0 || available < 0 || available > total) {
+                return "Quantity must be positive and available cannot exceed total";
+            }
+
+            int[] stock = pending.computeIfAbsent(canonicalType + "\u0000" + size, k -> new int[2]);
+            stock[0] += total;
+            stock[1] += available;
+            accepted++;
+            return null;
+        }
+
+        @Override
+        public int flush() throws SQLException {
+            for (Map.Entry<String, int[]> e : pending.entrySet()) {
+                String[] key = e.getKey().split("\u0000");
+                insertMissing.setString(1, key[0]);
+                insertMissing.setString(2, key[1]);
+                insertMissing.setString(3, key[0]);
+                insertMissing.setString(4, key[1]);
+                insertMissing.addBatch();
+
+                addStock.setInt(1, e.getValue()[0]);
+                addStock.setInt(2, e.getValue()[1]);
+                addStock.setString(3, key[0]);
+                addStock.setString(4, key[1]);
+                addStock.addBatch();
+            }
+            if (!pending.isEmpty()) {
+                insertMissing.executeBatch();
+                addStock.executeBatch();
+            }
+            int written = accepted;
+            pending.clear();
+            accepted = 0;
+            return written;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (insertMissing != null) {
+                insertMissing.close();
+            }
+            if (addStock != null) {
+                addStock.close();
+            }
+        }
+    }
+
+    private final class InstructorTarget implements Target {
+        private static final int MAX_NAME_LENGTH = 50;
+
+        private final Set<String> known = new HashSet<>();
+        private final List<String> pending = new ArrayList<>();
+        private PreparedStatement insert;
+
+        @Override
+        public String[] requiredColumns() {
+            return new String[] { "name" };
+        }
+
+        @Override
+        public void prepare() throws SQLException {
+            for (String name : Services.InstructorService.listNames()) {
+                known.add(name.toLowerCase(Locale.ROOT));
+            }
+            insert = conn.prepareStatement("INSERT INTO instructors(name) VALUES (?)");
+        }
+
+        @Override
+        public String add(Row row) {
+            String name = row.get("name");
+            if (name.isEmpty()) {
+                return "Instructor name cannot be empty";
+            }
+            if (name.length() > MAX_NAME_LENGTH) {
+                return String.format("Instructor name cannot be longer than %d characters", MAX_NAME_LENGTH);
+            }
+            if (!known.add(name.toLowerCase(Locale.ROOT))) {
+                return "Instructor already exists";
+            }
+            pending.add(name);
+            return null;
+        }
+
+        @Override
+        public int flush() throws SQLException {
+            for (String name : pending) {
+                insert.setString(1, name);
+                insert.addBatch();
+            }
+            int written = pending.size();
+            if (written > 0) {
+                insert.executeBatch();
+            }
+            pending.clear();
+            return written;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (insert != null) {
+                insert.close();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String db = Services.DEFAULT_DB_FILE;
+        Kind kind = null;
+        Path file = null;
+        int chunk = DEFAULT_CHUNK_SIZE;
+        boolean restart = false;
+        for (String arg : args) {
+            if (arg.startsWith("--db=")) {
+                db = arg.substring("--db=".length());
+            } else if (arg.startsWith("--kind=")) {
+                kind = Kind.valueOf(arg.substring("--kind=".length()).toUpperCase(Locale.ROOT));
+            } else if (arg.startsWith("--file=")) {
+                file = Paths.get(arg.substring("--file=".length()));
+            } else if (arg.startsWith("--chunk=")) {
+                chunk = Integer.parseInt(arg.substring("--chunk=".length()));
+            } else if (arg.equals("--restart")) {
+                restart = true;
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (kind == null || file == null) {
+            throw new IllegalArgumentException("Usage: --kind=users|equipment|instructors --file=<csv> "
+                    + "[--db=<file>] [--chunk=<rows>] [--restart]");
+        }
+
+        Services.openDB(db);
+        try {
+            Result result = new CsvImporter(Services.getConnection(), chunk).importFile(kind, file, restart);
+            System.out.println(result);
+            if (result.getRejected() > 0) {
+                System.out.println("Rejected rows: " + rejectsFile(file));
+            }
+        } finally {
+            Services.closeDB();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.io;
+
+import org.example.Logger;
+import org.example.Services;
+import org.example.db.LedgerPartitions;
+import org.example.metrics.Counter;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Архівація закритих місяців журналу транзакцій (див. LedgerPartitions).
+ *
+ * Кожен місяць до межі переноситься однією SQL-транзакцією: рядки копіюються в новий файл
+ * (ATTACH), реєструються в trans_partitions і видаляються з trans. Після фіксації файл
+ * стискається VACUUM і позначається лише для читання. Звільнені в основній БД сторінки SQLite
+ * використовує для нових записів, тож сама БД далі не росте.
+ *
+ * Запуск (можна з cron раз на місяць, паралельно з працюючим застосунком - БД відкривається через
+ * Services.openDB, тож утримання і залишки спорядження не змінюються):
+ * java -cp ... org.example.io.LedgerArchiver [--db=skiservice.db] [--keep-months=1]
+ * --keep-months - скільки закритих місяців лишається в trans (поточний не архівується ніколи).
+ */
+public final class LedgerArchiver {
+    public static final int DEFAULT_KEEP_MONTHS = 1;
+
+    private static final Counter ARCHIVED = Metrics.counter("ledger.archive.rows");
+    private static final LatencyHistogram ARCHIVE_TIMER = Metrics.histogram("ledger.archive");
+
+    private static final String ARCHIVE_SCHEMA = "ledger_archive";
+
+    private final LedgerPartitions partitions;
+
+    public LedgerArchiver(LedgerPartitions partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * Архівує всі місяці, старші за cutoff.
+     *
+     * @return створені архіви
+     */
+    public List<LedgerPartitions.Archive> archiveBefore(YearMonth cutoff) throws SQLException, IOException {
+        List<YearMonth> months = new ArrayList<>();
+        try (PreparedStatement ps = partitions.getConnection().prepareStatement(
+                "SELECT DISTINCT substr(time, 1, 7) FROM trans WHERE time < ? ORDER BY 1")) {
+            ps.setString(1, cutoff.atDay(1).atStartOfDay().toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    months.add(YearMonth.parse(rs.getString(1)));
+                }
+            }
+        }
+
+        Files.createDirectories(partitions.getArchiveDir());
+        List<LedgerPartitions.Archive> created = new ArrayList<>();
+        for (YearMonth month : months) {
+            created.add(archive(month));
+        }
+        return created;
+    }
+
+    /**
+     * Переносить транзакції одного місяця з trans в окремий файл.
+     */
+    public LedgerPartitions.Archive archive(YearMonth month) throws SQLException, IOException {
+        long start = System.nanoTime();
+        Connection conn = partitions.getConnection();
+        Path file = nextFile(month);
+        String from = month.atDay(1).atStartOfDay().toString();
+        String to = month.plusMonths(1).atDay(1).atStartOfDay().toString();
+        String params = String.format("month=%s, file=%s", month, file.getFileName());
+
+        try {
+            LedgerPartitions.Archive archive = null;
+            try {
+                // ATTACH неможливий усередині транзакції - приєднуємо до її початку. Запити до приєднаної
+                // схеми йдуть через Statement: кеш PreparedStatement тримав би їх після DETACH
+                try (Statement s = conn.createStatement()) {
+                    s.execute("ATTACH DATABASE '" + file.toString().replace("'", "''") + "' AS " + ARCHIVE_SCHEMA);
+                }
+                try {
+                    archive = moveRows(conn, file, month, from, to);
+                } finally {
+                    try (Statement s = conn.createStatement()) {
+                        s.execute("DETACH DATABASE " + ARCHIVE_SCHEMA);
+                    }
+                }
+            } catch (SQLException e) {
+                Logger.logError("LEDGER_ARCHIVE", "SYSTEM", e.getMessage(), params);
+                if (archive == null) {
+                    // перенесення відкочено - недописаний файл не зареєстровано
+                    Files.deleteIfExists(file);
+                }
+                throw e;
+            }
+
+            compact(file);
+            ARCHIVED.add(archive.getRows());
+            Logger.logSystemEvent("LEDGER_ARCHIVE", params + ", rows=" + archive.getRows());
+            return archive;
+        } finally {
+            ARCHIVE_TIMER.recordSince(start);
+        }
+    }
+
+    private LedgerPartitions.Archive moveRows(Connection conn, Path file, YearMonth month, String from, String to)
+            throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            try (Statement s = conn.createStatement()) {
+                s.execute("CREATE TABLE " + ARCHIVE_SCHEMA + ".trans("
+                        + "id INTEGER PRIMARY KEY, username TEXT NOT NULL, type TEXT NOT NULL, "
+                        + "amount REAL NOT NULL DEFAULT 0.0, time TEXT NOT NULL)");
+                s.execute("CREATE INDEX " + ARCHIVE_SCHEMA + ".idx_trans_time ON trans(time)");
+            }
+
+            long rows;
+            String minTime;
+            String maxTime;
+            try (Statement s = conn.createStatement()) {
+                // межі - ISO-рядки з YearMonth, не введення користувача
+                s.executeUpdate("INSERT INTO " + ARCHIVE_SCHEMA + ".trans"
+                        + " SELECT id, username, type, amount, time FROM main.trans"
+                        + " WHERE time >= '" + from + "' AND time < '" + to + "' ORDER BY id");
+                try (ResultSet rs = s.executeQuery(
+                        "SELECT COUNT(*), MIN(time), MAX(time) FROM " + ARCHIVE_SCHEMA + ".trans")) {
+                    rs.next();
+                    rows = rs.getLong(1);
+                    minTime = rs.getString(2);
+                    maxTime = rs.getString(3);
+                }
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "DELETE FROM main.trans WHERE time >= ? AND time < ?")) {
+                ps.setString(1, from);
+                ps.setString(2, to);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO trans_partitions(file, month, min_time, max_time, rows, archived_at) "
+                            + "VALUES(?,?,?,?,?,?)")) {
+                ps.setString(1, file.getFileName().toString());
+                ps.setString(2, month.toString());
+                ps.setString(3, minTime);
+                ps.setString(4, maxTime);
+                ps.setLong(5, rows);
+                ps.setString(6, LocalDateTime.now().toString());
+                ps.executeUpdate();
+            }
+            conn.commit();
+            return new LedgerPartitions.Archive(file, month, LocalDateTime.parse(minTime),
+                    LocalDateTime.parse(maxTime), rows);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void compact(Path file) throws SQLException {
+        try (Connection archive = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement s = archive.createStatement()) {
+            s.execute("VACUUM");
+        }
+        if (!file.toFile().setReadOnly()) {
+            Logger.logError("LEDGER_ARCHIVE", "SYSTEM", "Cannot mark archive read-only", file.toString());
+        }
+    }
+
+    // місяць, частину якого вже заархівовано, отримує наступний за номером файл
+    private Path nextFile(YearMonth month) {
+        Path file = partitions.getArchiveDir().resolve("trans-" + month + ".db");
+        for (int i = 2; Files.exists(file); i++) {
+            file = partitions.getArchiveDir().resolve("trans-" + month + "-" + i + ".db");
+        }
+        return file;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String db = Services.DEFAULT_DB_FILE;
+        int keepMonths = DEFAULT_KEEP_MONTHS;
+        for (String arg : args) {
+            if (arg.startsWith("--db=")) {
+                db = arg.substring("--db=".length());
+            } else if (arg.startsWith("--keep-months=")) {
+                keepMonths = Integer.parseInt(arg.substring("--keep-months=".length()));
+            } else {
+                throw new IllegalArgumentException("Usage: [--db=<file>] [--keep-months=<n>]");
+            }
+        }
+        if (keepMonths < 0) {
+            throw new IllegalArgumentException("--keep-months must not be negative");
+        }
+
+        Services.openDB(db);
+        try {
+            List<LedgerPartitions.Archive> archives = new LedgerArchiver(Services.ledger())
+                    .archiveBefore(YearMonth.now().minusMonths(keepMonths));
+            for (LedgerPartitions.Archive archive : archives) {
+                System.out.println("Archived " + archive);
+            }
+            System.out.println("Archived " + archives.size() + " partitions to " + Services.ledger().getArchiveDir());
+        } finally {
+            Services.closeDB();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.example.io;
+
+import org.example.Logger;
+import org.example.Services;
+import org.example.db.LedgerPartitions;
+import org.example.metrics.Counter;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
+import org.example.server.Json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потокове вивантаження журналу транзакцій (таблиця trans) у CSV або JSON Lines для бухгалтерії.
+ *
+ * На відміну від TransactionService.listAll(), рядки не збираються в ObservableList: курсор JDBC
+ * (лише вперед, лише читання, fetchSize) читається по одному рядку, і кожен одразу пишеться
+ * у буферизований канал файлу, за потреби через gzip. Пам'ять не залежить від розміру журналу.
+ * Заархівовані місяці (LedgerPartitions) читаються з їхніх файлів перед trans, лише ті, що
+ * перетинають період фільтра.
+ *
+ * Запуск:
+ * java -cp ... org.example.io.LedgerExporter --out=ledger-2024.csv.gz [--format=csv|jsonl] [--gzip]
+ *     [--from=2024-01-01] [--to=2024-03-31] [--types=booking,rent_eq] [--db=ski.db] [--fetch=1000]
+ * Формат і gzip за замовчуванням визначаються з розширення файлу (.csv, .jsonl, .gz).
+ */
+public final class LedgerExporter {
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Counter EXPORTED = Metrics.counter("export.ledger.rows");
+    private static final LatencyHistogram EXPORT_TIMER = Metrics.histogram("export.ledger");
+
+    public enum Format {
+        CSV, JSONL
+    }
+
+    /**
+     * Які транзакції вивантажувати; null - без обмеження.
+     */
+    public static final class Filter {
+        public static final Filter ALL = new Filter(null, null, null);
+
+        private final LocalDate from;
+        private final LocalDate to;
+        private final List<String> types;
+
+        /**
+         * @param from  перший день (включно)
+         * @param to    останній день (включно)
+         * @param types типи транзакцій (booking, rent_eq, ...)
+         */
+        public Filter(LocalDate from, LocalDate to, Collection<String> types) {
+            this.from = from;
+            this.to = to;
+            this.types = types == null || types.isEmpty() ? null : List.copyOf(types);
+        }
+    }
+
+    private final Connection conn;
+    private final LedgerPartitions partitions;
+    private final int fetchSize;
+
+    /**
+     * Лише таблиця trans, без архівів.
+     */
+    public LedgerExporter(Connection conn, int fetchSize) {
+        this.conn = conn;
+        this.partitions = null;
+        this.fetchSize = fetchSize;
+    }
+
+    public LedgerExporter(LedgerPartitions partitions, int fetchSize) {
+        this.conn = partitions.getConnection();
+        this.partitions = partitions;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return кількість вивантажених транзакцій
+     */
+    public long export(Filter filter, Format format, boolean gzip, Path file) throws IOException, SQLException {
+        // кожен шар - окремий ресурс: якщо GZIPOutputStream впаде в конструкторі, файл однаково закриється
+        // (без gzip out - той самий потік, повторне закриття нічого не робить)
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream raw = Channels.newOutputStream(channel);
+             OutputStream out = gzip ? new GZIPOutputStream(raw, BUFFER_SIZE) : raw;
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            return export(filter, format, writer);
+        }
+    }
+
+    public long export(Filter filter, Format format, Writer out) throws IOException, SQLException {
+        long start = System.nanoTime();
+        String params = String.format("format=%s, from=%s, to=%s, types=%s", format, filter.from, filter.to,
+                filter.types);
+
+        StringBuilder sql = new StringBuilder("SELECT id, username, type, amount, time FROM trans WHERE 1=1");
+        List<String> args = new ArrayList<>();
+        // час зберігається як ISO-рядок, тож межі дат порівнюються як рядки
+        if (filter.from != null) {
+            sql.append(" AND time >= ?");
+            args.add(filter.from.atStartOfDay().toString());
+        }
+        if (filter.to != null) {
+            sql.append(" AND time < ?");
+            args.add(filter.to.plusDays(1).atStartOfDay().toString());
+        }
+        if (filter.types != null) {
+            sql.append(" AND type IN (").append(String.join(",", filter.types.stream().map(t -> "?").toList()))
+                    .append(')');
+            args.addAll(filter.types);
+        }
+        // порядок id збігається з порядком rowid - без сортування
+        sql.append(" ORDER BY id");
+
+        long rows = 0;
+        try {
+            if (format == Format.CSV) {
+                out.write("id,username,type,amount,time\n");
+            }
+            if (partitions != null) {
+                List<LedgerPartitions.Archive> archives = partitions.overlapping(
+                        filter.from == null ? null : filter.from.atStartOfDay(),
+                        filter.to == null ? null : filter.to.plusDays(1).atStartOfDay());
+                for (LedgerPartitions.Archive archive : archives) {
+                    try (Connection archiveConn = partitions.open(archive)) {
+                        rows += export(archiveConn, sql.toString(), args, format, out);
+                    }
+                }
+            }
+            rows += export(conn, sql.toString(), args, format, out);
+            out.flush();
+            EXPORTED.add(rows);
+            Logger.logSystemEvent("LEDGER_EXPORT", params + ", rows=" + rows);
+            return rows;
+        } catch (SQLException | IOException e) {
+            Logger.logError("LEDGER_EXPORT", "SYSTEM", e.getMessage(), params);
+            throw e;
+        } finally {
+            EXPORT_TIMER.recordSince(start);
+        }
+    }
+
+    private long export(Connection source, String sql, List<String> args, Format format, Writer out)
+            throws IOException, SQLException {
+        long rows = 0;
+        try (PreparedStatement ps = source.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setString(i + 1, args.get(i));
+            }
+
+            StringBuilder line = new StringBuilder(128);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    line.setLength(0);
+                    if (format == Format.CSV) {
+                        csv(line, rs);
+                    } else {
+                        jsonLine(line, rs);
+                    }
+                    line.append('\n');
+                    out.append(line);
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static void csv(StringBuilder line, ResultSet rs) throws SQLException {
+        line.append(rs.getLong(1)).append(',')
+                .append(CsvReader.quote(rs.getString(2))).append(',')
+                .append(CsvReader.quote(rs.getString(3))).append(',')
+                .append(rs.getDouble(4)).append(',')
+                .append(CsvReader.quote(rs.getString(5)));
+    }
+
+    private static void jsonLine(StringBuilder line, ResultSet rs) throws SQLException {
+        line.append("{\"id\":").append(rs.getLong(1)).append(",\"username\":");
+        Json.quote(line, rs.getString(2));
+        line.append(",\"type\":");
+        Json.quote(line, rs.getString(3));
+        line.append(",\"amount\":").append(rs.getDouble(4)).append(",\"time\":");
+        Json.quote(line, rs.getString(5));
+        line.append('}');
+    }
+
+    public static void main(String[] args) throws Exception {
+        String db = Services.DEFAULT_DB_FILE;
+        Path out = null;
+        Format format = null;
+        Boolean gzip = null;
+        LocalDate from = null;
+        LocalDate to = null;
+        List<String> types = null;
+        int fetch = DEFAULT_FETCH_SIZE;
+        for (String arg : args) {
+            if (arg.startsWith("--db=")) {
+                db = arg.substring("--db=".length());
+            } else if (arg.startsWith("--out=")) {
+                out = Paths.get(arg.substring("--out=".length()));
+            } else if (arg.startsWith("--format=")) {
+                format = Format.valueOf(arg.substring("--format=".length()).toUpperCase(Locale.ROOT));
+            } else if (arg.equals("--gzip")) {
+                gzip = true;
+            } else if (arg.startsWith("--from=")) {
+                from = LocalDate.parse(arg.substring("--from=".length()));
+            } else if (arg.startsWith("--to=")) {
+                to = LocalDate.parse(arg.substring("--to=".length()));
+            } else if (arg.startsWith("--types=")) {
+                types = Arrays.asList(arg.substring("--types=".length()).split(","));
+            } else if (arg.startsWith("--fetch=")) {
+                fetch = Integer.parseInt(arg.substring("--fetch=".length()));
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Usage: --out=<file> [--format=csv|jsonl] [--gzip] [--from=<date>] "
+                    + "[--to=<date>] [--types=a,b] [--db=<file>] [--fetch=<rows>]");
+        }
+        String name = out.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (gzip == null) {
+            gzip = name.endsWith(".gz");
+        }
+        if (format == null) {
+            format = name.endsWith(".jsonl") || name.endsWith(".jsonl.gz") ? Format.JSONL : Format.CSV;
+        }
+
+        Services.openDB(db);
+        try {
+            long rows = new LedgerExporter(Services.ledger(), fetch)
+                    .export(new Filter(from, to, types), format, gzip, out);
+            System.out.println("Exported " + rows + " transactions to " + out);
+        } finally {
+            Services.closeDB();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Оновлення екрана контролером. Запити DatabaseCall у тому ж потоці всередині цього
+ * інтервалу - це запити, які спричинило оновлення.
+ */
+@Name("org.example.ControllerRefresh")
+@Label("Controller Refresh")
+@Category({ "Ski Service", "UI" })
+@StackTrace(false)
+public class ControllerRefreshEvent extends Event {
+    @Label("Controller")
+    public String controller;
+
+    @Label("Action")
+    public String action;
+
+    public static ControllerRefreshEvent start(String controller, String action) {
+        ControllerRefreshEvent event = new ControllerRefreshEvent();
+        event.controller = controller;
+        event.action = action;
+        event.begin();
+        return event;
+    }
+}
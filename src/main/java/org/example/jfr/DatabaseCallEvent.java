@@ -0,0 +1,33 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Один JDBC-запит із Services: від execute* до закриття ResultSet (тобто разом із читанням рядків).
+ */
+@Name("org.example.DatabaseCall")
+@Label("Database Call")
+@Category({ "Ski Service", "Database" })
+@Description("SQL statement issued by Services")
+public class DatabaseCallEvent extends Event {
+    @Label("Statement")
+    @Description("Short statement name, e.g. SELECT bookings")
+    public String statement;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Rows")
+    @Description("Rows read for queries, rows changed for updates")
+    public int rows;
+
+    @Label("Batch Size")
+    public int batchSize;
+
+    @Label("Failed")
+    public boolean failed;
+}
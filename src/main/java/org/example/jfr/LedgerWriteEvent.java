@@ -0,0 +1,26 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Запис фінансової операції через TransactionService.log.
+ */
+@Name("org.example.LedgerWrite")
+@Label("Ledger Write")
+@Category({ "Ski Service", "Finance" })
+public class LedgerWriteEvent extends Event {
+    @Label("User")
+    public String username;
+
+    @Label("Type")
+    public String type;
+
+    @Label("Amount")
+    public double amount;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,27 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Запис рядка у файл логу через Logger.
+ */
+@Name("org.example.LogWrite")
+@Label("Log Write")
+@Category({ "Ski Service", "Logging" })
+@StackTrace(false)
+public class LogWriteEvent extends Event {
+    @Label("Kind")
+    public String kind;
+
+    @Label("Action")
+    public String action;
+
+    @Label("Size")
+    @DataAmount
+    public int bytes;
+}
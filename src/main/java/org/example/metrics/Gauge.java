@@ -0,0 +1,9 @@
+package org.example.metrics;
+
+/**
+ * Поточне значення, яке зчитується лише під час знімка (розмір пулу, пам'ять тощо).
+ */
+@FunctionalInterface
+public interface Gauge {
+    double value();
+}
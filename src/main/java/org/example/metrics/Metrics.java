@@ -0,0 +1,90 @@
+package org.example.metrics;
+
+import org.example.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Глобальний реєстр метрик застосунку та періодичний запис знімка у файл.
+ */
+public final class Metrics {
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    private static ScheduledExecutorService dumper;
+    private static Path dumpFile;
+
+    private Metrics() {
+    }
+
+    public static MetricsRegistry registry() {
+        return REGISTRY;
+    }
+
+    public static Counter counter(String name) {
+        return REGISTRY.counter(name);
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return REGISTRY.histogram(name);
+    }
+
+    public static void gauge(String name, Gauge gauge) {
+        REGISTRY.gauge(name, gauge);
+    }
+
+    public static MetricsSnapshot snapshot() {
+        return REGISTRY.snapshot();
+    }
+
+    /**
+     * Кожні interval перезаписує file актуальним знімком (через тимчасовий файл,
+     * щоб читач ніколи не бачив напівзаписаний вміст).
+     */
+    public static synchronized void startDump(Path file, Duration interval) {
+        stopDump();
+        dumpFile = file;
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        long millis = interval.toMillis();
+        dumper.scheduleAtFixedRate(Metrics::dumpNow, millis, millis, TimeUnit.MILLISECONDS);
+        Logger.logSystemEvent("METRICS_DUMP", "Writing metrics to " + file + " every " + interval.toSeconds() + "s");
+    }
+
+    /**
+     * Зупиняє періодичний запис і записує останній знімок.
+     */
+    public static synchronized void stopDump() {
+        if (dumper == null) {
+            return;
+        }
+        dumper.shutdownNow();
+        dumper = null;
+        dumpNow();
+    }
+
+    private static void dumpNow() {
+        Path file = dumpFile;
+        if (file == null) {
+            return;
+        }
+        try {
+            Path absolute = file.toAbsolutePath();
+            Path tmp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+            Files.writeString(tmp, REGISTRY.snapshot().format(), StandardCharsets.UTF_8);
+            Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Logger.logError("METRICS_DUMP", "SYSTEM", e.getMessage(), "file=" + file);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.metrics;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реєстр іменованих метрик. Метрики створюються один раз (зазвичай у static final полях),
+ * після чого запис іде напряму в об'єкт метрики без пошуку в мапі.
+ */
+public class MetricsRegistry {
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    public void gauge(String name, Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> counterValues = new HashMap<>();
+        counters.forEach((name, c) -> counterValues.put(name, c.get()));
+
+        Map<String, Double> gaugeValues = new HashMap<>();
+        gauges.forEach((name, g) -> {
+            try {
+                gaugeValues.put(name, g.value());
+            } catch (RuntimeException e) {
+                gaugeValues.put(name, Double.NaN);
+            }
+        });
+
+        Map<String, LatencyHistogram.Snapshot> histogramValues = new HashMap<>();
+        histograms.forEach((name, h) -> histogramValues.put(name, h.snapshot()));
+
+        return new MetricsSnapshot(LocalDateTime.now(), counterValues, gaugeValues, histogramValues);
+    }
+}
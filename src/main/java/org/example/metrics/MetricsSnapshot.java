@@ -0,0 +1,61 @@
+package org.example.metrics;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Незмінний знімок усіх метрик реєстру на момент виклику MetricsRegistry.snapshot().
+ */
+public final class MetricsSnapshot {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final LocalDateTime takenAt;
+    private final Map<String, Long> counters;
+    private final Map<String, Double> gauges;
+    private final Map<String, LatencyHistogram.Snapshot> histograms;
+
+    public MetricsSnapshot(LocalDateTime takenAt, Map<String, Long> counters, Map<String, Double> gauges,
+            Map<String, LatencyHistogram.Snapshot> histograms) {
+        this.takenAt = takenAt;
+        this.counters = Collections.unmodifiableMap(new TreeMap<>(counters));
+        this.gauges = Collections.unmodifiableMap(new TreeMap<>(gauges));
+        this.histograms = Collections.unmodifiableMap(new TreeMap<>(histograms));
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public Map<String, Double> getGauges() {
+        return gauges;
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * Текстовий формат для файлу метрик: один рядок на метрику, затримки в мікросекундах.
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# metrics ").append(takenAt.format(TIMESTAMP_FORMAT)).append(System.lineSeparator());
+        counters.forEach((name, value) -> sb.append(String.format(Locale.ROOT, "counter %s %d%n", name, value)));
+        gauges.forEach((name, value) -> sb.append(String.format(Locale.ROOT, "gauge %s %.2f%n", name, value)));
+        histograms.forEach((name, h) -> sb.append(String.format(Locale.ROOT,
+                "timer %s count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+                name, h.getCount(), h.getMeanNanos() / 1e3,
+                h.getPercentileNanos(50) / 1e3, h.getPercentileNanos(90) / 1e3,
+                h.getPercentileNanos(99) / 1e3, h.getPercentileNanos(99.9) / 1e3,
+                h.getMaxNanos() / 1e3)));
+        return sb.toString();
+    }
+}
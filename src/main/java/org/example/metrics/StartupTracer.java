@@ -0,0 +1,112 @@
+package org.example.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Профіль запуску: тривалість кожної фази від App.start до показу вікна.
+ *
+ * Фази можуть іти паралельно в різних потоках (БД у фоні, FXML у потоці JavaFX), тому кожна
+ * запам'ятовує зсув початку і потік - у звіті видно, що перекривалось. Тривалість фази також
+ * потрапляє в гістограму startup.<фаза>, загальний час - у startup.total.
+ */
+public final class StartupTracer {
+    private final LongSupplier clockNanos;
+    private final long startNanos;
+    // час роботи JVM до App.start: запуск, завантаження класів, ініціалізація JavaFX
+    private final long jvmMillis;
+    private final List<Phase> phases = new ArrayList<>();
+    private long totalNanos = -1;
+
+    public StartupTracer(long jvmMillis) {
+        this(jvmMillis, System::nanoTime);
+    }
+
+    public StartupTracer(long jvmMillis, LongSupplier clockNanos) {
+        this.jvmMillis = jvmMillis;
+        this.clockNanos = clockNanos;
+        this.startNanos = clockNanos.getAsLong();
+    }
+
+    /**
+     * Відкриває фазу; закривається через try-with-resources.
+     */
+    public Phase phase(String name) {
+        Phase phase = new Phase(name, Thread.currentThread().getName(), clockNanos.getAsLong() - startNanos);
+        synchronized (phases) {
+            phases.add(phase);
+        }
+        return phase;
+    }
+
+    /**
+     * Фіксує загальний час запуску (від App.start до цього виклику).
+     */
+    public long finish() {
+        totalNanos = clockNanos.getAsLong() - startNanos;
+        Metrics.histogram("startup.total").record(totalNanos);
+        return totalNanos;
+    }
+
+    /**
+     * Рядок для журналу: загальний час, час JVM і фази за порядком початку.
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("total=%dms, jvm=%dms", totalNanos < 0 ? -1 : totalNanos / 1_000_000, jvmMillis));
+        List<Phase> sorted;
+        synchronized (phases) {
+            sorted = new ArrayList<>(phases);
+        }
+        sorted.sort(Comparator.comparingLong(p -> p.offsetNanos));
+        for (Phase phase : sorted) {
+            sb.append(String.format("; %s=%dms (+%dms, %s)", phase.name,
+                    phase.durationNanos < 0 ? -1 : phase.durationNanos / 1_000_000,
+                    phase.offsetNanos / 1_000_000, phase.thread));
+        }
+        return sb.toString();
+    }
+
+    public List<Phase> getPhases() {
+        synchronized (phases) {
+            return new ArrayList<>(phases);
+        }
+    }
+
+    public final class Phase implements AutoCloseable {
+        private final String name;
+        private final String thread;
+        private final long offsetNanos;
+        // -1, поки фаза не завершена
+        private volatile long durationNanos = -1;
+
+        private Phase(String name, String thread, long offsetNanos) {
+            this.name = name;
+            this.thread = thread;
+            this.offsetNanos = offsetNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getOffsetNanos() {
+            return offsetNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        @Override
+        public void close() {
+            if (durationNanos >= 0) {
+                return;
+            }
+            durationNanos = clockNanos.getAsLong() - startNanos - offsetNanos;
+            Metrics.histogram("startup." + name).record(durationNanos);
+        }
+    }
+}
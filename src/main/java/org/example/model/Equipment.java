@@ -31,4 +31,13 @@ public class Equipment {
     public int getAvailable() {
         return available.get();
     }
+
+    // залишок змінюється подіями StockChanged, таблиця бачить зміну через властивість
+    public void setAvailable(int available) {
+        this.available.set(available);
+    }
+
+    public IntegerProperty availableProperty() {
+        return available;
+    }
 }
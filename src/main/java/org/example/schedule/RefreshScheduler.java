@@ -0,0 +1,133 @@
+package org.example.schedule;
+
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * Відкладене оновлення вигляду із злиттям запитів.
+ *
+ * Перший запит для вигляду планує оновлення через debounce; запити, що надійшли до його виконання,
+ * лише замінюють дію на новішу - застаріла не виконується, а запит рахується як злитий.
+ * Між двома оновленнями одного вигляду проходить щонайменше minInterval, тож серія дій на касі
+ * дає не більше одного перезавантаження за інтервал.
+ *
+ * Дія виконується через executor (для JavaFX - Platform::runLater), таймери - на TimerWheel.
+ */
+public final class RefreshScheduler implements AutoCloseable {
+    private static final Counter REQUESTED = Metrics.counter("refresh.requested");
+    private static final Counter EXECUTED = Metrics.counter("refresh.executed");
+    private static final Counter COALESCED = Metrics.counter("refresh.coalesced");
+
+    private static final long DEFAULT_DEBOUNCE_MS = 150;
+    private static final long DEFAULT_MIN_INTERVAL_MS = 1000;
+
+    private final Duration debounce;
+    private final long minIntervalNanos;
+    private final Executor executor;
+    private final TimerWheel wheel;
+    private final LongSupplier clockNanos;
+    private final Map<String, View> views = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Параметри з -Dskiservice.refreshDebounceMs (150) і -Dskiservice.refreshMinIntervalMs (1000).
+     */
+    public static RefreshScheduler fromSystemProperties(Executor executor) {
+        return new RefreshScheduler(
+                Duration.ofMillis(Long.getLong("skiservice.refreshDebounceMs", DEFAULT_DEBOUNCE_MS)),
+                Duration.ofMillis(Long.getLong("skiservice.refreshMinIntervalMs", DEFAULT_MIN_INTERVAL_MS)),
+                executor);
+    }
+
+    /**
+     * Усі планувальники ділять одне колесо (SharedWheel) - без окремого потоку на кожен.
+     */
+    public RefreshScheduler(Duration debounce, Duration minInterval, Executor executor) {
+        this(debounce, minInterval, executor, SharedWheel.WHEEL, System::nanoTime);
+    }
+
+    /**
+     * Для тестів: колесо з власним годинником, який крутить сам тест. Колесо закриває викликач.
+     */
+    public RefreshScheduler(Duration debounce, Duration minInterval, Executor executor, TimerWheel wheel,
+            LongSupplier clockNanos) {
+        this.debounce = debounce;
+        this.minIntervalNanos = minInterval.toNanos();
+        this.executor = executor;
+        this.wheel = wheel;
+        this.clockNanos = clockNanos;
+    }
+
+    /**
+     * Запитує оновлення вигляду; якщо оновлення вже заплановане, воно виконає цю (новішу) дію.
+     */
+    public void request(String view, Runnable refresh) {
+        REQUESTED.increment();
+        View state = views.computeIfAbsent(view, k -> new View());
+        synchronized (state) {
+            if (state.pending != null) {
+                state.pending = refresh;
+                COALESCED.increment();
+                return;
+            }
+            state.pending = refresh;
+            long sinceLast = clockNanos.getAsLong() - state.lastRunNanos;
+            long delay = Math.max(debounce.toNanos(),
+                    state.refreshed ? minIntervalNanos - sinceLast : 0);
+            wheel.schedule(() -> executor.execute(() -> run(state)), Duration.ofNanos(delay));
+        }
+    }
+
+    /**
+     * @return кількість виглядів, що чекають на оновлення
+     */
+    public int pending() {
+        int count = 0;
+        for (View state : views.values()) {
+            synchronized (state) {
+                if (state.pending != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void run(View state) {
+        Runnable refresh;
+        synchronized (state) {
+            refresh = state.pending;
+            state.pending = null;
+            state.lastRunNanos = clockNanos.getAsLong();
+            state.refreshed = true;
+        }
+        if (refresh != null && !closed) {
+            EXECUTED.increment();
+            refresh.run();
+        }
+    }
+
+    @Override
+    public void close() {
+        // вже заплановані таймери спрацюють, але дій не виконають; спільне колесо лишається іншим
+        closed = true;
+        views.clear();
+    }
+
+    // створюється при першому планувальнику; потік-демон живе до кінця процесу
+    private static final class SharedWheel {
+        private static final TimerWheel WHEEL = new TimerWheel(Duration.ofMillis(25), 128).start("refresh-scheduler");
+    }
+
+    private static final class View {
+        private Runnable pending;
+        private boolean refreshed;
+        private long lastRunNanos;
+    }
+}
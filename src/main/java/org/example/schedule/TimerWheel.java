@@ -0,0 +1,264 @@
+package org.example.schedule;
+
+import org.example.Logger;
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Хешоване колесо таймерів для великої кількості коротких тайм-аутів (утримання спорядження тощо).
+ *
+ * Колесо - масив кошиків по одному на тік; тайм-аут кладеться в кошик (deadline / tick) % size
+ * з кількістю повних обертів до спрацювання. schedule() і cancel() - O(1) і лише додають запис
+ * у неблокуючу чергу; кошики змінює тільки потік колеса, тож синхронізація не потрібна.
+ * На кожному тіку обходиться один кошик, незалежно від загальної кількості таймерів.
+ *
+ * Точність - один тік; завдання виконуються в потоці колеса і мають бути короткими.
+ */
+public final class TimerWheel implements AutoCloseable {
+    private static final Counter SCHEDULED = Metrics.counter("timerWheel.scheduled");
+    private static final Counter FIRED = Metrics.counter("timerWheel.fired");
+    private static final Counter CANCELLED = Metrics.counter("timerWheel.cancelled");
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED_STATE = 1;
+    private static final int FIRED_STATE = 2;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final LongSupplier clockNanos;
+    private final long startNanos;
+    // нові і скасовані тайм-аути, які потік колеса ще не переніс у кошики
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> removed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger active = new AtomicInteger();
+
+    // лише для потоку колеса
+    private long tick;
+
+    private volatile Thread worker;
+
+    public TimerWheel(Duration tick, int wheelSize) {
+        this(tick, wheelSize, System::nanoTime);
+    }
+
+    /**
+     * @param wheelSize кількість кошиків, округлюється до степеня двійки
+     */
+    public TimerWheel(Duration tick, int wheelSize, LongSupplier clockNanos) {
+        if (tick.isNegative() || tick.isZero() || wheelSize < 1) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        this.tickNanos = tick.toNanos();
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.clockNanos = clockNanos;
+        this.startNanos = clockNanos.getAsLong();
+    }
+
+    /**
+     * Запускає потік-демон, який крутить колесо за годинником.
+     */
+    public synchronized TimerWheel start(String threadName) {
+        if (worker != null) {
+            return this;
+        }
+        Thread t = new Thread(this::run, threadName);
+        t.setDaemon(true);
+        worker = t;
+        t.start();
+        return this;
+    }
+
+    public Timeout schedule(Runnable task, Duration delay) {
+        long deadline = clockNanos.getAsLong() - startNanos + Math.max(0, delay.toNanos());
+        Timeout timeout = new Timeout(task, deadline);
+        active.incrementAndGet();
+        added.add(timeout);
+        SCHEDULED.increment();
+        return timeout;
+    }
+
+    /**
+     * @return кількість запланованих, ще не виконаних і не скасованих тайм-аутів
+     */
+    public int size() {
+        return active.get();
+    }
+
+    /**
+     * Виконує всі тіки до поточного часу годинника. Викликається лише потоком колеса
+     * (або тестом з власним годинником замість start()).
+     */
+    public void advance() {
+        long elapsed = clockNanos.getAsLong() - startNanos;
+        while ((tick + 1) * tickNanos <= elapsed) {
+            transferRemoved();
+            transferAdded();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void run() {
+        while (worker == Thread.currentThread()) {
+            long sleep = (tick + 1) * tickNanos - (clockNanos.getAsLong() - startNanos);
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            advance();
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() != PENDING) {
+                continue;
+            }
+            long ticks = timeout.deadline / tickNanos;
+            // прострочений ще до переносу - у поточний кошик
+            long target = Math.max(ticks, tick);
+            timeout.rounds = (target - tick) / wheel.length;
+            wheel[(int) (target & mask)].add(timeout);
+        }
+    }
+
+    private void transferRemoved() {
+        Timeout timeout;
+        while ((timeout = removed.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds <= 0) {
+                bucket.remove(timeout);
+                timeout.fire();
+            } else {
+                timeout.rounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    @Override
+    public void close() {
+        Thread t;
+        synchronized (this) {
+            t = worker;
+            worker = null;
+        }
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long rounds;
+        private Timeout prev;
+        private Timeout next;
+        private Bucket bucket;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return true, якщо тайм-аут ще не спрацював і тепер не спрацює
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED_STATE)) {
+                return false;
+            }
+            active.decrementAndGet();
+            removed.add(this);
+            CANCELLED.increment();
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED_STATE;
+        }
+
+        public boolean isFired() {
+            return state.get() == FIRED_STATE;
+        }
+
+        private void fire() {
+            if (!state.compareAndSet(PENDING, FIRED_STATE)) {
+                return;
+            }
+            active.decrementAndGet();
+            FIRED.increment();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Logger.logError("TIMER_TASK", "SYSTEM", e.getMessage(), "Timer task failed");
+            }
+        }
+    }
+
+    // двобічний список тайм-аутів одного кошика
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
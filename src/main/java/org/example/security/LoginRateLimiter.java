@@ -0,0 +1,207 @@
+package org.example.security;
+
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Обмеження спроб входу: token bucket на кожне ім'я користувача і на кожне джерело (IP, каса).
+ *
+ * Спроба забирає по токену з обох кошиків ще до запиту в БД; успішний вхід повертає токени,
+ * тож витрачаються лише невдалі спроби. Порожній кошик імені - тимчасове блокування облікового
+ * запису (lockout), порожній кошик джерела - перебір багатьох імен з однієї адреси.
+ *
+ * Кошик - один AtomicLong з "теоретичним часом наступного токена" (GCRA): стан оновлюється CAS
+ * без блокувань і без алокацій. Кошик з часом у минулому повністю наповнений і видаляється
+ * при періодичному прибиранні.
+ */
+public final class LoginRateLimiter {
+    private static final Counter ALLOWED = Metrics.counter("security.loginLimiter.allowed");
+    private static final Counter REJECTED_USER = Metrics.counter("security.loginLimiter.rejected.user");
+    private static final Counter REJECTED_SOURCE = Metrics.counter("security.loginLimiter.rejected.source");
+    private static final Counter EVICTED = Metrics.counter("security.loginLimiter.evicted");
+    private static final long SWEEP_INTERVAL_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    public enum Decision {
+        ALLOWED, USER_LIMITED, SOURCE_LIMITED
+    }
+
+    /**
+     * Місткість кошика (скільки невдалих спроб поспіль) і швидкість відновлення.
+     */
+    public static final class Limit {
+        private final int burst;
+        private final long intervalMillis;
+
+        public Limit(int burst, int perMinute) {
+            if (burst < 1 || perMinute < 1) {
+                throw new IllegalArgumentException("burst and perMinute must be positive");
+            }
+            this.burst = burst;
+            this.intervalMillis = Math.max(1, Duration.ofMinutes(1).toMillis() / perMinute);
+        }
+
+        long toleranceMillis() {
+            return intervalMillis * burst;
+        }
+    }
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final Limit userLimit;
+    private final Limit sourceLimit;
+    private final LongSupplier clockMillis;
+    private final AtomicLong nextSweep;
+
+    public LoginRateLimiter(Limit userLimit, Limit sourceLimit) {
+        this(userLimit, sourceLimit, System::currentTimeMillis);
+    }
+
+    public LoginRateLimiter(Limit userLimit, Limit sourceLimit, LongSupplier clockMillis) {
+        this.userLimit = userLimit;
+        this.sourceLimit = sourceLimit;
+        this.clockMillis = clockMillis;
+        this.nextSweep = new AtomicLong(clockMillis.getAsLong() + SWEEP_INTERVAL_MILLIS);
+    }
+
+    /**
+     * -Dskiservice.loginLimit.userBurst (5), .userPerMinute (5), .sourceBurst (30), .sourcePerMinute (60).
+     */
+    public static LoginRateLimiter fromSystemProperties() {
+        return new LoginRateLimiter(
+                new Limit(Integer.getInteger("skiservice.loginLimit.userBurst", 5),
+                        Integer.getInteger("skiservice.loginLimit.userPerMinute", 5)),
+                new Limit(Integer.getInteger("skiservice.loginLimit.sourceBurst", 30),
+                        Integer.getInteger("skiservice.loginLimit.sourcePerMinute", 60)));
+    }
+
+    public Decision tryAcquire(String username, String source) {
+        long now = clockMillis.getAsLong();
+        sweepIfDue(now);
+
+        AtomicLong user = bucket(userKey(username));
+        if (!take(user, userLimit, now)) {
+            REJECTED_USER.increment();
+            return Decision.USER_LIMITED;
+        }
+        AtomicLong src = bucket(sourceKey(source));
+        if (!take(src, sourceLimit, now)) {
+            // спроба не відбулася - токен імені повертаємо
+            giveBack(user, userLimit, now);
+            REJECTED_SOURCE.increment();
+            return Decision.SOURCE_LIMITED;
+        }
+        ALLOWED.increment();
+        return Decision.ALLOWED;
+    }
+
+    /**
+     * Успішний вхід не рахується як спроба перебору.
+     */
+    public void onSuccess(String username, String source) {
+        long now = clockMillis.getAsLong();
+        AtomicLong user = buckets.get(userKey(username));
+        if (user != null) {
+            giveBack(user, userLimit, now);
+        }
+        AtomicLong src = buckets.get(sourceKey(source));
+        if (src != null) {
+            giveBack(src, sourceLimit, now);
+        }
+    }
+
+    /**
+     * @return true, якщо наступна спроба для цього імені буде відхилена
+     */
+    public boolean isLocked(String username) {
+        AtomicLong user = buckets.get(userKey(username));
+        return user != null && !fits(user.get(), userLimit, clockMillis.getAsLong());
+    }
+
+    /**
+     * @return через скільки з'явиться токен для наступної спроби (0 - вже можна)
+     */
+    public Duration retryAfter(String username, String source) {
+        long now = clockMillis.getAsLong();
+        return Duration.ofMillis(Math.max(wait(buckets.get(userKey(username)), userLimit, now),
+                wait(buckets.get(sourceKey(source)), sourceLimit, now)));
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Видаляє повністю наповнені кошики (ті, що давно не використовувались).
+     */
+    public int sweep() {
+        long now = clockMillis.getAsLong();
+        int removed = 0;
+        for (Map.Entry<String, AtomicLong> e : buckets.entrySet()) {
+            // паралельна спроба між перевіркою і видаленням отримає новий повний кошик - це не більше
+            // однієї зайвої спроби, що дешевше за блокування на кожному вході
+            if (e.getValue().get() <= now && buckets.remove(e.getKey(), e.getValue())) {
+                removed++;
+            }
+        }
+        EVICTED.add(removed);
+        return removed;
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now >= due && nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_MILLIS)) {
+            sweep();
+        }
+    }
+
+    private AtomicLong bucket(String key) {
+        AtomicLong bucket = buckets.get(key);
+        return bucket != null ? bucket : buckets.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    // GCRA: tat - момент, коли кошик знову буде повним
+    private static boolean take(AtomicLong bucket, Limit limit, long now) {
+        while (true) {
+            long tat = bucket.get();
+            if (!fits(tat, limit, now)) {
+                return false;
+            }
+            if (bucket.compareAndSet(tat, Math.max(tat, now) + limit.intervalMillis)) {
+                return true;
+            }
+        }
+    }
+
+    private static void giveBack(AtomicLong bucket, Limit limit, long now) {
+        while (true) {
+            long tat = bucket.get();
+            if (tat <= now || bucket.compareAndSet(tat, Math.max(now, tat - limit.intervalMillis))) {
+                return;
+            }
+        }
+    }
+
+    private static boolean fits(long tat, Limit limit, long now) {
+        return Math.max(tat, now) + limit.intervalMillis - now <= limit.toleranceMillis();
+    }
+
+    private static long wait(AtomicLong bucket, Limit limit, long now) {
+        if (bucket == null) {
+            return 0;
+        }
+        return Math.max(0, Math.max(bucket.get(), now) + limit.intervalMillis - now - limit.toleranceMillis());
+    }
+
+    private static String userKey(String username) {
+        return "user:" + (username == null ? "" : username.trim().toLowerCase());
+    }
+
+    private static String sourceKey(String source) {
+        return "source:" + (source == null ? "unknown" : source);
+    }
+}
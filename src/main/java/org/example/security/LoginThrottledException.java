@@ -0,0 +1,21 @@
+package org.example.security;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Спробу входу відхилено обмежувачем до перевірки пароля. Наслідує SQLException, як інші
+ * помилки AuthService, тож контролери показують повідомлення без змін; API відповідає 429.
+ */
+public class LoginThrottledException extends SQLException {
+    private final Duration retryAfter;
+
+    public LoginThrottledException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
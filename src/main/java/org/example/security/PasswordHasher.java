@@ -0,0 +1,128 @@
+package org.example.security;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Солоні хеші паролів PBKDF2-HMAC-SHA256 з налаштовуваною кількістю ітерацій.
+ *
+ * Формат у колонці users.password: pbkdf2-sha256$<ітерації>$<сіль base64>$<хеш base64>.
+ * Кількість ітерацій зберігається разом з хешем, тож зміна -Dskiservice.passwordIterations
+ * не ламає старі записи: вони перевіряються зі своєю вартістю і перехешовуються при вході (needsRehash).
+ * Рядок без префікса - пароль, збережений відкритим текстом до появи хешування.
+ */
+public final class PasswordHasher {
+    public static final String PREFIX = "pbkdf2-sha256";
+    // рекомендація OWASP для PBKDF2-HMAC-SHA256 (2021)
+    public static final int DEFAULT_ITERATIONS = 310_000;
+    public static final int MIN_ITERATIONS = 1_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+    private volatile String dummyHash;
+
+    public PasswordHasher(int iterations) {
+        if (iterations < MIN_ITERATIONS) {
+            throw new IllegalArgumentException("PBKDF2 iterations must be at least " + MIN_ITERATIONS);
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Вартість з -Dskiservice.passwordIterations (за замовчуванням DEFAULT_ITERATIONS).
+     */
+    public static PasswordHasher fromSystemProperties() {
+        return new PasswordHasher(Integer.getInteger("skiservice.passwordIterations", DEFAULT_ITERATIONS));
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] key = derive(password, salt, iterations);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(key);
+    }
+
+    /**
+     * Порівняння за сталий час; для старих записів відкритим текстом - звичайне порівняння рядків.
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            Base64.Decoder b64 = Base64.getDecoder();
+            byte[] salt = b64.decode(parts[2]);
+            byte[] expected = b64.decode(parts[3]);
+            return MessageDigest.isEqual(expected, derive(password, salt, storedIterations));
+        } catch (IllegalArgumentException e) {
+            // пошкоджений запис не повинен пускати користувача
+            return false;
+        }
+    }
+
+    /**
+     * @return true для пароля відкритим текстом або хешу з іншою кількістю ітерацій
+     */
+    public boolean needsRehash(String stored) {
+        if (!isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || !parts[1].equals(Integer.toString(iterations));
+    }
+
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX + "$");
+    }
+
+    /**
+     * Хеш випадкового пароля з поточною вартістю. Перевірка невідомого користувача виконується проти нього,
+     * щоб час відповіді не показував, які імена існують.
+     */
+    public String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            byte[] random = new byte[SALT_BYTES];
+            RANDOM.nextBytes(random);
+            hash = hash(Base64.getEncoder().encodeToString(random));
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // PBKDF2WithHmacSHA256 входить до обов'язкових алгоритмів JDK
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.security;
+
+import org.example.metrics.Counter;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
+
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Окремий обмежений пул для хешування паролів.
+ *
+ * PBKDF2 навмисно займає процесор на сотні мілісекунд. Якщо виконувати його в потоці запиту,
+ * ранкова хвиля входів забирає всі ядра і зупиняє бронювання та звіти. Пул має фіксовану
+ * кількість потоків (-Dskiservice.passwordThreads, за замовчуванням половина ядер) і обмежену
+ * чергу (-Dskiservice.passwordQueue); коли черга повна, вхід відхиляється одразу, а не накопичується.
+ */
+public final class PasswordPool {
+    private static final Counter REJECTED = Metrics.counter("security.passwordPool.rejected");
+    private static final LatencyHistogram QUEUE_WAIT = Metrics.histogram("security.passwordPool.queueWait");
+    private static final LatencyHistogram HASH_TIME = Metrics.histogram("security.passwordPool.hash");
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private final ThreadPoolExecutor executor;
+
+    public PasswordPool(int threads, int queueSize) {
+        AtomicInteger index = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "password-hash-" + index.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        Metrics.gauge("security.passwordPool.queued", () -> executor.getQueue().size());
+    }
+
+    public static PasswordPool fromSystemProperties() {
+        int threads = Integer.getInteger("skiservice.passwordThreads",
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        return new PasswordPool(threads, Integer.getInteger("skiservice.passwordQueue", 256));
+    }
+
+    /**
+     * Виконує task у пулі і чекає результату.
+     *
+     * @throws SQLException якщо пул перевантажений або обчислення не вдалося - так само, як інші
+     *                      помилки AuthService, щоб контролери і API обробляли їх однаково
+     */
+    public <T> T call(Callable<T> task) throws SQLException {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                QUEUE_WAIT.record(start - submitted);
+                try {
+                    return task.call();
+                } finally {
+                    HASH_TIME.recordSince(start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            REJECTED.increment();
+            throw new SQLException("Too many logins in progress, please try again");
+        }
+
+        try {
+            return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while checking password", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new SQLException("Password check timed out", e);
+        } catch (ExecutionException e) {
+            throw new SQLException("Password check failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
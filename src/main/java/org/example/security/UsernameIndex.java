@@ -0,0 +1,133 @@
+package org.example.security;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Зайняті імена користувачів у пам'яті, щоб реєстрація не дізнавалася про дублікат
+ * лише з помилки UNIQUE після хешування пароля і спроби INSERT.
+ *
+ * Bloom-фільтр відповідає "точно вільне" без БД. Поки імен не більше exactLimit, поруч тримається
+ * точна множина, і "зайняте" теж відповідається без БД; у великих інсталяціях множина відкидається,
+ * а позитивна відповідь фільтра (MAYBE) перевіряється запитом. Джерелом істини лишається обмеження UNIQUE.
+ *
+ * Фільтр розрахований на подвоєну кількість імен при завантаженні з ~1% хибних спрацьовувань.
+ * Хибних "вільне" не буває ніколи; після переповнення (isSaturated) лише частіше трапляється MAYBE,
+ * доки індекс не перебудують при наступному старті.
+ */
+public final class UsernameIndex {
+    public enum Answer {
+        TAKEN, FREE, MAYBE
+    }
+
+    private static final int BITS_PER_NAME = 10;
+    private static final int HASHES = 7;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int capacity;
+    private final int exactLimit;
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Set<String> exact;
+
+    public UsernameIndex(int expectedNames, int exactLimit) {
+        this.capacity = Math.max(MIN_CAPACITY, expectedNames * 2);
+        this.bitCount = (long) capacity * BITS_PER_NAME;
+        this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        this.exactLimit = exactLimit;
+        this.exact = exactLimit > 0 ? ConcurrentHashMap.newKeySet() : null;
+    }
+
+    /**
+     * Індекс з уже відомих імен; -Dskiservice.usernameIndex.exactLimit (100000) - до скількох імен тримати точну множину.
+     */
+    public static UsernameIndex of(Collection<String> usernames) {
+        UsernameIndex index = new UsernameIndex(usernames.size(),
+                Integer.getInteger("skiservice.usernameIndex.exactLimit", 100_000));
+        for (String username : usernames) {
+            index.add(username);
+        }
+        return index;
+    }
+
+    public void add(String username) {
+        if (username == null) {
+            return;
+        }
+        long hash = hash(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            setBit((int) (bit >>> 6), 1L << bit);
+        }
+
+        Set<String> set = exact;
+        if (set != null && set.add(username) && set.size() > exactLimit) {
+            // далі пам'ять дорожча за запит у рідкісному випадку MAYBE
+            exact = null;
+        }
+        size.incrementAndGet();
+    }
+
+    public Answer lookup(String username) {
+        if (username == null) {
+            return Answer.FREE;
+        }
+        long hash = hash(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return Answer.FREE;
+            }
+        }
+
+        Set<String> set = exact;
+        if (set != null) {
+            return set.contains(username) ? Answer.TAKEN : Answer.FREE;
+        }
+        return Answer.MAYBE;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isExact() {
+        return exact != null;
+    }
+
+    /**
+     * @return true, якщо імен більше, ніж розрахований фільтр, і варто перебудувати індекс
+     */
+    public boolean isSaturated() {
+        return size.get() > capacity;
+    }
+
+    private void setBit(int word, long mask) {
+        while (true) {
+            long current = bits.get(word);
+            if ((current & mask) != 0 || bits.compareAndSet(word, current, current | mask)) {
+                return;
+            }
+        }
+    }
+
+    // FNV-1a по символах + фінальне перемішування splitmix64: обидві половини придатні як незалежні хеші
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
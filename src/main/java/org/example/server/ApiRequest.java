@@ -0,0 +1,190 @@
+package org.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.example.Services;
+import org.example.session.Session;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Розібраний запит: параметри шляху ({id}), query-рядок і JSON-тіло.
+ * Усі геттери кидають ApiException(400), якщо обов'язкове поле відсутнє або має неправильний формат.
+ */
+public final class ApiRequest {
+    // тіла запитів API - кілька полів; більше означає помилку клієнта або зловживання
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final String BEARER = "Bearer ";
+
+    private final HttpExchange exchange;
+    private final Map<String, String> pathParams;
+    private final Map<String, String> query;
+    private Map<String, Object> body;
+    private Session session;
+
+    ApiRequest(HttpExchange exchange, Map<String, String> pathParams) {
+        this.exchange = exchange;
+        this.pathParams = pathParams;
+        this.query = parseQuery(exchange.getRequestURI().getRawQuery());
+    }
+
+    public HttpExchange getExchange() {
+        return exchange;
+    }
+
+    /**
+     * IP клієнта - джерело для обмеження спроб входу. Заголовкам на кшталт X-Forwarded-For не довіряємо:
+     * сервер слухає напряму, а підроблений заголовок обходив би обмеження.
+     */
+    public String clientAddress() {
+        InetSocketAddress remote = exchange.getRemoteAddress();
+        if (remote == null) {
+            return "unknown";
+        }
+        return remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+
+    /**
+     * Сеанс з заголовка "Authorization: Bearer <token>" (токен видає /api/login).
+     *
+     * @throws ApiException 401, якщо токена немає або сеанс прострочений
+     */
+    public Session session() {
+        if (session == null) {
+            String header = exchange.getRequestHeaders().getFirst("Authorization");
+            String token = header != null && header.startsWith(BEARER)
+                    ? header.substring(BEARER.length()).trim()
+                    : null;
+            session = Services.AuthService.getSession(token);
+            if (session == null) {
+                throw new ApiException(401, "Login required");
+            }
+        }
+        return session;
+    }
+
+    public Session requireAdmin() {
+        Session current = session();
+        if (!current.isAdmin()) {
+            throw new ApiException(403, "Administrator role required");
+        }
+        return current;
+    }
+
+    /**
+     * Чиї дані читати: звичайний користувач бачить лише свої, адміністратор - всі або ?user=.
+     *
+     * @return ім'я користувача або null для "всі"
+     */
+    public String visibleUser() {
+        Session current = session();
+        return current.isAdmin() ? query("user") : current.getUsername();
+    }
+
+    /**
+     * Від чийого імені виконується дія: адміністратор (каса) може вказати "user" у тілі запиту,
+     * звичайний користувач діє лише від власного імені.
+     */
+    public String actingUser() throws IOException {
+        Session current = session();
+        Object user = current.isAdmin() ? body().get("user") : null;
+        return user == null || user.toString().isBlank() ? current.getUsername() : user.toString();
+    }
+
+    public String pathParam(String name) {
+        return pathParams.get(name);
+    }
+
+    public int pathInt(String name) {
+        return toInt(name, pathParams.get(name));
+    }
+
+    public String query(String name) {
+        return query.get(name);
+    }
+
+    public LocalDate queryDate(String name, LocalDate defaultValue) {
+        String value = query.get(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw ApiException.badRequest("Field '" + name + "' must be a date (yyyy-MM-dd)");
+        }
+    }
+
+    public Map<String, Object> body() throws IOException {
+        if (body == null) {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+                if (bytes.length > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "Request body too large");
+                }
+                body = Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw ApiException.badRequest("Malformed JSON: " + e.getMessage());
+            }
+        }
+        return body;
+    }
+
+    public String string(String name) throws IOException {
+        Object value = body().get(name);
+        if (value == null || value.toString().isBlank()) {
+            throw ApiException.badRequest("Field '" + name + "' is required");
+        }
+        return value.toString();
+    }
+
+    public int integer(String name) throws IOException {
+        Object value = body().get(name);
+        if (value instanceof Long l && l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+            return l.intValue();
+        }
+        return toInt(name, value == null ? null : value.toString());
+    }
+
+    public LocalDateTime dateTime(String name) throws IOException {
+        String value = string(name);
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw ApiException.badRequest("Field '" + name + "' must be an ISO date-time (yyyy-MM-ddTHH:mm)");
+        }
+    }
+
+    private static int toInt(String name, String value) {
+        if (value == null) {
+            throw ApiException.badRequest("Field '" + name + "' is required");
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw ApiException.badRequest("Field '" + name + "' must be an integer");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
@@ -0,0 +1,299 @@
+package org.example.server;
+
+import org.example.Services;
+import org.example.metrics.Metrics;
+import org.example.model.Booking;
+import org.example.model.Equipment;
+import org.example.model.Lesson;
+import org.example.model.Transaction;
+import org.example.model.User;
+import org.example.model.UserRental;
+import org.example.service.AnalyticsService;
+import org.example.service.DashboardService;
+import org.example.service.EquipmentAllocator;
+import org.example.service.FinanceService;
+import org.example.session.Session;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Маршрути JSON API. Кожен маршрут - тонка обгортка над Services (SQL і журнал дій лишаються там)
+ * та розрахунками з org.example.service для звітів.
+ *
+ * Усе, крім /api/health, /api/login і /api/register, вимагає сеансу (Authorization: Bearer <token>).
+ * Користувач бачить і змінює лише свої дані; ADMIN - усі, може діяти від імені клієнта ("user" у тілі)
+ * і має доступ до звітів і /api/metrics.
+ *
+ * Дати - ISO-8601: "2024-01-15T10:00" для часу бронювання, "2024-01-15" для меж звіту.
+ */
+final class ApiRoutes {
+
+    private ApiRoutes() {
+    }
+
+    static void register(ApiServer server) {
+        FinanceService financeService = new FinanceService();
+        AnalyticsService analyticsService = new AnalyticsService();
+        DashboardService dashboardService = new DashboardService();
+
+        server.get("/api/health", req -> Map.of("status", "ok"));
+        // лічильники невдалих входів і блокувань, навантаження сервера - не для анонімних клієнтів
+        server.get("/api/metrics", req -> {
+            req.requireAdmin();
+            return Metrics.snapshot().format();
+        });
+
+        // --- користувачі ---
+        server.postUnlocked("/api/login", req -> {
+            Session session = Services.AuthService.login(req.string("username"), req.string("password"),
+                    req.clientAddress());
+            if (session == null) {
+                throw new ApiException(401, "Invalid username or password");
+            }
+            User user = session.getUser();
+            return fields("token", session.getToken(), "username", user.getUsername(), "role", user.getRole(),
+                    "idleTimeoutSeconds", Services.AuthService.sessions().getIdleTimeout().toSeconds());
+        });
+        server.postUnlocked("/api/logout", req -> {
+            Services.AuthService.logout(req.session());
+            return ok();
+        });
+        server.postUnlocked("/api/register", req -> {
+            Services.AuthService.register(req.string("username"), req.string("password"));
+            return ok();
+        });
+
+        // --- бронювання ---
+        server.get("/api/bookings", req ->
+                list(Services.BookingService.listAll(), forUser(req, Booking::getUsername), ApiRoutes::booking));
+        server.post("/api/bookings", req -> {
+            Services.BookingService.book(req.actingUser(), req.string("slot"), req.dateTime("time"));
+            return ok();
+        });
+        server.post("/api/bookings/{id}/cancel", req -> {
+            Services.BookingService.cancel(ownedBooking(req).getId());
+            return ok();
+        });
+        server.post("/api/bookings/{id}/transfer", req -> {
+            Services.BookingService.transfer(ownedBooking(req).getId(), req.string("slot"), req.dateTime("time"));
+            return ok();
+        });
+
+        // --- спорядження ---
+        server.get("/api/equipment", req -> {
+            req.session();
+            return list(Services.EquipmentService.listAll(), e -> true, ApiRoutes::equipment);
+        });
+        server.get("/api/rentals", req -> {
+            String user = req.visibleUser();
+            List<UserRental> rentals = user == null
+                    ? Services.EquipmentService.getAllCurrentRentals()
+                    : Services.EquipmentService.getCurrentRentals(user);
+            return list(rentals, r -> true, ApiRoutes::rental);
+        });
+        server.get("/api/rentals/overdue", req -> {
+            req.requireAdmin();
+            return list(Services.EquipmentService.getOverdueRentals(), r -> true, ApiRoutes::rental);
+        });
+        server.post("/api/rentals", req -> {
+            Services.EquipmentService.rent(req.integer("equipmentId"), req.actingUser());
+            return ok();
+        });
+        server.post("/api/rentals/holds", req -> {
+            long holdId = Services.EquipmentService.hold(req.integer("equipmentId"), req.actingUser());
+            return fields("holdId", holdId);
+        });
+        server.post("/api/rentals/party", req -> {
+            List<EquipmentAllocator.Request> party = new ArrayList<>();
+            if (!(req.body().get("items") instanceof List<?> items) || items.isEmpty()) {
+                throw ApiException.badRequest("Field 'items' must be a non-empty array");
+            }
+            for (Object item : items) {
+                if (!(item instanceof Map<?, ?> fields) || fields.get("type") == null || fields.get("size") == null) {
+                    throw ApiException.badRequest("Each item needs 'type' and 'size'");
+                }
+                party.add(new EquipmentAllocator.Request(fields.get("type").toString(), fields.get("size").toString()));
+            }
+
+            EquipmentAllocator.PartyAllocation allocation = Services.EquipmentService.allocator().allocateParty(party);
+            if (!allocation.isComplete()) {
+                throw new ApiException(409, "No equipment available for: " + allocation.getUnmet().stream()
+                        .map(r -> r.getType() + " " + r.getSize()).collect(Collectors.joining(", ")));
+            }
+            List<Long> holdIds = Services.EquipmentService.holdParty(allocation.getEquipmentIds(), req.actingUser());
+
+            List<Map<String, Object>> holds = new ArrayList<>();
+            for (int i = 0; i < holdIds.size(); i++) {
+                EquipmentAllocator.Allocation allocated = allocation.getAllocations().get(i);
+                holds.add(fields("holdId", holdIds.get(i), "equipmentId", allocated.getEquipment().getId(),
+                        "type", allocated.getType(), "requestedSize", allocated.getRequestedSize(),
+                        "size", allocated.getEquipment().getSize(), "substitute", allocated.isSubstitute()));
+            }
+            return fields("holds", holds);
+        });
+        server.post("/api/rentals/holds/{id}/confirm", req -> {
+            Services.EquipmentService.confirmHold(req.pathInt("id"), req.actingUser());
+            return ok();
+        });
+        server.post("/api/rentals/holds/{id}/release", req -> {
+            if (!Services.EquipmentService.releaseHold(req.pathInt("id"), req.actingUser())) {
+                throw ApiException.notFound("Hold not found");
+            }
+            return ok();
+        });
+        server.post("/api/rentals/return", req -> {
+            Services.EquipmentService.ret(req.integer("equipmentId"), req.actingUser());
+            return ok();
+        });
+
+        // --- уроки ---
+        server.get("/api/instructors", req -> {
+            req.session();
+            return Services.InstructorService.listNames();
+        });
+        server.get("/api/lessons", req ->
+                list(Services.InstructorService.listAll(), forUser(req, Lesson::getUsername), ApiRoutes::lesson));
+        server.post("/api/lessons", req -> {
+            Services.InstructorService.book(req.string("instructor"), req.actingUser(), req.dateTime("time"));
+            return ok();
+        });
+
+        // --- фінанси і звіти ---
+        server.get("/api/transactions", req ->
+                list(Services.TransactionService.listAll(), forUser(req, Transaction::getUsername),
+                        ApiRoutes::transaction));
+        server.get("/api/dashboard", req -> {
+            String user = req.visibleUser();
+            if (user == null || user.isBlank()) {
+                throw ApiException.badRequest("Field 'user' is required");
+            }
+            DashboardService.DashboardStats stats = dashboardService.calculateUserStats(user,
+                    Services.BookingService.listAll(), Services.EquipmentService.getCurrentRentals(user),
+                    Services.InstructorService.listAll());
+            return fields("activeBookings", stats.getActiveBookings(), "currentRentals", stats.getCurrentRentals(),
+                    "upcomingLessons", stats.getUpcomingLessons());
+        });
+        server.get("/api/reports/summary", req -> {
+            req.requireAdmin();
+            LocalDate today = LocalDate.now();
+            LocalDate from = req.queryDate("from", today.withDayOfMonth(1));
+            LocalDate to = req.queryDate("to", today);
+            // лише секції журналу, що перетинають період
+            List<Transaction> transactions = Services.TransactionService.listBetween(from.atStartOfDay(),
+                    to.plusDays(1).atStartOfDay());
+            FinanceService.FinancialSummary summary = financeService.calculatePeriodSummary(transactions, from, to);
+
+            Map<String, Object> body = fields("from", from, "to", to,
+                    "totalRevenue", summary.getTotalRevenue(), "totalRefunds", summary.getTotalRefunds(),
+                    "netProfit", summary.getNetProfit(), "transactionCount", summary.getTransactionCount());
+            body.put("profitMargin", financeService.calculateProfitMargin(transactions, from, to));
+            body.put("byActivity", list(financeService.calculateRevenueByActivity(transactions, from, to), r -> true,
+                    r -> fields("activity", r.getActivityType(), "revenue", r.getRevenue(), "count", r.getCount())));
+            return body;
+        });
+        server.get("/api/reports/monthly", req -> {
+            req.requireAdmin();
+            LocalDate today = LocalDate.now();
+            List<Transaction> transactions = Services.TransactionService.listBetween(
+                    today.withDayOfMonth(1).atStartOfDay(), today.plusDays(1).atStartOfDay());
+            return list(financeService.calculateMonthlyReports(transactions), r -> true,
+                    r -> fields("category", r.getCategory(), "amount", r.getRawAmount(), "count", r.getRawCount()));
+        });
+        server.get("/api/reports/analytics", req -> {
+            req.requireAdmin();
+            Map<String, Object> body = new LinkedHashMap<>();
+            LocalDate today = LocalDate.now();
+            body.put("dailyAttendance", analyticsService.calculateDailyAttendance(Services.TransactionService.listBetween(
+                    today.minusDays(29).atStartOfDay(), today.plusDays(1).atStartOfDay())));
+            body.put("hourlyActivity", analyticsService.calculateHourlyActivity(Services.BookingService.listAll()));
+            body.put("instructors", list(analyticsService.calculateInstructorStats(Services.InstructorService.listAll()),
+                    s -> true, s -> fields("name", s.getName(), "lessons", s.getLessonsCount())));
+            AnalyticsService.EquipmentPopularity popularity = analyticsService.calculateEquipmentPopularity(
+                    Services.EquipmentService.getAllCurrentRentals(), Services.EquipmentService.listAll());
+            body.put("ski", list(popularity.getSkiStats(), s -> true, ApiRoutes::equipmentStats));
+            body.put("snowboard", list(popularity.getSnowboardStats(), s -> true, ApiRoutes::equipmentStats));
+            return body;
+        });
+        server.get("/api/reports/popularity", req -> {
+            req.requireAdmin();
+            LocalDate today = LocalDate.now();
+            LocalDate from = req.queryDate("from", today.minusDays(29));
+            LocalDate to = req.queryDate("to", today);
+            AnalyticsService.EquipmentPopularity popularity = analyticsService.calculateEquipmentPopularityWithHistory(
+                    Services.EquipmentService.listAll(), Services.EquipmentService.getRentalPopularity(from, to));
+            return fields("from", from, "to", to,
+                    "ski", list(popularity.getSkiStats(), s -> true, ApiRoutes::equipmentStats),
+                    "snowboard", list(popularity.getSnowboardStats(), s -> true, ApiRoutes::equipmentStats));
+        });
+    }
+
+    private static <T> Predicate<T> forUser(ApiRequest req, Function<T, String> username) {
+        String user = req.visibleUser();
+        return user == null ? item -> true : item -> user.equals(username.apply(item));
+    }
+
+    /**
+     * Бронювання з {id}, яке поточний сеанс має право змінювати (своє або будь-яке для адміністратора).
+     */
+    private static Booking ownedBooking(ApiRequest req) {
+        Booking booking = Services.BookingService.findById(req.pathInt("id"));
+        if (booking == null) {
+            throw ApiException.notFound("Booking not found");
+        }
+        Session session = req.session();
+        if (!session.isAdmin() && !booking.getUsername().equals(session.getUsername())) {
+            throw new ApiException(403, "You can only change your own bookings");
+        }
+        return booking;
+    }
+
+    private static <T> List<Map<String, Object>> list(List<T> items, Predicate<T> filter,
+            Function<T, Map<String, Object>> mapper) {
+        return items.stream().filter(filter).map(mapper).toList();
+    }
+
+    private static Map<String, Object> ok() {
+        return fields("ok", true);
+    }
+
+    private static Map<String, Object> fields(Object... keyValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static Map<String, Object> booking(Booking b) {
+        return fields("id", b.getId(), "user", b.getUsername(), "slot", b.getSlot(), "time", b.getTime());
+    }
+
+    private static Map<String, Object> equipment(Equipment e) {
+        return fields("id", e.getId(), "type", e.getType(), "size", e.getSize(), "available", e.getAvailable());
+    }
+
+    private static Map<String, Object> rental(UserRental r) {
+        return fields("equipmentId", r.getEquipmentId(), "type", r.getType(), "size", r.getSize(),
+                "user", r.getUsername(), "status", r.getRentedSince());
+    }
+
+    private static Map<String, Object> lesson(Lesson l) {
+        return fields("id", l.getId(), "user", l.getUsername(), "instructor", l.getInstructor(), "time", l.getTime());
+    }
+
+    private static Map<String, Object> transaction(Transaction t) {
+        return fields("id", t.getId(), "user", t.getUsername(), "type", t.getType(), "amount", t.getAmount(),
+                "time", t.getTime());
+    }
+
+    private static Map<String, Object> equipmentStats(AnalyticsService.EquipmentStats s) {
+        return fields("size", s.getSize(), "rentals", s.getRentalsCount());
+    }
+}
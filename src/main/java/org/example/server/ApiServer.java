@@ -0,0 +1,283 @@
+package org.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.Logger;
+import org.example.Services;
+import org.example.metrics.Counter;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
+import org.example.security.LoginThrottledException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Headless-режим: операції Services як JSON API поверх вбудованого HTTP-сервера JDK.
+ * Кожен запит обробляється у власному віртуальному потоці.
+ *
+ * Запуск:
+ * mvn compile exec:java -Dexec.mainClass=org.example.server.ApiServer -Dexec.args="--port=8080 --db=skiservice.db"
+ *
+ * Параметри:
+ * --port=<N>      порт (за замовчуванням 8080)
+ * --db=<file>     файл БД (за замовчуванням skiservice.db)
+ * --backlog=<N>   черга з'єднань, що очікують accept (за замовчуванням 1024)
+ *
+ * Services працює з одним з'єднанням SQLite, а операції запису складаються з кількох запитів
+ * (перевірка + UPDATE + INSERT + запис у trans), тому запити, що змінюють дані, виконуються по одному
+ * (writeLock). Читання виконуються паралельно, як і вхід/реєстрація (postUnlocked): PBKDF2 під
+ * writeLock зупиняв би всі записи на час хешування. ReentrantLock, а не synchronized, щоб віртуальний
+ * потік, що чекає на блокування, не тримав потік-носій.
+ */
+public class ApiServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_BACKLOG = 1024;
+    // -Dskiservice.metrics=<file>, -Dskiservice.metrics.interval=<секунди>, як у App
+    private static final String METRICS_FILE = System.getProperty("skiservice.metrics", "ski-service-metrics.txt");
+    private static final long METRICS_INTERVAL_SECONDS = Long.getLong("skiservice.metrics.interval", 60);
+
+    private static final Counter REQUESTS = Metrics.counter("http.requests");
+    private static final Counter STATUS_2XX = Metrics.counter("http.status.2xx");
+    private static final Counter STATUS_4XX = Metrics.counter("http.status.4xx");
+    private static final Counter STATUS_5XX = Metrics.counter("http.status.5xx");
+    private static final LatencyHistogram WRITE_LOCK_WAIT = Metrics.histogram("http.writeLock.wait");
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+
+    static {
+        Metrics.gauge("http.inFlight", IN_FLIGHT::get);
+    }
+
+    /**
+     * Обробник маршруту. Результат серіалізується в JSON; CharSequence віддається як text/plain.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        Object handle(ApiRequest request) throws Exception;
+    }
+
+    private static final class Route {
+        private final String method;
+        private final String[] segments;
+        private final boolean mutating;
+        private final Handler handler;
+        private final LatencyHistogram timer;
+
+        Route(String method, String pattern, boolean mutating, Handler handler) {
+            this.method = method;
+            this.segments = pattern.substring(1).split("/");
+            this.mutating = mutating;
+            this.handler = handler;
+            this.timer = Metrics.histogram("http." + method + " " + pattern);
+        }
+
+        Map<String, String> match(String[] path) {
+            if (path.length != segments.length) {
+                return null;
+            }
+            Map<String, String> params = new HashMap<>();
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    params.put(segment.substring(1, segment.length() - 1), path[i]);
+                } else if (!segment.equals(path[i])) {
+                    return null;
+                }
+            }
+            return params;
+        }
+    }
+
+    private final List<Route> routes = new ArrayList<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+
+    public ApiServer(int port, int backlog) throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress(port), backlog);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/", this::dispatch);
+        ApiRoutes.register(this);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = DEFAULT_PORT;
+        int backlog = DEFAULT_BACKLOG;
+        String db = Services.DEFAULT_DB_FILE;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--db=")) {
+                db = arg.substring("--db=".length());
+            } else if (arg.startsWith("--backlog=")) {
+                backlog = Integer.parseInt(arg.substring("--backlog=".length()));
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+
+        Logger.logSystemEvent("SERVER_START", "Ski Service API server starting on port " + port);
+        Services.initDB(db);
+        Runtime runtime = Runtime.getRuntime();
+        Metrics.gauge("jvm.heap.used.mb", () -> (runtime.totalMemory() - runtime.freeMemory()) / (1024.0 * 1024.0));
+        Metrics.startDump(Paths.get(METRICS_FILE), Duration.ofSeconds(METRICS_INTERVAL_SECONDS));
+        Services.AuthService.sessions().startSweeper(Duration.ofMinutes(1));
+
+        ApiServer server = new ApiServer(port, backlog);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            Logger.logSystemEvent("SERVER_STOP", "Ski Service API server shutting down");
+            server.stop(2);
+            Metrics.stopDump();
+            Services.closeDB();
+        }, "api-server-shutdown"));
+        server.start();
+        Logger.logSystemEvent("SERVER_READY", "Listening on " + server.getAddress());
+        System.out.println("Ski Service API listening on " + server.getAddress());
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * @param delaySeconds скільки чекати завершення поточних запитів
+     */
+    public void stop(int delaySeconds) {
+        httpServer.stop(delaySeconds);
+        executor.close();
+    }
+
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    public void get(String pattern, Handler handler) {
+        routes.add(new Route("GET", pattern, false, handler));
+    }
+
+    public void post(String pattern, Handler handler) {
+        routes.add(new Route("POST", pattern, true, handler));
+    }
+
+    /**
+     * POST без writeLock - для маршрутів, де довга частина (хешування пароля) не пише в БД,
+     * а власний запис обробник серіалізує сам через Services.
+     */
+    public void postUnlocked(String pattern, Handler handler) {
+        routes.add(new Route("POST", pattern, false, handler));
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        IN_FLIGHT.incrementAndGet();
+        REQUESTS.increment();
+        Route route = null;
+        int status;
+        Object result;
+
+        try {
+            String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+            Map<String, String> params = null;
+            boolean pathMatched = false;
+            for (Route candidate : routes) {
+                Map<String, String> match = candidate.match(path);
+                if (match != null) {
+                    pathMatched = true;
+                    if (candidate.method.equals(exchange.getRequestMethod())) {
+                        route = candidate;
+                        params = match;
+                        break;
+                    }
+                }
+            }
+            if (route == null) {
+                throw pathMatched ? new ApiException(405, "Method not allowed") : ApiException.notFound("No such endpoint");
+            }
+
+            result = invoke(route, new ApiRequest(exchange, params));
+            status = 200;
+        } catch (ApiException e) {
+            status = e.getStatus();
+            result = error(e.getMessage());
+        } catch (LoginThrottledException e) {
+            status = 429;
+            result = error(e.getMessage());
+            long seconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+            exchange.getResponseHeaders().set("Retry-After", Long.toString(seconds));
+        } catch (SQLException e) {
+            // Services повідомляє про порушення бізнес-правил (немає вільного спорядження, інструктор зайнятий)
+            // через SQLException з текстом для користувача
+            status = 409;
+            result = error(e.getMessage());
+        } catch (Exception e) {
+            status = 500;
+            result = error("Internal error");
+            Logger.logError("API_REQUEST", "SYSTEM", e.toString(),
+                    exchange.getRequestMethod() + " " + exchange.getRequestURI());
+        }
+
+        try {
+            send(exchange, status, result);
+        } finally {
+            IN_FLIGHT.decrementAndGet();
+            if (status >= 500) {
+                STATUS_5XX.increment();
+            } else if (status >= 400) {
+                STATUS_4XX.increment();
+            } else {
+                STATUS_2XX.increment();
+            }
+            if (route != null) {
+                route.timer.recordSince(start);
+            }
+        }
+    }
+
+    private Object invoke(Route route, ApiRequest request) throws Exception {
+        if (!route.mutating) {
+            return route.handler.handle(request);
+        }
+        // тіло читаємо до блокування, щоб повільний клієнт не тримав чергу записів
+        request.body();
+        long waitStart = System.nanoTime();
+        writeLock.lock();
+        try {
+            WRITE_LOCK_WAIT.recordSince(waitStart);
+            return route.handler.handle(request);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return body;
+    }
+
+    private static void send(HttpExchange exchange, int status, Object result) throws IOException {
+        boolean text = result instanceof CharSequence;
+        byte[] bytes = (text ? result.toString() : Json.write(result)).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                text ? "text/plain; charset=utf-8" : "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -151,10 +151,14 @@ public class AnalyticsService {
         return new EquipmentPopularity(skiStats, snowboardStats);
     }
 
+    /**
+     * Популярність спорядження за період: history - уже агреговані кількості видач
+     * (Services.EquipmentService.getRentalPopularity), тож обхід транзакцій не потрібен.
+     * Розміри з allEquipment без видач показуються з нулем.
+     */
     public EquipmentPopularity calculateEquipmentPopularityWithHistory(
-            List<UserRental> currentRentals,
             List<Equipment> allEquipment,
-            List<Transaction> transactions) {
+            List<RentalCount> history) {
 
         Map<String, Integer> skiHistoricalCounts = new HashMap<>();
         Map<String, Integer> snowboardHistoricalCounts = new HashMap<>();
@@ -172,25 +176,15 @@ public class AnalyticsService {
             }
         }
 
-        // Розрахунок з попередніх транзакцій бронювань
-        if (transactions != null) {
-            for (Transaction transaction : transactions) {
-                if ("rent_eq".equals(transaction.getType())) {
-                    // Примітка. Для цього потрібні дані про спорядження в транзакції або додатковий пошук
-                }
-            }
-        }
-
-        // Підрахунок поточних бронювань
-        if (currentRentals != null) {
-            for (UserRental rental : currentRentals) {
-                String type = rental.getType().toLowerCase();
-                String size = rental.getSize();
+        // Підсумки з денних агрегатів журналу видач
+        if (history != null) {
+            for (RentalCount count : history) {
+                String type = count.getType().toLowerCase();
 
                 if ("ski".equals(type)) {
-                    skiHistoricalCounts.merge(size, 1, Integer::sum);
+                    skiHistoricalCounts.merge(count.getSize(), count.getRentals(), Integer::sum);
                 } else if ("snowboard".equals(type)) {
-                    snowboardHistoricalCounts.merge(size, 1, Integer::sum);
+                    snowboardHistoricalCounts.merge(count.getSize(), count.getRentals(), Integer::sum);
                 }
             }
         }
@@ -245,6 +239,30 @@ public class AnalyticsService {
         }
     }
 
+    public static class RentalCount {
+        private final String type;
+        private final String size;
+        private final int rentals;
+
+        public RentalCount(String type, String size, int rentals) {
+            this.type = type;
+            this.size = size;
+            this.rentals = rentals;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getSize() {
+            return size;
+        }
+
+        public int getRentals() {
+            return rentals;
+        }
+    }
+
     public static class EquipmentPopularity {
         private final List<EquipmentStats> skiStats;
         private final List<EquipmentStats> snowboardStats;
@@ -13,6 +13,16 @@ public class AuthService {
 
     private static final Pattern USERNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]+$");
 
+    // зарезервовані імена і слабкі паролі з resources/security
+    private final CredentialRules rules;
+
+    public AuthService() {
+        this(CredentialRules.defaults());
+    }
+
+    public AuthService(CredentialRules rules) {
+        this.rules = rules;
+    }
 
     public AuthValidationResult validateLoginCredentials(String username, String password) {
         if (username == null || username.trim().isEmpty()) {
@@ -79,43 +89,11 @@ public class AuthService {
     }
 
     private boolean isReservedUsername(String username) {
-        if (username == null)
-            return false;
-
-        String[] reserved = {
-                "admin", "root", "system", "null", "undefined",
-                "test", "guest", "public", "private", "api",
-                "www", "mail", "ftp", "localhost", "server"
-        };
-
-        String lowerUsername = username.toLowerCase();
-        for (String reservedName : reserved) {
-            if (lowerUsername.equals(reservedName)) {
-                return true;
-            }
-        }
-
-        return false;
+        return rules.isReservedUsername(username);
     }
 
     private boolean isWeakPassword(String password) {
-        if (password == null)
-            return true;
-
-        String[] commonPasswords = {
-                "password", "123456", "qwerty", "abc123",
-                "password123", "admin", "user", "guest",
-                "12345678", "111111", "000000"
-        };
-
-        String lowerPassword = password.toLowerCase();
-        for (String commonPass : commonPasswords) {
-            if (lowerPassword.equals(commonPass)) {
-                return true;
-            }
-        }
-
-        return false;
+        return rules.isWeakPassword(password);
     }
 
     public boolean isPasswordSameAsUsername(String username, String password) {
@@ -270,22 +248,7 @@ public class AuthService {
     }
 
     private boolean hasVariedCharacters(String password) {
-        boolean hasLower = password.chars().anyMatch(Character::isLowerCase);
-        boolean hasUpper = password.chars().anyMatch(Character::isUpperCase);
-        boolean hasDigit = password.chars().anyMatch(Character::isDigit);
-        boolean hasSpecial = password.chars().anyMatch(c -> !Character.isLetterOrDigit(c));
-
-        int varietyCount = 0;
-        if (hasLower)
-            varietyCount++;
-        if (hasUpper)
-            varietyCount++;
-        if (hasDigit)
-            varietyCount++;
-        if (hasSpecial)
-            varietyCount++;
-
-        return varietyCount >= 3;
+        return rules.hasVariedCharacters(password);
     }
 
 
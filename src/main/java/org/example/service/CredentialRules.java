@@ -0,0 +1,209 @@
+package org.example.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Заздалегідь зібрані правила для імен і паролів: зарезервовані імена і словник слабких паролів
+ * з ресурсів security/*.txt та посимвольна класифікація пароля.
+ *
+ * Списки складаються в хеш-таблиці з відкритою адресацією, де хеш і порівняння виконуються
+ * без урахування регістру прямо по символах вхідного рядка - перевірка не створює рядків
+ * і не залежить від розміру словника, тож підходить для словників зламаних паролів на сотні тисяч записів.
+ */
+public final class CredentialRules {
+    public static final int LOWER = 1;
+    public static final int UPPER = 1 << 1;
+    public static final int DIGIT = 1 << 2;
+    public static final int SPECIAL = 1 << 3;
+
+    private static final String RESERVED_RESOURCE = "/security/reserved-usernames.txt";
+    private static final String WEAK_RESOURCE = "/security/weak-passwords.txt";
+
+    // класи ASCII-символів; решта визначається через Character
+    private static final byte[] ASCII_CLASSES = new byte[128];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            ASCII_CLASSES[c] = (byte) classifySlow(c);
+        }
+    }
+
+    private final WordTable reserved;
+    private final WordTable weakPasswords;
+
+    private CredentialRules(WordTable reserved, WordTable weakPasswords) {
+        this.reserved = reserved;
+        this.weakPasswords = weakPasswords;
+    }
+
+    public static CredentialRules of(List<String> reserved, List<String> weakPasswords) {
+        return new CredentialRules(new WordTable(reserved), new WordTable(weakPasswords));
+    }
+
+    /**
+     * Правила з ресурсів застосунку і, якщо задано, додатковий словник -Dskiservice.weakPasswordsFile.
+     * Завантажуються один раз на процес.
+     */
+    public static CredentialRules defaults() {
+        return Defaults.INSTANCE;
+    }
+
+    private static final class Defaults {
+        static final CredentialRules INSTANCE = loadDefaults();
+    }
+
+    private static CredentialRules loadDefaults() {
+        List<String> reserved = readResource(RESERVED_RESOURCE);
+        List<String> weak = readResource(WEAK_RESOURCE);
+        String extra = System.getProperty("skiservice.weakPasswordsFile");
+        if (extra != null && !extra.isBlank()) {
+            try (Reader in = Files.newBufferedReader(Path.of(extra), StandardCharsets.UTF_8)) {
+                weak.addAll(readWords(in));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read weak password list " + extra, e);
+            }
+        }
+        return of(reserved, weak);
+    }
+
+    public boolean isReservedUsername(String username) {
+        return username != null && reserved.contains(username);
+    }
+
+    public boolean isWeakPassword(String password) {
+        return password == null || weakPasswords.contains(password);
+    }
+
+    /**
+     * Класи символів пароля (LOWER | UPPER | DIGIT | SPECIAL) за один прохід.
+     */
+    public int characterClasses(String password) {
+        int classes = 0;
+        for (int i = 0; i < password.length(); i++) {
+            char c = password.charAt(i);
+            classes |= c < 128 ? ASCII_CLASSES[c] : classifySlow(c);
+            if (classes == (LOWER | UPPER | DIGIT | SPECIAL)) {
+                break;
+            }
+        }
+        return classes;
+    }
+
+    public boolean hasVariedCharacters(String password) {
+        return Integer.bitCount(characterClasses(password)) >= 3;
+    }
+
+    public int reservedCount() {
+        return reserved.size;
+    }
+
+    public int weakPasswordCount() {
+        return weakPasswords.size;
+    }
+
+    private static int classifySlow(char c) {
+        int classes = 0;
+        if (Character.isLowerCase(c))
+            classes |= LOWER;
+        if (Character.isUpperCase(c))
+            classes |= UPPER;
+        if (Character.isDigit(c))
+            classes |= DIGIT;
+        if (!Character.isLetterOrDigit(c))
+            classes |= SPECIAL;
+        return classes;
+    }
+
+    static List<String> readWords(Reader reader) throws IOException {
+        List<String> words = new ArrayList<>();
+        BufferedReader in = reader instanceof BufferedReader b ? b : new BufferedReader(reader);
+        String line;
+        while ((line = in.readLine()) != null) {
+            String word = line.trim();
+            if (!word.isEmpty() && word.charAt(0) != '#') {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static List<String> readResource(String name) {
+        InputStream stream = CredentialRules.class.getResourceAsStream(name);
+        if (stream == null) {
+            throw new IllegalStateException("Missing resource " + name);
+        }
+        try (Reader in = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            return readWords(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + name, e);
+        }
+    }
+
+    /**
+     * Незмінна множина слів без урахування регістру: відкрита адресація, заповнення не більше 50%.
+     */
+    private static final class WordTable {
+        private final String[] slots;
+        private final int mask;
+        private final int size;
+
+        WordTable(List<String> words) {
+            int capacity = Integer.highestOneBit(Math.max(4, words.size() * 2 - 1)) << 1;
+            slots = new String[capacity];
+            mask = capacity - 1;
+            int count = 0;
+            for (String word : words) {
+                String lower = lowerCase(word);
+                int i = hash(lower) & mask;
+                while (slots[i] != null && !slots[i].equals(lower)) {
+                    i = (i + 1) & mask;
+                }
+                if (slots[i] == null) {
+                    slots[i] = lower;
+                    count++;
+                }
+            }
+            size = count;
+        }
+
+        boolean contains(String word) {
+            int i = hash(word) & mask;
+            String slot;
+            while ((slot = slots[i]) != null) {
+                if (slot.length() == word.length() && slot.regionMatches(true, 0, word, 0, word.length())) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        // посимвольно, як і hash: String.toLowerCase залежить від локалі
+        private static String lowerCase(String word) {
+            char[] chars = word.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = Character.toLowerCase(chars[i]);
+            }
+            return new String(chars);
+        }
+
+        // той самий хеш для слова в будь-якому регістрі
+        private static int hash(String word) {
+            int h = 0;
+            for (int i = 0; i < word.length(); i++) {
+                h = 31 * h + Character.toLowerCase(word.charAt(i));
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -171,6 +171,8 @@ public class DashboardService {
                 return "Equipment Rental";
             case "return_eq":
                 return "Equipment Return";
+            case "rent_overtime":
+                return "Rental Overtime";
             case "lesson":
                 return "Lesson";
             case "cancel_booking":
@@ -192,6 +194,8 @@ public class DashboardService {
                 return "Equipment rented";
             case "return_eq":
                 return "Equipment returned";
+            case "rent_overtime":
+                return "Extra rental time charged";
             case "lesson":
                 return "Lesson with instructor";
             case "cancel_booking":
@@ -0,0 +1,324 @@
+package org.example.service;
+
+import org.example.model.Equipment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Підбір спорядження з заміною розміру і розподіл замовлень для групи.
+ *
+ * Індекс будується один раз зі знімка каталогу (Services.EquipmentService.listAll()): тип ->
+ * TreeMap рангу розміру -> позиції цього розміру. Точний збіг і найближчі замінники шукаються
+ * через higherKey/lowerKey за O(log n), без перегляду всього каталогу. Далі індекс живе довго:
+ * зміни залишку застосовує apply() (з подій StockChanged), перебудова потрібна лише для нових позицій.
+ * Індекс лише обирає позиції; залишок остаточно перевіряється в БД при утриманні (hold, holdParty).
+ *
+ * Пошук і apply() можна викликати з різних потоків; apply() змінює залишок переданих у of() позицій.
+ *
+ * Замінник - сусідній розмір тієї ж шкали (літерної або числової) не далі maxStep кроків;
+ * при однаковій відстані перевага більшому розміру - у більшому черевику чи на довших лижах
+ * кататися можна, у меншому ні.
+ */
+public class EquipmentAllocator {
+    public static final int DEFAULT_MAX_STEP = 1;
+
+    private static final List<String> LETTER_SIZES = List.of("XXS", "XS", "S", "M", "L", "XL", "XXL");
+    // числові розміри ранжуються після літерних, тож шкали не перетинаються
+    private static final int NUMERIC_BASE = 1000;
+
+    private final Map<String, TreeMap<Integer, List<Equipment>>> index = new HashMap<>();
+    private final Map<Integer, Equipment> byId = new HashMap<>();
+    // структура індексу незмінна після of(); блокування захищає лише залишки позицій
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int maxStep;
+
+    private EquipmentAllocator(int maxStep) {
+        this.maxStep = maxStep;
+    }
+
+    public static EquipmentAllocator of(List<Equipment> catalog) {
+        return of(catalog, DEFAULT_MAX_STEP);
+    }
+
+    public static EquipmentAllocator of(List<Equipment> catalog, int maxStep) {
+        EquipmentAllocator allocator = new EquipmentAllocator(maxStep);
+        if (catalog != null) {
+            for (Equipment equipment : catalog) {
+                Integer rank = rank(equipment.getSize());
+                // позиції без залишку теж в індексі: повернення (apply) знову робить їх доступними,
+                // а пошук пропускає все, чого немає в наявності
+                if (rank != null) {
+                    allocator.index.computeIfAbsent(equipment.getType().toLowerCase(), k -> new TreeMap<>())
+                            .computeIfAbsent(rank, k -> new ArrayList<>()).add(equipment);
+                    allocator.byId.put(equipment.getId(), equipment);
+                }
+            }
+        }
+        return allocator;
+    }
+
+    /**
+     * Змінює залишок позиції на delta (StockChanged: -1 утримання/видача, +1 повернення).
+     *
+     * @return false, якщо позиції немає в індексі - тоді індекс треба перебудувати
+     */
+    public boolean apply(int equipmentId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Equipment equipment = byId.get(equipmentId);
+            if (equipment == null) {
+                return false;
+            }
+            equipment.setAvailable(Math.max(0, equipment.getAvailable() + delta));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Точний розмір, якщо він є в наявності, інакше найближчий замінник.
+     *
+     * @return null, якщо немає ні розміру, ні прийнятної заміни
+     */
+    public Allocation find(String type, String size) {
+        lock.readLock().lock();
+        try {
+            List<Equipment> candidates = candidates(type, size, Collections.emptyMap(), 1);
+            return candidates.isEmpty() ? null : new Allocation(type, size, candidates.get(0));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Позиції в наявності в порядку переваги: спершу точний розмір, далі замінники за відстанню.
+     */
+    public List<Equipment> offers(String type, String size, int limit) {
+        lock.readLock().lock();
+        try {
+            return candidates(type, size, Collections.emptyMap(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Розподіляє замовлення групи цілком: або кожен учасник отримує позицію, або ніхто.
+     * Спершу роздаються точні розміри, потім замінники - так заміна для одного учасника
+     * не забирає точний розмір в іншого.
+     */
+    public PartyAllocation allocateParty(List<Request> party) {
+        lock.readLock().lock();
+        try {
+            return allocate(party);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private PartyAllocation allocate(List<Request> party) {
+        Map<Integer, Integer> taken = new HashMap<>();
+        Allocation[] allocations = new Allocation[party.size()];
+
+        for (int i = 0; i < party.size(); i++) {
+            Request request = party.get(i);
+            Equipment exact = exact(request.getType(), request.getSize(), taken);
+            if (exact != null) {
+                taken.merge(exact.getId(), 1, Integer::sum);
+                allocations[i] = new Allocation(request.getType(), request.getSize(), exact);
+            }
+        }
+
+        List<Request> unmet = new ArrayList<>();
+        for (int i = 0; i < party.size(); i++) {
+            if (allocations[i] != null) {
+                continue;
+            }
+            Request request = party.get(i);
+            List<Equipment> candidates = candidates(request.getType(), request.getSize(), taken, 1);
+            if (candidates.isEmpty()) {
+                unmet.add(request);
+            } else {
+                taken.merge(candidates.get(0).getId(), 1, Integer::sum);
+                allocations[i] = new Allocation(request.getType(), request.getSize(), candidates.get(0));
+            }
+        }
+
+        if (!unmet.isEmpty()) {
+            return new PartyAllocation(Collections.emptyList(), unmet);
+        }
+        return new PartyAllocation(List.of(allocations), Collections.emptyList());
+    }
+
+    private Equipment exact(String type, String size, Map<Integer, Integer> taken) {
+        TreeMap<Integer, List<Equipment>> sizes = type == null ? null : index.get(type.toLowerCase());
+        Integer rank = rank(size);
+        if (sizes == null || rank == null) {
+            return null;
+        }
+        return firstAvailable(sizes.get(rank), taken);
+    }
+
+    private List<Equipment> candidates(String type, String size, Map<Integer, Integer> taken, int limit) {
+        List<Equipment> result = new ArrayList<>();
+        TreeMap<Integer, List<Equipment>> sizes = type == null ? null : index.get(type.toLowerCase());
+        Integer rank = rank(size);
+        if (sizes == null || rank == null || limit <= 0) {
+            return result;
+        }
+
+        addAvailable(result, sizes.get(rank), taken, limit);
+        // сусіди на відстані 1, 2, ... : спершу більший розмір
+        Integer up = sizes.higherKey(rank);
+        Integer down = sizes.lowerKey(rank);
+        for (int step = 1; step <= maxStep && result.size() < limit; step++) {
+            if (up != null && up - rank == step && sameScale(rank, up)) {
+                addAvailable(result, sizes.get(up), taken, limit);
+                up = sizes.higherKey(up);
+            }
+            if (down != null && rank - down == step && sameScale(rank, down) && result.size() < limit) {
+                addAvailable(result, sizes.get(down), taken, limit);
+                down = sizes.lowerKey(down);
+            }
+        }
+        return result;
+    }
+
+    private static void addAvailable(List<Equipment> result, List<Equipment> items, Map<Integer, Integer> taken,
+            int limit) {
+        if (items == null) {
+            return;
+        }
+        for (Equipment equipment : items) {
+            if (result.size() >= limit) {
+                return;
+            }
+            if (remaining(equipment, taken) > 0) {
+                result.add(equipment);
+            }
+        }
+    }
+
+    private static Equipment firstAvailable(List<Equipment> items, Map<Integer, Integer> taken) {
+        List<Equipment> result = new ArrayList<>(1);
+        addAvailable(result, items, taken, 1);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    private static int remaining(Equipment equipment, Map<Integer, Integer> taken) {
+        return equipment.getAvailable() - taken.getOrDefault(equipment.getId(), 0);
+    }
+
+    private static boolean sameScale(int a, int b) {
+        return (a >= NUMERIC_BASE) == (b >= NUMERIC_BASE);
+    }
+
+    /**
+     * Порядковий номер розміру: літерні XXS..XXL - 0..6, числові - NUMERIC_BASE + число.
+     *
+     * @return null для невідомого формату
+     */
+    static Integer rank(String size) {
+        if (size == null || size.isBlank()) {
+            return null;
+        }
+        String normalized = size.trim().toUpperCase();
+        int letter = LETTER_SIZES.indexOf(normalized);
+        if (letter >= 0) {
+            return letter;
+        }
+        try {
+            int number = Integer.parseInt(normalized);
+            return number >= 0 ? NUMERIC_BASE + number : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static class Request {
+        private final String type;
+        private final String size;
+
+        public Request(String type, String size) {
+            this.type = type;
+            this.size = size;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getSize() {
+            return size;
+        }
+    }
+
+    public static class Allocation {
+        private final String type;
+        private final String requestedSize;
+        private final Equipment equipment;
+
+        public Allocation(String type, String requestedSize, Equipment equipment) {
+            this.type = type;
+            this.requestedSize = requestedSize;
+            this.equipment = equipment;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getRequestedSize() {
+            return requestedSize;
+        }
+
+        public Equipment getEquipment() {
+            return equipment;
+        }
+
+        public boolean isSubstitute() {
+            return !Objects.equals(rank(equipment.getSize()), rank(requestedSize));
+        }
+    }
+
+    public static class PartyAllocation {
+        private final List<Allocation> allocations;
+        private final List<Request> unmet;
+
+        public PartyAllocation(List<Allocation> allocations, List<Request> unmet) {
+            this.allocations = allocations;
+            this.unmet = unmet;
+        }
+
+        public boolean isComplete() {
+            return unmet.isEmpty();
+        }
+
+        public List<Allocation> getAllocations() {
+            return allocations;
+        }
+
+        public List<Request> getUnmet() {
+            return unmet;
+        }
+
+        /**
+         * id позицій для утримання, по одному на учасника (повтори - кілька одиниць однієї позиції).
+         */
+        public List<Integer> getEquipmentIds() {
+            List<Integer> ids = new ArrayList<>(allocations.size());
+            for (Allocation allocation : allocations) {
+                ids.add(allocation.getEquipment().getId());
+            }
+            return ids;
+        }
+    }
+}
@@ -100,6 +100,7 @@ public class FinanceService {
                         counts.merge("Cancellations", 1, Integer::sum);
                         break;
                     case "rent_eq":
+                    case "rent_overtime":
                         totals.merge("Equipment Rentals", amount, Double::sum);
                         counts.merge("Equipment Rentals", 1, Integer::sum);
                         break;
@@ -226,6 +227,7 @@ public class FinanceService {
             case "cancel_booking":
                 return "Cancellations";
             case "rent_eq":
+            case "rent_overtime":
                 return "Equipment Rentals";
             case "return_eq":
                 return "Equipment Returns";
@@ -268,6 +270,7 @@ public class FinanceService {
                     cancellations += amount;
                     break;
                 case "rent_eq":
+                case "rent_overtime":
                     equipment += amount;
                     break;
                 case "lesson":
@@ -5,6 +5,7 @@ import org.example.model.*;
 import org.example.model.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.TemporalField;
 import java.time.temporal.WeekFields;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -27,33 +28,39 @@ public class InstructorService {
         }
 
         LocalDate today = LocalDate.now();
-        int currentWeek = today.get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear());
-
-        List<InstructorWorkloadStats> workloads = new ArrayList<>();
+        TemporalField weekField = WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear();
+        int currentWeek = today.get(weekField);
 
+        // Один прохід по урокам: лічильники [всього, сьогодні, тиждень] для кожного інструктора
+        Map<String, int[]> counters = new HashMap<>();
         for (String instructorName : instructorNames) {
-            List<Lesson> instructorLessons = allLessons.stream()
-                    .filter(lesson -> lesson.getInstructor().equals(instructorName))
-                    .collect(Collectors.toList());
+            counters.putIfAbsent(instructorName, new int[3]);
+        }
 
-            int totalLessons = instructorLessons.size();
+        for (Lesson lesson : allLessons) {
+            int[] counter = counters.get(lesson.getInstructor());
+            if (counter == null) {
+                continue;
+            }
 
-            int todayLessons = (int) instructorLessons.stream()
-                    .filter(lesson -> lesson.getTime().toLocalDate().equals(today))
-                    .count();
+            LocalDate lessonDate = lesson.getTime().toLocalDate();
+            counter[0]++;
+            if (lessonDate.equals(today)) {
+                counter[1]++;
+            }
+            if (lessonDate.get(weekField) == currentWeek) {
+                counter[2]++;
+            }
+        }
 
-            int weekLessons = (int) instructorLessons.stream()
-                    .filter(lesson -> {
-                        LocalDate lessonDate = lesson.getTime().toLocalDate();
-                        int lessonWeek = lessonDate.get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear());
-                        return lessonWeek == currentWeek;
-                    })
-                    .count();
+        List<InstructorWorkloadStats> workloads = new ArrayList<>(instructorNames.size());
 
-            String status = determineInstructorStatus(todayLessons, weekLessons);
+        for (String instructorName : instructorNames) {
+            int[] counter = counters.get(instructorName);
+            String status = determineInstructorStatus(counter[1], counter[2]);
 
             workloads.add(new InstructorWorkloadStats(
-                    instructorName, totalLessons, todayLessons, weekLessons, status));
+                    instructorName, counter[0], counter[1], counter[2], status));
         }
 
         return workloads;
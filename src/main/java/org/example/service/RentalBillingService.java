@@ -0,0 +1,142 @@
+package org.example.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Розрахунок вартості прокату спорядження за тривалістю.
+ *
+ * При видачі клієнт платить базову ціну (транзакція rent_eq, BASE_CHARGE), яка покриває перший тариф.
+ * При поверненні за фактичною тривалістю обирається тариф; різниця понад базову ціну
+ * записується окремою транзакцією rent_overtime.
+ */
+public class RentalBillingService {
+
+    public static final double BASE_CHARGE = 20.0;
+    public static final String OVERTIME_TYPE = "rent_overtime";
+
+    // хвилини на повернення без переходу на наступний тариф
+    private static final long GRACE_MINUTES = 15;
+    // -Dskiservice.rentalOverdueHours: після скількох годин невернене спорядження вважається простроченим
+    private static final long DEFAULT_OVERDUE_HOURS = 8;
+    private static final double DAILY_RATE = 35.0;
+
+    private static final List<Tier> DEFAULT_TIERS = List.of(
+            new Tier("Half day", Duration.ofHours(4), BASE_CHARGE),
+            new Tier("Full day", Duration.ofHours(8), 30.0));
+
+    private final List<Tier> tiers;
+    private final double dailyRate;
+    private final Duration overdueAfter;
+
+    public RentalBillingService() {
+        this(DEFAULT_TIERS, DAILY_RATE,
+                Duration.ofHours(Long.getLong("skiservice.rentalOverdueHours", DEFAULT_OVERDUE_HOURS)));
+    }
+
+    /**
+     * @param tiers        тарифи за зростанням тривалості
+     * @param dailyRate    ціна за кожну розпочату добу, якщо прокат довший за останній тариф
+     * @param overdueAfter тривалість, після якої прокат прострочений
+     */
+    public RentalBillingService(List<Tier> tiers, double dailyRate, Duration overdueAfter) {
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("At least one tier is required");
+        }
+        this.tiers = List.copyOf(tiers);
+        this.dailyRate = dailyRate;
+        this.overdueAfter = overdueAfter;
+    }
+
+    /**
+     * @param rentedAt   час видачі; null для прокатів, виданих до появи rented_at - лише базова ціна
+     * @param returnedAt час повернення
+     */
+    public RentalCharge calculateCharge(LocalDateTime rentedAt, LocalDateTime returnedAt) {
+        if (rentedAt == null || returnedAt == null) {
+            return new RentalCharge(0, "Legacy", BASE_CHARGE);
+        }
+
+        long minutes = Math.max(0, Duration.between(rentedAt, returnedAt).toMinutes());
+        long billable = Math.max(0, minutes - GRACE_MINUTES);
+        for (Tier tier : tiers) {
+            if (billable <= tier.getUpTo().toMinutes()) {
+                return new RentalCharge(minutes, tier.getName(), tier.getPrice());
+            }
+        }
+
+        long days = (billable + Duration.ofDays(1).toMinutes() - 1) / Duration.ofDays(1).toMinutes();
+        return new RentalCharge(minutes, days == 1 ? "1 day" : days + " days", days * dailyRate);
+    }
+
+    /**
+     * Межа для запиту прострочених: усі прокати, видані раніше за цей момент.
+     */
+    public LocalDateTime overdueCutoff(LocalDateTime now) {
+        return now.minus(overdueAfter);
+    }
+
+    public boolean isOverdue(LocalDateTime rentedAt, LocalDateTime now) {
+        return rentedAt != null && rentedAt.isBefore(overdueCutoff(now));
+    }
+
+    public Duration getOverdueAfter() {
+        return overdueAfter;
+    }
+
+    public static class Tier {
+        private final String name;
+        private final Duration upTo;
+        private final double price;
+
+        public Tier(String name, Duration upTo, double price) {
+            this.name = name;
+            this.upTo = upTo;
+            this.price = price;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Duration getUpTo() {
+            return upTo;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+    }
+
+    public static class RentalCharge {
+        private final long minutes;
+        private final String tier;
+        private final double total;
+
+        public RentalCharge(long minutes, String tier, double total) {
+            this.minutes = minutes;
+            this.tier = tier;
+            this.total = total;
+        }
+
+        public long getMinutes() {
+            return minutes;
+        }
+
+        public String getTier() {
+            return tier;
+        }
+
+        public double getTotal() {
+            return total;
+        }
+
+        /**
+         * Доплата при поверненні понад уже сплачену базову ціну.
+         */
+        public double getOvertime() {
+            return Math.max(0, total - BASE_CHARGE);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.session;
+
+import org.example.model.User;
+
+import java.time.Instant;
+
+/**
+ * Сеанс одного входу: токен, користувач і час останнього звернення.
+ * Сеанс вважається простроченим, якщо до нього не зверталися довше за idleTimeout реєстру.
+ */
+public final class Session {
+    private final String token;
+    private final User user;
+    private final Instant createdAt;
+    private volatile long lastAccessMillis;
+
+    Session(String token, User user, long nowMillis) {
+        this.token = token;
+        this.user = user;
+        this.createdAt = Instant.ofEpochMilli(nowMillis);
+        this.lastAccessMillis = nowMillis;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public String getUsername() {
+        return user.getUsername();
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equals(user.getRole());
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getLastAccess() {
+        return Instant.ofEpochMilli(lastAccessMillis);
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    void touch(long nowMillis) {
+        // кілька потоків можуть торкатися одночасно - достатньо, щоб час не йшов назад
+        if (nowMillis > lastAccessMillis) {
+            lastAccessMillis = nowMillis;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.session;
+
+import org.example.Logger;
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+import org.example.model.User;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Реєстр активних сеансів: токен -> користувач, з ковзним терміном дії.
+ *
+ * Кожен вхід отримує власний випадковий токен, тому один процес (сервер або кілька кас)
+ * обслуговує багато користувачів одночасно. Прострочений сеанс не повертається з get()
+ * навіть до прибирання; sweep() лише звільняє пам'ять від покинутих сеансів.
+ */
+public final class SessionRegistry {
+    private static final Counter CREATED = Metrics.counter("sessions.created");
+    private static final Counter EXPIRED = Metrics.counter("sessions.expired");
+
+    // 32 байти = 256 біт випадковості, не вгадується перебором
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final long idleTimeoutMillis;
+    private final LongSupplier clockMillis;
+    private ScheduledExecutorService sweeper;
+
+    public SessionRegistry(Duration idleTimeout) {
+        this(idleTimeout, System::currentTimeMillis);
+    }
+
+    public SessionRegistry(Duration idleTimeout, LongSupplier clockMillis) {
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.clockMillis = clockMillis;
+    }
+
+    public Duration getIdleTimeout() {
+        return Duration.ofMillis(idleTimeoutMillis);
+    }
+
+    public Session create(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        Session session = new Session(ENCODER.encodeToString(bytes), user, clockMillis.getAsLong());
+        sessions.put(session.getToken(), session);
+        CREATED.increment();
+        return session;
+    }
+
+    /**
+     * @return активний сеанс (з продовженим терміном дії) або null, якщо токен невідомий чи прострочений
+     */
+    public Session get(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = clockMillis.getAsLong();
+        if (isExpired(session, now)) {
+            if (sessions.remove(token, session)) {
+                EXPIRED.increment();
+            }
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    public void invalidate(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Видаляє прострочені сеанси.
+     *
+     * @return кількість видалених
+     */
+    public int sweep() {
+        long now = clockMillis.getAsLong();
+        int removed = 0;
+        for (Session session : sessions.values()) {
+            if (isExpired(session, now) && sessions.remove(session.getToken(), session)) {
+                removed++;
+            }
+        }
+        EXPIRED.add(removed);
+        return removed;
+    }
+
+    public synchronized void startSweeper(Duration interval) {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long millis = interval.toMillis();
+        sweeper.scheduleWithFixedDelay(() -> {
+            int removed = sweep();
+            if (removed > 0) {
+                Logger.logSystemEvent("SESSION_SWEEP", "Expired sessions removed: " + removed);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopSweeper() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.getLastAccessMillis() > idleTimeoutMillis;
+    }
+}
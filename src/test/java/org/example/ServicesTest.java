@@ -997,6 +997,37 @@ class BusinessServicesTest {
             assertEquals(1, snowboardStats.get(0).getRentalsCount());
         }
 
+        @Test
+        void testCalculateEquipmentPopularityWithHistory() {
+            List<Equipment> equipment = Arrays.asList(
+                    new Equipment(1, "ski", "42", 3),
+                    new Equipment(2, "ski", "43", 5),
+                    new Equipment(3, "snowboard", "M", 2));
+            List<AnalyticsService.RentalCount> history = Arrays.asList(
+                    new AnalyticsService.RentalCount("ski", "43", 7),
+                    new AnalyticsService.RentalCount("Ski", "44", 2), // розмір, якого вже немає в equipment
+                    new AnalyticsService.RentalCount("snowboard", "M", 4),
+                    new AnalyticsService.RentalCount("sled", "L", 9));
+
+            var popularity = service.calculateEquipmentPopularityWithHistory(equipment, history);
+
+            var skiStats = popularity.getSkiStats();
+            assertEquals(3, skiStats.size());
+            assertEquals("43", skiStats.get(0).getSize());
+            assertEquals(7, skiStats.get(0).getRentalsCount());
+            assertEquals("44", skiStats.get(1).getSize());
+            assertEquals(2, skiStats.get(1).getRentalsCount());
+            assertEquals("42", skiStats.get(2).getSize());
+            assertEquals(0, skiStats.get(2).getRentalsCount());
+
+            assertEquals(1, popularity.getSnowboardStats().size());
+            assertEquals(4, popularity.getSnowboardStats().get(0).getRentalsCount());
+
+            var empty = service.calculateEquipmentPopularityWithHistory(null, null);
+            assertTrue(empty.getSkiStats().isEmpty());
+            assertTrue(empty.getSnowboardStats().isEmpty());
+        }
+
         @Test
         void testCalculateEquipmentPopularityWithNullInputs() {
             var popularity = service.calculateEquipmentPopularity(null, null);
@@ -1282,6 +1313,27 @@ class BusinessServicesTest {
             assertEquals(0, nullDateStats.getTotalLessons());
         }
 
+        @Test
+        void testCalculateInstructorWorkloadsKeepsOrderAndIgnoresUnknownInstructors() {
+            LocalDateTime today = LocalDateTime.now();
+
+            List<String> instructorNames = Arrays.asList("Olena", "Ivan", "Olena");
+            List<Lesson> allLessons = Arrays.asList(
+                    new Lesson(1, "user1", "Ivan", today),
+                    new Lesson(2, "user2", "Olena", today),
+                    new Lesson(3, "user3", "Unknown", today));
+
+            var workloads = service.calculateInstructorWorkloads(instructorNames, allLessons);
+
+            assertEquals(3, workloads.size());
+            assertEquals("Olena", workloads.get(0).getInstructorName());
+            assertEquals("Ivan", workloads.get(1).getInstructorName());
+            assertEquals("Olena", workloads.get(2).getInstructorName());
+            assertEquals(1, workloads.get(0).getTotalLessons());
+            assertEquals(1, workloads.get(1).getTodayLessons());
+            assertEquals(1, workloads.get(2).getWeekLessons());
+        }
+
         @Test
         void testCreateWorkloadTooltip() {
             var workload = new InstructorService.InstructorWorkloadStats("Ivan", 15, 3, 8, "Busy");
@@ -1380,6 +1432,158 @@ class BusinessServicesTest {
         }
     }
 
+    // ============= EQUIPMENT ALLOCATOR TESTS =============
+    @Nested
+    class EquipmentAllocatorTest {
+
+        private final List<Equipment> catalog = Arrays.asList(
+                new Equipment(1, "ski", "42", 1),
+                new Equipment(2, "ski", "43", 2),
+                new Equipment(3, "ski", "41", 1),
+                new Equipment(4, "ski", "45", 3),
+                new Equipment(5, "snowboard", "M", 0),
+                new Equipment(6, "snowboard", "L", 1),
+                new Equipment(7, "snowboard", "S", 1));
+
+        @Test
+        void testExactSizePreferred() {
+            var allocation = EquipmentAllocator.of(catalog).find("Ski", "42");
+            assertNotNull(allocation);
+            assertEquals(1, allocation.getEquipment().getId());
+            assertFalse(allocation.isSubstitute());
+        }
+
+        @Test
+        void testNearestSubstitutePrefersLargerSize() {
+            var allocation = EquipmentAllocator.of(catalog).find("snowboard", "M");
+            assertNotNull(allocation);
+            assertEquals("L", allocation.getEquipment().getSize());
+            assertTrue(allocation.isSubstitute());
+
+            var offers = EquipmentAllocator.of(catalog).offers("snowboard", "M", 5);
+            assertEquals(Arrays.asList(6, 7), offers.stream().map(Equipment::getId).toList());
+        }
+
+        @Test
+        void testNoSubstituteBeyondMaxStepOrAcrossScales() {
+            var allocator = EquipmentAllocator.of(catalog);
+            // 44 - сусіди 43 і 45 на відстані 1, перевага більшому
+            assertEquals("45", allocator.find("ski", "44").getEquipment().getSize());
+            assertNull(allocator.find("ski", "39"));
+            assertNull(allocator.find("ski", "XL"));
+            assertNull(allocator.find("sled", "42"));
+            assertNull(allocator.find("ski", "unknown"));
+
+            assertEquals(3, EquipmentAllocator.of(catalog, 2).find("ski", "39").getEquipment().getId());
+        }
+
+        @Test
+        void testStockChangesUpdateLongLivedIndex() {
+            var allocator = EquipmentAllocator.of(catalog);
+            // 42 видано - далі пропонується заміна, після повернення знову точний розмір
+            assertTrue(allocator.apply(1, -1));
+            assertEquals(2, allocator.find("ski", "42").getEquipment().getId());
+            assertTrue(allocator.apply(1, 1));
+            assertEquals(1, allocator.find("ski", "42").getEquipment().getId());
+
+            // позиція без залишку при побудові стає доступною після повернення
+            assertEquals(6, allocator.find("snowboard", "M").getEquipment().getId());
+            assertTrue(allocator.apply(5, 1));
+            assertEquals(5, allocator.find("snowboard", "M").getEquipment().getId());
+
+            // невідома позиція - сигнал перебудувати індекс
+            assertFalse(allocator.apply(99, 1));
+        }
+
+        @Test
+        void testPartyAllocationIsAllOrNothing() {
+            var allocator = EquipmentAllocator.of(catalog);
+            // 42 є лише один - другий учасник отримує заміну, а точний 43 лишається тому, хто його просив
+            var party = allocator.allocateParty(Arrays.asList(
+                    new EquipmentAllocator.Request("ski", "42"),
+                    new EquipmentAllocator.Request("ski", "42"),
+                    new EquipmentAllocator.Request("ski", "43"),
+                    new EquipmentAllocator.Request("snowboard", "M")));
+            assertTrue(party.isComplete());
+            assertEquals(Arrays.asList(1, 2, 2, 6), party.getEquipmentIds());
+            assertTrue(party.getAllocations().get(1).isSubstitute());
+            assertFalse(party.getAllocations().get(2).isSubstitute());
+
+            var tooBig = allocator.allocateParty(Arrays.asList(
+                    new EquipmentAllocator.Request("snowboard", "L"),
+                    new EquipmentAllocator.Request("snowboard", "L"),
+                    new EquipmentAllocator.Request("snowboard", "L")));
+            assertFalse(tooBig.isComplete());
+            assertTrue(tooBig.getAllocations().isEmpty());
+            assertEquals(2, tooBig.getUnmet().size());
+        }
+    }
+
+    // ============= RENTAL BILLING SERVICE TESTS =============
+    @Nested
+    class RentalBillingServiceTest {
+
+        private RentalBillingService service;
+        private final LocalDateTime rentedAt = LocalDateTime.of(2025, 1, 15, 9, 0);
+
+        @BeforeEach
+        void setUp() {
+            service = new RentalBillingService();
+        }
+
+        @Test
+        void testShortRentalIsCoveredByBaseCharge() {
+            var charge = service.calculateCharge(rentedAt, rentedAt.plusHours(2));
+            assertEquals(120, charge.getMinutes());
+            assertEquals("Half day", charge.getTier());
+            assertEquals(RentalBillingService.BASE_CHARGE, charge.getTotal());
+            assertEquals(0.0, charge.getOvertime());
+        }
+
+        @Test
+        void testGracePeriodKeepsTier() {
+            assertEquals("Half day", service.calculateCharge(rentedAt, rentedAt.plusMinutes(255)).getTier());
+            var charge = service.calculateCharge(rentedAt, rentedAt.plusMinutes(256));
+            assertEquals("Full day", charge.getTier());
+            assertEquals(30.0, charge.getTotal());
+            assertEquals(10.0, charge.getOvertime());
+        }
+
+        @Test
+        void testMultiDayRentalChargesStartedDays() {
+            var oneDay = service.calculateCharge(rentedAt, rentedAt.plusHours(10));
+            assertEquals("1 day", oneDay.getTier());
+            assertEquals(35.0, oneDay.getTotal());
+
+            var threeDays = service.calculateCharge(rentedAt, rentedAt.plusDays(2).plusHours(1));
+            assertEquals("3 days", threeDays.getTier());
+            assertEquals(105.0, threeDays.getTotal());
+            assertEquals(85.0, threeDays.getOvertime());
+        }
+
+        @Test
+        void testLegacyRentalWithoutStartTime() {
+            var charge = service.calculateCharge(null, rentedAt);
+            assertEquals("Legacy", charge.getTier());
+            assertEquals(RentalBillingService.BASE_CHARGE, charge.getTotal());
+            assertEquals(0.0, charge.getOvertime());
+        }
+
+        @Test
+        void testOverdueCutoff() {
+            var custom = new RentalBillingService(
+                    List.of(new RentalBillingService.Tier("Hour", java.time.Duration.ofHours(1), 20.0)),
+                    35.0, java.time.Duration.ofHours(2));
+            LocalDateTime now = rentedAt.plusHours(3);
+            assertEquals(rentedAt.plusHours(1), custom.overdueCutoff(now));
+            assertTrue(custom.isOverdue(rentedAt, now));
+            assertFalse(custom.isOverdue(rentedAt.plusHours(2), now));
+            assertFalse(custom.isOverdue(null, now));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new RentalBillingService(List.of(), 35.0, java.time.Duration.ofHours(2)));
+        }
+    }
+
     // ============= EQUIPMENT BUSINESS SERVICE ADDITIONAL TESTS =============
     @Nested
     class EquipmentBusinessServiceAdditionalTests {
@@ -13,15 +13,68 @@ import static org.junit.jupiter.api.Assertions.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.stage.Stage;
+import org.example.db.InstrumentedConnection;
+import org.example.db.LedgerPartitions;
+import org.example.db.QueryStats;
+import org.example.db.SlowQueryLog;
+import org.example.db.SqlNames;
+import org.example.db.StatementCache;
+import org.example.event.ChangeBus;
+import org.example.event.ChangeEvent;
+import org.example.io.CsvImporter;
+import org.example.io.CsvReader;
+import org.example.io.LedgerArchiver;
+import org.example.io.LedgerExporter;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.MetricsSnapshot;
+import org.example.metrics.StartupTracer;
 import org.example.model.*;
-
+import org.example.schedule.RefreshScheduler;
+import org.example.schedule.TimerWheel;
+import org.example.security.LoginRateLimiter;
+import org.example.security.LoginThrottledException;
+import org.example.security.PasswordHasher;
+import org.example.security.UsernameIndex;
+import org.example.server.ApiServer;
+import org.example.server.Json;
+import org.example.service.CredentialRules;
+import org.example.session.Session;
+import org.example.session.SessionRegistry;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 /**
  * Comprehensive unit tests focusing on business logic with proper JaCoCo
@@ -226,50 +279,48 @@ class ServicesTest {
             when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
             when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
             when(mockResultSet.next()).thenReturn(true);
+            // запис, створений до хешування паролів
+            when(mockResultSet.getString("password")).thenReturn("password");
             when(mockResultSet.getString("role")).thenReturn("USER");
 
             // Act
-            boolean result = Services.AuthService.login("testuser", "password");
+            Session session = Services.AuthService.login("testuser", "password");
 
             // Assert
-            assertTrue(result);
-            assertEquals("testuser", Services.AuthService.getCurrentUser().getUsername());
-            assertEquals("USER", Services.AuthService.getCurrentUser().getRole());
+            assertNotNull(session);
+            assertEquals("testuser", session.getUser().getUsername());
+            assertEquals("USER", session.getUser().getRole());
+            assertSame(session, Services.AuthService.getSession(session.getToken()));
 
             verify(mockPreparedStatement).setString(1, "testuser");
-            verify(mockPreparedStatement).setString(2, "password");
+            // пароль відкритим текстом перехешовується при вході
+            verify(mockPreparedStatement).setString(eq(1), startsWith("pbkdf2-sha256$"));
+            verify(mockPreparedStatement).setString(3, "password");
         }
 
         @Test
         void testLoginFailure() throws SQLException {
-            // Arrange - need to reset any previous currentUser using correct field name
-            try {
-                Field currentUserField = Services.AuthService.class.getDeclaredField("currentUser");
-                currentUserField.setAccessible(true);
-                currentUserField.set(null, null);
-            } catch (Exception e) {
-                // If field access fails, continue with test
-            }
-
+            // Arrange
+            int activeSessions = Services.AuthService.sessions().size();
             when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
             when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
             when(mockResultSet.next()).thenReturn(false);
 
             // Act
-            boolean result = Services.AuthService.login("wronguser", "wrongpass");
+            Session session = Services.AuthService.login("wronguser", "wrongpass");
 
             // Assert
-            assertFalse(result);
-            assertNull(Services.AuthService.getCurrentUser());
+            assertNull(session);
+            assertEquals(activeSessions, Services.AuthService.sessions().size());
         }
 
         @Test
         void testLoginWithNullCredentials() throws SQLException {
             // Act & Assert
-            assertFalse(Services.AuthService.login(null, "password"));
-            assertFalse(Services.AuthService.login("user", null));
-            assertFalse(Services.AuthService.login("", "password"));
-            assertFalse(Services.AuthService.login("user", ""));
+            assertNull(Services.AuthService.login(null, "password"));
+            assertNull(Services.AuthService.login("user", null));
+            assertNull(Services.AuthService.login("", "password"));
+            assertNull(Services.AuthService.login("user", ""));
         }
 
         @Test
@@ -284,7 +335,8 @@ class ServicesTest {
             // Assert
             assertTrue(result);
             verify(mockPreparedStatement).setString(1, "newuser");
-            verify(mockPreparedStatement).setString(2, "newpass");
+            verify(mockPreparedStatement).setString(eq(2), startsWith("pbkdf2-sha256$"));
+            verify(mockPreparedStatement, never()).setString(2, "newpass");
             verify(mockPreparedStatement).setString(3, "USER");
         }
 
@@ -325,13 +377,17 @@ class ServicesTest {
 
             // Mock for inserting booking
             PreparedStatement insertStmt = mock(PreparedStatement.class);
+            ResultSet keys = mock(ResultSet.class);
+            when(insertStmt.getGeneratedKeys()).thenReturn(keys);
+            when(keys.next()).thenReturn(true);
+            when(keys.getInt(1)).thenReturn(7);
 
             // Mock for transaction logging
             PreparedStatement transStmt = mock(PreparedStatement.class);
 
             when(mockConnection.prepareStatement(contains("COUNT(*)")))
                     .thenReturn(checkStmt);
-            when(mockConnection.prepareStatement(contains("INSERT INTO bookings")))
+            when(mockConnection.prepareStatement(contains("INSERT INTO bookings"), anyInt()))
                     .thenReturn(insertStmt);
             when(mockConnection.prepareStatement(contains("INSERT INTO trans")))
                     .thenReturn(transStmt);
@@ -396,6 +452,37 @@ class ServicesTest {
             verify(deleteStmt).setInt(1, 1);
         }
 
+        @Test
+        void testCancelCommitsOnceAndPublishesAfterCommit() throws SQLException {
+            // Arrange
+            PreparedStatement getUserStmt = mock(PreparedStatement.class);
+            ResultSet getUserRs = mock(ResultSet.class);
+            PreparedStatement deleteStmt = mock(PreparedStatement.class);
+            PreparedStatement transStmt = mock(PreparedStatement.class);
+            when(getUserStmt.executeQuery()).thenReturn(getUserRs);
+            when(getUserRs.next()).thenReturn(true);
+            when(getUserRs.getString("username")).thenReturn("user");
+            when(deleteStmt.executeUpdate()).thenReturn(1);
+            when(mockConnection.getAutoCommit()).thenReturn(true);
+            when(mockConnection.prepareStatement(contains("SELECT username"))).thenReturn(getUserStmt);
+            when(mockConnection.prepareStatement(contains("DELETE FROM bookings"))).thenReturn(deleteStmt);
+            when(mockConnection.prepareStatement(contains("INSERT INTO trans"))).thenReturn(transStmt);
+
+            List<String> order = new ArrayList<>();
+            doAnswer(inv -> order.add("commit")).when(mockConnection).commit();
+            try (ChangeBus.Subscription ignored = Services.events().subscribe(
+                    ChangeEvent.BookingCancelled.class, e -> order.add("event"))) {
+                // Act
+                assertDoesNotThrow(() -> Services.BookingService.cancel(1));
+            }
+
+            // Assert - запис у trans увійшов у ту саму транзакцію, подія - після фіксації
+            assertEquals(List.of("commit", "event"), order);
+            verify(mockConnection).setAutoCommit(false);
+            verify(mockConnection).setAutoCommit(true);
+            verify(mockConnection, never()).rollback();
+        }
+
         @Test
         void testTransferBooking() throws SQLException {
             // Arrange
@@ -472,8 +559,10 @@ class ServicesTest {
             // Act
             assertDoesNotThrow(() -> Services.EquipmentService.rent(1, "user"));
 
-            // Assert
-            verify(mockPreparedStatement, times(3)).executeUpdate();
+            // Assert - equipment, equipment_rent, rental_events, rental_popularity, trans
+            verify(mockPreparedStatement, times(5)).executeUpdate();
+            verify(mockConnection).prepareStatement(contains("INSERT INTO rental_events"));
+            verify(mockConnection).prepareStatement(contains("ON CONFLICT(day,type,size)"));
         }
 
         @Test
@@ -500,29 +589,123 @@ class ServicesTest {
         @Test
         void testReturnEquipment() throws SQLException {
             // Arrange
+            PreparedStatement findStmt = mock(PreparedStatement.class);
             PreparedStatement updateStmt = mock(PreparedStatement.class);
             PreparedStatement deleteStmt = mock(PreparedStatement.class);
+            PreparedStatement historyStmt = mock(PreparedStatement.class);
             PreparedStatement transStmt = mock(PreparedStatement.class);
 
             when(deleteStmt.executeUpdate()).thenReturn(1);
 
+            when(mockConnection.prepareStatement(contains("SELECT id, rented_at FROM equipment_rent")))
+                    .thenReturn(findStmt);
+            when(findStmt.executeQuery()).thenReturn(mockResultSet);
+            when(mockResultSet.next()).thenReturn(true);
+            when(mockResultSet.getInt("id")).thenReturn(7);
+            // прокат, виданий до появи rented_at
+            when(mockResultSet.getString("rented_at")).thenReturn(null);
             when(mockConnection.prepareStatement(contains("UPDATE equipment")))
                     .thenReturn(updateStmt);
             when(mockConnection.prepareStatement(contains("DELETE FROM equipment_rent")))
                     .thenReturn(deleteStmt);
+            when(mockConnection.prepareStatement(contains("INSERT INTO rental_history")))
+                    .thenReturn(historyStmt);
             when(mockConnection.prepareStatement(contains("INSERT INTO trans")))
                     .thenReturn(transStmt);
 
             // Act
             assertDoesNotThrow(() -> Services.EquipmentService.ret(1, "user"));
 
-            // Assert - 3 executeUpdate calls: update equipment, delete rental, log
-            // transaction
+            // Assert - update equipment, delete the found rental, history row, one ledger entry
             verify(updateStmt).executeUpdate();
+            verify(deleteStmt).setInt(1, 7);
             verify(deleteStmt).executeUpdate();
+            verify(historyStmt).setDouble(7, 20.0);
+            verify(historyStmt).executeUpdate();
             verify(transStmt).executeUpdate();
         }
 
+        @Test
+        void testReturnEquipmentChargesOvertime() throws SQLException {
+            // Arrange
+            PreparedStatement transStmt = mock(PreparedStatement.class);
+            String rentedAt = LocalDateTime.now().minusHours(6).withNano(0)
+                    .format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"));
+
+            when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+            when(mockConnection.prepareStatement(contains("INSERT INTO trans"))).thenReturn(transStmt);
+            when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+            when(mockResultSet.next()).thenReturn(true);
+            when(mockResultSet.getInt("id")).thenReturn(7);
+            when(mockResultSet.getString("rented_at")).thenReturn(rentedAt);
+
+            // Act
+            assertDoesNotThrow(() -> Services.EquipmentService.ret(1, "user"));
+
+            // Assert - 6 годин: тариф "Full day" 30, доплата 10 понад сплачені при видачі 20
+            verify(mockPreparedStatement).setDouble(7, 30.0);
+            verify(transStmt).setString(2, "return_eq");
+            verify(transStmt).setString(2, "rent_overtime");
+            verify(transStmt).setDouble(3, 10.0);
+            verify(transStmt, times(2)).executeUpdate();
+        }
+
+        @Test
+        void testReturnWithoutRentalChangesNothing() throws SQLException {
+            // Arrange
+            when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+            when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+            when(mockResultSet.next()).thenReturn(false);
+
+            // Act
+            assertDoesNotThrow(() -> Services.EquipmentService.ret(1, "user"));
+
+            // Assert
+            verify(mockPreparedStatement, never()).executeUpdate();
+        }
+
+        @Test
+        void testHoldFailsWhenNoneAvailable() throws SQLException {
+            // Arrange - умовний UPDATE ... AND available>0 не змінив жодного рядка
+            when(mockConnection.prepareStatement(contains("available>0"))).thenReturn(mockPreparedStatement);
+            when(mockPreparedStatement.executeUpdate()).thenReturn(0);
+
+            // Act & Assert
+            SQLException ex = assertThrows(SQLException.class, () -> Services.EquipmentService.hold(1, "user"));
+            assertEquals("None available", ex.getMessage());
+            verify(mockConnection, never()).prepareStatement(contains("INSERT INTO equipment_holds"), anyInt());
+        }
+
+        @Test
+        void testHoldPartyRollsBackWhenAnyItemIsGone() throws SQLException {
+            // Arrange - позиція 1 утримана (дві одиниці), позиції 2 вже немає
+            when(mockConnection.getAutoCommit()).thenReturn(true);
+            when(mockConnection.prepareStatement(contains("available>=?"))).thenReturn(mockPreparedStatement);
+            when(mockPreparedStatement.executeUpdate()).thenReturn(1, 0);
+
+            // Act & Assert
+            assertThrows(SQLException.class,
+                    () -> Services.EquipmentService.holdParty(List.of(1, 1, 2), "user"));
+            verify(mockPreparedStatement).setInt(1, 2);
+            verify(mockConnection).rollback();
+            verify(mockConnection, never()).commit();
+            verify(mockConnection).setAutoCommit(true);
+        }
+
+        @Test
+        void testConfirmExpiredHoldFails() throws SQLException {
+            // Arrange - рядок утримання вже видалено тайм-аутом
+            when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+            when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+            when(mockResultSet.next()).thenReturn(false);
+
+            // Act & Assert
+            SQLException ex = assertThrows(SQLException.class,
+                    () -> Services.EquipmentService.confirmHold(5, "user"));
+            assertEquals(Services.EquipmentService.HOLD_EXPIRED, ex.getMessage());
+            verify(mockPreparedStatement, never()).executeUpdate();
+        }
+
         @Test
         void testListAllEquipment() throws SQLException {
             // Arrange
@@ -554,6 +737,7 @@ class ServicesTest {
             when(mockResultSet.getString("type")).thenReturn("ski", "snowboard");
             when(mockResultSet.getString("size")).thenReturn("42", "M");
             when(mockResultSet.getString("username")).thenReturn("user", "user");
+            when(mockResultSet.getString("rented_at")).thenReturn("2025-01-15T09:30:00", null);
 
             // Act
             ObservableList<UserRental> rentals = Services.EquipmentService.getCurrentRentals("user");
@@ -563,6 +747,8 @@ class ServicesTest {
             assertEquals("ski", rentals.get(0).getType());
             assertEquals("42", rentals.get(0).getSize());
             assertEquals("user", rentals.get(0).getUsername());
+            assertEquals("2025-01-15 09:30", rentals.get(0).getRentedSince());
+            assertEquals("Active", rentals.get(1).getRentedSince());
         }
 
         @Test
@@ -584,6 +770,7 @@ class ServicesTest {
             when(mockResultSet.getString("type")).thenReturn("ski");
             when(mockResultSet.getString("size")).thenReturn("42");
             when(mockResultSet.getString("username")).thenReturn("user");
+            when(mockResultSet.getString("rented_at")).thenReturn(null);
 
             // Act
             ObservableList<UserRental> rentals = Services.EquipmentService.getAllCurrentRentals();
@@ -625,25 +812,39 @@ class ServicesTest {
             PreparedStatement checkStmt = mock(PreparedStatement.class);
             ResultSet checkRs = mock(ResultSet.class);
             PreparedStatement insertStmt = mock(PreparedStatement.class);
+            ResultSet keys = mock(ResultSet.class);
             PreparedStatement transStmt = mock(PreparedStatement.class);
 
             when(checkStmt.executeQuery()).thenReturn(checkRs);
             when(checkRs.next()).thenReturn(true);
             when(checkRs.getInt(1)).thenReturn(0); // No conflicts
+            when(insertStmt.getGeneratedKeys()).thenReturn(keys);
+            when(keys.next()).thenReturn(true);
+            when(keys.getInt(1)).thenReturn(12);
 
             when(mockConnection.prepareStatement(contains("COUNT(*)")))
                     .thenReturn(checkStmt);
-            when(mockConnection.prepareStatement(contains("INSERT INTO lessons")))
+            when(mockConnection.prepareStatement(contains("INSERT INTO lessons"), anyInt()))
                     .thenReturn(insertStmt);
             when(mockConnection.prepareStatement(contains("INSERT INTO trans")))
                     .thenReturn(transStmt);
 
+            List<ChangeEvent.LessonBooked> booked = new ArrayList<>();
+            var subscription = Services.events().subscribe(ChangeEvent.LessonBooked.class, booked::add);
+
             // Act
-            assertDoesNotThrow(() -> Services.InstructorService.book("Ivan", "user", time));
+            try {
+                assertDoesNotThrow(() -> Services.InstructorService.book("Ivan", "user", time));
+            } finally {
+                subscription.close();
+            }
 
             // Assert - instructor name is set once for conflict check
             verify(checkStmt).setString(1, "Ivan");
             verify(insertStmt).setString(2, "Ivan"); // instructor set in insert statement
+            assertEquals(1, booked.size());
+            assertEquals(12, booked.get(0).getLesson().getId());
+            assertEquals("Ivan", booked.get(0).getLesson().getInstructor());
         }
 
         @Test
@@ -758,9 +959,14 @@ class ServicesTest {
 
         @Test
         void testListAllTransactions() throws SQLException {
-            // Arrange
-            when(mockConnection.createStatement()).thenReturn(mockStatement);
-            when(mockStatement.executeQuery(anyString())).thenReturn(mockResultSet);
+            // Arrange - архівів немає, читається лише trans
+            PreparedStatement registryStmt = mock(PreparedStatement.class);
+            ResultSet noArchives = mock(ResultSet.class);
+            when(mockConnection.prepareStatement(contains("FROM trans_partitions"))).thenReturn(registryStmt);
+            when(registryStmt.executeQuery()).thenReturn(noArchives);
+            when(mockConnection.prepareStatement("SELECT * FROM trans WHERE 1=1 ORDER BY id"))
+                    .thenReturn(mockPreparedStatement);
+            when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
             when(mockResultSet.next()).thenReturn(true, true, false);
             when(mockResultSet.getInt("id")).thenReturn(1, 2);
             when(mockResultSet.getString("username")).thenReturn("user1", "user2");
@@ -877,11 +1083,84 @@ class LoggerTest {
     @Test
     void testLoginEdgeCases() throws SQLException {
         // Test case where credentials are null/empty (should hit the early return)
-        assertFalse(Services.AuthService.login(null, "pass"));
-        assertFalse(Services.AuthService.login("", "pass"));
-        assertFalse(Services.AuthService.login("user", null));
-        assertFalse(Services.AuthService.login("user", ""));
-        assertFalse(Services.AuthService.login("  ", "pass")); // Whitespace only
+        assertNull(Services.AuthService.login(null, "pass"));
+        assertNull(Services.AuthService.login("", "pass"));
+        assertNull(Services.AuthService.login("user", null));
+        assertNull(Services.AuthService.login("user", ""));
+        assertNull(Services.AuthService.login("  ", "pass")); // Whitespace only
+    }
+
+    @Test
+    void testInitDBSkipsSchemaWhenVersionMatches() throws Exception {
+        Path dir = Files.createTempDirectory("schema-version");
+        String db = dir.resolve("skiservice.db").toString();
+        try {
+            Services.initDB(db);
+            try (Statement s = Services.getConnection().createStatement()) {
+                ResultSet rs = s.executeQuery("PRAGMA user_version");
+                assertTrue(rs.next());
+                assertEquals(Services.SCHEMA_VERSION, rs.getInt(1));
+                // таблиця, якої не відтворить повторний запуск, якщо DDL пропущено
+                s.execute("DROP TABLE rental_popularity");
+            }
+            Services.closeDB();
+
+            Services.initDB(db);
+            try (Statement s = Services.getConnection().createStatement()) {
+                assertFalse(s.executeQuery(
+                        "SELECT name FROM sqlite_master WHERE name='rental_popularity'").next());
+                s.execute("PRAGMA user_version = 0");
+            }
+            Services.closeDB();
+
+            // застаріла версія - схема створюється знову
+            Services.initDB(db);
+            try (Statement s = Services.getConnection().createStatement()) {
+                assertTrue(s.executeQuery(
+                        "SELECT name FROM sqlite_master WHERE name='rental_popularity'").next());
+            }
+        } finally {
+            Services.closeDB();
+            Files.deleteIfExists(dir.resolve("skiservice.db"));
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    void testOpenDBLeavesDataAndHoldsAlone() throws Exception {
+        Path dir = Files.createTempDirectory("open-db");
+        String db = dir.resolve("skiservice.db").toString();
+        try {
+            // нова БД: схема є, початкових даних немає
+            Services.openDB(db);
+            try (Statement s = Services.getConnection().createStatement()) {
+                ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM users");
+                assertTrue(rs.next());
+                assertEquals(0, rs.getInt(1));
+            }
+            Services.closeDB();
+
+            Services.initDB(db);
+            try (Statement s = Services.getConnection().createStatement()) {
+                s.executeUpdate("UPDATE equipment SET available=available-1 WHERE id=1");
+                s.executeUpdate("INSERT INTO equipment_holds(eq_id,username,expires_at) VALUES(1,'user','"
+                        + LocalDateTime.now().minusHours(1) + "')");
+            }
+            Services.closeDB();
+
+            // прострочене утримання знімає лише застосунок (initDB), не утиліта
+            Services.openDB(db);
+            try (Statement s = Services.getConnection().createStatement()) {
+                assertTrue(s.executeQuery("SELECT 1 FROM equipment_holds").next());
+                ResultSet rs = s.executeQuery("SELECT available, total FROM equipment WHERE id=1");
+                assertTrue(rs.next());
+                assertEquals(rs.getInt("total") - 1, rs.getInt("available"));
+            }
+        } finally {
+            Services.closeDB();
+            Files.deleteIfExists(dir.resolve("skiservice.db"));
+            Files.deleteIfExists(dir);
+        }
     }
 
     @Test
@@ -932,4 +1211,1303 @@ class LoggerTest {
         assertDoesNotThrow(() -> Services.BookingService.transfer(999, "9-13", LocalDateTime.now()));
     }
 
-}
\ No newline at end of file
+}
+// ============= METRICS TESTS =============
+class MetricsTest {
+
+    @Test
+    void testHistogramBucketPrecisionAcrossRange() {
+        long[] values = { 0, 1, 15, 16, 17, 31, 32, 1_000, 123_456, 10_000_000_000L, Long.MAX_VALUE / 2 };
+        for (long value : values) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            histogram.record(Long.MAX_VALUE);
+
+            // p50 - верхня межа кошика, в який потрапило value
+            long bucketUpper = histogram.snapshot().getPercentileNanos(50);
+            assertTrue(bucketUpper >= value);
+            assertTrue(bucketUpper <= value + value / 16 + 1);
+        }
+    }
+
+    @Test
+    void testHistogramPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMaxNanos());
+        assertEquals(500_500, snapshot.getMeanNanos(), 0.001);
+        assertEquals(500_000, snapshot.getPercentileNanos(50), 500_000 * 0.07);
+        assertEquals(990_000, snapshot.getPercentileNanos(99), 990_000 * 0.07);
+        assertEquals(1_000_000, snapshot.getPercentileNanos(100));
+    }
+
+    @Test
+    void testHistogramCountsRecordsFromManyThreads() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80_000, histogram.snapshot().getCount());
+        assertEquals(9_999, histogram.snapshot().getMaxNanos());
+    }
+
+    @Test
+    void testEmptyHistogramSnapshot() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getPercentileNanos(99));
+        assertEquals(0.0, snapshot.getMeanNanos());
+    }
+
+    @Test
+    void testRegistrySnapshotAndFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("logins").increment();
+        registry.counter("logins").add(2);
+        registry.gauge("sessions", () -> 4);
+        registry.gauge("broken", () -> {
+            throw new IllegalStateException("no value");
+        });
+        registry.histogram("BookingService.book").record(2_000);
+
+        assertSame(registry.counter("logins"), registry.counter("logins"));
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals(3L, snapshot.getCounters().get("logins").longValue());
+        assertEquals(4.0, snapshot.getGauges().get("sessions").doubleValue());
+        assertTrue(Double.isNaN(snapshot.getGauges().get("broken")));
+        assertEquals(1, snapshot.getHistograms().get("BookingService.book").getCount());
+
+        String text = snapshot.format();
+        assertTrue(text.contains("counter logins 3"));
+        assertTrue(text.contains("gauge sessions 4.00"));
+        assertTrue(text.contains("timer BookingService.book count=1"));
+    }
+
+    @Test
+    void testServicesCallsAreTimed() {
+        long before = Metrics.histogram("BookingService.countAll").snapshot().getCount();
+        Services.BookingService.countAll();
+        assertEquals(before + 1, Metrics.histogram("BookingService.countAll").snapshot().getCount());
+    }
+}
+
+// ============= JDBC INSTRUMENTATION TESTS =============
+class InstrumentedConnectionTest {
+
+    @Test
+    void testDelegatesAndEmitsDatabaseCallEvents() throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement query = mock(PreparedStatement.class);
+        PreparedStatement update = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(connection.prepareStatement("SELECT * FROM bookings WHERE username=?")).thenReturn(query);
+        when(connection.prepareStatement("UPDATE equipment SET available=available-1 WHERE id=?")).thenReturn(update);
+        when(query.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true, true, false);
+        when(update.executeUpdate()).thenReturn(1);
+
+        Connection wrapped = InstrumentedConnection.wrap(connection);
+        Path file = Files.createTempFile("db-calls", ".jfr");
+        try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+            recording.enable("org.example.DatabaseCall");
+            recording.start();
+
+            try (PreparedStatement p = wrapped.prepareStatement("SELECT * FROM bookings WHERE username=?")) {
+                p.setString(1, "bob");
+                ResultSet result = p.executeQuery();
+                while (result.next()) {
+                    // читаємо всі рядки
+                }
+            }
+            try (PreparedStatement p = wrapped.prepareStatement(
+                    "UPDATE equipment SET available=available-1 WHERE id=?")) {
+                p.setInt(1, 7);
+                assertEquals(1, p.executeUpdate());
+            }
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        verify(query).setString(1, "bob");
+        verify(query).close();
+        verify(update).setInt(1, 7);
+
+        List<jdk.jfr.consumer.RecordedEvent> events = jdk.jfr.consumer.RecordingFile.readAllEvents(file);
+        Files.deleteIfExists(file);
+        assertEquals(2, events.size());
+        assertEquals("SELECT bookings", events.get(0).getString("statement"));
+        assertEquals(2, events.get(0).getInt("rows"));
+        assertEquals("UPDATE equipment", events.get(1).getString("statement"));
+        assertEquals(1, events.get(1).getInt("rows"));
+    }
+
+    @Test
+    void testSlowLogRedactsParametersByDefault() {
+        List<Object> params = new ArrayList<>();
+        params.add("bob");
+        params.add(7);
+        params.add(null);
+        String sql = "SELECT * FROM bookings WHERE username=? AND id=? AND slot=?";
+
+        assertEquals("[String, Integer, null]", SlowQueryLog.formatParams(sql, params, false));
+        assertEquals("[bob, 7, null]", SlowQueryLog.formatParams(sql, params, true));
+        // облікові дані не потрапляють у файл навіть з -Dskiservice.slowlog.params=true
+        assertEquals("[String, String]", SlowQueryLog.formatParams(
+                "UPDATE users SET password=? WHERE username=?", List.of("pbkdf2$...", "bob"), true));
+        assertEquals("[String]", SlowQueryLog.formatParams(
+                "SELECT password, role FROM Users WHERE username=?", List.of("bob"), true));
+    }
+
+    @Test
+    void testQueryStatsGroupByShapeAndCaptureQueryPlan() throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement query = mock(PreparedStatement.class);
+        PreparedStatement explain = mock(PreparedStatement.class);
+        ResultSet rows = mock(ResultSet.class);
+        ResultSet plan = mock(ResultSet.class);
+        String sql = "SELECT COUNT(*) FROM lessons WHERE username=?";
+        when(connection.prepareStatement(sql)).thenReturn(query);
+        when(connection.prepareStatement("EXPLAIN QUERY PLAN " + sql)).thenReturn(explain);
+        when(query.executeQuery()).thenReturn(rows);
+        when(rows.next()).thenReturn(true, false, true, false);
+        when(explain.executeQuery()).thenReturn(plan);
+        when(plan.next()).thenReturn(true, false);
+        when(plan.getString("detail")).thenReturn("SCAN lessons");
+
+        QueryStats.reset();
+        Connection wrapped = InstrumentedConnection.wrap(connection);
+        for (String user : new String[] { "bob", "alice" }) {
+            try (PreparedStatement p = wrapped.prepareStatement(sql)) {
+                p.setString(1, user);
+                ResultSet rs = p.executeQuery();
+                while (rs.next()) {
+                    assertNotNull(rs);
+                }
+            }
+        }
+
+        List<QueryStats.Shape> shapes = QueryStats.snapshot();
+        assertEquals(1, shapes.size());
+        QueryStats.Shape shape = shapes.get(0);
+        assertEquals("SELECT lessons", shape.getName());
+        assertEquals(2, shape.getLatency().getCount());
+        assertEquals(2, shape.getRows());
+        assertEquals("SCAN lessons", shape.getPlan());
+        assertTrue(shape.isFullScan());
+        // план знімається лише один раз на форму запиту
+        verify(explain, times(1)).executeQuery();
+        verify(explain).setObject(1, "bob");
+        assertTrue(QueryStats.report().contains("SELECT lessons"));
+        QueryStats.reset();
+    }
+
+    @Test
+    void testQueryShapeReplacesLiterals() {
+        assertEquals("SELECT * FROM trans WHERE amount > ? AND type = ?",
+                QueryStats.shapeOf("SELECT *  FROM trans\n WHERE amount > 50.5 AND type = 'it''s'"));
+    }
+
+    @Test
+    void testShortNames() {
+        assertEquals("SELECT lessons", SqlNames.shortName("SELECT COUNT(*) FROM lessons WHERE username=?"));
+        assertEquals("INSERT trans", SqlNames.shortName("INSERT INTO trans(username,type) VALUES(?,?)"));
+        assertEquals("DELETE equipment_rent",
+                SqlNames.shortName("DELETE FROM equipment_rent WHERE eq_id=?"));
+        assertEquals("SELECT equipment_rent", SqlNames.shortName(
+                "SELECT er.eq_id, e.type FROM equipment_rent er JOIN equipment e ON er.eq_id = e.id"));
+        assertEquals("PRAGMA foreign_keys", SqlNames.shortName("PRAGMA foreign_keys = ON;"));
+        assertEquals("CREATE", SqlNames.shortName("  CREATE TABLE IF NOT EXISTS users(id INTEGER)"));
+    }
+}
+
+// ============= STATEMENT CACHE TESTS =============
+class StatementCacheTest {
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM bookings WHERE username=?";
+    private static final String INSERT_SQL = "INSERT INTO trans(username,type,amount,time) VALUES(?,?,?,?)";
+
+    @Test
+    void testReusesStatementForSameSql() throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement physical = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(connection.prepareStatement(COUNT_SQL)).thenReturn(physical);
+        when(physical.executeQuery()).thenReturn(rs);
+
+        Connection cached = StatementCache.wrap(connection, 8);
+        for (String user : new String[] { "bob", "alice", "carol" }) {
+            try (PreparedStatement p = cached.prepareStatement(COUNT_SQL)) {
+                p.setString(1, user);
+                p.executeQuery();
+            }
+        }
+
+        verify(connection, times(1)).prepareStatement(COUNT_SQL);
+        verify(physical, times(3)).clearParameters();
+        // ResultSet, залишений відкритим, закривається при поверненні запиту в кеш
+        verify(rs, times(3)).close();
+        verify(physical, never()).close();
+    }
+
+    @Test
+    void testConcurrentUsersGetSeparateStatements() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(COUNT_SQL)).thenAnswer(inv -> mock(PreparedStatement.class));
+
+        Connection cached = StatementCache.wrap(connection, 8);
+        PreparedStatement first = cached.prepareStatement(COUNT_SQL);
+        PreparedStatement second = cached.prepareStatement(COUNT_SQL);
+        first.close();
+        second.close();
+        cached.prepareStatement(COUNT_SQL).close();
+
+        verify(connection, times(2)).prepareStatement(COUNT_SQL);
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedAndClosesOnConnectionClose() throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement count = mock(PreparedStatement.class);
+        PreparedStatement insert = mock(PreparedStatement.class);
+        when(connection.prepareStatement(COUNT_SQL)).thenReturn(count);
+        when(connection.prepareStatement(INSERT_SQL)).thenReturn(insert);
+
+        Connection cached = StatementCache.wrap(connection, 1);
+        cached.prepareStatement(COUNT_SQL).close();
+        cached.prepareStatement(INSERT_SQL).close();
+        verify(count).close();
+        verify(insert, never()).close();
+
+        cached.close();
+        verify(insert).close();
+        verify(connection).close();
+    }
+
+    @Test
+    void testClosedHandleCannotBeUsed() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(COUNT_SQL)).thenReturn(mock(PreparedStatement.class));
+
+        PreparedStatement p = StatementCache.wrap(connection, 4).prepareStatement(COUNT_SQL);
+        p.close();
+        assertTrue(p.isClosed());
+        assertThrows(SQLException.class, () -> p.setString(1, "bob"));
+        assertDoesNotThrow(p::close);
+    }
+
+    @Test
+    void testZeroSizeDisablesCache() {
+        Connection connection = mock(Connection.class);
+        assertSame(connection, StatementCache.wrap(connection, 0));
+    }
+}
+
+// ============= API JSON TESTS =============
+class ApiJsonTest {
+
+    @Test
+    void testWritesNestedStructures() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", 7);
+        body.put("user", "o\"neil\n");
+        body.put("amount", 50.0);
+        body.put("time", LocalDateTime.of(2024, 1, 15, 10, 0));
+        body.put("tags", List.of("ski", true));
+        body.put("none", null);
+
+        assertEquals("{\"id\":7,\"user\":\"o\\\"neil\\n\",\"amount\":50.0,\"time\":\"2024-01-15T10:00\","
+                + "\"tags\":[\"ski\",true],\"none\":null}", Json.write(body));
+    }
+
+    @Test
+    void testParsesRequestBody() {
+        Map<String, Object> body = Json.parseObject(
+                " {\"user\":\"bob\\u0021\",\"equipmentId\":12,\"price\":-1.5e1,\"ok\":false,\"list\":[1,{}]} ");
+
+        assertEquals("bob!", body.get("user"));
+        assertEquals(12L, body.get("equipmentId"));
+        assertEquals(-15.0, body.get("price"));
+        assertEquals(Boolean.FALSE, body.get("ok"));
+        assertEquals(List.of(1L, Map.of()), body.get("list"));
+        assertTrue(Json.parseObject("").isEmpty());
+    }
+
+    @Test
+    void testRejectsMalformedJson() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"a\":1"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"a\":1} x"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("[1,2]"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{a:1}"));
+    }
+}
+
+// ============= API SERVER TESTS =============
+class ApiServerTest {
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    private final CountDownLatch writeEntered = new CountDownLatch(1);
+    private final CountDownLatch releaseWrite = new CountDownLatch(1);
+    private final List<String> tokens = new ArrayList<>();
+    private ApiServer server;
+    private String base;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // справжній сервер з маршрутами ApiRoutes і тестовими маршрутами поруч, порт - будь-який вільний
+        server = new ApiServer(0, 16);
+        server.get("/test/items/{id}", req -> Map.of("id", req.pathInt("id")));
+        server.post("/test/acting", req -> Map.of("user", req.actingUser()));
+        server.get("/test/conflict", req -> {
+            throw new SQLException("Slot is already booked");
+        });
+        server.get("/test/crash", req -> {
+            throw new IllegalStateException("boom");
+        });
+        server.get("/test/throttled", req -> {
+            throw new LoginThrottledException("Too many login attempts", Duration.ofMillis(1500));
+        });
+        server.post("/test/slow-write", req -> {
+            writeEntered.countDown();
+            assertTrue(releaseWrite.await(5, TimeUnit.SECONDS));
+            return Map.of("status", "ok");
+        });
+        server.post("/test/write", req -> Map.of("status", "ok"));
+        server.postUnlocked("/test/unlocked", req -> Map.of("status", "ok"));
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseWrite.countDown();
+        server.stop(0);
+        tokens.forEach(Services.AuthService.sessions()::invalidate);
+    }
+
+    private String token(String username, String role) {
+        String token = Services.AuthService.sessions().create(new User(username, role)).getToken();
+        tokens.add(token);
+        return token;
+    }
+
+    private HttpRequest request(String method, String path, String token, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + path))
+                .timeout(Duration.ofSeconds(5))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<String> send(String method, String path, String token, String body) throws Exception {
+        return CLIENT.send(request(method, path, token, body), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private CompletableFuture<HttpResponse<String>> sendAsync(String method, String path) {
+        return CLIENT.sendAsync(request(method, path, null, "{}"), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Object actingUser(String token, String body) throws Exception {
+        return Json.parseObject(send("POST", "/test/acting", token, body).body()).get("user");
+    }
+
+    @Test
+    void testRoutingAndPathParameters() throws Exception {
+        HttpResponse<String> health = send("GET", "/api/health", null, null);
+        assertEquals(200, health.statusCode());
+        assertEquals(Map.of("status", "ok"), Json.parseObject(health.body()));
+
+        assertEquals(Map.of("id", 42L), Json.parseObject(send("GET", "/test/items/42", null, null).body()));
+        assertEquals(400, send("GET", "/test/items/abc", null, null).statusCode());
+        assertEquals(404, send("GET", "/api/nothing", null, null).statusCode());
+        assertEquals(405, send("POST", "/api/health", null, "{}").statusCode());
+    }
+
+    @Test
+    void testSessionAndAdminChecks() throws Exception {
+        String user = token("alice", "USER");
+        String admin = token("root", "ADMIN");
+
+        assertEquals(401, send("GET", "/api/metrics", null, null).statusCode());
+        assertEquals(401, send("GET", "/api/metrics", "no-such-token", null).statusCode());
+        assertEquals(403, send("GET", "/api/metrics", user, null).statusCode());
+        HttpResponse<String> metrics = send("GET", "/api/metrics", admin, null);
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+        assertEquals(401, send("POST", "/api/logout", null, "{}").statusCode());
+
+        // звичайний користувач не може діяти від чужого імені, адміністратор - може
+        assertEquals("alice", actingUser(user, "{\"user\":\"bob\"}"));
+        assertEquals("bob", actingUser(admin, "{\"user\":\"bob\"}"));
+        assertEquals("root", actingUser(admin, "{}"));
+    }
+
+    @Test
+    void testExceptionsMapToStatusCodes() throws Exception {
+        HttpResponse<String> conflict = send("GET", "/test/conflict", null, null);
+        assertEquals(409, conflict.statusCode());
+        assertEquals(Map.of("error", "Slot is already booked"), Json.parseObject(conflict.body()));
+
+        HttpResponse<String> crash = send("GET", "/test/crash", null, null);
+        assertEquals(500, crash.statusCode());
+        // текст виключення клієнту не віддається
+        assertEquals(Map.of("error", "Internal error"), Json.parseObject(crash.body()));
+
+        HttpResponse<String> throttled = send("GET", "/test/throttled", null, null);
+        assertEquals(429, throttled.statusCode());
+        assertEquals("2", throttled.headers().firstValue("Retry-After").orElse(null));
+
+        assertEquals(400, send("POST", "/test/write", null, "{\"a\":").statusCode());
+        assertEquals(413, send("POST", "/test/write", null, "x".repeat(64 * 1024 + 1)).statusCode());
+    }
+
+    @Test
+    void testWritesWaitForEachOtherButReadsAndLoginDoNot() throws Exception {
+        CompletableFuture<HttpResponse<String>> slow = sendAsync("POST", "/test/slow-write");
+        assertTrue(writeEntered.await(5, TimeUnit.SECONDS));
+
+        assertEquals(200, send("GET", "/test/items/1", null, null).statusCode());
+        assertEquals(200, send("POST", "/test/unlocked", null, "{}").statusCode());
+        // вхід і реєстрація не чекають на writeLock (тут - відповідь про незаповнені поля)
+        assertEquals(400, send("POST", "/api/login", null, "{}").statusCode());
+        assertEquals(400, send("POST", "/api/register", null, "{}").statusCode());
+
+        CompletableFuture<HttpResponse<String>> queued = sendAsync("POST", "/test/write");
+        assertThrows(TimeoutException.class, () -> queued.get(300, TimeUnit.MILLISECONDS));
+
+        releaseWrite.countDown();
+        assertEquals(200, slow.get(5, TimeUnit.SECONDS).statusCode());
+        assertEquals(200, queued.get(5, TimeUnit.SECONDS).statusCode());
+    }
+}
+
+// ============= SESSION REGISTRY TESTS =============
+class SessionRegistryTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final SessionRegistry registry =
+            new SessionRegistry(Duration.ofMinutes(30), now::get);
+
+    @Test
+    void testSessionsAreIndependent() {
+        Session alice = registry.create(new User("alice", "USER"));
+        Session admin = registry.create(new User("admin", "ADMIN"));
+
+        assertNotEquals(alice.getToken(), admin.getToken());
+        assertEquals("alice", registry.get(alice.getToken()).getUsername());
+        assertTrue(registry.get(admin.getToken()).isAdmin());
+        assertNull(registry.get("unknown"));
+        assertNull(registry.get(null));
+
+        registry.invalidate(alice.getToken());
+        assertNull(registry.get(alice.getToken()));
+        assertNotNull(registry.get(admin.getToken()));
+    }
+
+    @Test
+    void testIdleSessionExpiresAndAccessExtendsIt() {
+        Session active = registry.create(new User("active", "USER"));
+        Session idle = registry.create(new User("idle", "USER"));
+
+        now.addAndGet(Duration.ofMinutes(20).toMillis());
+        assertNotNull(registry.get(active.getToken()));
+
+        now.addAndGet(Duration.ofMinutes(20).toMillis());
+        assertNotNull(registry.get(active.getToken()));
+        assertNull(registry.get(idle.getToken()));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testSweepRemovesOnlyExpired() {
+        registry.create(new User("old", "USER"));
+        now.addAndGet(Duration.ofMinutes(31).toMillis());
+        Session fresh = registry.create(new User("fresh", "USER"));
+
+        assertEquals(1, registry.sweep());
+        assertEquals(1, registry.size());
+        assertSame(fresh, registry.get(fresh.getToken()));
+    }
+}
+
+// ============= PASSWORD HASHER TESTS =============
+class PasswordHasherTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(1_000);
+
+    @Test
+    void testHashIsSaltedAndVerifies() {
+        String first = hasher.hash("Sn0w-pass!");
+        String second = hasher.hash("Sn0w-pass!");
+
+        assertTrue(first.startsWith("pbkdf2-sha256$1000$"));
+        assertNotEquals(first, second);
+        assertTrue(hasher.verify("Sn0w-pass!", first));
+        assertTrue(hasher.verify("Sn0w-pass!", second));
+        assertFalse(hasher.verify("sn0w-pass!", first));
+        assertFalse(hasher.verify(null, first));
+    }
+
+    @Test
+    void testLegacyPlaintextAndCostChangeNeedRehash() {
+        assertTrue(hasher.verify("admin", "admin"));
+        assertFalse(hasher.verify("admin", "Admin"));
+        assertTrue(hasher.needsRehash("admin"));
+
+        String cheap = hasher.hash("admin");
+        assertFalse(hasher.needsRehash(cheap));
+
+        PasswordHasher stronger = new PasswordHasher(2_000);
+        assertTrue(stronger.needsRehash(cheap));
+        // старий хеш перевіряється зі своєю кількістю ітерацій
+        assertTrue(stronger.verify("admin", cheap));
+    }
+
+    @Test
+    void testCorruptedHashIsRejected() {
+        assertFalse(hasher.verify("admin", "pbkdf2-sha256$1000$not-base64!$x"));
+        assertFalse(hasher.verify("admin", "pbkdf2-sha256$abc"));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHasher(10));
+    }
+}
+
+// ============= LOGIN RATE LIMITER TESTS =============
+class LoginRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    // 3 невдалі спроби на ім'я, 1 відновлюється за хвилину; 5 на джерело
+    private final LoginRateLimiter limiter = new LoginRateLimiter(
+            new LoginRateLimiter.Limit(3, 1),
+            new LoginRateLimiter.Limit(5, 1), now::get);
+
+    @Test
+    void testUsernameLockedAfterBurstAndRecovers() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(LoginRateLimiter.Decision.ALLOWED, limiter.tryAcquire("alice", "10.0.0.1"));
+        }
+        assertTrue(limiter.isLocked("ALICE"));
+        assertEquals(LoginRateLimiter.Decision.USER_LIMITED,
+                limiter.tryAcquire("alice", "10.0.0.2"));
+        assertEquals(60_000, limiter.retryAfter("alice", "10.0.0.2").toMillis());
+
+        now.addAndGet(60_000);
+        assertFalse(limiter.isLocked("alice"));
+        assertEquals(LoginRateLimiter.Decision.ALLOWED, limiter.tryAcquire("alice", "10.0.0.2"));
+    }
+
+    @Test
+    void testSourceLimitedAcrossUsernames() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(LoginRateLimiter.Decision.ALLOWED, limiter.tryAcquire("user" + i, "10.0.0.9"));
+        }
+        assertEquals(LoginRateLimiter.Decision.SOURCE_LIMITED,
+                limiter.tryAcquire("victim", "10.0.0.9"));
+        // відхилена за джерелом спроба не витрачає токен імені
+        assertEquals(LoginRateLimiter.Decision.ALLOWED, limiter.tryAcquire("victim", "10.0.0.1"));
+        assertEquals(LoginRateLimiter.Decision.ALLOWED, limiter.tryAcquire("victim", "10.0.0.1"));
+        assertEquals(LoginRateLimiter.Decision.ALLOWED, limiter.tryAcquire("victim", "10.0.0.1"));
+    }
+
+    @Test
+    void testSuccessfulLoginsAreNotCounted() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(LoginRateLimiter.Decision.ALLOWED, limiter.tryAcquire("bob", "local"));
+            limiter.onSuccess("bob", "local");
+        }
+        assertFalse(limiter.isLocked("bob"));
+    }
+
+    @Test
+    void testSweepEvictsIdleBuckets() {
+        limiter.tryAcquire("alice", "10.0.0.1");
+        limiter.tryAcquire("alice", "10.0.0.1");
+        assertEquals(2, limiter.size());
+
+        now.addAndGet(60_000);
+        assertEquals(0, limiter.sweep());
+        now.addAndGet(60_000);
+        assertEquals(2, limiter.sweep());
+        assertEquals(0, limiter.size());
+    }
+
+    @Test
+    void testConcurrentAttemptsNeverExceedBurst() throws Exception {
+        LoginRateLimiter wide = new LoginRateLimiter(
+                new LoginRateLimiter.Limit(50, 1),
+                new LoginRateLimiter.Limit(10_000, 1), now::get);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            pool.submit(() -> {
+                if (wide.tryAcquire("target", "botnet") == LoginRateLimiter.Decision.ALLOWED) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(50, allowed.get());
+    }
+}
+
+// ============= USERNAME INDEX TESTS =============
+class UsernameIndexTest {
+
+    @Test
+    void testExactModeAnswersWithoutDatabase() {
+        UsernameIndex index =
+                UsernameIndex.of(List.of("admin", "user"));
+
+        assertTrue(index.isExact());
+        assertEquals(UsernameIndex.Answer.TAKEN, index.lookup("admin"));
+        assertEquals(UsernameIndex.Answer.FREE, index.lookup("newcomer"));
+        // UNIQUE у SQLite чутливе до регістру - індекс теж
+        assertEquals(UsernameIndex.Answer.FREE, index.lookup("Admin"));
+
+        index.add("newcomer");
+        assertEquals(UsernameIndex.Answer.TAKEN, index.lookup("newcomer"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testBloomOnlyModeHasNoFalseNegatives() {
+        UsernameIndex index = new UsernameIndex(10_000, 100);
+        for (int i = 0; i < 10_000; i++) {
+            index.add("skier" + i);
+        }
+
+        assertFalse(index.isExact());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(UsernameIndex.Answer.MAYBE, index.lookup("skier" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (index.lookup("guest" + i) != UsernameIndex.Answer.FREE) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testSaturation() {
+        UsernameIndex index = new UsernameIndex(0, 10);
+        for (int i = 0; i < 1024; i++) {
+            index.add("u" + i);
+        }
+        assertFalse(index.isSaturated());
+        index.add("one-more");
+        assertTrue(index.isSaturated());
+    }
+}
+
+// ============= CREDENTIAL RULES TESTS =============
+class CredentialRulesTest {
+
+    private final CredentialRules rules = CredentialRules.of(
+            List.of("admin", "Root", "# not a comment here"), List.of("password", "123456", "Password"));
+
+    @Test
+    void testLookupsIgnoreCase() {
+        assertTrue(rules.isReservedUsername("ADMIN"));
+        assertTrue(rules.isReservedUsername("root"));
+        assertFalse(rules.isReservedUsername("administrator"));
+        assertFalse(rules.isReservedUsername(null));
+
+        assertTrue(rules.isWeakPassword("PassWord"));
+        assertTrue(rules.isWeakPassword(null));
+        assertFalse(rules.isWeakPassword("password1"));
+        assertEquals(2, rules.weakPasswordCount());
+    }
+
+    @Test
+    void testLargeDictionary() {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            words.add("leaked" + i);
+        }
+        CredentialRules big = CredentialRules.of(List.of(), words);
+
+        assertEquals(200_000, big.weakPasswordCount());
+        assertTrue(big.isWeakPassword("LEAKED199999"));
+        assertFalse(big.isWeakPassword("leaked200000"));
+    }
+
+    @Test
+    void testCharacterClassesInOnePass() {
+        assertEquals(CredentialRules.LOWER, rules.characterClasses("abc"));
+        assertEquals(CredentialRules.LOWER | CredentialRules.UPPER
+                | CredentialRules.DIGIT, rules.characterClasses("Abc1"));
+        assertTrue(rules.hasVariedCharacters("Sn0w-pass"));
+        assertTrue(rules.hasVariedCharacters("Лижі2024!"));
+        assertFalse(rules.hasVariedCharacters("snowpass1"));
+        assertEquals(0, rules.characterClasses(""));
+    }
+
+    @Test
+    void testBundledLists() {
+        CredentialRules defaults = CredentialRules.defaults();
+        assertTrue(defaults.isReservedUsername("localhost"));
+        assertTrue(defaults.isWeakPassword("QWERTY"));
+        assertFalse(defaults.isWeakPassword("goodpassword"));
+        // коментарі в файлах не стають записами
+        assertEquals(15, defaults.reservedCount());
+        assertEquals(11, defaults.weakPasswordCount());
+    }
+}
+
+// ============= CSV READER TESTS =============
+class CsvReaderTest {
+
+    private static List<String[]> readAll(String csv) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            String[] record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void testQuotedFieldsAndLineEndings() throws Exception {
+        List<String[]> records = readAll(
+                "name,note\r\n\"Kovalenko, Olena\",\"said \"\"hi\"\"\"\r\n\nIvan,\"two\nlines\"\nlast,");
+
+        assertEquals(4, records.size());
+        assertArrayEquals(new String[] { "name", "note" }, records.get(0));
+        assertArrayEquals(new String[] { "Kovalenko, Olena", "said \"hi\"" }, records.get(1));
+        assertArrayEquals(new String[] { "Ivan", "two\nlines" }, records.get(2));
+        assertArrayEquals(new String[] { "last", "" }, records.get(3));
+    }
+
+    @Test
+    void testUnterminatedQuoteFails() {
+        assertThrows(IOException.class, () -> readAll("a,\"broken\n"));
+    }
+
+    @Test
+    void testQuoteRoundTrip() throws Exception {
+        String line = CsvReader.line("plain", "with,comma", "with \"quote\"", null);
+        assertEquals("plain,\"with,comma\",\"with \"\"quote\"\"\",", line);
+        assertArrayEquals(new String[] { "plain", "with,comma", "with \"quote\"", "" }, readAll(line).get(0));
+    }
+
+    @Test
+    void testLargeInputSpansBuffers() throws Exception {
+        StringBuilder csv = new StringBuilder("type,size,total\n");
+        for (int i = 0; i < 20_000; i++) {
+            csv.append("Ski,42,").append(i).append('\n');
+        }
+        List<String[]> records = readAll(csv.toString());
+        assertEquals(20_001, records.size());
+        assertEquals("19999", records.get(20_000)[2]);
+    }
+}
+
+// ============= CSV IMPORTER TESTS =============
+class CsvImporterTest {
+
+    private Path dir;
+    private Path csv;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory("import");
+        csv = dir.resolve("instructors.csv");
+        // запис 1 - заголовок; 4 і 5 відхиляються, на 6 пакет падає, поки діє тригер
+        Files.writeString(csv, String.join("\n", "name", "Anna", "Bohdan", "X".repeat(51), "anna", "Boom",
+                "Dmytro", "Emma") + "\n");
+        Services.openDB(":memory:");
+        try (Statement s = Services.getConnection().createStatement()) {
+            s.execute("CREATE TRIGGER fail_boom BEFORE INSERT ON instructors WHEN NEW.name='Boom' "
+                    + "BEGIN SELECT RAISE(ABORT, 'disk full'); END");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        Services.closeDB();
+        Files.deleteIfExists(CsvImporter.rejectsFile(csv));
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(dir);
+    }
+
+    private static List<String> instructors() throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Statement s = Services.getConnection().createStatement();
+             ResultSet rs = s.executeQuery("SELECT name FROM instructors ORDER BY id")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    private static long rowsDone() throws SQLException {
+        try (Statement s = Services.getConnection().createStatement();
+             ResultSet rs = s.executeQuery("SELECT rows_done FROM import_progress")) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    void testFailedChunkRollsBackAndResumeSkipsCommittedRows() throws Exception {
+        CsvImporter importer = new CsvImporter(Services.getConnection(), 2);
+
+        assertThrows(SQLException.class, () -> importer.importFile(CsvImporter.Kind.INSTRUCTORS, csv, false));
+        // два зафіксовані пакети; третій (Boom, Dmytro) відкочено цілком
+        assertEquals(List.of("Anna", "Bohdan"), instructors());
+        assertEquals(4, rowsDone());
+        assertTrue(Services.getConnection().getAutoCommit());
+        List<String> rejects = Files.readAllLines(CsvImporter.rejectsFile(csv));
+        assertEquals(3, rejects.size());
+        assertEquals("record,name,reason", rejects.get(0));
+        assertTrue(rejects.get(1).startsWith("4,"));
+        assertTrue(rejects.get(2).startsWith("5,anna,Instructor already exists"));
+
+        try (Statement s = Services.getConnection().createStatement()) {
+            s.execute("DROP TRIGGER fail_boom");
+        }
+        CsvImporter.Result result = importer.importFile(CsvImporter.Kind.INSTRUCTORS, csv, false);
+
+        assertEquals(4, result.getSkipped());
+        assertEquals(3, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertEquals(2, result.getChunks());
+        assertEquals(List.of("Anna", "Bohdan", "Boom", "Dmytro", "Emma"), instructors());
+        assertEquals(7, rowsDone());
+        // файл відхилень дописується, а не перезаписується
+        assertEquals(rejects, Files.readAllLines(CsvImporter.rejectsFile(csv)));
+    }
+
+    @Test
+    void testRestartReadsWholeFileWithoutDuplicates() throws Exception {
+        try (Statement s = Services.getConnection().createStatement()) {
+            s.execute("DROP TRIGGER fail_boom");
+        }
+        CsvImporter importer = new CsvImporter(Services.getConnection(), 3);
+
+        CsvImporter.Result first = importer.importFile(CsvImporter.Kind.INSTRUCTORS, csv, false);
+        assertEquals(5, first.getImported());
+        assertEquals(2, first.getRejected());
+        assertEquals(3, first.getChunks());
+
+        // без --restart файл уже пройдено - нічого не читається
+        CsvImporter.Result again = importer.importFile(CsvImporter.Kind.INSTRUCTORS, csv, false);
+        assertEquals(7, again.getSkipped());
+        assertEquals(0, again.getImported() + again.getRejected());
+
+        // --restart перечитує все; імена вже є в БД, тож кожен рядок відхиляється
+        CsvImporter.Result restarted = importer.importFile(CsvImporter.Kind.INSTRUCTORS, csv, true);
+        assertEquals(0, restarted.getSkipped());
+        assertEquals(0, restarted.getImported());
+        assertEquals(7, restarted.getRejected());
+        assertEquals(5, instructors().size());
+        assertEquals(8, Files.readAllLines(CsvImporter.rejectsFile(csv)).size());
+    }
+}
+
+// ============= LEDGER EXPORTER TESTS =============
+class LedgerExporterTest {
+
+    private Connection conn;
+    private PreparedStatement statement;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(conn.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY)))
+                .thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getLong(1)).thenReturn(1L, 2L);
+        when(rs.getString(2)).thenReturn("alice", "Kovalenko, \"O\"");
+        when(rs.getString(3)).thenReturn("booking", "rent_eq");
+        when(rs.getDouble(4)).thenReturn(50.0, -20.0);
+        when(rs.getString(5)).thenReturn("2024-01-15T10:00", "2024-01-16T09:30");
+    }
+
+    @Test
+    void testCsvExportStreamsRows() throws Exception {
+        StringWriter out = new StringWriter();
+        long rows = new LedgerExporter(conn, 500)
+                .export(LedgerExporter.Filter.ALL, LedgerExporter.Format.CSV, out);
+
+        assertEquals(2, rows);
+        assertEquals("id,username,type,amount,time\n"
+                + "1,alice,booking,50.0,2024-01-15T10:00\n"
+                + "2,\"Kovalenko, \"\"O\"\"\",rent_eq,-20.0,2024-01-16T09:30\n", out.toString());
+        verify(statement).setFetchSize(500);
+    }
+
+    @Test
+    void testJsonLinesWithFilters() throws Exception {
+        StringWriter out = new StringWriter();
+        LedgerExporter.Filter filter = new LedgerExporter.Filter(
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), List.of("booking", "rent_eq"));
+        new LedgerExporter(conn, 100).export(filter, LedgerExporter.Format.JSONL, out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":1,\"username\":\"alice\",\"type\":\"booking\",\"amount\":50.0,\"time\":\"2024-01-15T10:00\"}",
+                lines[0]);
+        assertEquals("Kovalenko, \"O\"", Json.parseObject(lines[1]).get("username"));
+
+        verify(conn).prepareStatement(eq("SELECT id, username, type, amount, time FROM trans WHERE 1=1"
+                + " AND time >= ? AND time < ? AND type IN (?,?) ORDER BY id"), anyInt(), anyInt());
+        verify(statement).setString(1, "2024-01-01T00:00");
+        verify(statement).setString(2, "2024-02-01T00:00");
+        verify(statement).setString(3, "booking");
+        verify(statement).setString(4, "rent_eq");
+    }
+}
+
+// ============= TIMER WHEEL TESTS =============
+class TimerWheelTest {
+
+    private final AtomicLong now = new AtomicLong();
+    // 8 кошиків по секунді: тайм-аути довші за оберт перевіряють лічильник обертів
+    private final TimerWheel wheel =
+            new TimerWheel(Duration.ofSeconds(1), 8, now::get);
+
+    private void advanceSeconds(long seconds) {
+        now.addAndGet(Duration.ofSeconds(seconds).toNanos());
+        wheel.advance();
+    }
+
+    @Test
+    void testFiresAfterDelayNotBefore() {
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(() -> fired.add("short"), Duration.ofSeconds(3));
+        wheel.schedule(() -> fired.add("long"), Duration.ofSeconds(20));
+        assertEquals(2, wheel.size());
+
+        advanceSeconds(3);
+        assertTrue(fired.isEmpty());
+        advanceSeconds(1);
+        assertEquals(List.of("short"), fired);
+
+        advanceSeconds(16);
+        assertEquals(List.of("short"), fired);
+        advanceSeconds(1);
+        assertEquals(List.of("short", "long"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testCancelledTimeoutDoesNotFire() {
+        AtomicInteger fired = new AtomicInteger();
+        var before = wheel.schedule(fired::incrementAndGet, Duration.ofSeconds(2));
+        advanceSeconds(1);
+        var after = wheel.schedule(fired::incrementAndGet, Duration.ofSeconds(2));
+
+        assertTrue(before.cancel());
+        assertTrue(after.cancel());
+        assertFalse(after.cancel());
+        assertEquals(0, wheel.size());
+
+        advanceSeconds(5);
+        assertEquals(0, fired.get());
+        assertTrue(before.isCancelled());
+        assertFalse(before.isFired());
+    }
+
+    @Test
+    void testManyTimeoutsAcrossRounds() {
+        AtomicInteger fired = new AtomicInteger();
+        List<TimerWheel.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            timeouts.add(wheel.schedule(fired::incrementAndGet, Duration.ofSeconds(i % 30)));
+        }
+        for (int i = 0; i < timeouts.size(); i += 2) {
+            timeouts.get(i).cancel();
+        }
+
+        advanceSeconds(31);
+        assertEquals(5_000, fired.get());
+        assertEquals(0, wheel.size());
+    }
+}
+
+// ============= CHANGE BUS TESTS =============
+class ChangeBusTest {
+
+    private final ChangeBus bus = new ChangeBus();
+    // executor, що виконує завдання лише на вимогу тесту - як Platform.runLater до наступного кадру
+    private final List<Runnable> queued = new ArrayList<>();
+
+    private void runQueued() {
+        List<Runnable> tasks = new ArrayList<>(queued);
+        queued.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    void testSubscriberReceivesOnlyItsType() {
+        List<Integer> cancelled = new ArrayList<>();
+        bus.subscribe(ChangeEvent.BookingCancelled.class, e -> cancelled.add(e.getBookingId()));
+
+        bus.publish(new ChangeEvent.StockChanged(3, -1, "alice"));
+        bus.publish(new ChangeEvent.BookingCancelled(5, "alice"));
+
+        assertEquals(List.of(5), cancelled);
+    }
+
+    @Test
+    void testBurstIsDeliveredAsOneBatch() {
+        List<List<ChangeEvent>> batches = new ArrayList<>();
+        bus.subscribeBatched(queued::add, batches::add, ChangeEvent.StockChanged.class);
+
+        for (int i = 0; i < 10; i++) {
+            bus.publish(new ChangeEvent.StockChanged(i, -1, "alice"));
+        }
+        bus.publish(new ChangeEvent.BookingCancelled(1, "alice"));
+        assertEquals(1, queued.size());
+        assertTrue(batches.isEmpty());
+
+        runQueued();
+        assertEquals(1, batches.size());
+        assertEquals(10, batches.get(0).size());
+
+        // після доставки наступна подія планує новий пакет
+        bus.publish(new ChangeEvent.StockChanged(1, 1, "alice"));
+        runQueued();
+        assertEquals(2, batches.size());
+        assertEquals(1, batches.get(1).size());
+    }
+
+    @Test
+    void testClosedSubscriptionGetsNothing() {
+        List<List<ChangeEvent>> batches = new ArrayList<>();
+        var subscription = bus.subscribeBatched(queued::add, batches::add);
+
+        bus.publish(new ChangeEvent.BookingCancelled(1, "alice"));
+        subscription.close();
+        subscription.close();
+        runQueued();
+        bus.publish(new ChangeEvent.BookingCancelled(2, "alice"));
+
+        assertTrue(batches.isEmpty());
+        assertTrue(queued.isEmpty());
+        assertEquals(0, bus.subscriberCount());
+    }
+
+    @Test
+    void testFailingSubscriberDoesNotStopOthers() {
+        List<Integer> received = new ArrayList<>();
+        bus.subscribe(ChangeEvent.BookingCancelled.class, e -> {
+            throw new IllegalStateException("boom");
+        });
+        bus.subscribe(ChangeEvent.BookingCancelled.class, e -> received.add(e.getBookingId()));
+
+        assertDoesNotThrow(() -> bus.publish(new ChangeEvent.BookingCancelled(4, "alice")));
+        assertEquals(List.of(4), received);
+    }
+}
+
+// ============= REFRESH SCHEDULER TESTS =============
+class RefreshSchedulerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final TimerWheel wheel =
+            new TimerWheel(Duration.ofMillis(10), 64, now::get);
+    // debounce 100 мс, не частіше ніж раз на секунду
+    private final RefreshScheduler scheduler = new RefreshScheduler(
+            Duration.ofMillis(100), Duration.ofSeconds(1), Runnable::run, wheel, now::get);
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(Duration.ofMillis(millis).toNanos());
+        wheel.advance();
+    }
+
+    @Test
+    void testBurstRunsOnlyLatestRefreshOnce() {
+        List<String> runs = new ArrayList<>();
+        scheduler.request("dashboard", () -> runs.add("first"));
+        scheduler.request("dashboard", () -> runs.add("second"));
+        scheduler.request("dashboard", () -> runs.add("third"));
+        assertEquals(1, scheduler.pending());
+
+        advanceMillis(50);
+        assertTrue(runs.isEmpty());
+        advanceMillis(60);
+        assertEquals(List.of("third"), runs);
+        assertEquals(0, scheduler.pending());
+    }
+
+    @Test
+    void testRefreshesAreSpacedByMinInterval() {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.request("dashboard", runs::incrementAndGet);
+        advanceMillis(110);
+        assertEquals(1, runs.get());
+
+        scheduler.request("dashboard", runs::incrementAndGet);
+        advanceMillis(500);
+        assertEquals(1, runs.get());
+        advanceMillis(510);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void testViewsAreIndependent() {
+        List<String> runs = new ArrayList<>();
+        scheduler.request("dashboard", () -> runs.add("dashboard"));
+        scheduler.request("equipment", () -> runs.add("equipment"));
+        assertEquals(2, scheduler.pending());
+
+        advanceMillis(110);
+        assertEquals(2, runs.size());
+        assertTrue(runs.containsAll(List.of("dashboard", "equipment")));
+    }
+
+    @Test
+    void testClosedSchedulerRunsNothing() {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.request("dashboard", runs::incrementAndGet);
+        scheduler.close();
+        advanceMillis(200);
+        assertEquals(0, runs.get());
+    }
+}
+
+// ============= STARTUP TRACER TESTS =============
+class StartupTracerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final StartupTracer tracer = new StartupTracer(420, now::get);
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(Duration.ofMillis(millis).toNanos());
+    }
+
+    @Test
+    void testOverlappingPhasesKeepTheirOffsets() {
+        var db = tracer.phase("db.init");
+        advanceMillis(10);
+        try (var login = tracer.phase("ui.login")) {
+            advanceMillis(30);
+        }
+        advanceMillis(20);
+        db.close();
+        db.close();
+
+        assertEquals(60, tracer.finish() / 1_000_000);
+        List<StartupTracer.Phase> phases = tracer.getPhases();
+        assertEquals(60, phases.get(0).getDurationNanos() / 1_000_000);
+        assertEquals(10, phases.get(1).getOffsetNanos() / 1_000_000);
+        assertEquals(30, phases.get(1).getDurationNanos() / 1_000_000);
+
+        String report = tracer.report();
+        assertTrue(report.startsWith("total=60ms, jvm=420ms"), report);
+        assertTrue(report.indexOf("db.init=60ms") < report.indexOf("ui.login=30ms (+10ms"), report);
+    }
+
+    @Test
+    void testUnfinishedPhaseIsReported() {
+        tracer.phase("db.init");
+        advanceMillis(5);
+        String report = tracer.report();
+        assertTrue(report.contains("total=-1ms"), report);
+        assertTrue(report.contains("db.init=-1ms"), report);
+    }
+}
+
+// ============= LEDGER PARTITION TESTS =============
+class LedgerPartitionsTest {
+
+    private static LedgerPartitions.Archive archive(int month) {
+        YearMonth ym = YearMonth.of(2024, month);
+        return new LedgerPartitions.Archive(Paths.get("trans-" + ym + ".db"), ym,
+                ym.atDay(1).atTime(9, 0), ym.atEndOfMonth().atTime(18, 0), 100);
+    }
+
+    @Test
+    void testRangeQueryOpensOnlyOverlappingArchives() {
+        List<LedgerPartitions.Archive> archives = List.of(archive(1), archive(2), archive(3));
+
+        List<LedgerPartitions.Archive> february = LedgerPartitions.overlapping(
+                archives, LocalDateTime.of(2024, 2, 10, 0, 0), LocalDateTime.of(2024, 2, 17, 0, 0));
+        assertEquals(List.of(archives.get(1)), february);
+
+        // межа to не включається, from - включається
+        assertEquals(List.of(archives.get(0)), LedgerPartitions.overlapping(
+                archives, LocalDateTime.of(2023, 12, 1, 0, 0), LocalDateTime.of(2024, 2, 1, 9, 0)));
+        assertEquals(List.of(archives.get(2)), LedgerPartitions.overlapping(
+                archives, LocalDateTime.of(2024, 3, 31, 18, 0), null));
+        assertTrue(LedgerPartitions.overlapping(
+                archives, LocalDateTime.of(2024, 4, 1, 0, 0), null).isEmpty());
+        assertEquals(archives, LedgerPartitions.overlapping(archives, null, null));
+    }
+
+    @Test
+    void testArchivedMonthsStayVisibleToQueries() throws Exception {
+        Path dir = Files.createTempDirectory("ledger");
+        String db = dir.resolve("skiservice.db").toString();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        LocalDateTime old = now.minusMonths(3).withDayOfMonth(5);
+        try {
+            Services.initDB(db);
+            // транзакції із заднім числом отримують більші id, ніж поточна
+            Services.TransactionService.log("alice", "lesson", 40.0, now);
+            Services.TransactionService.log("alice", "booking", 50.0, old);
+            Services.TransactionService.log("bob", "rent_eq", 20.0, old.plusDays(1));
+
+            LedgerPartitions ledger = Services.ledger();
+            List<LedgerPartitions.Archive> created = new LedgerArchiver(ledger)
+                    .archiveBefore(YearMonth.from(now));
+            assertEquals(1, created.size());
+            assertEquals(2, created.get(0).getRows());
+            try (Connection archive = ledger.open(created.get(0));
+                 Statement s = archive.createStatement()) {
+                assertThrows(SQLException.class, () -> s.executeUpdate("DELETE FROM trans"));
+            }
+
+            // у trans лишився тільки поточний місяць, але listAll бачить усе в порядку id
+            List<Transaction> all = Services.TransactionService.listAll();
+            assertEquals(List.of(1, 2, 3), all.stream().map(Transaction::getId).toList());
+            assertEquals(1, Services.TransactionService.listBetween(
+                    now.toLocalDate().atStartOfDay(), null).size());
+            assertEquals(2, Services.TransactionService.listBetween(
+                    old.toLocalDate().atStartOfDay(), old.plusDays(2)).size());
+
+            // найбільші id перенесено в архів, але нові їх не повторюють
+            Services.TransactionService.log("bob", "booking", 10.0, now);
+            List<Transaction> today = Services.TransactionService.listBetween(now.toLocalDate().atStartOfDay(), null);
+            assertEquals(List.of(1, 4), today.stream().map(Transaction::getId).toList());
+        } finally {
+            Services.closeDB();
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    file.toFile().setWritable(true);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+}